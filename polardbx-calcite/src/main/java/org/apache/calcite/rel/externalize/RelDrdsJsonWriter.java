@@ -123,6 +123,9 @@ public class RelDrdsJsonWriter implements RelWriter {
                 if (sketch.getSpillCnt() > 0) {
                     node.put("spill count = ", sketch.getSpillCnt());
                 }
+                if (sketch.getJoinSwitchCnt() > 0) {
+                    node.put("switched_to_hash_join", sketch.getJoinSwitchCnt());
+                }
 
                 node.put("instances", sketch.getInstances());
             }
@@ -199,6 +199,9 @@ public class RelDrdsWriter implements RelWriter {
                 if (sketch.getSpillCnt() > 0) {
                     s.append(", spill count = ").append(sketch.getSpillCnt());
                 }
+                if (sketch.getJoinSwitchCnt() > 0) {
+                    s.append(", switched to hash join = ").append(sketch.getJoinSwitchCnt());
+                }
 
                 s.append(", instances = ").append(sketch.getInstances());
             }
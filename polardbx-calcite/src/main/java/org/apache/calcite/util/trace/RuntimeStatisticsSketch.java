@@ -69,6 +69,11 @@ public class RuntimeStatisticsSketch {
      */
     protected final int spillCnt;
 
+    /**
+     * Count the runtime switches of join algorithm
+     */
+    protected int joinSwitchCnt;
+
     public RuntimeStatisticsSketch(double startupDuration, double duration, double workerDuration, long rowCount,
                                    long runtimeFilteredRowCount,
                                    long outputBytes, long memory, int instances, int spillCnt) {
@@ -118,4 +123,12 @@ public class RuntimeStatisticsSketch {
     public int getSpillCnt() {
         return spillCnt;
     }
+
+    public int getJoinSwitchCnt() {
+        return joinSwitchCnt;
+    }
+
+    public void setJoinSwitchCnt(int joinSwitchCnt) {
+        this.joinSwitchCnt = joinSwitchCnt;
+    }
 }
@@ -82,4 +82,11 @@ public interface ITConnection extends AutoCloseable {
         return null;
     }
 
+    /**
+     * 本会话最近一次提交非只读事务完成时的 System.nanoTime(), 没有提交过时返回 null
+     */
+    default Long getLastCommitNanos() {
+        return null;
+    }
+
 }
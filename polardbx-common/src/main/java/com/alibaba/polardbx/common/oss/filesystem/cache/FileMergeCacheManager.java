@@ -46,6 +46,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Range;
 import com.google.common.collect.RangeMap;
 import com.google.common.collect.TreeRangeMap;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.airlift.slice.DataSize;
 import io.airlift.slice.SizeOf;
 import io.airlift.slice.Slice;
@@ -53,14 +54,19 @@ import org.apache.hadoop.fs.Path;
 import org.eclipse.jetty.util.ConcurrentHashSet;
 
 import java.io.Closeable;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
-import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -100,6 +106,8 @@ public class FileMergeCacheManager implements CacheManager {
 
     private static final int FILE_MERGE_BUFFER_SIZE = toIntExact(new DataSize(8, MEGABYTE).toBytes());
 
+    private static final int MAX_OPEN_CACHE_FILES = 1024;
+
     // for generation of packet.
     private static final int CACHE_STATS_FIELD_COUNT = 13;
 
@@ -120,6 +128,19 @@ public class FileMergeCacheManager implements CacheManager {
     private long maxSizeOfCompressedBytes;
     private CacheStats compressedBytesCacheStats = new CacheStats();
 
+    // Opened channels of local cache files, closed when evicted or the file is deleted.
+    private final Cache<LocalCacheFile, FileChannel> openChannels = CacheBuilder.newBuilder()
+        .maximumSize(MAX_OPEN_CACHE_FILES)
+        .removalListener((RemovalListener<LocalCacheFile, FileChannel>) notification -> {
+            try {
+                notification.getValue().close();
+            } catch (IOException e) {
+                // ignore
+                log.debug(notification.getKey().getPath().toUri().getPath(), e);
+            }
+        })
+        .build();
+
     // CacheScope identifier to its cached files mapping
     private final Map<Long, Set<Path>> cacheScopeFiles = new ConcurrentHashMap<>();
     private final Map<Long, Long> cacheScopeSizeInBytes = new ConcurrentHashMap<>();
@@ -381,6 +402,7 @@ public class FileMergeCacheManager implements CacheManager {
         if (this.compressedBytesCacheStats != null) {
             this.compressedBytesCacheStats.reset();
         }
+        openChannels.invalidateAll();
     }
 
     private boolean read(FileReadRequest request, byte[] buffer, int offset) {
@@ -437,19 +459,49 @@ public class FileMergeCacheManager implements CacheManager {
             readLock.unlock();
         }
 
-        try (RandomAccessFile file = new RandomAccessFile(new File(cacheFile.getPath().toUri()), "r")) {
-            file.seek(request.getOffset() - cacheFile.getOffset());
-            file.readFully(buffer, offset, request.getLength());
-            cacheFile.incrementCacheHit();
-            return true;
-        } catch (FileNotFoundException e) {
-            // there might be a change the file has been deleted
-            log.warn(String.format("No such file or directory %s", cacheFile.getPath().getName()));
-            deleteNotExistFile(cacheRange, range);
-            return false;
-        } catch (IOException e) {
-            // there might be a change the file has been deleted
-            return false;
+        final LocalCacheFile targetFile = cacheFile;
+        for (int attempt = 0; ; attempt++) {
+            FileChannel channel = null;
+            try {
+                channel = openChannels.get(targetFile,
+                    () -> FileChannel.open(new File(targetFile.getPath().toUri()).toPath(), StandardOpenOption.READ));
+                readFully(channel, request.getOffset() - cacheFile.getOffset(), buffer, offset, request.getLength());
+                cacheFile.incrementCacheHit();
+                return true;
+            } catch (ExecutionException | UncheckedExecutionException e) {
+                if (e.getCause() instanceof NoSuchFileException) {
+                    // there might be a change the file has been deleted
+                    log.warn(String.format("No such file or directory %s", cacheFile.getPath().getName()));
+                    deleteNotExistFile(cacheRange, range);
+                }
+                return false;
+            } catch (ClosedChannelException e) {
+                // The shared channel was closed by an interrupted reader or a concurrent deletion.
+                // Only drop this instance, a reader may have already put a fresh one.
+                openChannels.asMap().remove(targetFile, channel);
+                if (attempt > 0 || Thread.currentThread().isInterrupted()) {
+                    // an interrupted thread would close the fresh channel as well
+                    return false;
+                }
+            } catch (IOException e) {
+                openChannels.asMap().remove(targetFile, channel);
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Positional read, so that concurrent readers can share one channel.
+     */
+    private static void readFully(FileChannel channel, long position, byte[] buffer, int offset, int length)
+        throws IOException {
+        ByteBuffer target = ByteBuffer.wrap(buffer, offset, length);
+        while (target.hasRemaining()) {
+            int bytesRead = channel.read(target, position);
+            if (bytesRead < 0) {
+                throw new EOFException("unexpected end of cache file");
+            }
+            position += bytesRead;
         }
     }
 
@@ -457,7 +509,11 @@ public class FileMergeCacheManager implements CacheManager {
         Lock readLock = cacheRange.getLock().readLock();
         readLock.lock();
         try {
+            LocalCacheFile file = cacheRange.getRange().get(range.lowerEndpoint());
             cacheRange.getRange().remove(range);
+            if (file != null) {
+                openChannels.invalidate(file);
+            }
         } finally {
             readLock.unlock();
         }
@@ -650,6 +706,7 @@ public class FileMergeCacheManager implements CacheManager {
         // The case of invalidating compressed bytes cache:
         //  Merge previous or following files of given new file.
         localCacheFileToDelete.forEach(compressedBytesCache::invalidate);
+        localCacheFileToDelete.forEach(openChannels::invalidate);
         cacheFilesToDelete.forEach(FileMergeCacheManager::tryDeleteFile);
         return true;
     }
@@ -852,6 +909,7 @@ public class FileMergeCacheManager implements CacheManager {
                     // The case of invalidating compressed bytes cache:
                     //  Remove the physical file of the local cache file.
                     compressedBytesCache.invalidate(file);
+                    openChannels.invalidate(file);
 
                     try {
                         Files.delete(new File(file.getPath().toUri()).toPath());
@@ -924,4 +982,9 @@ public class FileMergeCacheManager implements CacheManager {
     public Path getBaseDirectory() {
         return baseDirectory;
     }
+
+    @VisibleForTesting
+    Cache<LocalCacheFile, FileChannel> getOpenChannels() {
+        return openChannels;
+    }
 }
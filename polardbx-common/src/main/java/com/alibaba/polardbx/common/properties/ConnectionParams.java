@@ -1284,6 +1284,19 @@ public class ConnectionParams {
         new IntConfigParam(ConnectionProperties.PHYSICAL_TABLE_BACKFILL_PARALLELISM,
             -1, 64, 4, false);
 
+    public static final BooleanConfigParam ENABLE_BACKFILL_ADAPTIVE_BATCH =
+        new BooleanConfigParam(ConnectionProperties.ENABLE_BACKFILL_ADAPTIVE_BATCH,
+            true,
+            false);
+
+    public static final LongConfigParam BACKFILL_SHARD_TARGET_LATENCY =
+        new LongConfigParam(ConnectionProperties.BACKFILL_SHARD_TARGET_LATENCY,
+            1L, Long.MAX_VALUE, 2000L, false);
+
+    public static final IntConfigParam BACKFILL_SHARD_MAX_INFLIGHT =
+        new IntConfigParam(ConnectionProperties.BACKFILL_SHARD_MAX_INFLIGHT,
+            1, 1024, 8, false);
+
     /**
      * physcial table start split size for backfill
      */
@@ -1769,6 +1782,15 @@ public class ConnectionParams {
         false
     );
 
+    /**
+     * fastchecker's range partitioned merkle summary
+     */
+    public static final BooleanConfigParam FASTCHECKER_ENABLE_MERKLE = new BooleanConfigParam(
+        ConnectionProperties.FASTCHECKER_ENABLE_MERKLE,
+        true,
+        false
+    );
+
     /**
      * import table
      */
@@ -2069,12 +2091,21 @@ public class ConnectionParams {
     public static final IntConfigParam AGG_MIN_HASH_TABLE_FACTOR = new IntConfigParam(
         ConnectionProperties.AGG_MIN_HASH_TABLE_FACTOR, 1, 128, 1, true);
 
+    public static final BooleanConfigParam ENABLE_PARALLEL_HASH_AGG = new BooleanConfigParam(
+        ConnectionProperties.ENABLE_PARALLEL_HASH_AGG, false, true);
+
     public static final BooleanConfigParam ENABLE_HASH_WINDOW = new BooleanConfigParam(
         ConnectionProperties.ENABLE_HASH_WINDOW, true, true);
 
     public static final BooleanConfigParam ENABLE_SORT_WINDOW = new BooleanConfigParam(
         ConnectionProperties.ENABLE_SORT_WINDOW, true, true);
 
+    public static final BooleanConfigParam ENABLE_NORMALIZED_KEY_SORT = new BooleanConfigParam(
+        ConnectionProperties.ENABLE_NORMALIZED_KEY_SORT, true, true);
+
+    public static final BooleanConfigParam ENABLE_SORTED_RUN_MERGE = new BooleanConfigParam(
+        ConnectionProperties.ENABLE_SORTED_RUN_MERGE, true, true);
+
     public static final IntConfigParam PARALLELISM = new IntConfigParam(
         ConnectionProperties.PARALLELISM, -1, Integer.MAX_VALUE, -1, true);
 
@@ -2162,6 +2193,18 @@ public class ConnectionParams {
     public static final IntConfigParam LOOKUP_JOIN_MIN_BATCH_SIZE = new IntConfigParam(
         ConnectionProperties.LOOKUP_JOIN_MIN_BATCH_SIZE, 10, 300, 100, false);
 
+    public static final BooleanConfigParam ENABLE_ADAPTIVE_LOOKUP_JOIN = new BooleanConfigParam(
+        ConnectionProperties.ENABLE_ADAPTIVE_LOOKUP_JOIN, false, true);
+
+    public static final LongConfigParam ADAPTIVE_LOOKUP_JOIN_ROW_THRESHOLD = new LongConfigParam(
+        ConnectionProperties.ADAPTIVE_LOOKUP_JOIN_ROW_THRESHOLD, 1L, Long.MAX_VALUE, 100000L, true);
+
+    public static final LongConfigParam ADAPTIVE_LOOKUP_JOIN_BYTE_THRESHOLD = new LongConfigParam(
+        ConnectionProperties.ADAPTIVE_LOOKUP_JOIN_BYTE_THRESHOLD, 1L, Long.MAX_VALUE, 64L * 1024 * 1024, true);
+
+    public static final LongConfigParam ADAPTIVE_LOOKUP_JOIN_MAX_BUILD_ROWS = new LongConfigParam(
+        ConnectionProperties.ADAPTIVE_LOOKUP_JOIN_MAX_BUILD_ROWS, 0L, Long.MAX_VALUE, 1000000L, true);
+
     public static final IntConfigParam CHUNK_SIZE = new IntConfigParam(
         ConnectionProperties.CHUNK_SIZE, 10, 100000, 1000, true);
 
@@ -2433,6 +2476,22 @@ public class ConnectionParams {
     public static final IntConfigParam PLAN_CACHE_SIZE =
         new IntConfigParam(ConnectionProperties.PLAN_CACHE_SIZE, 0, Integer.MAX_VALUE, 4000, true);
 
+    public static final BooleanConfigParam ENABLE_PLAN_CACHE_WARM_UP = new BooleanConfigParam(
+        ConnectionProperties.ENABLE_PLAN_CACHE_WARM_UP, false, true);
+
+    public static final IntConfigParam PLAN_CACHE_WARM_UP_SIZE =
+        new IntConfigParam(ConnectionProperties.PLAN_CACHE_WARM_UP_SIZE, 0, Integer.MAX_VALUE, 500, true);
+
+    public static final IntConfigParam PLAN_CACHE_WARM_UP_PARALLELISM =
+        new IntConfigParam(ConnectionProperties.PLAN_CACHE_WARM_UP_PARALLELISM, 1, 64, 4, true);
+
+    public static final LongConfigParam PLAN_CACHE_WARM_UP_TIMEOUT =
+        new LongConfigParam(ConnectionProperties.PLAN_CACHE_WARM_UP_TIMEOUT, 0L, Long.MAX_VALUE, 60000L, true);
+
+    public static final LongConfigParam PLAN_CACHE_SNAPSHOT_INTERVAL =
+        new LongConfigParam(ConnectionProperties.PLAN_CACHE_SNAPSHOT_INTERVAL, 10000L, Long.MAX_VALUE, 300000L,
+            true);
+
     /**
      * CoronaDB PlanCache
      */
@@ -2487,6 +2546,15 @@ public class ConnectionParams {
     public static final BooleanConfigParam MPP_TASK_LOCAL_BUFFER_ENABLED = new BooleanConfigParam(
         ConnectionProperties.MPP_TASK_LOCAL_BUFFER_ENABLED, true, true);
 
+    public static final StringConfigParam MPP_EXCHANGE_COMPRESSION = new StringConfigParam(
+        ConnectionProperties.MPP_EXCHANGE_COMPRESSION, "NONE", true);
+
+    public static final BooleanConfigParam MPP_EXCHANGE_ADAPTIVE_COMPRESSION = new BooleanConfigParam(
+        ConnectionProperties.MPP_EXCHANGE_ADAPTIVE_COMPRESSION, true, true);
+
+    public static final BooleanConfigParam MPP_EXCHANGE_STREAMING = new BooleanConfigParam(
+        ConnectionProperties.MPP_EXCHANGE_STREAMING, true, true);
+
     public static final BooleanConfigParam MPP_QUERY_PHASED_EXEC_SCHEDULE_ENABLE = new BooleanConfigParam(
         ConnectionProperties.MPP_QUERY_PHASED_EXEC_SCHEDULE_ENABLE, false, true);
 
@@ -3791,6 +3859,9 @@ public class ConnectionParams {
     public static final BooleanConfigParam ENABLE_OSS_BUFFER_POOL = new BooleanConfigParam(
         ConnectionProperties.ENABLE_OSS_BUFFER_POOL, false, true);
 
+    public static final BooleanConfigParam ENABLE_OSS_STRIPE_PREFETCH = new BooleanConfigParam(
+        ConnectionProperties.ENABLE_OSS_STRIPE_PREFETCH, false, true);
+
     public static final BooleanConfigParam ENABLE_OSS_DELAY_MATERIALIZATION = new BooleanConfigParam(
         ConnectionProperties.ENABLE_OSS_DELAY_MATERIALIZATION, false, true);
 
@@ -4315,6 +4386,12 @@ public class ConnectionParams {
         true
     );
 
+    public static final BooleanConfigParam ENABLE_BATCH_PROBE_JOIN = new BooleanConfigParam(
+        ConnectionProperties.ENABLE_BATCH_PROBE_JOIN,
+        true,
+        true
+    );
+
     public static final BooleanConfigParam ENABLE_LOCAL_EXCHANGE_BATCH = new BooleanConfigParam(
         ConnectionProperties.ENABLE_LOCAL_EXCHANGE_BATCH,
         true,
@@ -4356,6 +4433,28 @@ public class ConnectionParams {
         true
     );
 
+    public static final LongConfigParam BLOCK_CACHE_OFF_HEAP_SIZE = new LongConfigParam(
+        ConnectionProperties.BLOCK_CACHE_OFF_HEAP_SIZE,
+        0L,
+        Long.MAX_VALUE,
+        0L,
+        true
+    );
+
+    public static final StringConfigParam BLOCK_CACHE_OFF_HEAP_FILE = new StringConfigParam(
+        ConnectionProperties.BLOCK_CACHE_OFF_HEAP_FILE,
+        "",
+        true
+    );
+
+    public static final FloatConfigParam BLOCK_CACHE_TABLE_QUOTA_RATIO = new FloatConfigParam(
+        ConnectionProperties.BLOCK_CACHE_TABLE_QUOTA_RATIO,
+        .01f,
+        1f,
+        .3f,
+        true
+    );
+
     public static final BooleanConfigParam ENABLE_BLOCK_BUILDER_BATCH_WRITING = new BooleanConfigParam(
         ConnectionProperties.ENABLE_BLOCK_BUILDER_BATCH_WRITING,
         true,
@@ -4690,6 +4789,20 @@ public class ConnectionParams {
         true
     );
 
+    public static final BooleanConfigParam ENABLE_NEW_RF_ROW_GROUP_PRUNING = new BooleanConfigParam(
+        ConnectionProperties.ENABLE_NEW_RF_ROW_GROUP_PRUNING,
+        true,
+        true
+    );
+
+    public static final IntConfigParam NEW_RF_WAIT_TIME_MS = new IntConfigParam(
+        ConnectionProperties.NEW_RF_WAIT_TIME_MS,
+        0,
+        10000,
+        50,
+        true
+    );
+
     public static final BooleanConfigParam ENABLE_LBAC = new BooleanConfigParam(
         ConnectionProperties.ENABLE_LBAC,
         false,
@@ -563,6 +563,26 @@ public class ConnectionProperties {
 
     public static final String LOOKUP_JOIN_MIN_BATCH_SIZE = "LOOKUP_JOIN_MIN_BATCH_SIZE";
 
+    /**
+     * Allow lookup join to switch to a full hash build of inner side at runtime
+     */
+    public static final String ENABLE_ADAPTIVE_LOOKUP_JOIN = "ENABLE_ADAPTIVE_LOOKUP_JOIN";
+
+    /**
+     * Outer rows to see before lookup join decides whether to switch to hash build
+     */
+    public static final String ADAPTIVE_LOOKUP_JOIN_ROW_THRESHOLD = "ADAPTIVE_LOOKUP_JOIN_ROW_THRESHOLD";
+
+    /**
+     * Outer bytes to see before lookup join decides whether to switch to hash build
+     */
+    public static final String ADAPTIVE_LOOKUP_JOIN_BYTE_THRESHOLD = "ADAPTIVE_LOOKUP_JOIN_BYTE_THRESHOLD";
+
+    /**
+     * Max estimated row count of inner table that lookup join can build hash table from
+     */
+    public static final String ADAPTIVE_LOOKUP_JOIN_MAX_BUILD_ROWS = "ADAPTIVE_LOOKUP_JOIN_MAX_BUILD_ROWS";
+
     public static final String COLD_HOT_LIMIT_COUNT = "COLD_HOT_LIMIT_COUNT";
 
     public static final String ALLOW_EXTRA_READ_CONN = "ALLOW_EXTRA_READ_CONN";
@@ -899,10 +919,26 @@ public class ConnectionProperties {
 
     public static final String AGG_MIN_HASH_TABLE_FACTOR = "AGG_MIN_HASH_TABLE_FACTOR";
 
+    /**
+     * Pre-aggregate in every driver and merge hash-partitioned partial states in parallel,
+     * instead of repartitioning the raw input by group keys
+     */
+    public static final String ENABLE_PARALLEL_HASH_AGG = "ENABLE_PARALLEL_HASH_AGG";
+
     public static final String ENABLE_HASH_WINDOW = "ENABLE_HASH_WINDOW";
 
     public static final String ENABLE_SORT_WINDOW = "ENABLE_SORT_WINDOW";
 
+    /**
+     * 排序键均为数值类型时使用归一化键排序
+     */
+    public static final String ENABLE_NORMALIZED_KEY_SORT = "ENABLE_NORMALIZED_KEY_SORT";
+
+    /**
+     * 外排时使用败者树归并落盘的有序 run
+     */
+    public static final String ENABLE_SORTED_RUN_MERGE = "ENABLE_SORTED_RUN_MERGE";
+
     /**
      * enable push join default true
      */
@@ -1108,6 +1144,21 @@ public class ConnectionProperties {
 
     public static final String SLIDE_WINDOW_SPLIT_SIZE = "SLIDE_WINDOW_SPLIT_SIZE";
 
+    /**
+     * 按物理库自适应调整回填批大小与并发
+     */
+    public static final String ENABLE_BACKFILL_ADAPTIVE_BATCH = "ENABLE_BACKFILL_ADAPTIVE_BATCH";
+
+    /**
+     * 回填单批的目标耗时(毫秒), 超过后减半批大小与并发
+     */
+    public static final String BACKFILL_SHARD_TARGET_LATENCY = "BACKFILL_SHARD_TARGET_LATENCY";
+
+    /**
+     * 单个物理库同时回填的物理表数上限
+     */
+    public static final String BACKFILL_SHARD_MAX_INFLIGHT = "BACKFILL_SHARD_MAX_INFLIGHT";
+
     /**
      * check target table after scaleout's backfill
      */
@@ -1149,6 +1200,11 @@ public class ConnectionProperties {
      */
     public static final String FASTCHECKER_MAX_SAMPLE_PERCENTAGE = "FASTCHECKER_MAX_SAMPLE_PERCENTAGE";
 
+    /**
+     * fastchecker 按主键区间构建 Merkle 摘要, 不一致时定位到区间, 同一 DDL 任务内复核只重算不一致的区间
+     */
+    public static final String FASTCHECKER_ENABLE_MERKLE = "FASTCHECKER_ENABLE_MERKLE";
+
     /**
      * when fastchecker check table by batch, we limit the max sample size
      */
@@ -1771,6 +1827,26 @@ public class ConnectionProperties {
 
     public static final String MPP_TASK_LOCAL_BUFFER_ENABLED = "MPP_TASK_LOCAL_BUFFER_ENABLED";
 
+    /**
+     * Codec of remote exchange pages: NONE, LZ4 or ZSTD.
+     */
+    public static final String MPP_EXCHANGE_COMPRESSION = "MPP_EXCHANGE_COMPRESSION";
+
+    /**
+     * Stop compressing exchange pages for a while when the sampled ratio does not pay off.
+     */
+    public static final String MPP_EXCHANGE_ADAPTIVE_COMPRESSION = "MPP_EXCHANGE_ADAPTIVE_COMPRESSION";
+
+    /**
+     * Pull remote exchange pages over the persistent binary stream instead of HTTP polling.
+     */
+    public static final String MPP_EXCHANGE_STREAMING = "MPP_EXCHANGE_STREAMING";
+
+    /**
+     * Port of the binary exchange stream relative to the mpp http port, 0 disables the stream server.
+     */
+    public static final String MPP_EXCHANGE_STREAM_PORT_OFFSET = "MPP_EXCHANGE_STREAM_PORT_OFFSET";
+
     public static final String MPP_TABLESCAN_DS_MAX_SIZE = "MPP_TABLESCAN_DS_MAX_SIZE";
 
     public static final String MPP_TABLESCAN_CONNECTION_STRATEGY = "MPP_TABLESCAN_CONNECTION_STRATEGY";
@@ -1843,6 +1919,11 @@ public class ConnectionProperties {
     public static final String MAX_QUERY_SPILL_SPACE_THRESHOLD = "MAX_QUERY_SPILL_SPACE_THRESHOLD";
 
     public static final String MPP_MAX_SPILL_FD_THRESHOLD = "MPP_MAX_SPILL_FD_THRESHOLD";
+
+    /**
+     * 落盘数据的压缩算法: NONE, LZ4 或 ZSTD
+     */
+    public static final String MPP_SPILL_COMPRESSION = "MPP_SPILL_COMPRESSION";
     public static final String HYBRID_HASH_JOIN_BUCKET_NUM = "HYBRID_HASH_JOIN_BUCKET_NUM";
     public static final String HYBRID_HASH_JOIN_RECURSIVE_BUCKET_NUM = "HYBRID_HASH_JOIN_RECURSIVE_BUCKET_NUM";
     public static final String HYBRID_HASH_JOIN_MAX_RECURSIVE_DEPTH = "HYBRID_HASH_JOIN_MAX_RECURSIVE_DEPTH";
@@ -2267,6 +2348,10 @@ public class ConnectionProperties {
     public static final String FILE_STORAGE_TASK_PARALLELISM = "FILE_STORAGE_TASK_PARALLELISM";
     public static final String ENABLE_FILE_STORE_CHECK_TABLE = "ENABLE_FILE_STORE_CHECK_TABLE";
     public static final String ENABLE_OSS_BUFFER_POOL = "ENABLE_OSS_BUFFER_POOL";
+    /**
+     * 顺序扫描 ORC 文件时预取下一个 stripe 范围到本地缓存, 会读取 stripe 内的全部列
+     */
+    public static final String ENABLE_OSS_STRIPE_PREFETCH = "ENABLE_OSS_STRIPE_PREFETCH";
     public static final String ENABLE_OSS_DELAY_MATERIALIZATION = "ENABLE_OSS_DELAY_MATERIALIZATION";
     public static final String ENABLE_OSS_ZERO_COPY = "ENABLE_OSS_ZERO_COPY";
     public static final String ENABLE_OSS_COMPATIBLE = "ENABLE_OSS_COMPATIBLE";
@@ -2498,6 +2583,28 @@ public class ConnectionProperties {
      */
     public static final String LEARNER_LEVEL = "LEARNER_LEVEL";
     public static final String PLAN_CACHE_SIZE = "PLAN_CACHE_SIZE";
+
+    /**
+     * 定期将热点 SQL 模板(参数化 SQL 及参数类型)快照到 metadb, CN 启动时在服务端口监听前预先生成执行计划, 默认关闭
+     */
+    public static final String ENABLE_PLAN_CACHE_WARM_UP = "ENABLE_PLAN_CACHE_WARM_UP";
+
+    /**
+     * 快照及预热的模板数
+     */
+    public static final String PLAN_CACHE_WARM_UP_SIZE = "PLAN_CACHE_WARM_UP_SIZE";
+
+    public static final String PLAN_CACHE_WARM_UP_PARALLELISM = "PLAN_CACHE_WARM_UP_PARALLELISM";
+
+    /**
+     * 启动预热(含初始化快照涉及的库)的最长时间(ms), 超时后跳过剩余的模板并继续启动
+     */
+    public static final String PLAN_CACHE_WARM_UP_TIMEOUT = "PLAN_CACHE_WARM_UP_TIMEOUT";
+
+    /**
+     * 快照间隔(ms)
+     */
+    public static final String PLAN_CACHE_SNAPSHOT_INTERVAL = "PLAN_CACHE_SNAPSHOT_INTERVAL";
     public static final String ENABLE_X_PROTO_OPT_FOR_AUTO_SP = "ENABLE_X_PROTO_OPT_FOR_AUTO_SP";
     public static final String SIM_CDC_FAILED = "SIM_CDC_FAILED";
 
@@ -2561,11 +2668,24 @@ public class ConnectionProperties {
     public static final String ENABLE_LOCAL_EXCHANGE_BATCH = "ENABLE_LOCAL_EXCHANGE_BATCH";
     public static final String ENABLE_VEC_BUILD_JOIN_ROW = "ENABLE_VEC_BUILD_JOIN_ROW";
     public static final String ENABLE_VEC_JOIN = "ENABLE_VEC_JOIN";
+    public static final String ENABLE_BATCH_PROBE_JOIN = "ENABLE_BATCH_PROBE_JOIN";
     public static final String ENABLE_JOIN_CONDITION_PRUNING = "ENABLE_JOIN_CONDITION_PRUNING";
     public static final String ENABLE_EXCHANGE_PARTITION_OPTIMIZATION = "ENABLE_EXCHANGE_PARTITION_OPTIMIZATION";
     public static final String ENABLE_DRIVER_OBJECT_POOL = "ENABLE_DRIVER_OBJECT_POOL";
     public static final String ENABLE_COLUMNAR_SCAN_SELECTION = "ENABLE_COLUMNAR_SCAN_SELECTION";
     public static final String BLOCK_CACHE_MEMORY_SIZE_FACTOR = "BLOCK_CACHE_MEMORY_SIZE_FACTOR";
+    /**
+     * Size in bytes of the off-heap tier of block cache, 0 means disabled.
+     */
+    public static final String BLOCK_CACHE_OFF_HEAP_SIZE = "BLOCK_CACHE_OFF_HEAP_SIZE";
+    /**
+     * Local file (e.g. on SSD) memory-mapped by the off-heap tier of block cache, empty means direct memory.
+     */
+    public static final String BLOCK_CACHE_OFF_HEAP_FILE = "BLOCK_CACHE_OFF_HEAP_FILE";
+    /**
+     * Max ratio of block cache memory held by stripes of one archived table.
+     */
+    public static final String BLOCK_CACHE_TABLE_QUOTA_RATIO = "BLOCK_CACHE_TABLE_QUOTA_RATIO";
     public static final String ENABLE_BLOCK_BUILDER_BATCH_WRITING = "ENABLE_BLOCK_BUILDER_BATCH_WRITING";
     public static final String ENABLE_SCAN_RANDOM_SHUFFLE = "ENABLE_SCAN_RANDOM_SHUFFLE";
 
@@ -2615,6 +2735,12 @@ public class ConnectionProperties {
      */
     public static final String TRX_LOG_METHOD = "TRX_LOG_METHOD";
 
+    /**
+     * TSO 事务 global tx log 组提交的最大批量, 不大于 1 时关闭组提交
+     * default: 64
+     */
+    public static final String TRX_LOG_GROUP_COMMIT_MAX_BATCH = "TRX_LOG_GROUP_COMMIT_MAX_BATCH";
+
     /**
      * A/B table clean interval time, in minute.
      * default: 30 min
@@ -2662,6 +2788,17 @@ public class ConnectionProperties {
 
     public static final String NEW_RF_FILTER_RATIO_THRESHOLD = "NEW_RF_FILTER_RATIO_THRESHOLD";
 
+    /**
+     * Prune row-groups of columnar scan by the value range of runtime filter.
+     */
+    public static final String ENABLE_NEW_RF_ROW_GROUP_PRUNING = "ENABLE_NEW_RF_ROW_GROUP_PRUNING";
+
+    /**
+     * Max time in milliseconds for columnar scan to wait for the runtime filter whose build side is estimated
+     * between GLOBAL_RF_ROWS_LOWER_BOUND and GLOBAL_RF_ROWS_UPPER_BOUND, 0 means no waiting.
+     */
+    public static final String NEW_RF_WAIT_TIME_MS = "NEW_RF_WAIT_TIME_MS";
+
     public static final String ENABLE_LBAC = "ENABLE_LBAC";
 
     public static final String ENABLE_VALUES_PUSHDOWN = "ENABLE_VALUES_PUSHDOWN";
@@ -2702,4 +2839,29 @@ public class ConnectionProperties {
     public static final String FORBID_AUTO_COMMIT_TRX = "FORBID_AUTO_COMMIT_TRX";
 
     public static final String FORCE_2PC_DURING_CCI_CHECK = "FORCE_2PC_DURING_CCI_CHECK";
+
+    /**
+     * How long (ms) a prefetched TSO range may serve read-only snapshots, 0 disables it.
+     */
+    public static final String TSO_SNAPSHOT_PREFETCH_WINDOW_MS = "TSO_SNAPSHOT_PREFETCH_WINDOW_MS";
+
+    /**
+     * How many extra timestamps are reserved per TSO fetch for read-only snapshots.
+     */
+    public static final String TSO_SNAPSHOT_PREFETCH_SIZE = "TSO_SNAPSHOT_PREFETCH_SIZE";
+
+    /**
+     * Whether result rows backed by executor chunks are encoded into MySQL packets directly from blocks.
+     */
+    public static final String ENABLE_CHUNK_RESULT_ENCODER = "ENABLE_CHUNK_RESULT_ENCODER";
+
+    /**
+     * Whether the CN that bumps a metadb dataId pushes the new version to its peers.
+     */
+    public static final String ENABLE_METADB_CONFIG_PUSH = "ENABLE_METADB_CONFIG_PUSH";
+
+    /**
+     * Interval (ms) of the config_listener scan when push is enabled.
+     */
+    public static final String METADB_CONFIG_SCAN_INTERVAL_WITH_PUSH = "METADB_CONFIG_SCAN_INTERVAL_WITH_PUSH";
 }
@@ -134,6 +134,18 @@ public class DynamicConfig {
                 blockCacheMemoryFactor = parseValue(value, Float.class, 0.6f);
                 break;
 
+            case ConnectionProperties.BLOCK_CACHE_OFF_HEAP_SIZE:
+                blockCacheOffHeapSize = parseValue(value, Long.class, blockCacheOffHeapSizeDefault);
+                break;
+
+            case ConnectionProperties.BLOCK_CACHE_OFF_HEAP_FILE:
+                blockCacheOffHeapFile = parseValue(value, String.class, blockCacheOffHeapFileDefault);
+                break;
+
+            case ConnectionProperties.BLOCK_CACHE_TABLE_QUOTA_RATIO:
+                blockCacheTableQuotaRatio = parseValue(value, Float.class, blockCacheTableQuotaRatioDefault);
+                break;
+
             case ConnectionProperties.PURGE_HISTORY_MS: {
                 long tempPurgeHistoryMs = parseValue(value, Long.class, 600 * 1000L);
                 if (tempPurgeHistoryMs > 0 && tempPurgeHistoryMs < purgeHistoryMs) {
@@ -297,6 +309,9 @@ public class DynamicConfig {
             case ConnectionProperties.TRX_LOG_METHOD:
                 trxLogMethod = parseValue(value, Integer.class, 0);
                 break;
+            case ConnectionProperties.TRX_LOG_GROUP_COMMIT_MAX_BATCH:
+                trxLogGroupCommitMaxBatch = parseValue(value, Integer.class, 64);
+                break;
             case ConnectionProperties.TRX_LOG_CLEAN_INTERVAL:
                 trxLogCleanInterval = parseValue(value, Integer.class, 30);
                 break;
@@ -351,6 +366,21 @@ public class DynamicConfig {
             case ConnectionProperties.FORBID_AUTO_COMMIT_TRX:
                 forbidAutoCommitTrx = parseValue(value, Boolean.class, false);
                 break;
+            case ConnectionProperties.TSO_SNAPSHOT_PREFETCH_WINDOW_MS:
+                tsoSnapshotPrefetchWindowMs = parseValue(value, Long.class, 0L);
+                break;
+            case ConnectionProperties.TSO_SNAPSHOT_PREFETCH_SIZE:
+                tsoSnapshotPrefetchSize = parseValue(value, Integer.class, 64);
+                break;
+            case ConnectionProperties.ENABLE_CHUNK_RESULT_ENCODER:
+                enableChunkResultEncoder = parseValue(value, Boolean.class, true);
+                break;
+            case ConnectionProperties.ENABLE_METADB_CONFIG_PUSH:
+                enableMetaDbConfigPush = parseValue(value, Boolean.class, true);
+                break;
+            case ConnectionProperties.METADB_CONFIG_SCAN_INTERVAL_WITH_PUSH:
+                metaDbConfigScanIntervalWithPush = parseValue(value, Long.class, 10000L);
+                break;
             default:
                 FileConfig.getInstance().loadValue(logger, key, value);
                 break;
@@ -440,6 +470,30 @@ public class DynamicConfig {
         return blockCacheMemoryFactor;
     }
 
+    private static final long blockCacheOffHeapSizeDefault =
+        parseValue(ConnectionParams.BLOCK_CACHE_OFF_HEAP_SIZE.getDefault(), Long.class, 0L);
+    private volatile long blockCacheOffHeapSize = blockCacheOffHeapSizeDefault;
+
+    public long getBlockCacheOffHeapSize() {
+        return blockCacheOffHeapSize;
+    }
+
+    private static final String blockCacheOffHeapFileDefault =
+        parseValue(ConnectionParams.BLOCK_CACHE_OFF_HEAP_FILE.getDefault(), String.class, "");
+    private volatile String blockCacheOffHeapFile = blockCacheOffHeapFileDefault;
+
+    public String getBlockCacheOffHeapFile() {
+        return blockCacheOffHeapFile;
+    }
+
+    private static final float blockCacheTableQuotaRatioDefault =
+        parseValue(ConnectionParams.BLOCK_CACHE_TABLE_QUOTA_RATIO.getDefault(), Float.class, 0.3f);
+    private volatile float blockCacheTableQuotaRatio = blockCacheTableQuotaRatioDefault;
+
+    public float getBlockCacheTableQuotaRatio() {
+        return blockCacheTableQuotaRatio;
+    }
+
     public long getAutoPartitionPartitions(boolean isColumnar) {
         return isColumnar ? autoPartitionCciPartitions : autoPartitionPartitions;
     }
@@ -802,6 +856,12 @@ public class DynamicConfig {
         return trxLogMethod;
     }
 
+    private volatile int trxLogGroupCommitMaxBatch = 64;
+
+    public int getTrxLogGroupCommitMaxBatch() {
+        return trxLogGroupCommitMaxBatch;
+    }
+
     private volatile long trxLogCleanInterval = 30;
 
     public long getTrxLogCleanInterval() {
@@ -900,6 +960,37 @@ public class DynamicConfig {
         return forbidAutoCommitTrx;
     }
 
+    // 0 means read-only snapshots always fetch a fresh TSO.
+    private volatile long tsoSnapshotPrefetchWindowMs = 0;
+
+    public long getTsoSnapshotPrefetchWindowMs() {
+        return tsoSnapshotPrefetchWindowMs;
+    }
+
+    private volatile int tsoSnapshotPrefetchSize = 64;
+
+    public int getTsoSnapshotPrefetchSize() {
+        return tsoSnapshotPrefetchSize;
+    }
+
+    private volatile boolean enableChunkResultEncoder = true;
+
+    public boolean isEnableChunkResultEncoder() {
+        return enableChunkResultEncoder;
+    }
+
+    private volatile boolean enableMetaDbConfigPush = true;
+
+    public boolean isEnableMetaDbConfigPush() {
+        return enableMetaDbConfigPush;
+    }
+
+    private volatile long metaDbConfigScanIntervalWithPush = 10000L;
+
+    public long getMetaDbConfigScanIntervalWithPush() {
+        return metaDbConfigScanIntervalWithPush;
+    }
+
     public static <T> T parseValue(String value, Class<T> type, T defaultValue) {
         if (value == null) {
             return defaultValue;
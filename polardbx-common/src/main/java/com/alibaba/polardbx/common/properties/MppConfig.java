@@ -38,6 +38,7 @@ import static com.alibaba.polardbx.common.properties.ConnectionProperties.MPP_EX
 import static com.alibaba.polardbx.common.properties.ConnectionProperties.MPP_EXCHANGE_MAX_ERROR_DURATION;
 import static com.alibaba.polardbx.common.properties.ConnectionProperties.MPP_EXCHANGE_MAX_RESPONSE_SIZE;
 import static com.alibaba.polardbx.common.properties.ConnectionProperties.MPP_EXCHANGE_MIN_ERROR_DURATION;
+import static com.alibaba.polardbx.common.properties.ConnectionProperties.MPP_EXCHANGE_STREAM_PORT_OFFSET;
 import static com.alibaba.polardbx.common.properties.ConnectionProperties.MPP_GLOBAL_MEMORY_LIMIT_RATIO;
 import static com.alibaba.polardbx.common.properties.ConnectionProperties.MPP_HTTP_CLIENT_MAX_CONNECTIONS;
 import static com.alibaba.polardbx.common.properties.ConnectionProperties.MPP_HTTP_CLIENT_MAX_CONNECTIONS_PER_SERVER;
@@ -219,6 +220,9 @@ public class MppConfig {
             case MPP_EXCHANGE_CLIENT_THREAD_SIZE:
                 exchangeClientThreads = parseValue(value, Integer.class, DEFAULT_MPP_EXCHANGE_CLIENT_THREADS);
                 break;
+            case MPP_EXCHANGE_STREAM_PORT_OFFSET:
+                exchangeStreamPortOffset = parseValue(value, Integer.class, DEFAULT_MPP_EXCHANGE_STREAM_PORT_OFFSET);
+                break;
             case MPP_HTTP_MAX_REQUESTS_PER_DESTINATION:
                 httpMaxRequestsPerDestination =
                     parseValue(value, Integer.class, DEFAULT_MPP_HTTP_MAX_REQUESTS_PER_DESTINATION);
@@ -572,6 +576,13 @@ public class MppConfig {
         return exchangeClientThreads;
     }
 
+    private static final int DEFAULT_MPP_EXCHANGE_STREAM_PORT_OFFSET = 0;
+    private int exchangeStreamPortOffset = DEFAULT_MPP_EXCHANGE_STREAM_PORT_OFFSET;
+
+    public int getExchangeStreamPortOffset() {
+        return exchangeStreamPortOffset;
+    }
+
     private static final int DEFAULT_MPP_HTTP_RESPONSE_THREADS = 100;
     private int httpResponseThreads = DEFAULT_MPP_HTTP_RESPONSE_THREADS;
 
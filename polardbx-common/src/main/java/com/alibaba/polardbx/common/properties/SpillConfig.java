@@ -26,6 +26,7 @@ import static com.alibaba.polardbx.common.properties.ConnectionProperties.MAX_QU
 import static com.alibaba.polardbx.common.properties.ConnectionProperties.MPP_MAX_SPILL_FD_THRESHOLD;
 import static com.alibaba.polardbx.common.properties.ConnectionProperties.MAX_SPILL_SPACE_THRESHOLD;
 import static com.alibaba.polardbx.common.properties.ConnectionProperties.MPP_MAX_SPILL_THREADS;
+import static com.alibaba.polardbx.common.properties.ConnectionProperties.MPP_SPILL_COMPRESSION;
 import static com.alibaba.polardbx.common.properties.DynamicConfig.parseValue;
 import static io.airlift.slice.DataSize.Unit.GIGABYTE;
 
@@ -38,6 +39,7 @@ public class SpillConfig {
     private DataSize maxSpillSpaceThreshold = new DataSize(200, GIGABYTE);
     private DataSize maxQuerySpillSpaceThreshold = new DataSize(100, GIGABYTE);
     private double maxAvaliableSpaceThreshold = 0.9;
+    private String spillCompression = "NONE";
 
     public void loadValue(org.slf4j.Logger logger, String key, String value) {
         if (key != null && value != null) {
@@ -57,6 +59,9 @@ public class SpillConfig {
             case MAX_QUERY_SPILL_SPACE_THRESHOLD:
                 maxQuerySpillSpaceThreshold = new DataSize(parseValue(value, Long.class, 100L), GIGABYTE);
                 break;
+            case MPP_SPILL_COMPRESSION:
+                spillCompression = parseValue(value, String.class, "NONE");
+                break;
             }
         }
     }
@@ -81,6 +86,10 @@ public class SpillConfig {
         return maxSpillThreads;
     }
 
+    public String getSpillCompression() {
+        return spillCompression;
+    }
+
 }
 
 
@@ -28,6 +28,7 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.net.URI;
+import java.nio.channels.FileChannel;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.List;
@@ -217,6 +218,58 @@ public class TestFileMergeCacheManager {
 
     }
 
+    @Test(timeout = 30_000)
+    public void testReadAfterMerge()
+        throws InterruptedException, ExecutionException, IOException {
+        TestingCacheStats stats = new TestingCacheStats();
+        CacheManager cacheManager = fileMergeCacheManager(stats);
+        byte[] buffer = new byte[1024];
+
+        assertFalse(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 42, buffer, 0, 100));
+        stats.trigger();
+
+        // keep the channel of the cache file open
+        for (int i = 0; i < 3; i++) {
+            assertTrue(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 47 + i, buffer, 0, 90));
+            validateBuffer(data, 47 + i, buffer, 0, 90);
+        }
+
+        // merged into a new cache file, the opened one is deleted
+        assertFalse(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 120, buffer, 0, 100));
+        stats.trigger();
+
+        assertTrue(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 50, buffer, 0, 150));
+        assertEquals(stats.getCacheHit(), 4);
+        validateBuffer(data, 50, buffer, 0, 150);
+    }
+
+    @Test(timeout = 30_000)
+    public void testReadAfterChannelClosed()
+        throws InterruptedException, ExecutionException, IOException {
+        TestingCacheStats stats = new TestingCacheStats();
+        FileMergeCacheManager cacheManager = (FileMergeCacheManager) fileMergeCacheManager(stats);
+        byte[] buffer = new byte[1024];
+
+        assertFalse(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 42, buffer, 0, 100));
+        stats.trigger();
+        assertTrue(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 47, buffer, 0, 90));
+
+        // the shared channel is closed by another reader, e.g. one being interrupted
+        List<FileChannel> closedChannels = new ArrayList<>(cacheManager.getOpenChannels().asMap().values());
+        assertEquals(1, closedChannels.size());
+        closedChannels.get(0).close();
+
+        // reopen the channel and retry once instead of falling back to a miss
+        assertTrue(readFully(cacheManager, NO_CACHE_CONSTRAINTS, 50, buffer, 0, 90));
+        assertEquals(stats.getCacheHit(), 2);
+        assertEquals(stats.getCacheMiss(), 1);
+        validateBuffer(data, 50, buffer, 0, 90);
+        for (FileChannel channel : cacheManager.getOpenChannels().asMap().values()) {
+            assertTrue(channel.isOpen());
+            assertTrue(channel != closedChannels.get(0));
+        }
+    }
+
     @Test
     public void testStress()
         throws ExecutionException, InterruptedException {
@@ -17,13 +17,13 @@
 package com.alibaba.polardbx.executor.archive.reader;
 
 import com.alibaba.polardbx.common.exception.TddlNestableRuntimeException;
-import com.alibaba.polardbx.common.utils.GeneralUtil;
 import com.alibaba.polardbx.executor.archive.columns.ColumnProvider;
 import com.alibaba.polardbx.executor.archive.columns.ColumnProviders;
 import com.alibaba.polardbx.executor.chunk.Block;
 import com.alibaba.polardbx.executor.chunk.BlockBuilder;
 import com.alibaba.polardbx.executor.chunk.BlockBuilders;
 import com.alibaba.polardbx.executor.chunk.Chunk;
+import com.alibaba.polardbx.executor.operator.scan.BlockCacheManager;
 import com.alibaba.polardbx.gms.engine.FileSystemManager;
 import com.alibaba.polardbx.gms.engine.FileSystemUtils;
 import com.alibaba.polardbx.optimizer.config.table.ColumnMeta;
@@ -31,8 +31,6 @@ import com.alibaba.polardbx.optimizer.config.table.OSSOrcFileMeta;
 import com.alibaba.polardbx.optimizer.context.ExecutionContext;
 import com.alibaba.polardbx.optimizer.core.field.SessionProperties;
 import com.google.common.base.Preconditions;
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
@@ -41,21 +39,22 @@ import org.apache.orc.OrcConf;
 import org.apache.orc.OrcFile;
 import org.apache.orc.Reader;
 import org.apache.orc.RecordReader;
+import org.apache.orc.StripeInformation;
 import org.apache.orc.TypeDescription;
 
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Objects;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 
+/**
+ * 归档表的解码列缓存, 按 (文件, 列, stripe) 存放在与列存共用的 BlockCacheManager 中,
+ * 共享同一内存上限与准入策略, 并受单表配额限制
+ */
 public class BufferPoolManager {
     private static volatile BufferPoolManager instance;
 
-    private static int BUFFER_POOL_SIZE = 200000;
-
-    private static int BUFFER_POOL_EXPIRE_HOURS = 24;
+    private static final int BATCH_SIZE = 1000;
 
     public static BufferPoolManager getInstance() {
         if (instance == null) {
@@ -68,79 +67,30 @@ public class BufferPoolManager {
         return instance;
     }
 
-    private Cache<Key, List<Block>> cache;
+    private final BlockCacheManager<Block> blockCacheManager;
 
     private BufferPoolManager() {
-        cache = CacheBuilder.newBuilder()
-            .maximumSize(BUFFER_POOL_SIZE)
-            .expireAfterWrite(BUFFER_POOL_EXPIRE_HOURS, TimeUnit.HOURS)
-            .softValues()
-            .build();
+        this.blockCacheManager = BlockCacheManager.getInstance();
     }
 
     public void clear() {
-        cache.invalidateAll();
+        blockCacheManager.invalidateStripeBlocks(null, null);
     }
 
+    /**
+     * @param logicalTableName null means all tables in the schema
+     */
     public void invalidate(String schemaName, String logicalTableName) {
-        for (Key key : cache.asMap().keySet()) {
-            if (key.logicalSchemaName.equalsIgnoreCase(schemaName) && key.logicalTableName.equalsIgnoreCase(
-                logicalTableName)) {
-                cache.invalidate(key);
-            }
-        }
-    }
-
-    public static class Key {
-        public String logicalSchemaName;
-        public String logicalTableName;
-        public String fileName;
-        public String column;
-
-        public Key(String logicalSchemaName, String logicalTableName, String fileName, String column) {
-            this.logicalSchemaName = logicalSchemaName;
-            this.logicalTableName = logicalTableName;
-            this.fileName = fileName;
-            this.column = column;
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) {
-                return true;
-            }
-            if (o == null || getClass() != o.getClass()) {
-                return false;
-            }
-            Key key = (Key) o;
-            return logicalSchemaName.equals(key.logicalSchemaName)
-                && logicalTableName.equals(key.logicalTableName)
-                && fileName.equals(key.fileName)
-                && column.equals(key.column);
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(logicalSchemaName, logicalTableName, fileName, column);
-        }
+        blockCacheManager.invalidateStripeBlocks(schemaName, logicalTableName);
     }
 
-    public List<Block> getImpl(OSSOrcFileMeta fileMeta, String column, OSSReadOption ossReadOption,
-                               ExecutionContext executionContext) throws ExecutionException {
-        return cache.get(
-            new Key(fileMeta.getLogicalTableSchema(), fileMeta.getLogicalTableName(), fileMeta.getFileName(), column),
+    private List<Block> getImpl(OSSOrcFileMeta fileMeta, Reader reader, Configuration configuration,
+                                StripeInformation stripe, int stripeId, String column,
+                                OSSReadOption ossReadOption, ExecutionContext executionContext)
+        throws ExecutionException {
+        return blockCacheManager.getStripeBlocks(
+            fileMeta.getLogicalTableSchema(), fileMeta.getLogicalTableName(), fileMeta.getFileName(), column, stripeId,
             () -> {
-                FileSystem fileSystem = FileSystemManager.getFileSystemGroup(ossReadOption.getEngine()).getMaster();
-
-                String orcPath = FileSystemUtils.buildUri(fileSystem, fileMeta.getFileName());
-
-                Configuration configuration = new Configuration(false);
-                configuration.setLong(OrcConf.MAX_MERGE_DISTANCE.getAttribute(),
-                    ossReadOption.getMaxMergeDistance());
-
-                Reader reader = OrcFile.createReader(new Path(URI.create(orcPath)),
-                    OrcFile.readerOptions(configuration).filesystem(fileSystem).orcTail(fileMeta.getOrcTail()));
-
                 ColumnMeta columnMeta = ossReadOption.getOssColumnTransformer().getTargetColumnMeta(column);
 
                 String fieldId = fileMeta.getTableMeta(executionContext).getColumnFieldId(column);
@@ -153,27 +103,28 @@ public class BufferPoolManager {
                     fileMeta.getTypeDescription().getFieldNames().get(columnIndex),
                     fileMeta.getTypeDescription().getChildren().get(columnIndex).clone());
 
-                // reader filter options
+                // only read the given stripe
                 Reader.Options readerOptions = new Reader.Options(configuration)
-                    .schema(schema);
-
-                RecordReader recordReader = reader.rows(readerOptions);
+                    .schema(schema)
+                    .range(stripe.getOffset(), stripe.getLength());
 
                 ColumnProvider columnProvider = ColumnProviders.getProvider(columnMeta);
 
                 SessionProperties sessionProperties = SessionProperties.fromExecutionContext(executionContext);
 
-                VectorizedRowBatch buffer = schema.createRowBatch(1000);
+                VectorizedRowBatch buffer = schema.createRowBatch(BATCH_SIZE);
 
                 List<Block> result = new ArrayList<>();
 
-                while (recordReader.nextBatch(buffer)) {
-                    if (buffer.size == 0) {
-                        continue;
+                try (RecordReader recordReader = reader.rows(readerOptions)) {
+                    while (recordReader.nextBatch(buffer)) {
+                        if (buffer.size == 0) {
+                            continue;
+                        }
+                        BlockBuilder blockBuilder = BlockBuilders.create(columnMeta.getDataType(), executionContext);
+                        columnProvider.transform(buffer.cols[0], blockBuilder, 0, buffer.size, sessionProperties);
+                        result.add(blockBuilder.build());
                     }
-                    BlockBuilder blockBuilder = BlockBuilders.create(columnMeta.getDataType(), executionContext);
-                    columnProvider.transform(buffer.cols[0], blockBuilder, 0, buffer.size, sessionProperties);
-                    result.add(blockBuilder.build());
                 }
 
                 return result;
@@ -183,20 +134,36 @@ public class BufferPoolManager {
     public List<Chunk> get(OSSOrcFileMeta fileMeta, String[] columns, OSSReadOption ossReadOption,
                            ExecutionContext executionContext) {
         try {
-            List<Block>[] blockLists = new List[columns.length];
-            for (int i = 0; i < columns.length; i++) {
-                blockLists[i] = getImpl(fileMeta, columns[i], ossReadOption, executionContext);
-            }
+            FileSystem fileSystem = FileSystemManager.getFileSystemGroup(ossReadOption.getEngine()).getMaster();
+
+            String orcPath = FileSystemUtils.buildUri(fileSystem, fileMeta.getFileName());
+
+            Configuration configuration = new Configuration(false);
+            configuration.setLong(OrcConf.MAX_MERGE_DISTANCE.getAttribute(),
+                ossReadOption.getMaxMergeDistance());
+
+            // the footer comes from file meta, stripes are read only on miss
+            Reader reader = OrcFile.createReader(new Path(URI.create(orcPath)),
+                OrcFile.readerOptions(configuration).filesystem(fileSystem).orcTail(fileMeta.getOrcTail()));
+
             List<Chunk> result = new ArrayList<>();
-            for (int i = 0; i < blockLists[0].size(); i++) {
-                Block[] blocks = new Block[columns.length];
-                for (int j = 0; j < columns.length; j++) {
-                    blocks[j] = blockLists[j].get(i);
+            List<StripeInformation> stripes = reader.getStripes();
+            for (int stripeId = 0; stripeId < stripes.size(); stripeId++) {
+                List<Block>[] blockLists = new List[columns.length];
+                for (int i = 0; i < columns.length; i++) {
+                    blockLists[i] = getImpl(fileMeta, reader, configuration, stripes.get(stripeId), stripeId,
+                        columns[i], ossReadOption, executionContext);
+                }
+                for (int i = 0; i < blockLists[0].size(); i++) {
+                    Block[] blocks = new Block[columns.length];
+                    for (int j = 0; j < columns.length; j++) {
+                        blocks[j] = blockLists[j].get(i);
+                    }
+                    result.add(new Chunk(blocks));
                 }
-                result.add(new Chunk(blocks));
             }
             return result;
-        } catch (ExecutionException e) {
+        } catch (Exception e) {
             throw new TddlNestableRuntimeException(e);
         }
     }
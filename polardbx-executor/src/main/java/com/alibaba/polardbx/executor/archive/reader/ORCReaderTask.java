@@ -18,6 +18,9 @@ package com.alibaba.polardbx.executor.archive.reader;
 
 import com.alibaba.polardbx.common.properties.ConnectionParams;
 import com.alibaba.polardbx.common.utils.GeneralUtil;
+import com.alibaba.polardbx.common.utils.logger.Logger;
+import com.alibaba.polardbx.common.utils.logger.LoggerFactory;
+import com.alibaba.polardbx.common.utils.thread.NamedThreadFactory;
 import com.alibaba.polardbx.executor.archive.columns.ColumnProvider;
 import com.alibaba.polardbx.executor.archive.columns.ColumnProviders;
 import com.alibaba.polardbx.executor.archive.pruning.PruningResult;
@@ -37,12 +40,14 @@ import com.alibaba.polardbx.optimizer.core.datatype.DataType;
 import com.alibaba.polardbx.optimizer.core.datatype.DataTypeUtil;
 import com.alibaba.polardbx.optimizer.core.field.SessionProperties;
 import com.alibaba.polardbx.statistics.ExecuteSQLOperation;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Preconditions;
 import com.google.common.collect.Range;
 import org.apache.calcite.rel.core.AggregateCall;
 import org.apache.calcite.rel.metadata.RelColumnOrigin;
 import org.apache.calcite.sql.SqlKind;
 import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
@@ -51,6 +56,7 @@ import org.apache.orc.OrcConf;
 import org.apache.orc.OrcFile;
 import org.apache.orc.Reader;
 import org.apache.orc.RecordReader;
+import org.apache.orc.StripeInformation;
 import org.jetbrains.annotations.NotNull;
 
 import java.io.IOException;
@@ -59,10 +65,34 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ORCReaderTask {
 
+    private static final Logger logger = LoggerFactory.getLogger(ORCReaderTask.class);
+
+    /**
+     * 预取顺序扫描的下一个 stripe 范围, 使其提前进入本地文件缓存
+     */
+    private static final ExecutorService STRIPE_PREFETCH_EXECUTOR = new ThreadPoolExecutor(
+        4, 4, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(1024),
+        new NamedThreadFactory("orc-stripe-prefetch", true));
+
+    /**
+     * 所有预取中的 stripe 字节数上限, 超过时跳过预取
+     */
+    private static final long MAX_PREFETCH_BYTES_IN_FLIGHT = 256L << 20;
+    private static final int PREFETCH_CHUNK_SIZE = 64 << 10;
+    private static final AtomicLong PREFETCH_BYTES_IN_FLIGHT = new AtomicLong();
+
     private OSSReadOption ossReadOption;
     public String tableFileName;
 
@@ -102,6 +132,10 @@ public class ORCReaderTask {
 
     List<DataType> dataTypeList;
 
+    private boolean enableStripePrefetch;
+
+    private Future<?> prefetchFuture;
+
     public ORCReaderTask(OSSReadOption ossReadOption, String tableFileName, FileMeta fileMeta,
                          PruningResult pruningResult, List<AggregateCall> aggCalls, List<RelColumnOrigin> aggColumns,
                          List<DataType> dataTypes, ExecutionContext context) {
@@ -160,6 +194,9 @@ public class ORCReaderTask {
                 readerOptions =
                     readerOptions.range(range.lowerEndpoint(), range.upperEndpoint() - range.lowerEndpoint());
                 this.recordReader = reader.rows(readerOptions);
+                this.enableStripePrefetch =
+                    context.getParamManager().getBoolean(ConnectionParams.ENABLE_OSS_STRIPE_PREFETCH);
+                prefetchNextStripe();
             }
 
         } catch (Throwable t) {
@@ -314,11 +351,99 @@ public class ORCReaderTask {
             } catch (Throwable e) {
                 throw GeneralUtil.nestedException(e);
             }
+            prefetchNextStripe();
             return true;
         }
         return false;
     }
 
+    /**
+     * 异步读取下一个范围内的第一个 stripe, 经由缓存文件系统写入本地缓存; 同一时刻最多一个预取.
+     * 按小块读取并丢弃, 所有任务在途的字节数受 MAX_PREFETCH_BYTES_IN_FLIGHT 限制
+     */
+    private void prefetchNextStripe() {
+        if (!enableStripePrefetch || !listIterator.hasPrevious()
+            || (prefetchFuture != null && !prefetchFuture.isDone())) {
+            return;
+        }
+        Range<Long> next = listIterator.previous();
+        listIterator.next();
+        StripeInformation stripe = findFirstStripe(reader.getStripes(), next);
+        if (stripe == null) {
+            return;
+        }
+        Future<?> future = prefetchStripe(STRIPE_PREFETCH_EXECUTOR, fileSystem, new Path(ossFileUri), stripe, closed,
+            tableFileName);
+        if (future != null) {
+            prefetchFuture = future;
+        }
+    }
+
+    /**
+     * 提交 stripe 的预取任务并占用在途额度, 任务完成或被取消时释放; 超过额度或被线程池拒绝时返回 null
+     */
+    @VisibleForTesting
+    static Future<?> prefetchStripe(ExecutorService executor, FileSystem fileSystem, Path path,
+                                    StripeInformation stripe, AtomicBoolean closed, String tableFileName) {
+        final long offset = stripe.getOffset();
+        final long length = stripe.getLength();
+        if (length <= 0) {
+            return null;
+        }
+        if (PREFETCH_BYTES_IN_FLIGHT.addAndGet(length) > MAX_PREFETCH_BYTES_IN_FLIGHT) {
+            PREFETCH_BYTES_IN_FLIGHT.addAndGet(-length);
+            return null;
+        }
+        FutureTask<Void> task = new FutureTask<Void>(() -> {
+            try (FSDataInputStream in = fileSystem.open(path)) {
+                byte[] buffer = new byte[(int) Math.min(length, PREFETCH_CHUNK_SIZE)];
+                long pos = offset;
+                long end = offset + length;
+                while (pos < end && !closed.get()) {
+                    int n = in.read(pos, buffer, 0, (int) Math.min(buffer.length, end - pos));
+                    if (n < 0) {
+                        break;
+                    }
+                    pos += n;
+                }
+            } catch (Throwable t) {
+                // 预取失败不影响正常读取
+                logger.debug("prefetch stripe of " + tableFileName + " failed", t);
+            }
+        }, null) {
+            @Override
+            protected void done() {
+                // 执行完成或被取消时释放额度
+                PREFETCH_BYTES_IN_FLIGHT.addAndGet(-length);
+            }
+        };
+        try {
+            executor.execute(task);
+            return task;
+        } catch (RejectedExecutionException e) {
+            PREFETCH_BYTES_IN_FLIGHT.addAndGet(-length);
+            return null;
+        }
+    }
+
+    @VisibleForTesting
+    static long getPrefetchBytesInFlight() {
+        return PREFETCH_BYTES_IN_FLIGHT.get();
+    }
+
+    /**
+     * 与 RecordReader 的范围语义一致: 起始位置落在 [lower, upper) 内的 stripe 属于该范围
+     */
+    static StripeInformation findFirstStripe(List<StripeInformation> stripes, Range<Long> range) {
+        for (StripeInformation stripe : stripes) {
+            long offset = stripe.getOffset();
+            if (offset >= range.lowerEndpoint() && offset < range.upperEndpoint()) {
+                return stripe;
+            }
+        }
+        return null;
+    }
+
     public synchronized void close() {
         if (!closed.compareAndSet(false, true)) {
             return;
@@ -346,6 +471,10 @@ public class ORCReaderTask {
                 this.recordReader.close();
                 this.recordReader = null;
             }
+            if (this.prefetchFuture != null) {
+                this.prefetchFuture.cancel(false);
+                this.prefetchFuture = null;
+            }
             if (this.reader != null) {
                 this.reader.close();
                 this.reader = null;
@@ -41,6 +41,8 @@ import com.alibaba.polardbx.executor.gsi.GsiUtils;
 import com.alibaba.polardbx.executor.gsi.utils.Transformer;
 import com.alibaba.polardbx.executor.spi.ITransactionManager;
 import com.alibaba.polardbx.executor.utils.failpoint.FailPoint;
+import com.alibaba.polardbx.gms.node.StorageStatus;
+import com.alibaba.polardbx.gms.node.StorageStatusManager;
 import com.alibaba.polardbx.gms.partition.BackfillExtraFieldJSON;
 import com.alibaba.polardbx.gms.util.GroupInfoUtil;
 import com.alibaba.polardbx.gms.partition.BackfillExtraFieldJSON;
@@ -77,23 +79,28 @@ import org.jetbrains.annotations.NotNull;
 
 import java.math.BigDecimal;
 import java.text.MessageFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Deque;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.TreeSet;
-import java.util.concurrent.ArrayBlockingQueue;
-import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
@@ -186,6 +193,16 @@ public class Extractor extends PhyOperationBuilderCommon {
 
     protected final ITransactionManager tm;
 
+    /**
+     * AIMD controller of each physical db, created with the parameters of current backfill
+     */
+    protected final Map<String, ShardBackfillController> shardControllers = new ConcurrentHashMap<>();
+    private volatile boolean adaptiveBatch = false;
+    private volatile long shardTargetLatency =
+        Long.parseLong(ConnectionParams.BACKFILL_SHARD_TARGET_LATENCY.getDefault());
+    private volatile int shardMaxInFlight =
+        Integer.parseInt(ConnectionParams.BACKFILL_SHARD_MAX_INFLIGHT.getDefault());
+
     protected final Reporter reporter;
     protected com.alibaba.polardbx.executor.backfill.Throttle throttle;
 
@@ -750,8 +767,6 @@ public class Extractor extends PhyOperationBuilderCommon {
         // interrupted
         AtomicReference<Boolean> interrupted = new AtomicReference<>(false);
 
-        List<Future> futures = new ArrayList<>(16);
-
         // Re-balance by physicalDb.
         List<List<GsiBackfillManager.BackfillObjectBean>> tasks = reporter.getBackfillBean().backfillObjects.values()
             .stream()
@@ -765,46 +780,115 @@ public class Extractor extends PhyOperationBuilderCommon {
                     ec.getTraceId(), tasks.get(0).get(0).jobId, tasks.size(), parallelism));
         }
 
-        AtomicReference<Exception> excep = new AtomicReference<>(null);
-        if (parallelism <= 0 || parallelism >= BackFillThreadPool.getInstance().getCorePoolSize()) {
-            // Full queued.
-            tasks.forEach(v -> {
-                FutureTask<Void> task = new FutureTask<>(
-                    () -> foreachPhyTableBatch(v.get(0).physicalDb, v.get(0).physicalTable, v, ec, consumer,
-                        interrupted), null);
+        adaptiveBatch = ec.getParamManager().getBoolean(ConnectionParams.ENABLE_BACKFILL_ADAPTIVE_BATCH);
+        shardTargetLatency = ec.getParamManager().getLong(ConnectionParams.BACKFILL_SHARD_TARGET_LATENCY);
+        shardMaxInFlight = ec.getParamManager().getInt(ConnectionParams.BACKFILL_SHARD_MAX_INFLIGHT);
+
+        Throwable excep = dispatchPhyTableTasks(tasks, parallelism, this::getShardController, interrupted,
+            v -> foreachPhyTableBatch(v.get(0).physicalDb, v.get(0).physicalTable, v, ec, consumer, interrupted));
+
+        if (excep != null) {
+            if (excep.getMessage() == null || !excep.getMessage().contains("need to be split into smaller batches")) {
+                throttle.stop();
+            } else {
+                SQLRecorderLogger.ddlLogger.warn("all backfill feature task was interrupted by split");
+            }
+            throw GeneralUtil.nestedException(excep);
+        }
+
+        throttle.stop();
+
+        // After all physical table finished
+        reporter.updateBackfillStatus(ec, GsiBackfillManager.BackfillStatus.SUCCESS);
+    }
+
+    /**
+     * Backfill all batches of one physical table
+     */
+    interface PhyTableTask {
+        void run(List<GsiBackfillManager.BackfillObjectBean> backfillObjects);
+    }
+
+    /**
+     * Dispatch tasks grouped by physical db round-robin and wait for all of them
+     *
+     * @param shardOf controller of each physical db
+     * @param interrupted set once any task failed, other tasks stop at their next batch
+     * @return the first failure raised by a task, or null if all of them succeeded
+     */
+    static Throwable dispatchPhyTableTasks(List<List<GsiBackfillManager.BackfillObjectBean>> tasks,
+                                           long parallelism,
+                                           Function<String, ShardBackfillController> shardOf,
+                                           AtomicReference<Boolean> interrupted,
+                                           PhyTableTask phyTableTask) {
+        List<Future> futures = new ArrayList<>(16);
+
+        // Group by physical db and dispatch round-robin, so that every DN is kept busy while the
+        // concurrency on each of them is bounded by its own AIMD controller.
+        Map<String, Deque<List<GsiBackfillManager.BackfillObjectBean>>> pendingTasks = new LinkedHashMap<>();
+        tasks.forEach(v -> pendingTasks.computeIfAbsent(v.get(0).physicalDb, k -> new ArrayDeque<>()).add(v));
+
+        final boolean bounded = parallelism > 0 && parallelism < BackFillThreadPool.getInstance().getCorePoolSize();
+        final Semaphore globalPermits = bounded ? new Semaphore((int) parallelism) : null;
+        final Semaphore finishedSignal = new Semaphore(0);
+
+        AtomicReference<Throwable> excep = new AtomicReference<>(null);
+        while (!pendingTasks.isEmpty() && !interrupted.get()) {
+            boolean dispatched = false;
+            Iterator<Map.Entry<String, Deque<List<GsiBackfillManager.BackfillObjectBean>>>> it =
+                pendingTasks.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Deque<List<GsiBackfillManager.BackfillObjectBean>>> entry = it.next();
+                if (globalPermits != null && !globalPermits.tryAcquire()) {
+                    break;
+                }
+                final ShardBackfillController shard = shardOf.apply(entry.getKey());
+                if (!shard.tryAcquire()) {
+                    if (globalPermits != null) {
+                        globalPermits.release();
+                    }
+                    continue;
+                }
+                final List<GsiBackfillManager.BackfillObjectBean> v = entry.getValue().poll();
+                if (entry.getValue().isEmpty()) {
+                    it.remove();
+                }
+                FutureTask<Void> task = new FutureTask<>(() -> {
+                    try {
+                        phyTableTask.run(v);
+                    } catch (Throwable t) {
+                        // Record the failure before stopping the others, which then fail as cancelled, so that the
+                        // root cause (e.g. the split signal) is the one rethrown.
+                        excep.compareAndSet(null, t);
+                        // Stop dispatching, remaining tasks resume from position mark on retry.
+                        interrupted.set(true);
+                        throw t;
+                    } finally {
+                        shard.release();
+                        if (globalPermits != null) {
+                            globalPermits.release();
+                        }
+                        finishedSignal.release();
+                    }
+                    return null;
+                });
                 futures.add(task);
                 BackFillThreadPool.getInstance()
                     .executeWithContext(task, PriorityFIFOTask.TaskPriority.GSI_BACKFILL_TASK);
-            });
-        } else {
-
-            // Use a bounded blocking queue to control the parallelism.
-            BlockingQueue<Object> blockingQueue = new ArrayBlockingQueue<>((int) parallelism);
-            tasks.forEach(v -> {
+                dispatched = true;
+            }
+            if (!dispatched) {
                 try {
-                    blockingQueue.put(new Object());
-                } catch (Exception e) {
+                    finishedSignal.tryAcquire(100, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
                     excep.set(e);
+                    break;
                 }
-                if (null == excep.get()) {
-                    FutureTask<Void> task = new FutureTask<>(() -> {
-                        try {
-                            foreachPhyTableBatch(v.get(0).physicalDb, v.get(0).physicalTable, v, ec, consumer,
-                                interrupted);
-                        } finally {
-                            // Poll in finally to prevent dead lock on putting blockingQueue.
-                            blockingQueue.poll();
-                        }
-                        return null;
-                    });
-                    futures.add(task);
-                    BackFillThreadPool.getInstance()
-                        .executeWithContext(task, PriorityFIFOTask.TaskPriority.GSI_BACKFILL_TASK);
-                }
-            });
+                finishedSignal.drainPermits();
+            }
         }
 
-        if (excep.get() != null) {
+        if (excep.get() instanceof InterruptedException) {
             // Interrupt all.
             futures.forEach(f -> {
                 try {
@@ -818,28 +902,28 @@ public class Extractor extends PhyOperationBuilderCommon {
             try {
                 future.get();
             } catch (Exception e) {
-                if (null == excep.get()) {
-                    excep.set(e);
-                }
+                excep.compareAndSet(null, e);
 
                 // set interrupt
                 interrupted.set(true);
             }
         }
+        return excep.get();
+    }
 
-        if (excep.get() != null) {
-            if (!excep.get().getMessage().contains("need to be split into smaller batches")) {
-                throttle.stop();
-            } else {
-                SQLRecorderLogger.ddlLogger.warn("all backfill feature task was interrupted by split");
-            }
-            throw GeneralUtil.nestedException(excep.get());
-        }
-
-        throttle.stop();
+    protected ShardBackfillController getShardController(String dbIndex) {
+        return shardControllers.computeIfAbsent(dbIndex,
+            k -> new ShardBackfillController(k, adaptiveBatch, batchSize, shardMaxInFlight, shardTargetLatency));
+    }
 
-        // After all physical table finished
-        reporter.updateBackfillStatus(ec, GsiBackfillManager.BackfillStatus.SUCCESS);
+    /**
+     * Feed latency of last batch to the controller, replication delay reported by any learner is treated as
+     * back pressure as well
+     */
+    protected void feedbackShard(ShardBackfillController shard, long latencyMillis) {
+        boolean replicaDelayed = adaptiveBatch && StorageStatusManager.getInstance().getStorageStatus().values()
+            .stream().anyMatch(StorageStatus::isDelay);
+        shard.onBatchFinished(latencyMillis, replicaDelayed);
     }
 
     /**
@@ -869,9 +953,13 @@ public class Extractor extends PhyOperationBuilderCommon {
 
         List<Map<Integer, ParameterContext>> lastBatch = null;
         boolean finished = false;
+        final ShardBackfillController shard = getShardController(dbIndex);
         long actualBatchSize = batchSize;
+        // Back-off on max_allowed_packet belongs to this physical table, the shard size only caps it
+        long packetLimitedBatchSize = batchSize;
         do {
             try {
+                actualBatchSize = Math.min(shard.getBatchSize(), packetLimitedBatchSize);
                 if (rateLimiter != null) {
                     rateLimiter.acquire((int) actualBatchSize);
                 }
@@ -922,6 +1010,7 @@ public class Extractor extends PhyOperationBuilderCommon {
                 if (!finished) {
                     throttle.feedback(new com.alibaba.polardbx.executor.backfill.Throttle.FeedbackStats(
                         System.currentTimeMillis() - start, start, lastBatch.size()));
+                    feedbackShard(shard, System.currentTimeMillis() - start);
                 }
                 DdlEngineStats.METRIC_BACKFILL_ROWS_SPEED.set((long) throttle.getActualRateLastCycle());
 
@@ -937,8 +1026,8 @@ public class Extractor extends PhyOperationBuilderCommon {
                     throw new TddlRuntimeException(ErrorCode.ERR_DDL_JOB_ERROR,
                         "The job '" + jobId + "' has been cancelled");
                 }
-                if (actualBatchSize < batchSize) {
-                    actualBatchSize = Math.min(actualBatchSize * 2, batchSize);
+                if (packetLimitedBatchSize < batchSize) {
+                    packetLimitedBatchSize = Math.min(packetLimitedBatchSize * 2, batchSize);
                 }
             } catch (TddlRuntimeException e) {
                 boolean retry = (e.getErrorCode() == ErrorCode.ERR_X_PROTOCOL_BAD_PACKET.getCode() ||
@@ -946,7 +1035,7 @@ public class Extractor extends PhyOperationBuilderCommon {
                     (e.getSQLState() != null && e.getSQLState().equalsIgnoreCase("S1000") && e.getMessage()
                         .toLowerCase().contains("max_allowed_packet"))) && actualBatchSize > 1;
                 if (retry) {
-                    actualBatchSize = Math.max(actualBatchSize / 8, 1);
+                    packetLimitedBatchSize = Math.max(actualBatchSize / 8, 1);
                 } else {
                     throw e;
                 }
@@ -0,0 +1,113 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.backfill;
+
+/**
+ * 单个物理库的回填流控, 按 AIMD 调整批大小与同时回填的物理表数
+ * <p>
+ * 批耗时低于目标的 3/4 且备库无延迟时, 批大小加性增长、并发加一; 批耗时超过目标或备库延迟时二者减半.
+ * 关闭自适应时并发不限且批大小固定为上限. 报文过大(max_allowed_packet)的退避由各物理表自行维护,
+ * 这里的批大小只作为其上限, 避免一张宽表拖小同库其他表的批
+ */
+public class ShardBackfillController {
+
+    private static final int BATCH_SIZE_INCREASE_STEPS = 16;
+
+    private final String dbIndex;
+    private final boolean adaptive;
+    private final long maxBatchSize;
+    private final int maxInFlight;
+    private final long targetLatencyMillis;
+
+    private long batchSize;
+    private int inFlightLimit;
+    private int inFlight;
+
+    public ShardBackfillController(String dbIndex, boolean adaptive, long maxBatchSize, int maxInFlight,
+                                   long targetLatencyMillis) {
+        this.dbIndex = dbIndex;
+        this.adaptive = adaptive;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxInFlight = adaptive ? Math.max(1, maxInFlight) : Integer.MAX_VALUE;
+        this.targetLatencyMillis = targetLatencyMillis;
+        this.batchSize = this.maxBatchSize;
+        this.inFlightLimit = this.maxInFlight;
+    }
+
+    public String getDbIndex() {
+        return dbIndex;
+    }
+
+    public synchronized long getBatchSize() {
+        return batchSize;
+    }
+
+    public synchronized int getInFlightLimit() {
+        return inFlightLimit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * 占用一个并发名额, 已达上限时返回 false
+     */
+    public synchronized boolean tryAcquire() {
+        if (inFlight >= inFlightLimit) {
+            return false;
+        }
+        inFlight++;
+        return true;
+    }
+
+    public synchronized void release() {
+        inFlight--;
+    }
+
+    /**
+     * 反馈一批的耗时
+     *
+     * @param latencyMillis 本批从加锁读到写入完成的耗时
+     * @param replicaDelayed 备库是否存在延迟
+     */
+    public synchronized void onBatchFinished(long latencyMillis, boolean replicaDelayed) {
+        if (!adaptive) {
+            return;
+        }
+        if (replicaDelayed || latencyMillis > targetLatencyMillis) {
+            batchSize = Math.max(batchSize / 2, 1);
+            inFlightLimit = Math.max(inFlightLimit / 2, 1);
+        } else if (latencyMillis * 4 < targetLatencyMillis * 3) {
+            batchSize = Math.min(batchSize + Math.max(maxBatchSize / BATCH_SIZE_INCREASE_STEPS, 1), maxBatchSize);
+            // 只有并发名额被用满时才继续放大, 避免空涨
+            if (inFlight >= inFlightLimit) {
+                inFlightLimit = Math.min(inFlightLimit + 1, maxInFlight);
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "ShardBackfillController{" +
+            "dbIndex='" + dbIndex + '\'' +
+            ", batchSize=" + batchSize +
+            ", inFlightLimit=" + inFlightLimit +
+            ", inFlight=" + inFlight +
+            '}';
+    }
+}
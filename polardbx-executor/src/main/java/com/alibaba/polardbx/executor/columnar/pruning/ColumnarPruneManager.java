@@ -141,6 +141,46 @@ public class ColumnarPruneManager {
         });
     }
 
+    /**
+     * Prune the row-groups of a stripe by the value range [min, max] from the runtime filter of join,
+     * according to the integer statistics in row index of given orc column.
+     *
+     * @param stripeIndex orc index of the stripe.
+     * @param orcColumnId column id in orc file (0 is the struct column).
+     * @param rgIncluded the row-group bitmap selected by pruner, it will not be modified.
+     * @return the new row-group bitmap, or the given one if no row-group is pruned.
+     */
+    public static boolean[] pruneByRange(OrcIndex stripeIndex, int orcColumnId, long min, long max,
+                                         boolean[] rgIncluded) {
+        OrcProto.RowIndex[] rowGroupIndex = stripeIndex.getRowGroupIndex();
+        if (rowGroupIndex == null || orcColumnId >= rowGroupIndex.length || rowGroupIndex[orcColumnId] == null) {
+            return rgIncluded;
+        }
+        OrcProto.RowIndex rgIndex = rowGroupIndex[orcColumnId];
+
+        boolean[] result = rgIncluded;
+        for (int rg = 0; rg < rgIncluded.length && rg < rgIndex.getEntryCount(); rg++) {
+            if (!rgIncluded[rg]) {
+                continue;
+            }
+            OrcProto.ColumnStatistics columnStatistics = rgIndex.getEntry(rg).getStatistics();
+            if (!columnStatistics.hasIntStatistics()) {
+                continue;
+            }
+            OrcProto.IntegerStatistics intStatistics = columnStatistics.getIntStatistics();
+            if (!intStatistics.hasMinimum() || !intStatistics.hasMaximum()) {
+                continue;
+            }
+            if (intStatistics.getMaximum() < min || intStatistics.getMinimum() > max) {
+                if (result == rgIncluded) {
+                    result = rgIncluded.clone();
+                }
+                result[rg] = false;
+            }
+        }
+        return result;
+    }
+
     private static int getMetaIndex(List<Integer> orcIndexes, int orcIndex) {
         for (int i = 0; i < orcIndexes.size(); i++) {
             if (orcIndexes.get(i) == orcIndex) {
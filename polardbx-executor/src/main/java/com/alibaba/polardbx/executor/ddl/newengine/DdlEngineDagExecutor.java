@@ -57,6 +57,7 @@ import com.alibaba.polardbx.executor.ddl.newengine.utils.DdlHelper;
 import com.alibaba.polardbx.executor.ddl.newengine.utils.TaskHelper;
 import com.alibaba.polardbx.executor.ddl.sync.JobRequest;
 import com.alibaba.polardbx.executor.ddl.workqueue.FastCheckerThreadPool;
+import com.alibaba.polardbx.executor.fastchecker.FastCheckerMerkleTree;
 import com.alibaba.polardbx.executor.ddl.newengine.utils.TaskHelper;
 import com.alibaba.polardbx.executor.sync.ddl.RemoteDdlTaskSyncAction;
 import com.alibaba.polardbx.executor.sync.ddl.RemoteDdlTaskSyncAction;
@@ -535,6 +536,7 @@ public class DdlEngineDagExecutor {
 
         //clean fastchecker info
         FastCheckerThreadPool.getInstance().invalidateTaskInfo(ddlContext.getJobId());
+        FastCheckerMerkleTree.releaseJob(ddlContext.getJobId());
 
         // Clean the job up.
         try {
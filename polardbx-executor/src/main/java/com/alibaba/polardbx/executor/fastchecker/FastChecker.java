@@ -92,6 +92,7 @@ import java.util.concurrent.FutureTask;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static java.lang.Math.max;
 
@@ -555,6 +556,17 @@ public class FastChecker extends PhyOperationBuilderCommon {
                 "The job '" + jobId + "' has been cancelled");
         }
 
+        PhyTableOperation plan = buildFullScanHashcheckPlan(phyDbName, phyTable, isSrcTableTask);
+
+        //log batch sql
+        SQLRecorderLogger.ddlLogger.info(MessageFormat.format(
+            "[{0}] FastChecker {1}[{2}][{3}], full scan, phySqlInfo: {4}",
+            baseEc.getTraceId(), phyDbName, phyTable, isSrcTableTask ? "src" : "dst", plan));
+
+        return executeHashcheckPlan(plan, baseEc);
+    }
+
+    private PhyTableOperation buildFullScanHashcheckPlan(String phyDbName, String phyTable, boolean isSrcTableTask) {
         final Map<Integer, ParameterContext> params = new HashMap<>(1);
         params.put(1, PlannerUtils.buildParameterContextForTableName(phyTable, 1));
 
@@ -563,15 +575,7 @@ public class FastChecker extends PhyOperationBuilderCommon {
         buildParams.setGroupName(phyDbName);
         buildParams.setPhyTables(ImmutableList.of(ImmutableList.of(phyTable)));
         buildParams.setDynamicParams(params);
-        PhyTableOperation plan =
-            PhyTableOperationFactory.getInstance().buildPhyTableOperationByPhyOp(targetPhyOp, buildParams);
-
-        //log batch sql
-        SQLRecorderLogger.ddlLogger.info(MessageFormat.format(
-            "[{0}] FastChecker {1}[{2}][{3}], full scan, phySqlInfo: {4}",
-            baseEc.getTraceId(), phyDbName, phyTable, isSrcTableTask ? "src" : "dst", plan));
-
-        return executeHashcheckPlan(plan, baseEc);
+        return PhyTableOperationFactory.getInstance().buildPhyTableOperationByPhyOp(targetPhyOp, buildParams);
     }
 
     private Long executeHashcheckPlan(PhyTableOperation plan, ExecutionContext ec) {
@@ -920,6 +924,11 @@ public class FastChecker extends PhyOperationBuilderCommon {
         //<GroupName, StorageInstId>
         Map<String, String> mapping = queryStorageInstIdByPhyGroup(allGroups);
 
+        Boolean merkleResult = merkleCheck(srcDbAndTb, dstDbAndTb, baseEc, batchSize, mapping);
+        if (merkleResult != null) {
+            return merkleResult;
+        }
+
         Map<String, List<FutureTask<Pair<Long, Boolean>>>> allFutureTasksByGroup =
             new TreeMap<>(String::compareToIgnoreCase);
 
@@ -1031,6 +1040,196 @@ public class FastChecker extends PhyOperationBuilderCommon {
             && compare(srcResult, dstResult);
     }
 
+    /**
+     * 源端与目标端主键相同时, 以最大物理表的采样点切分主键区间, 两端每张物理表按相同区间做 hash check,
+     * 合并为 Merkle 摘要比较. 不一致的区间会打印出来, 区间划分在本 DDL 任务内保留以省去复核时的采样;
+     * 复核时在新快照上重算全部区间, 旧快照的摘要不参与判定
+     *
+     * @return null if merkle check is not applicable
+     */
+    private Boolean merkleCheck(Map<String, Set<String>> srcDbAndTb, Map<String, Set<String>> dstDbAndTb,
+                                ExecutionContext baseEc, long batchSize, Map<String, String> storageMapping) {
+        if (!baseEc.getParamManager().getBoolean(ConnectionParams.FASTCHECKER_ENABLE_MERKLE)
+            || !whetherCanSplitIntoBatch(baseEc, true) || !whetherCanSplitIntoBatch(baseEc, false)
+            || srcPks.size() != dstPks.size()
+            || !IntStream.range(0, srcPks.size()).allMatch(i -> srcPks.get(i).equalsIgnoreCase(dstPks.get(i)))) {
+            return null;
+        }
+
+        final Long jobId = baseEc.getDdlJobId() == null || baseEc.getDdlJobId() <= 0 ? null : baseEc.getDdlJobId();
+        final String tableKey =
+            srcSchemaName + "." + srcLogicalTableName + ":" + dstSchemaName + "." + dstLogicalTableName;
+        FastCheckerMerkleTree tree = FastCheckerMerkleTree.getRetained(jobId, tableKey, batchSize);
+        if (tree == null) {
+            tree = new FastCheckerMerkleTree(sampleMerkleBounds(srcDbAndTb, dstDbAndTb, baseEc, batchSize),
+                batchSize);
+        }
+        final FastCheckerMerkleTree finalTree = tree;
+        final List<Integer> leaves = IntStream.range(0, tree.getLeafCount()).boxed().collect(Collectors.toList());
+
+        SQLRecorderLogger.ddlLogger.info(MessageFormat.format(
+            "[{0}] FastChecker merkle check {1} ranges", baseEc.getTraceId(), tree.getLeafCount()));
+
+        // Hash every range of every physical table on a fresh snapshot, in parallel across storage instances
+        final Map mdcContext = MDC.getCopyOfContextMap();
+        List<Pair<String, Runnable>> allTasksByStorageInstId = new ArrayList<>();
+        List<Pair<Boolean, FutureTask<Long[]>>> allFutureTasks = new ArrayList<>();
+        for (boolean isSrc : new boolean[] {true, false}) {
+            for (Map.Entry<String, Set<String>> entry : (isSrc ? srcDbAndTb : dstDbAndTb).entrySet()) {
+                String phyDb = entry.getKey();
+                if (!storageMapping.containsKey(phyDb)) {
+                    throw new TddlRuntimeException(
+                        ErrorCode.ERR_FAST_CHECKER,
+                        String.format("FastChecker failed to get group-storageInstId mapping, group [%s]", phyDb)
+                    );
+                }
+                for (String phyTb : entry.getValue()) {
+                    FutureTask<Long[]> task = new FutureTask<>(() -> {
+                        MDC.setContextMap(mdcContext);
+                        return hashRangesOfPhyTable(phyDb, phyTb, baseEc, isSrc, finalTree, leaves);
+                    });
+                    allTasksByStorageInstId.add(Pair.of(storageMapping.get(phyDb), task));
+                    allFutureTasks.add(Pair.of(isSrc, task));
+                }
+            }
+        }
+
+        this.phyTaskSum.set(allFutureTasks.size());
+        FastCheckerThreadPool.getInstance().increaseCheckTaskInfo(baseEc.getDdlJobId(), this.phyTaskSum.get(), 0);
+        FastCheckerThreadPool.getInstance().submitTasks(allTasksByStorageInstId);
+
+        Long[] srcHashes = new Long[leaves.size()];
+        Long[] dstHashes = new Long[leaves.size()];
+        for (Pair<Boolean, FutureTask<Long[]>> futureTask : allFutureTasks) {
+            Long[] hashes;
+            try {
+                hashes = futureTask.getValue().get();
+            } catch (Exception e) {
+                for (Pair<Boolean, FutureTask<Long[]>> taskToBeCancel : allFutureTasks) {
+                    try {
+                        taskToBeCancel.getValue().cancel(true);
+                    } catch (Exception ignore) {
+                    }
+                }
+                if (e.getMessage().toLowerCase().contains("XResult stream fetch result timeout".toLowerCase())) {
+                    throw new TddlNestableRuntimeException("FastChecker fetch phy table digest timeout", e);
+                } else {
+                    throw new TddlNestableRuntimeException(e);
+                }
+            }
+            Long[] target = futureTask.getKey() ? srcHashes : dstHashes;
+            for (int i = 0; i < hashes.length; i++) {
+                target[i] = FastCheckerMerkleTree.combine(target[i], hashes[i]);
+            }
+        }
+
+        for (int i = 0; i < leaves.size(); i++) {
+            tree.setLeaf(leaves.get(i), srcHashes[i], dstHashes[i]);
+        }
+        List<Integer> mismatched = tree.diff();
+        if (mismatched.isEmpty()) {
+            FastCheckerMerkleTree.release(jobId, tableKey);
+            return true;
+        }
+
+        FastCheckerMerkleTree.retain(jobId, tableKey, tree);
+        SQLRecorderLogger.ddlLogger.warn(MessageFormat.format(
+            "[{0}] FastChecker merkle check found {1} inconsistent ranges of {2}, first ranges: {3}",
+            baseEc.getTraceId(), mismatched.size(), tree.getLeafCount(),
+            mismatched.stream().limit(16).map(leaf -> "(" + GsiUtils.rowToString(finalTree.getLowerBound(leaf))
+                + ", " + GsiUtils.rowToString(finalTree.getUpperBound(leaf)) + "]").collect(Collectors.joining(", "))));
+        return false;
+    }
+
+    /**
+     * 用两端最大物理表的采样点作为所有物理表共同的区间边界, 不满足分批条件时只有一个区间
+     */
+    private List<Map<Integer, ParameterContext>> sampleMerkleBounds(Map<String, Set<String>> srcDbAndTb,
+                                                                   Map<String, Set<String>> dstDbAndTb,
+                                                                   ExecutionContext baseEc, long maxBatchRows) {
+        String maxPhyDb = null, maxPhyTb = null;
+        boolean maxIsSrc = true;
+        long maxRowsCount = -1;
+        for (boolean isSrc : new boolean[] {true, false}) {
+            String schema = isSrc ? srcSchemaName : dstSchemaName;
+            for (Map.Entry<String, Set<String>> entry : (isSrc ? srcDbAndTb : dstDbAndTb).entrySet()) {
+                for (String phyTb : entry.getValue()) {
+                    long rowsCount = getTableRowsCount(schema, entry.getKey(), phyTb);
+                    if (rowsCount > maxRowsCount) {
+                        maxRowsCount = rowsCount;
+                        maxPhyDb = entry.getKey();
+                        maxPhyTb = phyTb;
+                        maxIsSrc = isSrc;
+                    }
+                }
+            }
+        }
+        if (maxPhyDb == null) {
+            return new ArrayList<>();
+        }
+
+        long tableAvgRowLength =
+            max(1, getTableAvgRowSize(maxIsSrc ? srcSchemaName : dstSchemaName, maxPhyDb, maxPhyTb));
+        long finalBatchRows = Math.min(maxBatchRows,
+            baseEc.getParamManager().getLong(ConnectionParams.FASTCHECKER_BATCH_FILE_SIZE) / tableAvgRowLength);
+        return new ArrayList<>(
+            splitPhyTableIntoBatch(baseEc, maxPhyDb, maxPhyTb, maxRowsCount, max(1, finalBatchRows), maxIsSrc));
+    }
+
+    private Long[] hashRangesOfPhyTable(String phyDbName, String phyTable, ExecutionContext baseEc,
+                                        boolean isSrcTableTask, FastCheckerMerkleTree tree, List<Integer> leaves) {
+        long startTime = System.currentTimeMillis();
+        Long[] hashes = new Long[leaves.size()];
+        for (int i = 0; i < leaves.size(); i++) {
+            Map<Integer, ParameterContext> lowerBound = tree.getLowerBound(leaves.get(i));
+            Map<Integer, ParameterContext> upperBound = tree.getUpperBound(leaves.get(i));
+            PhyTableOperation plan;
+            if (lowerBound == null && upperBound == null) {
+                plan = buildFullScanHashcheckPlan(phyDbName, phyTable, isSrcTableTask);
+            } else {
+                List<ParameterContext> boundPc = new ArrayList<>();
+                if (lowerBound != null) {
+                    for (int j = 1; j <= lowerBound.size(); j++) {
+                        boundPc.add(lowerBound.get(j));
+                    }
+                }
+                if (upperBound != null) {
+                    for (int j = 1; j <= upperBound.size(); j++) {
+                        boundPc.add(upperBound.get(j));
+                    }
+                }
+                PhyTableOperation operation;
+                if (lowerBound == null) {
+                    operation = isSrcTableTask ? this.planSelectHashCheckWithUpperBoundSrc :
+                        this.planSelectHashCheckWithUpperBoundDst;
+                } else if (upperBound == null) {
+                    operation = isSrcTableTask ? this.planSelectHashCheckWithLowerBoundSrc :
+                        this.planSelectHashCheckWithLowerBoundDst;
+                } else {
+                    operation = isSrcTableTask ? this.planSelectHashCheckWithLowerUpperBoundSrc :
+                        this.planSelectHashCheckWithLowerUpperBoundDst;
+                }
+                plan = buildHashcheckPlanWithDnfParam(phyDbName, phyTable, boundPc, operation, lowerBound != null,
+                    upperBound != null);
+            }
+            hashes[i] = executeHashcheckPlan(plan, baseEc);
+            if (CrossEngineValidator.isJobInterrupted(baseEc) || Thread.currentThread().isInterrupted()) {
+                long jobId = baseEc.getDdlJobId();
+                throw new TddlRuntimeException(ErrorCode.ERR_DDL_JOB_ERROR,
+                    "The job '" + jobId + "' has been cancelled");
+            }
+        }
+
+        SQLRecorderLogger.ddlLogger.info(MessageFormat.format(
+            "[{0}] FastChecker finish merkle ranges for {1}[{2}][{3}], ranges[{4}], time use[{5}]",
+            baseEc.getTraceId(), phyDbName, phyTable, isSrcTableTask ? "src" : "dst", leaves.size(),
+            (System.currentTimeMillis() - startTime) / 1000.0));
+
+        this.phyTaskFinished.incrementAndGet();
+        FastCheckerThreadPool.getInstance().increaseCheckTaskInfo(baseEc.getDdlJobId(), 0, 1);
+        return hashes;
+    }
+
     private boolean compare(List<Long> src, List<Long> dst) {
         final HashCaculator srcCaculator = new HashCaculator();
         final HashCaculator dstCaculator = new HashCaculator();
@@ -1049,7 +1248,7 @@ public class FastChecker extends PhyOperationBuilderCommon {
                 CheckerManager.CheckerReportStatus.FINISH.getValue(), "--", finishDetails, "Reporter.", null)));
     }
 
-    class HashCaculator {
+    static class HashCaculator {
         private final Long p;
         private final Long q;
         private final Long r;
@@ -0,0 +1,208 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.fastchecker;
+
+import com.alibaba.polardbx.common.jdbc.ParameterContext;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按主键区间划分的 Merkle 摘要
+ * <p>
+ * n 个有序边界把主键空间切成 n + 1 个左开右闭区间, 叶子是一端全部物理表在该区间上 hash check 结果的合并.
+ * DN 的合并函数满足交换律与结合律, 父节点取子节点的合并, 根节点即整表摘要. 源端与目标端不一致时自顶向下
+ * 只进入不相等的子树, 定位到具体区间. 校验失败后只保留区间划分(按 DDL 任务), 复核沿用相同区间以便对照并省去一次采样,
+ * 但每次都在新的快照上重算全部叶子, 不复用旧摘要; 任务结束时释放
+ */
+public class FastCheckerMerkleTree {
+
+    /**
+     * ddlJobId -> 源表与目标表 -> 区间划分, 任务结束时由 {@link #releaseJob(long)} 清理, 过期只是兜底
+     */
+    private static final Cache<Long, Map<String, RetainedBounds>> RETAINED_BOUNDS = CacheBuilder.newBuilder()
+        .maximumSize(4096)
+        .expireAfterAccess(7, TimeUnit.DAYS)
+        .build();
+
+    private final List<Map<Integer, ParameterContext>> bounds;
+    private final long batchSize;
+    private final int leafCount;
+    private final int capacity;
+
+    /**
+     * 完全二叉树, 下标 1 为根, 叶子从 capacity 开始
+     */
+    private final Long[] srcNodes;
+    private final Long[] dstNodes;
+
+    public FastCheckerMerkleTree(List<Map<Integer, ParameterContext>> bounds, long batchSize) {
+        this.bounds = bounds;
+        this.batchSize = batchSize;
+        this.leafCount = bounds.size() + 1;
+        int capacity = 1;
+        while (capacity < leafCount) {
+            capacity <<= 1;
+        }
+        this.capacity = capacity;
+        this.srcNodes = new Long[capacity << 1];
+        this.dstNodes = new Long[capacity << 1];
+    }
+
+    /**
+     * 以该任务保留的区间划分构造摘要全部为空的新树, 没有保留或批大小已变化时返回 null
+     */
+    public static FastCheckerMerkleTree getRetained(Long jobId, String tableKey, long batchSize) {
+        if (jobId == null) {
+            return null;
+        }
+        Map<String, RetainedBounds> tables = RETAINED_BOUNDS.getIfPresent(jobId);
+        RetainedBounds retained = tables == null ? null : tables.get(tableKey);
+        if (retained == null || retained.batchSize != batchSize) {
+            return null;
+        }
+        return new FastCheckerMerkleTree(retained.bounds, batchSize);
+    }
+
+    public static void retain(Long jobId, String tableKey, FastCheckerMerkleTree tree) {
+        if (jobId == null) {
+            return;
+        }
+        try {
+            RETAINED_BOUNDS.get(jobId, ConcurrentHashMap::new)
+                .put(tableKey, new RetainedBounds(tree.bounds, tree.batchSize));
+        } catch (ExecutionException ignore) {
+            // ConcurrentHashMap::new never throws
+        }
+    }
+
+    public static void release(Long jobId, String tableKey) {
+        if (jobId == null) {
+            return;
+        }
+        Map<String, RetainedBounds> tables = RETAINED_BOUNDS.getIfPresent(jobId);
+        if (tables != null) {
+            tables.remove(tableKey);
+        }
+    }
+
+    /**
+     * DDL 任务结束时调用
+     */
+    public static void releaseJob(long jobId) {
+        RETAINED_BOUNDS.invalidate(jobId);
+    }
+
+    private static class RetainedBounds {
+        private final List<Map<Integer, ParameterContext>> bounds;
+        private final long batchSize;
+
+        private RetainedBounds(List<Map<Integer, ParameterContext>> bounds, long batchSize) {
+            this.bounds = bounds;
+            this.batchSize = batchSize;
+        }
+    }
+
+    public long getBatchSize() {
+        return batchSize;
+    }
+
+    public int getLeafCount() {
+        return leafCount;
+    }
+
+    /**
+     * 区间下界(不含), 第一个区间返回 null
+     */
+    public Map<Integer, ParameterContext> getLowerBound(int leaf) {
+        return leaf == 0 ? null : bounds.get(leaf - 1);
+    }
+
+    /**
+     * 区间上界(含), 最后一个区间返回 null
+     */
+    public Map<Integer, ParameterContext> getUpperBound(int leaf) {
+        return leaf == leafCount - 1 ? null : bounds.get(leaf);
+    }
+
+    /**
+     * 设置叶子的两端摘要, null 表示区间为空; 设置完一批叶子后需调用 {@link #diff()} 重新比较
+     */
+    public void setLeaf(int leaf, Long srcHash, Long dstHash) {
+        srcNodes[capacity + leaf] = srcHash;
+        dstNodes[capacity + leaf] = dstHash;
+    }
+
+    public Long getSrcRoot() {
+        return srcNodes[1];
+    }
+
+    public Long getDstRoot() {
+        return dstNodes[1];
+    }
+
+    /**
+     * 重建内部节点并自顶向下比较, 返回不一致的叶子
+     */
+    public List<Integer> diff() {
+        for (int i = capacity - 1; i >= 1; i--) {
+            srcNodes[i] = combine(srcNodes[i << 1], srcNodes[(i << 1) + 1]);
+            dstNodes[i] = combine(dstNodes[i << 1], dstNodes[(i << 1) + 1]);
+        }
+        List<Integer> mismatched = new ArrayList<>();
+        diff(1, 0, capacity, mismatched);
+        return mismatched;
+    }
+
+    private void diff(int node, int low, int high, List<Integer> mismatched) {
+        if (low >= leafCount) {
+            return;
+        }
+        if (Objects.equals(srcNodes[node], dstNodes[node])) {
+            return;
+        }
+        if (high - low == 1) {
+            mismatched.add(low);
+            return;
+        }
+        int mid = (low + high) >>> 1;
+        diff(node << 1, low, mid, mismatched);
+        diff((node << 1) + 1, mid, high, mismatched);
+    }
+
+    /**
+     * 与 DN 相同的摘要合并, null 表示空集
+     */
+    public static Long combine(Long a, Long b) {
+        if (a == null) {
+            return b;
+        }
+        if (b == null) {
+            return a;
+        }
+        FastChecker.HashCaculator caculator = new FastChecker.HashCaculator();
+        caculator.caculate(a);
+        return caculator.caculate(b);
+    }
+}
@@ -24,6 +24,7 @@ import com.alibaba.polardbx.common.utils.GeneralUtil;
 import com.alibaba.polardbx.executor.ExecutorHelper;
 import com.alibaba.polardbx.executor.backfill.BatchConsumer;
 import com.alibaba.polardbx.executor.backfill.Extractor;
+import com.alibaba.polardbx.executor.backfill.ShardBackfillController;
 import com.alibaba.polardbx.executor.cursor.Cursor;
 import com.alibaba.polardbx.executor.ddl.newengine.DdlEngineStats;
 import com.alibaba.polardbx.executor.ddl.newengine.cross.CrossEngineValidator;
@@ -184,9 +185,13 @@ public class OmcMirrorCopyExtractor extends Extractor {
 
         List<Map<Integer, ParameterContext>> lastBatch = null;
         AtomicReference<Boolean> finished = new AtomicReference<>(false);
+        final ShardBackfillController shard = getShardController(dbIndex);
         long actualBatchSize = batchSize;
+        // Back-off on max_allowed_packet belongs to this physical table, the shard size only caps it
+        long packetLimitedBatchSize = batchSize;
         do {
             try {
+                actualBatchSize = Math.min(shard.getBatchSize(), packetLimitedBatchSize);
                 if (rateLimiter != null) {
                     rateLimiter.acquire((int) actualBatchSize);
                 }
@@ -236,6 +241,7 @@ public class OmcMirrorCopyExtractor extends Extractor {
                 if (!finished.get()) {
                     throttle.feedback(new com.alibaba.polardbx.executor.backfill.Throttle.FeedbackStats(
                         System.currentTimeMillis() - start, start, currentSuccessRowCount.get()));
+                    feedbackShard(shard, System.currentTimeMillis() - start);
                 }
                 DdlEngineStats.METRIC_BACKFILL_ROWS_SPEED.set((long) throttle.getActualRateLastCycle());
 
@@ -251,8 +257,8 @@ public class OmcMirrorCopyExtractor extends Extractor {
                     throw new TddlRuntimeException(ErrorCode.ERR_DDL_JOB_ERROR,
                         "The job '" + jobId + "' has been cancelled");
                 }
-                if (actualBatchSize < batchSize) {
-                    actualBatchSize = Math.min(actualBatchSize * 2, batchSize);
+                if (packetLimitedBatchSize < batchSize) {
+                    packetLimitedBatchSize = Math.min(packetLimitedBatchSize * 2, batchSize);
                 }
             } catch (TddlRuntimeException e) {
                 boolean retry = (e.getErrorCode() == ErrorCode.ERR_X_PROTOCOL_BAD_PACKET.getCode() ||
@@ -260,7 +266,7 @@ public class OmcMirrorCopyExtractor extends Extractor {
                     (e.getSQLState() != null && e.getSQLState().equalsIgnoreCase("S1000") && e.getMessage()
                         .toLowerCase().contains("max_allowed_packet"))) && actualBatchSize > 1;
                 if (retry) {
-                    actualBatchSize = Math.max(actualBatchSize / 8, 1);
+                    packetLimitedBatchSize = Math.max(actualBatchSize / 8, 1);
                 } else {
                     throw e;
                 }
@@ -27,6 +27,9 @@ import com.alibaba.polardbx.executor.mpp.discover.PolarDBXNodeStatusManager;
 import com.alibaba.polardbx.executor.mpp.execution.QueryManager;
 import com.alibaba.polardbx.executor.mpp.execution.TaskExecutor;
 import com.alibaba.polardbx.executor.mpp.execution.TaskManager;
+import com.alibaba.polardbx.executor.mpp.operator.ForExchange;
+import com.alibaba.polardbx.executor.mpp.server.ExchangeStream;
+import com.alibaba.polardbx.executor.mpp.server.ExchangeStreamServer;
 import com.alibaba.polardbx.executor.mpp.server.StatementResource;
 import com.alibaba.polardbx.executor.operator.spill.SpillerFactory;
 import com.alibaba.polardbx.gms.node.GmsNodeManager;
@@ -38,6 +41,7 @@ import com.alibaba.polardbx.gms.util.InstIdUtil;
 import com.alibaba.polardbx.optimizer.context.ExecutionContext;
 import com.google.common.collect.ImmutableList;
 import com.google.inject.Injector;
+import com.google.inject.Key;
 import com.google.inject.Module;
 import io.airlift.bootstrap.Bootstrap;
 import io.airlift.event.client.EventModule;
@@ -48,9 +52,11 @@ import io.airlift.json.JsonModule;
 import io.airlift.node.NodeModule;
 import org.apache.calcite.rel.RelNode;
 
+import java.io.IOException;
 import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
 
 import static com.alibaba.polardbx.common.properties.PropUtil.getCluster;
 import static com.alibaba.polardbx.executor.mpp.client.MppMediaTypes.MPP_POLARDBX;
@@ -126,6 +132,7 @@ public class MppServer extends Server {
             }
             if (isMppWorker) {
                 taskManager = injector.getInstance(TaskManager.class);
+                startExchangeStreamServer(injector);
             }
             nodeManager = injector.getInstance(InternalNodeManager.class);
             taskExecutor = injector.getInstance(TaskExecutor.class);
@@ -140,6 +147,20 @@ public class MppServer extends Server {
         start();
     }
 
+    private void startExchangeStreamServer(Injector injector) throws IOException {
+        int portOffset = MppConfig.getInstance().getExchangeStreamPortOffset();
+        if (portOffset <= 0) {
+            return;
+        }
+        ExchangeStreamServer server = new ExchangeStreamServer(
+            mppPort + portOffset,
+            ExchangeStream.fromTaskManager(taskManager, false),
+            injector.getInstance(Key.get(ScheduledExecutorService.class, ForExchange.class)),
+            MppConfig.getInstance().getExchangeMaxResponseSize());
+        server.start();
+        ExchangeStreamServer.setInstance(server);
+    }
+
     public TaskManager getTaskManager() {
         return taskManager;
     }
@@ -27,6 +27,7 @@ import io.airlift.units.DataSize;
 import javax.annotation.concurrent.GuardedBy;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -45,7 +46,7 @@ public class BroadcastOutputBuffer
     private final OutputBufferMemoryManager memoryManager;
 
     @GuardedBy("this")
-    private OutputBuffers outputBuffers =
+    private volatile OutputBuffers outputBuffers =
         OutputBuffers.createInitialEmptyOutputBuffers(OutputBuffers.BufferType.BROADCAST);
 
     @GuardedBy("this")
@@ -213,7 +214,25 @@ public class BroadcastOutputBuffer
         requireNonNull(outputBufferId, "outputBufferId is null");
         checkArgument(maxSize.toBytes() > 0, "maxSize must be at least 1 byte");
 
-        return getBuffer(outputBufferId).getPages(startingSequenceId, maxSize);
+        ClientBuffer buffer = getBuffer(outputBufferId);
+        if (preferLocal) {
+            buffer.setPreferLocal(true);
+        }
+        return buffer.getPages(startingSequenceId, maxSize);
+    }
+
+    /**
+     * Chunks are shared by every client buffer of a broadcast, so they can only skip
+     * serialization when the buffer set is sealed and has a single in-process consumer.
+     */
+    @Override
+    public ClientBuffer getClientBuffer(int partition) {
+        checkArgument(partition == 0, "Expected partition number to be zero");
+        if (!outputBuffers.isNoMoreBufferIds() || buffers.size() != 1) {
+            return null;
+        }
+        Iterator<ClientBuffer> iterator = buffers.values().iterator();
+        return iterator.hasNext() ? iterator.next() : null;
     }
 
     @Override
@@ -18,11 +18,24 @@ package com.alibaba.polardbx.executor.mpp.execution.buffer;
 
 import com.alibaba.polardbx.common.exception.TddlRuntimeException;
 import com.alibaba.polardbx.common.exception.code.ErrorCode;
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.zstd.ZstdCompressor;
+import io.airlift.compress.zstd.ZstdDecompressor;
 
+/**
+ * Codec of a serialized chunk, the marker is written on wire so the reader always picks the decompressor
+ * the writer used, whatever codec the reader itself is configured with.
+ */
 public enum ChunkCompression {
 
     UNCOMPRESSED((byte) 0),
-    COMPRESSED((byte) 1);
+    LZ4((byte) 1),
+    ZSTD((byte) 2);
+
+    private static final ChunkCompression[] BY_MARKER = {UNCOMPRESSED, LZ4, ZSTD};
 
     private final byte marker;
 
@@ -34,10 +47,50 @@ public enum ChunkCompression {
         return marker;
     }
 
+    public boolean isCompressed() {
+        return this != UNCOMPRESSED;
+    }
+
+    public Compressor createCompressor() {
+        switch (this) {
+        case LZ4:
+            return new Lz4Compressor();
+        case ZSTD:
+            return new ZstdCompressor();
+        default:
+            return null;
+        }
+    }
+
+    public Decompressor createDecompressor() {
+        switch (this) {
+        case LZ4:
+            return new Lz4Decompressor();
+        case ZSTD:
+            return new ZstdDecompressor();
+        default:
+            return null;
+        }
+    }
+
     public static ChunkCompression lookupCodecFromMarker(byte marker) {
-        if (marker != UNCOMPRESSED.getMarker() && marker != COMPRESSED.getMarker()) {
+        if (marker < 0 || marker >= BY_MARKER.length) {
             throw new TddlRuntimeException(ErrorCode.ERR_CORRUPT_PAGE, "Page marker did not contain expected value");
         }
-        return UNCOMPRESSED.getMarker() == marker ? UNCOMPRESSED : COMPRESSED;
+        return BY_MARKER[marker];
+    }
+
+    /**
+     * Codec by its config name, NONE (or anything unknown) means no compression.
+     */
+    public static ChunkCompression fromCodecName(String name) {
+        if (name != null) {
+            if (LZ4.name().equalsIgnoreCase(name)) {
+                return LZ4;
+            } else if (ZSTD.name().equalsIgnoreCase(name)) {
+                return ZSTD;
+            }
+        }
+        return UNCOMPRESSED;
     }
 }
@@ -59,7 +59,11 @@ public class ClientBuffer {
 
     private volatile long bufferedBytesLong = 0L;
 
-    boolean preferLocal = false;
+    /**
+     * set by the consumer thread on its first in-process fetch and read by the producer
+     * to decide whether chunks can be handed over without serialization
+     */
+    private volatile boolean preferLocal = false;
 
     @GuardedBy("this")
     private volatile long currentSequenceIdLong = 0L;
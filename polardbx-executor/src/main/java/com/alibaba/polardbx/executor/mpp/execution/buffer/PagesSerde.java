@@ -29,11 +29,9 @@ import io.airlift.slice.Slices;
 
 import javax.annotation.concurrent.NotThreadSafe;
 import java.util.List;
-import java.util.Optional;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
-import static io.airlift.compress.lz4.Lz4RawCompressor.maxCompressedLength;
 import static java.lang.Math.toIntExact;
 import static java.util.Objects.requireNonNull;
 
@@ -41,29 +39,41 @@ import static java.util.Objects.requireNonNull;
 public class PagesSerde {
     private static final double MINIMUM_COMPRESSION_RATIO = 0.8;
 
-    private final Optional<Compressor> compressor;
-    private final Optional<Decompressor> decompressor;
+    /**
+     * In adaptive mode, pages smaller than this are never worth the codec call.
+     */
+    private static final int ADAPTIVE_MIN_COMPRESS_SIZE = 1024;
+
+    /**
+     * In adaptive mode, after a page fails to compress well, skip compression for this many pages before
+     * sampling again. The skip doubles on each consecutive failure up to the max, and resets on success.
+     */
+    private static final int ADAPTIVE_INITIAL_SKIP = 4;
+    private static final int ADAPTIVE_MAX_SKIP = 256;
+
+    private final ChunkCompression codec;
+    private final Compressor compressor;
+    private final boolean adaptive;
+    private final Decompressor[] decompressors = new Decompressor[ChunkCompression.values().length];
     private final List<BlockEncoding> blockEncodings;
 
-    public PagesSerde(Optional<Compressor> compressor,
-                      Optional<Decompressor> decompressor,
+    private int skipRemaining = 0;
+    private int nextSkip = ADAPTIVE_INITIAL_SKIP;
+
+    public PagesSerde(ChunkCompression codec,
+                      boolean adaptive,
                       List<DataType> types) {
-        this.compressor = requireNonNull(compressor, "compressor is null");
-        this.decompressor = requireNonNull(decompressor, "decompressor is null");
-        this.blockEncodings = BlockEncodingBuilders.create(types, null);
-        checkArgument(compressor.isPresent() == decompressor.isPresent(),
-            "compressor and decompressor must both be present or both be absent");
+        this(codec, adaptive, types, null);
     }
 
-    public PagesSerde(Optional<Compressor> compressor,
-                      Optional<Decompressor> decompressor,
+    public PagesSerde(ChunkCompression codec,
+                      boolean adaptive,
                       List<DataType> types,
                       ExecutionContext context) {
-        this.compressor = requireNonNull(compressor, "compressor is null");
-        this.decompressor = requireNonNull(decompressor, "decompressor is null");
+        this.codec = requireNonNull(codec, "codec is null");
+        this.compressor = codec.createCompressor();
+        this.adaptive = adaptive;
         this.blockEncodings = BlockEncodingBuilders.create(types, context);
-        checkArgument(compressor.isPresent() == decompressor.isPresent(),
-            "compressor and decompressor must both be present or both be absent");
     }
 
     public SerializedChunk serialize(boolean localChunk, Chunk page) {
@@ -80,29 +90,51 @@ public class PagesSerde {
         // length is an int
         PagesSerdeUtil.writeRawPage(page, serializationBuffer, blockEncodings);
 
-        if (!compressor.isPresent()) {
+        if (!shouldCompress(serializationBuffer.size())) {
             return new SerializedChunk(serializationBuffer.slice(), ChunkCompression.UNCOMPRESSED,
                 page.getPositionCount(), serializationBuffer.size());
         }
 
-        int maxCompressedLength = maxCompressedLength(serializationBuffer.size());
+        int maxCompressedLength = compressor.maxCompressedLength(serializationBuffer.size());
         byte[] compressionBuffer = new byte[maxCompressedLength];
-        int actualCompressedLength = compressor.get()
+        int actualCompressedLength = compressor
             .compress(serializationBuffer.slice().getBytes(), 0, serializationBuffer.size(), compressionBuffer, 0,
                 maxCompressedLength);
 
         if (((1.0 * actualCompressedLength) / serializationBuffer.size()) > MINIMUM_COMPRESSION_RATIO) {
+            if (adaptive) {
+                skipRemaining = nextSkip;
+                nextSkip = Math.min(nextSkip * 2, ADAPTIVE_MAX_SKIP);
+            }
             return new SerializedChunk(serializationBuffer.slice(), ChunkCompression.UNCOMPRESSED,
                 page.getPositionCount(), serializationBuffer.size());
         }
+        nextSkip = ADAPTIVE_INITIAL_SKIP;
 
         return new SerializedChunk(
             Slices.copyOf(Slices.wrappedBuffer(compressionBuffer, 0, actualCompressedLength)),
-            ChunkCompression.COMPRESSED,
+            codec,
             page.getPositionCount(),
             serializationBuffer.size());
     }
 
+    private boolean shouldCompress(int serializedSize) {
+        if (compressor == null) {
+            return false;
+        }
+        if (!adaptive) {
+            return true;
+        }
+        if (serializedSize < ADAPTIVE_MIN_COMPRESS_SIZE) {
+            return false;
+        }
+        if (skipRemaining > 0) {
+            skipRemaining--;
+            return false;
+        }
+        return true;
+    }
+
     public Chunk deserialize(SerializedChunk serializedChunk) {
         checkArgument(serializedChunk != null, "serializedChunk is null");
 
@@ -110,14 +142,14 @@ public class PagesSerde {
             return serializedChunk.getPage();
         }
 
-        if (!decompressor.isPresent() || serializedChunk.getCompression() == ChunkCompression.UNCOMPRESSED) {
+        if (!serializedChunk.getCompression().isCompressed()) {
             return PagesSerdeUtil.readRawPage(serializedChunk.getPositionCount(), serializedChunk.getSlice().getInput(),
                 blockEncodings);
         }
 
         int uncompressedSize = serializedChunk.getUncompressedSizeInBytes();
         byte[] decompressed = new byte[uncompressedSize];
-        int actualUncompressedSize = decompressor.get()
+        int actualUncompressedSize = getDecompressor(serializedChunk.getCompression())
             .decompress(serializedChunk.getSlice().getBytes(), 0, serializedChunk.getSlice().length(), decompressed, 0,
                 uncompressedSize);
         checkState(uncompressedSize == actualUncompressedSize);
@@ -125,4 +157,13 @@ public class PagesSerde {
         return PagesSerdeUtil.readRawPage(serializedChunk.getPositionCount(), Slices
             .wrappedBuffer(decompressed, 0, uncompressedSize).getInput(), blockEncodings);
     }
+
+    private Decompressor getDecompressor(ChunkCompression compression) {
+        Decompressor decompressor = decompressors[compression.ordinal()];
+        if (decompressor == null) {
+            decompressor = compression.createDecompressor();
+            decompressors[compression.ordinal()] = decompressor;
+        }
+        return decompressor;
+    }
 }
@@ -16,35 +16,41 @@
 
 package com.alibaba.polardbx.executor.mpp.execution.buffer;
 
+import com.alibaba.polardbx.common.properties.ConnectionParams;
 import com.alibaba.polardbx.optimizer.context.ExecutionContext;
 import com.alibaba.polardbx.optimizer.core.datatype.DataType;
-import io.airlift.compress.lz4.Lz4Compressor;
-import io.airlift.compress.lz4.Lz4Decompressor;
 
 import java.util.List;
-import java.util.Optional;
 
 public class PagesSerdeFactory {
 
-    private final boolean compressionEnabled;
+    private final ChunkCompression codec;
+    private final boolean adaptive;
 
     public PagesSerdeFactory(boolean compressionEnabled) {
-        this.compressionEnabled = compressionEnabled;
+        this(compressionEnabled ? ChunkCompression.LZ4 : ChunkCompression.UNCOMPRESSED, false);
+    }
+
+    public PagesSerdeFactory(ChunkCompression codec, boolean adaptive) {
+        this.codec = codec;
+        this.adaptive = adaptive;
+    }
+
+    /**
+     * Exchange codec chosen by MPP_EXCHANGE_COMPRESSION and MPP_EXCHANGE_ADAPTIVE_COMPRESSION.
+     */
+    public static PagesSerdeFactory forExchange(ExecutionContext context) {
+        ChunkCompression codec = ChunkCompression.fromCodecName(
+            context.getParamManager().getString(ConnectionParams.MPP_EXCHANGE_COMPRESSION));
+        boolean adaptive = context.getParamManager().getBoolean(ConnectionParams.MPP_EXCHANGE_ADAPTIVE_COMPRESSION);
+        return new PagesSerdeFactory(codec, adaptive);
     }
 
     public PagesSerde createPagesSerde(List<DataType> types) {
-        if (compressionEnabled) {
-            return new PagesSerde(Optional.of(new Lz4Compressor()), Optional.of(new Lz4Decompressor()), types);
-        } else {
-            return new PagesSerde(Optional.empty(), Optional.empty(), types);
-        }
+        return new PagesSerde(codec, adaptive, types);
     }
 
     public PagesSerde createPagesSerde(List<DataType> types, ExecutionContext context) {
-        if (compressionEnabled) {
-            return new PagesSerde(Optional.of(new Lz4Compressor()), Optional.of(new Lz4Decompressor()), types, context);
-        } else {
-            return new PagesSerde(Optional.empty(), Optional.empty(), types, context);
-        }
+        return new PagesSerde(codec, adaptive, types, context);
     }
 }
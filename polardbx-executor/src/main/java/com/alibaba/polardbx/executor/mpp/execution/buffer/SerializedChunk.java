@@ -41,9 +41,9 @@ public class SerializedChunk {
         this.compression = requireNonNull(compression, "compression is null");
         this.positionCount = positionCount;
         checkArgument(uncompressedSizeInBytes >= 0, "uncompressedSizeInBytes is negative");
-        checkArgument(compression == ChunkCompression.UNCOMPRESSED || uncompressedSizeInBytes > slice.length(),
+        checkArgument(!compression.isCompressed() || uncompressedSizeInBytes > slice.length(),
             "compressed size must be smaller than uncompressed size when compressed");
-        checkArgument(compression == ChunkCompression.COMPRESSED || uncompressedSizeInBytes == slice.length(),
+        checkArgument(compression.isCompressed() || uncompressedSizeInBytes == slice.length(),
             "uncompressed size must be equal to slice length when uncompressed");
         this.uncompressedSizeInBytes = uncompressedSizeInBytes;
         this.page = null;
@@ -16,8 +16,10 @@
 
 package com.alibaba.polardbx.executor.mpp.operator;
 
+import com.alibaba.polardbx.common.properties.ConnectionParams;
 import com.alibaba.polardbx.common.properties.MppConfig;
 import com.alibaba.polardbx.executor.mpp.execution.SystemMemoryUsageListener;
+import com.alibaba.polardbx.executor.mpp.server.ExchangeStreamServer;
 import com.alibaba.polardbx.optimizer.context.ExecutionContext;
 import io.airlift.http.client.HttpClient;
 import io.airlift.units.DataSize;
@@ -74,7 +76,19 @@ public class ExchangeClientFactory implements ExchangeClientSupplier {
     }
 
     @Override
-    public ExchangeClient get(SystemMemoryUsageListener systemMemoryUsageListener, ExecutionContext context) {
+    public IExchangeClient get(SystemMemoryUsageListener systemMemoryUsageListener, ExecutionContext context) {
+        if (ExchangeStreamServer.getInstance() != null
+            && context.getParamManager().getBoolean(ConnectionParams.MPP_EXCHANGE_STREAMING)) {
+            return new StreamingExchangeClient(
+                context,
+                maxResponseSize,
+                MppConfig.getInstance().getExchangeStreamPortOffset(),
+                httpClient,
+                minErrorDuration,
+                maxErrorDuration,
+                executor,
+                systemMemoryUsageListener);
+        }
         return new ExchangeClient(
             context,
             maxResponseSize,
@@ -0,0 +1,239 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.polardbx.executor.mpp.operator;
+
+import com.alibaba.polardbx.common.exception.TddlRuntimeException;
+import com.alibaba.polardbx.common.exception.code.ErrorCode;
+import com.alibaba.polardbx.common.utils.logger.Logger;
+import com.alibaba.polardbx.common.utils.logger.LoggerFactory;
+import com.alibaba.polardbx.executor.mpp.Threads;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.BufferResult;
+import com.alibaba.polardbx.executor.mpp.metadata.TaskLocation;
+import com.alibaba.polardbx.executor.mpp.server.ExchangeStream;
+import com.alibaba.polardbx.executor.mpp.server.ExchangeStreamProtocol;
+import com.google.common.net.HostAndPort;
+
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.alibaba.polardbx.executor.mpp.server.ExchangeStreamProtocol.ERROR;
+import static com.alibaba.polardbx.executor.mpp.server.ExchangeStreamProtocol.MAGIC;
+import static com.alibaba.polardbx.executor.mpp.server.ExchangeStreamProtocol.PAGES;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Client side of a persistent exchange connection to one node. Channels are shared by all exchange clients of
+ * this process and live until the connection breaks, which fails every stream still open on it.
+ */
+@ThreadSafe
+final class ExchangeStreamChannel {
+
+    private static final Logger log = LoggerFactory.getLogger(ExchangeStreamChannel.class);
+
+    private static final int SOCKET_BUFFER_SIZE = 1 << 16;
+    private static final int CONNECT_TIMEOUT_MILLS = 10000;
+    private static final long UNREACHABLE_RETRY_MILLS = 60000;
+
+    private static final Map<HostAndPort, ExchangeStreamChannel> CHANNELS = new ConcurrentHashMap<>();
+
+    /**
+     * nodes whose stream port refused a connection, mapped to the time a new attempt is allowed
+     */
+    private static final Map<HostAndPort, Long> UNREACHABLE = new ConcurrentHashMap<>();
+
+    private final HostAndPort address;
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+    private final AtomicInteger nextStreamId = new AtomicInteger();
+    private final Map<Integer, ExchangeStream.Sink> sinks = new ConcurrentHashMap<>();
+
+    private volatile boolean closed;
+
+    private ExchangeStreamChannel(HostAndPort address) throws IOException {
+        this.address = address;
+        this.socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.setSendBufferSize(SOCKET_BUFFER_SIZE);
+            socket.setReceiveBufferSize(SOCKET_BUFFER_SIZE);
+            socket.connect(new InetSocketAddress(address.getHost(), address.getPort()), CONNECT_TIMEOUT_MILLS);
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), SOCKET_BUFFER_SIZE));
+            this.out =
+                new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), SOCKET_BUFFER_SIZE));
+            out.writeInt(MAGIC);
+            out.flush();
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        Thread reader = Threads.daemonThreadsNamed("exchange-stream-client").newThread(this::readLoop);
+        reader.start();
+    }
+
+    /**
+     * @throws ConnectException if the stream port of the node can not be connected, callers may fall back to http
+     */
+    static ExchangeStreamChannel get(TaskLocation location, int portOffset) throws IOException {
+        HostAndPort address = HostAndPort.fromParts(location.getNodeServer().getHost(),
+            location.getNodeServer().getHttpPort() + portOffset);
+        ExchangeStreamChannel channel = CHANNELS.get(address);
+        if (channel != null && !channel.closed) {
+            return channel;
+        }
+        Long retryTime = UNREACHABLE.get(address);
+        if (retryTime != null && System.currentTimeMillis() < retryTime) {
+            throw new ConnectException("exchange stream port of " + address + " is unreachable");
+        }
+        synchronized (CHANNELS) {
+            channel = CHANNELS.get(address);
+            if (channel == null || channel.closed) {
+                try {
+                    channel = new ExchangeStreamChannel(address);
+                } catch (IOException e) {
+                    UNREACHABLE.put(address, System.currentTimeMillis() + UNREACHABLE_RETRY_MILLS);
+                    ConnectException failure =
+                        new ConnectException("failed to connect exchange stream port of " + address);
+                    failure.initCause(e);
+                    throw failure;
+                }
+                UNREACHABLE.remove(address);
+                CHANNELS.put(address, channel);
+            }
+            return channel;
+        }
+    }
+
+    int open(TaskLocation location, long credit, ExchangeStream.Sink sink) throws IOException {
+        requireNonNull(sink, "sink is null");
+        int streamId = nextStreamId.incrementAndGet();
+        sinks.put(streamId, sink);
+        try {
+            synchronized (out) {
+                ExchangeStreamProtocol.writeOpen(out, streamId, location.getTaskId().toString(),
+                    location.getBufferId(), credit);
+                out.flush();
+            }
+        } catch (IOException e) {
+            sinks.remove(streamId);
+            fail(e);
+            throw e;
+        }
+        return streamId;
+    }
+
+    void addCredit(int streamId, long credit) throws IOException {
+        try {
+            synchronized (out) {
+                ExchangeStreamProtocol.writeCredit(out, streamId, credit);
+                out.flush();
+            }
+        } catch (IOException e) {
+            fail(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Stops a stream, the server aborts its output buffer unless it was already drained.
+     */
+    void close(int streamId) {
+        if (sinks.remove(streamId) == null || closed) {
+            return;
+        }
+        try {
+            synchronized (out) {
+                ExchangeStreamProtocol.writeClose(out, streamId);
+                out.flush();
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void readLoop() {
+        try {
+            while (!closed) {
+                byte type = in.readByte();
+                int streamId = in.readInt();
+                if (type == PAGES) {
+                    BufferResult result = ExchangeStreamProtocol.readPages(in);
+                    // the stream may have been closed locally in the meantime, a drained stream is
+                    // already released by the server
+                    ExchangeStream.Sink sink =
+                        result.isBufferComplete() ? sinks.remove(streamId) : sinks.get(streamId);
+                    if (sink != null) {
+                        try {
+                            sink.onPages(result);
+                        } catch (Throwable t) {
+                            failStream(streamId, t);
+                        }
+                    }
+                } else if (type == ERROR) {
+                    String message = in.readUTF();
+                    failStream(streamId, new TddlRuntimeException(ErrorCode.ERR_EXECUTE_MPP,
+                        String.format("%s (%s)", message, address)));
+                } else {
+                    throw new IOException("unknown exchange stream frame " + type);
+                }
+            }
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private void failStream(int streamId, Throwable cause) {
+        ExchangeStream.Sink sink = sinks.remove(streamId);
+        if (sink != null) {
+            sink.onFailure(cause);
+        }
+    }
+
+    private void fail(Throwable cause) {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        CHANNELS.remove(address, this);
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // ignored
+        }
+        if (!sinks.isEmpty()) {
+            log.warn("exchange stream channel to " + address + " failed", cause);
+        }
+        TddlRuntimeException failure = new TddlRuntimeException(ErrorCode.ERR_EXECUTE_MPP, cause,
+            "exchange stream channel to " + address + " failed");
+        for (Integer streamId : sinks.keySet()) {
+            failStream(streamId, failure);
+        }
+    }
+}
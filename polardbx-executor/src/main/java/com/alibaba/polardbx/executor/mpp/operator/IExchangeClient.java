@@ -43,4 +43,24 @@ public interface IExchangeClient extends Closeable {
     SerializedChunk pollPage();
 
     SerializedChunk getNextPageForDagWithDataDivide(Duration maxWaitTime) throws InterruptedException;
-}
\ No newline at end of file
+
+    default WorkProcessor<SerializedChunk> pages() {
+        return WorkProcessor.create(() -> {
+            SerializedChunk page = pollPage();
+            if (page == null) {
+                if (isFinished()) {
+                    return WorkProcessor.ProcessState.finished();
+                }
+
+                ListenableFuture<?> blocked = isBlocked();
+                if (!blocked.isDone()) {
+                    return WorkProcessor.ProcessState.blocked(blocked);
+                }
+
+                return WorkProcessor.ProcessState.yield();
+            }
+
+            return WorkProcessor.ProcessState.ofResult(page);
+        });
+    }
+}
@@ -80,7 +80,9 @@ import com.alibaba.polardbx.executor.mpp.planner.SimpleFragmentRFManager;
 import com.alibaba.polardbx.executor.mpp.planner.WrapPipelineFragment;
 import com.alibaba.polardbx.executor.mpp.split.SplitInfo;
 import com.alibaba.polardbx.executor.mpp.split.SplitManager;
+import com.alibaba.polardbx.executor.operator.ParallelHashAggExec;
 import com.alibaba.polardbx.executor.operator.spill.SpillerFactory;
+import com.alibaba.polardbx.executor.operator.util.AggregateUtils;
 import com.alibaba.polardbx.executor.operator.util.bloomfilter.BloomFilterExpression;
 import com.alibaba.polardbx.executor.utils.ExecUtils;
 import com.alibaba.polardbx.executor.vectorized.build.VectorizedExpressionBuilder;
@@ -243,7 +245,7 @@ public class LocalExecutionPlanner {
                                  Map<String, Integer> splitCountMap, SplitManager splitManager) {
         this.exchangeClientSupplier = exchangeClientSupplier;
         this.totalPartitionCount = totalPartitionCount;
-        this.pagesSerdeFactory = new PagesSerdeFactory(false);
+        this.pagesSerdeFactory = PagesSerdeFactory.forExchange(context);
         this.context = context;
         this.defaultParallelism = defaultParallelism;
         this.bkaJoinParallelism = bkaJoinParallelism;
@@ -1002,6 +1004,12 @@ public class LocalExecutionPlanner {
 
         // Build runtime filter item.
         if (fragment.getFragmentRFManager() != null && useRF) {
+            // The probe side scan only waits for the filter when the estimated build side is within the bounds
+            // that the merger builds a filter for.
+            boolean outerBuild = (current instanceof HashJoin && ((HashJoin) current).isOuterBuild())
+                || (current instanceof SemiHashJoin && ((SemiHashJoin) current).isOuterBuild());
+            long estimatedBuildRows = getRelNodeRowCount(outerBuild ? current.getOuter() : current.getInner());
+            boolean smallBuildSide = estimatedBuildRows <= rowUpperBound && estimatedBuildRows >= rowLowerBound;
             for (int itemIndex = 0; itemIndex < rfItemKeys.size(); itemIndex++) {
                 FragmentRFItemKey itemKey = rfItemKeys.get(itemIndex);
 
@@ -1026,6 +1034,7 @@ public class LocalExecutionPlanner {
                     manager, buildColumnName, probeColumnName,
                     useXXHashRFinBuild, useXXHashRFinFilter, rfType
                 );
+                rfItem.setSmallBuildSide(smallBuildSide);
 
                 // add rf item into manager
                 manager.addItem(itemKey, rfItem);
@@ -1970,6 +1979,7 @@ public class LocalExecutionPlanner {
         boolean supportBuffer = supportLocalBuffer && childFragment.getParallelism() > 1;
         boolean asyncConsume = supportBuffer || childFragment.getParallelism() == 1;
         LocalExchange localExchange = null;
+        boolean parallelHashAgg = false;
         if (agg.isPartial()) {
             if (supportBuffer) {
                 LocalExchange.LocalExchangeMode mode =
@@ -2000,22 +2010,39 @@ public class LocalExecutionPlanner {
                     mode = LocalExchange.LocalExchangeMode.DIRECT;
                 } else if (parallelism == 1) {
                     mode = LocalExchange.LocalExchangeMode.SINGLE;
+                } else if (supportParallelHashAgg(agg)) {
+                    // drivers pre-aggregate whatever they get and exchange partial states by themselves
+                    parallelHashAgg = true;
+                    mode = childFragment.getParallelism() == parallelism ?
+                        LocalExchange.LocalExchangeMode.DIRECT : LocalExchange.LocalExchangeMode.RANDOM;
                 } else {
                     mode = LocalExchange.LocalExchangeMode.PARTITION;
                 }
 
-                localExchange = new LocalExchange(columns, agg.getGroupSet().toList(), mode, asyncConsume);
+                if (parallelHashAgg) {
+                    localExchange = new LocalExchange(columns, ImmutableList.of(), mode, asyncConsume);
+                } else {
+                    localExchange = new LocalExchange(columns, agg.getGroupSet().toList(), mode, asyncConsume);
+                }
             }
         }
 
         //generate current executorFactory
         ExecutorFactory aggFactory = new HashAggExecutorFactory(agg, pipelineFragment.getParallelism(),
-            taskNumber, spillerFactory, getRelNodeRowCount(agg), columns);
+            taskNumber, spillerFactory, getRelNodeRowCount(agg), columns, parallelHashAgg);
         createConsumeSideExchangeFactory(aggFactory, pipelineFragment, localExchange, childFactory, childFragment,
             columns, supportBuffer);
         return aggFactory;
     }
 
+    private boolean supportParallelHashAgg(HashAgg agg) {
+        if (!context.getParamManager().getBoolean(ConnectionParams.ENABLE_PARALLEL_HASH_AGG)) {
+            return false;
+        }
+        return ParallelHashAggExec.supportPartialMerge(
+            AggregateUtils.convertAggregators(agg.getAggCallList(), context, null));
+    }
+
     private Integer getRelNodeRowCount(RelNode relNode) {
         Integer rowCount = context.getRecordRowCnt().get(relNode.getRelatedId());
         if (rowCount == null) {
@@ -0,0 +1,585 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.polardbx.executor.mpp.operator;
+
+import com.alibaba.polardbx.common.exception.MemoryNotEnoughException;
+import com.alibaba.polardbx.common.exception.TddlRuntimeException;
+import com.alibaba.polardbx.common.exception.code.ErrorCode;
+import com.alibaba.polardbx.common.properties.ConnectionParams;
+import com.alibaba.polardbx.executor.mpp.OutputBuffers;
+import com.alibaba.polardbx.executor.mpp.deploy.MppServer;
+import com.alibaba.polardbx.executor.mpp.deploy.ServiceProvider;
+import com.alibaba.polardbx.executor.mpp.execution.SystemMemoryUsageListener;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.BufferResult;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.ChunkCompression;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.SerializedChunk;
+import com.alibaba.polardbx.executor.mpp.metadata.TaskLocation;
+import com.alibaba.polardbx.executor.mpp.server.ExchangeStream;
+import com.alibaba.polardbx.optimizer.context.ExecutionContext;
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import io.airlift.http.client.HttpClient;
+import io.airlift.units.DataSize;
+import io.airlift.units.Duration;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static com.alibaba.polardbx.executor.mpp.Threads.ENABLE_WISP;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Sets.newConcurrentHashSet;
+import static io.airlift.slice.Slices.EMPTY_SLICE;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Exchange client that receives pages over {@link ExchangeStreamChannel}s instead of polling every upstream
+ * buffer with http requests.
+ * <p>
+ * Each upstream buffer is one stream which the producer pushes to as long as it has credit. A stream starts with
+ * a window of {@code maxResponseSize} bytes and gets credit back once its pages are polled, and credit is held back
+ * entirely while more than {@code MPP_OUTPUT_MAX_BUFFER_SIZE} bytes are buffered. Buffers of the local node are
+ * streamed in-process and keep the serialization-free local exchange. Buffers of a node whose stream port can not
+ * be connected are fetched with an {@link HttpPageBufferClient} instead, which is scheduled again as long as the
+ * page buffer is below its limit.
+ */
+@ThreadSafe
+public class StreamingExchangeClient implements IExchangeClient {
+
+    private static final StreamedChunk NO_MORE_PAGES =
+        new StreamedChunk(null, new SerializedChunk(EMPTY_SLICE, ChunkCompression.UNCOMPRESSED, 0, 0));
+
+    private final long maxBufferedBytes;
+    private final long streamCredit;
+    private final int streamPortOffset;
+    @Nullable
+    private final HttpClient httpClient;
+    private final long minErrorDuration;
+    private final long maxErrorDuration;
+    private final boolean preferLocalExchange;
+    private final ScheduledExecutorService executor;
+    private final SystemMemoryUsageListener systemMemoryUsageListener;
+
+    @GuardedBy("this")
+    private final Set<TaskLocation> locations = new HashSet<>();
+
+    private final AtomicBoolean noMoreLocations = new AtomicBoolean(false);
+
+    private final ConcurrentMap<TaskLocation, PageStream> streams = new ConcurrentHashMap<>();
+    private final Set<PageStream> completedStreams = newConcurrentHashSet();
+    private final LinkedBlockingDeque<StreamedChunk> pageBuffer = new LinkedBlockingDeque<>();
+
+    /**
+     * streams whose credit is held back until the buffer drains below its limit
+     */
+    private final Queue<PageStream> throttledStreams = new ConcurrentLinkedQueue<>();
+
+    @GuardedBy("this")
+    private final List<SettableFuture<?>> blockedCallers = new ArrayList<>();
+
+    @GuardedBy("this")
+    private long bufferBytes;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    public StreamingExchangeClient(ExecutionContext executionContext,
+                                   DataSize maxResponseSize,
+                                   int streamPortOffset,
+                                   ScheduledExecutorService executor,
+                                   SystemMemoryUsageListener systemMemoryUsageListener) {
+        this(executionContext, maxResponseSize, streamPortOffset, null, 0, 0, executor, systemMemoryUsageListener);
+    }
+
+    /**
+     * @param httpClient used for nodes whose stream port is unreachable, null disables the fallback
+     */
+    public StreamingExchangeClient(ExecutionContext executionContext,
+                                   DataSize maxResponseSize,
+                                   int streamPortOffset,
+                                   @Nullable HttpClient httpClient,
+                                   long minErrorDuration,
+                                   long maxErrorDuration,
+                                   ScheduledExecutorService executor,
+                                   SystemMemoryUsageListener systemMemoryUsageListener) {
+        this.streamCredit = maxResponseSize.toBytes();
+        this.streamPortOffset = streamPortOffset;
+        this.httpClient = httpClient;
+        this.minErrorDuration = minErrorDuration;
+        this.maxErrorDuration = maxErrorDuration;
+        this.executor = requireNonNull(executor, "executor is null");
+        this.systemMemoryUsageListener = systemMemoryUsageListener;
+        this.preferLocalExchange =
+            executionContext.getParamManager().getBoolean(ConnectionParams.MPP_RPC_LOCAL_ENABLED);
+        this.maxBufferedBytes = executionContext.getParamManager().getLong(ConnectionParams.MPP_OUTPUT_MAX_BUFFER_SIZE);
+    }
+
+    @Override
+    public synchronized void addLocation(TaskLocation location) {
+        requireNonNull(location, "location is null");
+        if (closed.get() || locations.contains(location)) {
+            return;
+        }
+        checkState(!noMoreLocations.get(), "No more locations already set");
+        locations.add(location);
+        openStream(location);
+    }
+
+    @Override
+    public synchronized void addLocations(List<TaskLocation> taskLocations) {
+        for (TaskLocation location : taskLocations) {
+            addLocation(location);
+        }
+    }
+
+    @Override
+    public synchronized void noMoreLocations() {
+        noMoreLocations.set(true);
+        checkComplete();
+    }
+
+    @Override
+    public boolean isNoMoreLocations() {
+        return noMoreLocations.get();
+    }
+
+    @Override
+    @Nullable
+    public SerializedChunk pollPage() {
+        if (!ENABLE_WISP) {
+            checkState(!Thread.holdsLock(this), "Can not get next page while holding a lock on this");
+        }
+
+        throwIfFailed();
+
+        if (closed.get()) {
+            return null;
+        }
+
+        return postProcessPage(pageBuffer.poll());
+    }
+
+    @Override
+    @Nullable
+    public SerializedChunk getNextPageForDagWithDataDivide(Duration maxWaitTime)
+        throws InterruptedException {
+        if (!ENABLE_WISP) {
+            checkState(!Thread.holdsLock(this), "Can not get next page while holding a lock on this");
+        }
+
+        throwIfFailed();
+
+        if (closed.get()) {
+            return null;
+        }
+
+        StreamedChunk page = pageBuffer.poll();
+        // only wait for a page if we have open streams
+        if (page == null && maxWaitTime.toMillis() >= 1 && !streams.isEmpty()) {
+            page = pageBuffer.poll(maxWaitTime.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        return postProcessPage(page);
+    }
+
+    private SerializedChunk postProcessPage(StreamedChunk page) {
+        if (page == null) {
+            return null;
+        }
+
+        if (page == NO_MORE_PAGES) {
+            close();
+            return null;
+        }
+
+        boolean belowLimit;
+        synchronized (this) {
+            if (!closed.get()) {
+                int pageRetainedSize = page.chunk.getRetainedSizeInBytes();
+                bufferBytes -= pageRetainedSize;
+                systemMemoryUsageListener.updateSystemMemoryUsage(-pageRetainedSize);
+                if (pageBuffer.peek() == NO_MORE_PAGES) {
+                    close();
+                }
+            }
+            belowLimit = bufferBytes < maxBufferedBytes;
+        }
+
+        page.stream.returnCredit(page.chunk.getSizeInBytes(), belowLimit);
+        if (belowLimit) {
+            PageStream stream;
+            while ((stream = throttledStreams.poll()) != null) {
+                stream.releaseCredit();
+            }
+        }
+        return page.chunk;
+    }
+
+    @Override
+    public boolean isFinished() {
+        throwIfFailed();
+        return isClosed() && completedStreams.size() == locations.size();
+    }
+
+    @Override
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+
+        for (PageStream stream : streams.values()) {
+            stream.close();
+        }
+        pageBuffer.clear();
+        systemMemoryUsageListener.updateSystemMemoryUsage(-bufferBytes);
+        bufferBytes = 0;
+        checkState(pageBuffer.add(NO_MORE_PAGES), "Could not add no more pages marker");
+        notifyBlockedCallers();
+    }
+
+    @Override
+    public synchronized ListenableFuture<?> isBlocked() {
+        if (isClosed() || isFailed() || pageBuffer.peek() != null) {
+            return Futures.immediateFuture(true);
+        }
+        SettableFuture<?> future = SettableFuture.create();
+        blockedCallers.add(future);
+        return future;
+    }
+
+    @GuardedBy("this")
+    private void openStream(TaskLocation location) {
+        PageStream stream = new PageStream(location);
+        streams.put(location, stream);
+        try {
+            stream.start();
+        } catch (Throwable t) {
+            streamFailed(t);
+        }
+    }
+
+    @GuardedBy("this")
+    private void checkComplete() {
+        if (isClosed() || isFailed()) {
+            return;
+        }
+        if (noMoreLocations.get() && completedStreams.size() == locations.size()) {
+            if (pageBuffer.peekLast() != NO_MORE_PAGES) {
+                checkState(pageBuffer.add(NO_MORE_PAGES), "Could not add no more pages marker");
+            }
+            if (pageBuffer.peek() == NO_MORE_PAGES) {
+                close();
+            }
+            notifyBlockedCallers();
+        }
+    }
+
+    private synchronized boolean addPages(PageStream stream, List<SerializedChunk> pages) {
+        if (isClosed() || isFailed()) {
+            return false;
+        }
+
+        if (!pages.isEmpty()) {
+            long memorySize = 0L;
+            for (int i = 0; i < pages.size(); i++) {
+                memorySize += pages.get(i).getRetainedSizeInBytes();
+            }
+
+            try {
+                systemMemoryUsageListener.updateSystemMemoryUsage(memorySize);
+            } catch (MemoryNotEnoughException e) {
+                notifyBlockedCallers();
+                throw e;
+            }
+            for (int i = 0; i < pages.size(); i++) {
+                pageBuffer.add(new StreamedChunk(stream, pages.get(i)));
+            }
+            bufferBytes += memorySize;
+
+            notifyBlockedCallers();
+        }
+        return true;
+    }
+
+    private synchronized boolean isBufferFull() {
+        return bufferBytes >= maxBufferedBytes;
+    }
+
+    private synchronized void streamFinished(PageStream stream) {
+        completedStreams.add(stream);
+        checkComplete();
+    }
+
+    private synchronized void streamFailed(Throwable cause) {
+        if (!isClosed()) {
+            failure.compareAndSet(null, cause);
+            notifyBlockedCallers();
+        }
+    }
+
+    private synchronized void notifyBlockedCallers() {
+        for (int i = 0; i < blockedCallers.size(); i++) {
+            blockedCallers.get(i).set(null);
+        }
+        blockedCallers.clear();
+    }
+
+    private boolean isFailed() {
+        return failure.get() != null;
+    }
+
+    private void throwIfFailed() {
+        Throwable t = failure.get();
+        if (t != null) {
+            throw Throwables.propagate(t);
+        }
+    }
+
+    private static final class StreamedChunk {
+        private final PageStream stream;
+        private final SerializedChunk chunk;
+
+        StreamedChunk(PageStream stream, SerializedChunk chunk) {
+            this.stream = stream;
+            this.chunk = chunk;
+        }
+    }
+
+    private class PageStream implements ExchangeStream.Sink {
+        private final TaskLocation location;
+
+        @GuardedBy("this")
+        private ExchangeStream localStream;
+        @GuardedBy("this")
+        private ExchangeStreamChannel channel;
+        @GuardedBy("this")
+        private int streamId;
+        @GuardedBy("this")
+        private HttpPageBufferClient httpBufferClient;
+
+        @GuardedBy("this")
+        private String taskInstanceId;
+        @GuardedBy("this")
+        private boolean completed;
+        @GuardedBy("this")
+        private long pendingCredit;
+        @GuardedBy("this")
+        private boolean throttled;
+
+        PageStream(TaskLocation location) {
+            this.location = location;
+        }
+
+        synchronized void start() throws IOException {
+            if (preferLocalExchange && location.isLocal()) {
+                ExchangeStream.ResultSource source = ExchangeStream.fromTaskManager(
+                    ((MppServer) ServiceProvider.getInstance().getServer()).getTaskManager(), true);
+                localStream = new ExchangeStream(source, location.getTaskId(),
+                    new OutputBuffers.OutputBufferId(location.getBufferId()), streamCredit, executor, this);
+                localStream.addCredit(streamCredit);
+            } else {
+                try {
+                    channel = ExchangeStreamChannel.get(location, streamPortOffset);
+                } catch (ConnectException e) {
+                    if (httpClient == null) {
+                        throw e;
+                    }
+                    httpBufferClient = new HttpPageBufferClient(httpClient, new DataSize(streamCredit, BYTE),
+                        minErrorDuration, maxErrorDuration, location, new HttpCallback(), executor,
+                        preferLocalExchange);
+                    httpBufferClient.scheduleRequest();
+                    return;
+                }
+                streamId = channel.open(location, streamCredit, this);
+            }
+        }
+
+        @Override
+        public void onPages(BufferResult result) {
+            synchronized (this) {
+                if (taskInstanceId == null) {
+                    taskInstanceId = result.getTaskInstanceId();
+                } else if (!taskInstanceId.equals(result.getTaskInstanceId())) {
+                    throw new TddlRuntimeException(ErrorCode.ERR_REMOTE_TASK,
+                        String.format("%s (%s)", "remote task instance mismatch", location.getNodeServer()));
+                }
+            }
+
+            if (!addPages(this, result.getSerializedPages())) {
+                return;
+            }
+
+            if (result.isBufferComplete()) {
+                synchronized (this) {
+                    completed = true;
+                }
+                streamFinished(this);
+            }
+        }
+
+        @Override
+        public void onFailure(Throwable cause) {
+            streamFailed(cause);
+        }
+
+        /**
+         * Returns the credit of a polled page, batching it until half of the window is free.
+         */
+        void returnCredit(long bytes, boolean belowLimit) {
+            long credit;
+            synchronized (this) {
+                if (httpBufferClient != null) {
+                    return;
+                }
+                pendingCredit += bytes;
+                if (!belowLimit) {
+                    if (!throttled) {
+                        throttled = true;
+                        throttledStreams.add(this);
+                    }
+                    return;
+                }
+                if (throttled || pendingCredit < streamCredit / 2) {
+                    return;
+                }
+                credit = pendingCredit;
+                pendingCredit = 0;
+            }
+            grant(credit);
+        }
+
+        void releaseCredit() {
+            long credit;
+            HttpPageBufferClient http;
+            synchronized (this) {
+                throttled = false;
+                http = httpBufferClient;
+                credit = pendingCredit;
+                pendingCredit = 0;
+            }
+            if (http != null) {
+                http.scheduleRequest();
+            } else if (credit > 0) {
+                grant(credit);
+            }
+        }
+
+        private void grant(long credit) {
+            ExchangeStream local;
+            ExchangeStreamChannel remote;
+            int id;
+            synchronized (this) {
+                if (completed || isClosed()) {
+                    return;
+                }
+                local = localStream;
+                remote = channel;
+                id = streamId;
+            }
+            if (local != null) {
+                local.addCredit(credit);
+            } else if (remote != null) {
+                try {
+                    remote.addCredit(id, credit);
+                } catch (IOException e) {
+                    // the channel already failed every stream on it
+                }
+            }
+        }
+
+        void close() {
+            ExchangeStream local;
+            ExchangeStreamChannel remote;
+            HttpPageBufferClient http;
+            int id;
+            synchronized (this) {
+                if (completed) {
+                    return;
+                }
+                local = localStream;
+                remote = channel;
+                http = httpBufferClient;
+                id = streamId;
+            }
+            if (local != null) {
+                local.close();
+            } else if (remote != null) {
+                remote.close(id);
+            } else if (http != null) {
+                http.close();
+            }
+        }
+
+        private class HttpCallback implements HttpPageBufferClient.ClientCallback {
+            @Override
+            public boolean addPages(HttpPageBufferClient client, List<SerializedChunk> pages) {
+                return StreamingExchangeClient.this.addPages(PageStream.this, pages);
+            }
+
+            @Override
+            public void requestComplete(HttpPageBufferClient client) {
+                if (!isBufferFull()) {
+                    client.scheduleRequest();
+                    return;
+                }
+                synchronized (PageStream.this) {
+                    if (!throttled) {
+                        throttled = true;
+                        throttledStreams.add(PageStream.this);
+                    }
+                }
+            }
+
+            @Override
+            public void clientFinished(HttpPageBufferClient client) {
+                synchronized (PageStream.this) {
+                    completed = true;
+                }
+                streamFinished(PageStream.this);
+            }
+
+            @Override
+            public void clientFailed(HttpPageBufferClient client, Throwable cause) {
+                streamFailed(cause);
+            }
+        }
+    }
+}
@@ -16,8 +16,10 @@
 
 package com.alibaba.polardbx.executor.mpp.operator.factory;
 
+import com.alibaba.polardbx.executor.operator.AggPartitionSynchronizer;
 import com.alibaba.polardbx.executor.operator.Executor;
 import com.alibaba.polardbx.executor.operator.HashAggExec;
+import com.alibaba.polardbx.executor.operator.ParallelHashAggExec;
 import com.alibaba.polardbx.executor.operator.spill.SpillerFactory;
 import com.alibaba.polardbx.executor.operator.util.AggregateUtils;
 import com.alibaba.polardbx.optimizer.context.ExecutionContext;
@@ -44,14 +46,25 @@ public class HashAggExecutorFactory extends ExecutorFactory {
 
     private final List<DataType> inputDataTypes;
 
+    /**
+     * Whether to create ParallelHashAggExec sharing one AggPartitionSynchronizer
+     */
+    private final boolean parallelMerge;
+
     public HashAggExecutorFactory(HashAgg hashAgg, int parallelism, int taskNumber, SpillerFactory spillerFactory,
                                   Integer rowCount, List<DataType> inputDataTypes) {
+        this(hashAgg, parallelism, taskNumber, spillerFactory, rowCount, inputDataTypes, false);
+    }
+
+    public HashAggExecutorFactory(HashAgg hashAgg, int parallelism, int taskNumber, SpillerFactory spillerFactory,
+                                  Integer rowCount, List<DataType> inputDataTypes, boolean parallelMerge) {
         this.hashAgg = hashAgg;
         this.parallelism = parallelism;
         this.taskNumber = taskNumber;
         this.spillerFactory = spillerFactory;
         this.rowCount = rowCount;
         this.inputDataTypes = inputDataTypes;
+        this.parallelMerge = parallelMerge;
     }
 
     @Override
@@ -73,15 +86,21 @@ public class HashAggExecutorFactory extends ExecutorFactory {
             Integer expectedOutputRowCount = rowCount / (taskNumber * parallelism);
             int estimateHashTableSize = AggregateUtils.estimateHashTableSize(expectedOutputRowCount, context);
 
+            AggPartitionSynchronizer shared = parallelMerge ? new AggPartitionSynchronizer(parallelism) : null;
             for (int j = 0; j < parallelism; j++) {
                 MemoryAllocatorCtx memoryAllocator = context.getMemoryPool().getMemoryAllocatorCtx();
 
                 List<Aggregator> aggregators =
                     AggregateUtils.convertAggregators(hashAgg.getAggCallList(), context, memoryAllocator);
 
-                HashAggExec exec =
-                    new HashAggExec(inputDataTypes, groups, aggregators, CalciteUtils.getTypes(hashAgg.getRowType()),
-                        estimateHashTableSize, spillerFactory, context);
+                Executor exec;
+                if (parallelMerge) {
+                    exec = new ParallelHashAggExec(shared, j, inputDataTypes, groups, aggregators,
+                        CalciteUtils.getTypes(hashAgg.getRowType()), estimateHashTableSize, spillerFactory, context);
+                } else {
+                    exec = new HashAggExec(inputDataTypes, groups, aggregators,
+                        CalciteUtils.getTypes(hashAgg.getRowType()), estimateHashTableSize, spillerFactory, context);
+                }
                 registerRuntimeStat(exec, hashAgg, context);
                 executors.add(exec);
             }
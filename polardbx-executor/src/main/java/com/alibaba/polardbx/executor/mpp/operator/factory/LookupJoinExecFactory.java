@@ -16,10 +16,12 @@
 
 package com.alibaba.polardbx.executor.mpp.operator.factory;
 
+import com.alibaba.polardbx.common.properties.ConnectionParams;
 import com.alibaba.polardbx.executor.operator.Executor;
 import com.alibaba.polardbx.executor.operator.LookupJoinExec;
 import com.alibaba.polardbx.executor.operator.LookupJoinGsiExec;
 import com.alibaba.polardbx.executor.utils.ExecUtils;
+import com.alibaba.polardbx.optimizer.config.table.statistic.StatisticManager;
 import com.alibaba.polardbx.optimizer.context.ExecutionContext;
 import com.alibaba.polardbx.optimizer.core.expression.calc.IExpression;
 import com.alibaba.polardbx.optimizer.core.join.EquiJoinKey;
@@ -72,6 +74,7 @@ public class LookupJoinExecFactory extends ExecutorFactory {
 
         int shardCount = -1;
         int parallelism = 1;
+        long innerRowCount = -1;
         if (getInputs().get(0) instanceof LogicalViewExecutorFactory) {
             LogicalViewExecutorFactory innerLvExecFactory = (LogicalViewExecutorFactory) getInputs().get(0);
             LogicalView innerLv = innerLvExecFactory.getLogicalView();
@@ -81,6 +84,13 @@ public class LookupJoinExecFactory extends ExecutorFactory {
             Map<String, List<List<String>>> targetTables = innerLv.getTargetTables(context);
             shardCount = targetTables.values().stream().mapToInt(List::size).sum();
             parallelism = innerLvExecFactory.getParallelism();
+
+            if (context.getParamManager().getBoolean(ConnectionParams.ENABLE_ADAPTIVE_LOOKUP_JOIN)
+                && innerLv.getTableNames().size() == 1) {
+                // 统计行数只用于决定是否切换, 执行时再按实际读取的行数限制全表扫描
+                innerRowCount = StatisticManager.getInstance()
+                    .getRowCount(innerLv.getSchemaName(), innerLv.getTableNames().get(0), false).getLongValue();
+            }
         }
 
         boolean isLookUpGsi = existLookupGsiSide(join);
@@ -91,6 +101,9 @@ public class LookupJoinExecFactory extends ExecutorFactory {
         if (!isLookUpGsi) {
             ret = new LookupJoinExec(outer, inner, join.getJoinType(), maxOneRow, allJoinKeys, allJoinKeys,
                 otherCondition, context, shardCount, parallelism, allowMultiReadConn);
+            if (innerRowCount > 0) {
+                ((LookupJoinExec) ret).enableAdaptiveHashBuild(innerRowCount);
+            }
         } else {
             ret = new LookupJoinGsiExec(outer, inner, join.getJoinType(), maxOneRow, allJoinKeys, allJoinKeys,
                 otherCondition, context, shardCount, parallelism, allowMultiReadConn);
@@ -19,6 +19,8 @@ package com.alibaba.polardbx.executor.mpp.planner;
 import com.alibaba.polardbx.common.utils.bloomfilter.RFBloomFilter;
 import com.alibaba.polardbx.executor.operator.ColumnarScanExec;
 import com.alibaba.polardbx.executor.operator.Synchronizer;
+import com.alibaba.polardbx.executor.operator.util.minmaxfilter.MinMaxFilter;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
 
@@ -63,4 +65,31 @@ public interface FragmentRFItem {
     void assignRF(RFBloomFilter[] bloomFilters);
 
     RFBloomFilter[] getRF();
+
+    /**
+     * Assign the value range of build side, it must be assigned before the bloom filter.
+     */
+    void assignMinMaxFilter(MinMaxFilter minMaxFilter);
+
+    MinMaxFilter getMinMaxFilter();
+
+    /**
+     * Mark that no runtime filter will be generated for this item.
+     */
+    void abandonRF();
+
+    /**
+     * A future that is done when the runtime filter is assigned or abandoned.
+     */
+    ListenableFuture<?> getRFFuture();
+
+    /**
+     * Mark that the estimated row count of build side is within the bounds that the merger builds a filter for.
+     */
+    void setSmallBuildSide(boolean smallBuildSide);
+
+    /**
+     * Only the scan of an item with small build side waits for the runtime filter before IO.
+     */
+    boolean isSmallBuildSide();
 }
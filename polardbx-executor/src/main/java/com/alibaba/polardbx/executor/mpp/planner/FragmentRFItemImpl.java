@@ -20,7 +20,10 @@ import com.alibaba.polardbx.common.utils.bloomfilter.RFBloomFilter;
 import com.alibaba.polardbx.executor.operator.ColumnarScanExec;
 import com.alibaba.polardbx.executor.operator.Synchronizer;
 import com.alibaba.polardbx.executor.operator.SynchronizerRFMerger;
+import com.alibaba.polardbx.executor.operator.util.minmaxfilter.MinMaxFilter;
 import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -42,8 +45,11 @@ public class FragmentRFItemImpl implements FragmentRFItem {
     private int sourceRefInFile;
 
     private volatile RFBloomFilter[] bloomFilters;
+    private volatile MinMaxFilter minMaxFilter;
+    private final SettableFuture<?> rfFuture = SettableFuture.create();
     private volatile Synchronizer[] synchronizerList;
     private List<ColumnarScanExec> sourceList;
+    private volatile boolean smallBuildSide;
 
     public FragmentRFItemImpl(FragmentRFManager manager, String buildColumnName, String probeColumnName,
                               boolean useXXHashInBuild, boolean useXXHashInFilter,
@@ -149,6 +155,7 @@ public class FragmentRFItemImpl implements FragmentRFItem {
     public void assignRF(RFBloomFilter[] bloomFilters) {
         Preconditions.checkArgument(this.bloomFilters == null);
         this.bloomFilters = bloomFilters;
+        rfFuture.set(null);
     }
 
     @Override
@@ -156,6 +163,36 @@ public class FragmentRFItemImpl implements FragmentRFItem {
         return bloomFilters;
     }
 
+    @Override
+    public void assignMinMaxFilter(MinMaxFilter minMaxFilter) {
+        this.minMaxFilter = minMaxFilter;
+    }
+
+    @Override
+    public MinMaxFilter getMinMaxFilter() {
+        return minMaxFilter;
+    }
+
+    @Override
+    public void abandonRF() {
+        rfFuture.set(null);
+    }
+
+    @Override
+    public ListenableFuture<?> getRFFuture() {
+        return rfFuture;
+    }
+
+    @Override
+    public void setSmallBuildSide(boolean smallBuildSide) {
+        this.smallBuildSide = smallBuildSide;
+    }
+
+    @Override
+    public boolean isSmallBuildSide() {
+        return smallBuildSide;
+    }
+
     @Override
     public String toString() {
         return "FragmentRFItemImpl{" +
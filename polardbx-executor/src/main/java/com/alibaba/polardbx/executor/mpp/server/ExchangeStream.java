@@ -0,0 +1,226 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.polardbx.executor.mpp.server;
+
+import com.alibaba.polardbx.executor.mpp.OutputBuffers;
+import com.alibaba.polardbx.executor.mpp.execution.TaskId;
+import com.alibaba.polardbx.executor.mpp.execution.TaskManager;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.BufferResult;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.SerializedChunk;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.alibaba.polardbx.executor.mpp.server.TaskResource.DEFAULT_MAX_WAIT_TIME;
+import static com.alibaba.polardbx.executor.mpp.server.TaskResource.randomizeWaitTime;
+import static io.airlift.concurrent.MoreFutures.addTimeout;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Pushes the pages of one output buffer to a sink for as long as the consumer grants credit.
+ * <p>
+ * The stream keeps the token protocol of {@link com.alibaba.polardbx.executor.mpp.execution.buffer.ClientBuffer}:
+ * pages are acknowledged by the next fetch, which is only issued after the previous batch was handed to the sink,
+ * and a completed buffer is released the same way the trailing DELETE of the http exchange does.
+ */
+@ThreadSafe
+public final class ExchangeStream {
+
+    /**
+     * Where the pages of an output buffer come from.
+     */
+    public interface ResultSource {
+        ListenableFuture<BufferResult> getResults(TaskId taskId, OutputBuffers.OutputBufferId bufferId, long token,
+                                                  DataSize maxSize);
+
+        void abortResults(TaskId taskId, OutputBuffers.OutputBufferId bufferId);
+    }
+
+    /**
+     * Receives the batches of a stream. Calls for one stream never overlap.
+     */
+    public interface Sink {
+        void onPages(BufferResult result) throws Exception;
+
+        void onFailure(Throwable cause);
+    }
+
+    public static ResultSource fromTaskManager(TaskManager taskManager, boolean preferLocal) {
+        requireNonNull(taskManager, "taskManager is null");
+        return new ResultSource() {
+            @Override
+            public ListenableFuture<BufferResult> getResults(TaskId taskId, OutputBuffers.OutputBufferId bufferId,
+                                                             long token, DataSize maxSize) {
+                return taskManager.getTaskResults(taskId, preferLocal, bufferId, token, maxSize);
+            }
+
+            @Override
+            public void abortResults(TaskId taskId, OutputBuffers.OutputBufferId bufferId) {
+                taskManager.abortTaskResults(taskId, bufferId);
+            }
+        };
+    }
+
+    private final ResultSource source;
+    private final TaskId taskId;
+    private final OutputBuffers.OutputBufferId bufferId;
+    private final long maxResponseBytes;
+    private final ScheduledExecutorService executor;
+    private final Sink sink;
+
+    @GuardedBy("this")
+    private long credit;
+    @GuardedBy("this")
+    private long token;
+    @GuardedBy("this")
+    private boolean fetching;
+    @GuardedBy("this")
+    private boolean completed;
+    @GuardedBy("this")
+    private boolean closed;
+
+    public ExchangeStream(ResultSource source, TaskId taskId, OutputBuffers.OutputBufferId bufferId,
+                          long maxResponseBytes, ScheduledExecutorService executor, Sink sink) {
+        this.source = requireNonNull(source, "source is null");
+        this.taskId = requireNonNull(taskId, "taskId is null");
+        this.bufferId = requireNonNull(bufferId, "bufferId is null");
+        this.maxResponseBytes = maxResponseBytes;
+        this.executor = requireNonNull(executor, "executor is null");
+        this.sink = requireNonNull(sink, "sink is null");
+    }
+
+    public void addCredit(long bytes) {
+        synchronized (this) {
+            credit += bytes;
+        }
+        fetchIfNecessary();
+    }
+
+    public synchronized boolean isCompleted() {
+        return completed;
+    }
+
+    /**
+     * Stops the stream, aborting the output buffer if it was not drained yet.
+     */
+    public void close() {
+        boolean abort;
+        synchronized (this) {
+            abort = !closed && !completed;
+            closed = true;
+        }
+        if (abort) {
+            source.abortResults(taskId, bufferId);
+        }
+    }
+
+    private void fetchIfNecessary() {
+        long requestToken;
+        long maxSize;
+        synchronized (this) {
+            if (closed || completed || fetching || credit <= 0) {
+                return;
+            }
+            fetching = true;
+            requestToken = token;
+            maxSize = Math.min(credit, maxResponseBytes);
+        }
+
+        ListenableFuture<BufferResult> resultFuture;
+        try {
+            resultFuture = addTimeout(
+                source.getResults(taskId, bufferId, requestToken, new DataSize(maxSize, BYTE)),
+                () -> BufferResult.emptyResults(taskId.toString(), requestToken, false),
+                randomizeWaitTime(DEFAULT_MAX_WAIT_TIME),
+                executor);
+        } catch (Throwable t) {
+            fail(t);
+            return;
+        }
+
+        Futures.addCallback(resultFuture, new FutureCallback<BufferResult>() {
+            @Override
+            public void onSuccess(BufferResult result) {
+                onResult(result);
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                fail(t);
+            }
+        }, executor);
+    }
+
+    private void onResult(BufferResult result) {
+        synchronized (this) {
+            if (closed) {
+                fetching = false;
+                return;
+            }
+        }
+
+        List<SerializedChunk> pages = result.getSerializedPages();
+        if (!pages.isEmpty() || result.isBufferComplete()) {
+            try {
+                sink.onPages(result);
+            } catch (Throwable t) {
+                fail(t);
+                return;
+            }
+        }
+
+        long bytes = 0;
+        for (int i = 0; i < pages.size(); i++) {
+            bytes += pages.get(i).getSizeInBytes();
+        }
+        boolean release;
+        synchronized (this) {
+            fetching = false;
+            token = result.getNextToken();
+            credit -= bytes;
+            release = result.isBufferComplete() && !closed;
+            if (result.isBufferComplete()) {
+                completed = true;
+            }
+        }
+
+        if (release) {
+            source.abortResults(taskId, bufferId);
+        } else {
+            fetchIfNecessary();
+        }
+    }
+
+    private void fail(Throwable cause) {
+        synchronized (this) {
+            fetching = false;
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        sink.onFailure(cause);
+    }
+}
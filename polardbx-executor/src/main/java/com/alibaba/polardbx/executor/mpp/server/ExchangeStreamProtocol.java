@@ -0,0 +1,130 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.polardbx.executor.mpp.server;
+
+import com.alibaba.polardbx.executor.mpp.execution.buffer.BufferResult;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.SerializedChunk;
+import com.google.common.base.Throwables;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.alibaba.polardbx.executor.mpp.execution.buffer.ChunkCompression.lookupCodecFromMarker;
+
+/**
+ * Frames of the binary exchange stream. A connection starts with {@link #MAGIC} from the client and then carries
+ * frames of many streams, each frame leading with its type and stream id.
+ * <pre>
+ * client -> server
+ *   OPEN    streamId taskId bufferId credit
+ *   CREDIT  streamId credit
+ *   CLOSE   streamId
+ * server -> client
+ *   PAGES   streamId taskInstanceId token nextToken bufferComplete pageCount page*
+ *   ERROR   streamId message
+ * </pre>
+ * Pages use the same layout as the http exchange body.
+ */
+public final class ExchangeStreamProtocol {
+
+    public static final int MAGIC = 0x50584553;
+
+    public static final byte OPEN = 1;
+    public static final byte CREDIT = 2;
+    public static final byte CLOSE = 3;
+    public static final byte PAGES = 4;
+    public static final byte ERROR = 5;
+
+    private ExchangeStreamProtocol() {
+    }
+
+    public static void writeOpen(DataOutputStream out, int streamId, String taskId, int bufferId, long credit)
+        throws IOException {
+        out.writeByte(OPEN);
+        out.writeInt(streamId);
+        out.writeUTF(taskId);
+        out.writeInt(bufferId);
+        out.writeLong(credit);
+    }
+
+    public static void writeCredit(DataOutputStream out, int streamId, long credit) throws IOException {
+        out.writeByte(CREDIT);
+        out.writeInt(streamId);
+        out.writeLong(credit);
+    }
+
+    public static void writeClose(DataOutputStream out, int streamId) throws IOException {
+        out.writeByte(CLOSE);
+        out.writeInt(streamId);
+    }
+
+    public static void writePages(DataOutputStream out, int streamId, BufferResult result) throws IOException {
+        List<SerializedChunk> pages = result.getSerializedPages();
+        out.writeByte(PAGES);
+        out.writeInt(streamId);
+        out.writeUTF(result.getTaskInstanceId());
+        out.writeLong(result.getToken());
+        out.writeLong(result.getNextToken());
+        out.writeBoolean(result.isBufferComplete());
+        out.writeInt(pages.size());
+        for (int i = 0; i < pages.size(); i++) {
+            SerializedChunk page = pages.get(i);
+            Slice slice = page.getSlice();
+            out.writeInt(page.getPositionCount());
+            out.writeByte(page.getCompression().getMarker());
+            out.writeInt(page.getUncompressedSizeInBytes());
+            out.writeInt(slice.length());
+            slice.getBytes(0, out, slice.length());
+        }
+    }
+
+    /**
+     * Reads the body of a PAGES frame, the type and stream id are already consumed.
+     */
+    public static BufferResult readPages(DataInputStream in) throws IOException {
+        String taskInstanceId = in.readUTF();
+        long token = in.readLong();
+        long nextToken = in.readLong();
+        boolean bufferComplete = in.readBoolean();
+        int pageCount = in.readInt();
+        List<SerializedChunk> pages = new ArrayList<>(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            int positionCount = in.readInt();
+            byte codecMarker = in.readByte();
+            int uncompressedSizeInBytes = in.readInt();
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            pages.add(new SerializedChunk(Slices.wrappedBuffer(bytes), lookupCodecFromMarker(codecMarker),
+                positionCount, uncompressedSizeInBytes));
+        }
+        return new BufferResult(taskInstanceId, token, nextToken, bufferComplete, pages);
+    }
+
+    public static void writeError(DataOutputStream out, int streamId, Throwable cause) throws IOException {
+        String message = cause.getMessage() != null ? cause.getMessage() : Throwables.getStackTraceAsString(cause);
+        out.writeByte(ERROR);
+        out.writeInt(streamId);
+        // writeUTF is limited to 64KB of modified UTF-8
+        out.writeUTF(message.length() > 8192 ? message.substring(0, 8192) : message);
+    }
+}
@@ -0,0 +1,288 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.polardbx.executor.mpp.server;
+
+import com.alibaba.polardbx.common.utils.logger.Logger;
+import com.alibaba.polardbx.common.utils.logger.LoggerFactory;
+import com.alibaba.polardbx.executor.mpp.OutputBuffers;
+import com.alibaba.polardbx.executor.mpp.Threads;
+import com.alibaba.polardbx.executor.mpp.execution.TaskId;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.BufferResult;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.alibaba.polardbx.executor.mpp.server.ExchangeStreamProtocol.CLOSE;
+import static com.alibaba.polardbx.executor.mpp.server.ExchangeStreamProtocol.CREDIT;
+import static com.alibaba.polardbx.executor.mpp.server.ExchangeStreamProtocol.MAGIC;
+import static com.alibaba.polardbx.executor.mpp.server.ExchangeStreamProtocol.OPEN;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+
+/**
+ * Serves output buffers over persistent binary connections, see {@link ExchangeStreamProtocol}.
+ * <p>
+ * Every peer node keeps one connection and multiplexes all of its exchange streams on it, so a wide shuffle costs
+ * one reader and one writer thread per peer instead of one http request per batch of pages. Frames are handed to
+ * the writer, so a slow peer never blocks the shared exchange executor; the frames queued per stream are bounded
+ * by the credit its consumer granted.
+ */
+public class ExchangeStreamServer implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(ExchangeStreamServer.class);
+
+    private static final int SOCKET_BUFFER_SIZE = 1 << 16;
+
+    private static volatile ExchangeStreamServer instance;
+
+    private final int port;
+    private final ExchangeStream.ResultSource source;
+    private final ScheduledExecutorService executor;
+    private final long maxResponseBytes;
+    private final ExecutorService connectionExecutor =
+        newCachedThreadPool(Threads.daemonThreadsNamed("exchange-stream-server"));
+    private final Map<Connection, Boolean> connections = new ConcurrentHashMap<>();
+
+    private volatile ServerSocket serverSocket;
+    private volatile boolean closed;
+
+    public ExchangeStreamServer(int port, ExchangeStream.ResultSource source, ScheduledExecutorService executor,
+                                long maxResponseBytes) {
+        this.port = port;
+        this.source = requireNonNull(source, "source is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.maxResponseBytes = maxResponseBytes;
+    }
+
+    /**
+     * The server of this node, or null when streaming exchange is disabled.
+     */
+    public static ExchangeStreamServer getInstance() {
+        return instance;
+    }
+
+    public static void setInstance(ExchangeStreamServer server) {
+        instance = server;
+    }
+
+    public synchronized void start() throws IOException {
+        ServerSocket socket = new ServerSocket();
+        socket.setReuseAddress(true);
+        socket.bind(new InetSocketAddress(port));
+        this.serverSocket = socket;
+        connectionExecutor.execute(this::acceptLoop);
+        log.info("exchange stream server listening on port " + getPort());
+    }
+
+    public int getPort() {
+        ServerSocket socket = serverSocket;
+        return socket != null ? socket.getLocalPort() : port;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        ServerSocket socket = serverSocket;
+        if (socket != null) {
+            closeQuietly(socket);
+        }
+        for (Connection connection : connections.keySet()) {
+            connection.close();
+        }
+        connectionExecutor.shutdownNow();
+    }
+
+    private void acceptLoop() {
+        while (!closed) {
+            Socket socket = null;
+            try {
+                socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                socket.setSendBufferSize(SOCKET_BUFFER_SIZE);
+                socket.setReceiveBufferSize(SOCKET_BUFFER_SIZE);
+                Connection connection = new Connection(socket);
+                connections.put(connection, Boolean.TRUE);
+                connectionExecutor.execute(connection);
+                connectionExecutor.execute(connection::writeLoop);
+            } catch (IOException e) {
+                if (socket != null) {
+                    closeQuietly(socket);
+                }
+                if (!closed) {
+                    log.warn("exchange stream server failed to accept connection", e);
+                }
+            }
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // ignored
+        }
+    }
+
+    /**
+     * A frame queued for the writer thread of a connection.
+     */
+    private interface Frame {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    private static final Frame END_OF_FRAMES = out -> {
+    };
+
+    private class Connection implements Runnable {
+        private final Socket socket;
+        private final DataInputStream in;
+        private final DataOutputStream out;
+        private final Map<Integer, ExchangeStream> streams = new ConcurrentHashMap<>();
+        private final BlockingQueue<Frame> frames = new LinkedBlockingQueue<>();
+
+        Connection(Socket socket) throws IOException {
+            this.socket = socket;
+            this.in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), SOCKET_BUFFER_SIZE));
+            this.out =
+                new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), SOCKET_BUFFER_SIZE));
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (in.readInt() != MAGIC) {
+                    log.warn("exchange stream server rejected connection from " + socket.getRemoteSocketAddress());
+                    return;
+                }
+                while (!closed) {
+                    byte type = in.readByte();
+                    int streamId = in.readInt();
+                    switch (type) {
+                    case OPEN:
+                        String taskId = in.readUTF();
+                        int bufferId = in.readInt();
+                        long credit = in.readLong();
+                        ExchangeStream stream = new ExchangeStream(source, TaskId.valueOf(taskId),
+                            new OutputBuffers.OutputBufferId(bufferId), maxResponseBytes, executor,
+                            new StreamSink(streamId));
+                        streams.put(streamId, stream);
+                        stream.addCredit(credit);
+                        break;
+                    case CREDIT:
+                        long moreCredit = in.readLong();
+                        ExchangeStream creditStream = streams.get(streamId);
+                        if (creditStream != null) {
+                            creditStream.addCredit(moreCredit);
+                        }
+                        break;
+                    case CLOSE:
+                        ExchangeStream closedStream = streams.remove(streamId);
+                        if (closedStream != null) {
+                            closedStream.close();
+                        }
+                        break;
+                    default:
+                        throw new IOException("unknown exchange stream frame " + type);
+                    }
+                }
+            } catch (EOFException | SocketException e) {
+                // peer went away
+            } catch (Throwable t) {
+                log.warn("exchange stream connection from " + socket.getRemoteSocketAddress() + " failed", t);
+            } finally {
+                close();
+            }
+        }
+
+        /**
+         * Writes queued frames and flushes once the queue runs empty, so batches of several streams share a flush.
+         */
+        void writeLoop() {
+            try {
+                while (true) {
+                    Frame frame = frames.take();
+                    while (frame != null) {
+                        if (frame == END_OF_FRAMES) {
+                            return;
+                        }
+                        frame.write(out);
+                        frame = frames.poll();
+                    }
+                    out.flush();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (IOException e) {
+                // peer went away
+            } catch (Throwable t) {
+                log.warn("exchange stream connection to " + socket.getRemoteSocketAddress() + " failed", t);
+            } finally {
+                close();
+            }
+        }
+
+        void close() {
+            if (connections.remove(this) != null) {
+                frames.clear();
+                frames.add(END_OF_FRAMES);
+            }
+            closeQuietly(socket);
+            for (ExchangeStream stream : streams.values()) {
+                stream.close();
+            }
+            streams.clear();
+        }
+
+        private class StreamSink implements ExchangeStream.Sink {
+            private final int streamId;
+
+            StreamSink(int streamId) {
+                this.streamId = streamId;
+            }
+
+            @Override
+            public void onPages(BufferResult result) {
+                frames.add(out -> ExchangeStreamProtocol.writePages(out, streamId, result));
+                if (result.isBufferComplete()) {
+                    streams.remove(streamId);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable cause) {
+                streams.remove(streamId);
+                frames.add(out -> ExchangeStreamProtocol.writeError(out, streamId, cause));
+            }
+        }
+    }
+}
@@ -65,6 +65,8 @@ abstract class AbstractBufferedJoinExec extends AbstractJoinExec {
     protected Chunk probeChunk;
     protected int probePosition;
     protected Chunk probeJoinKeyChunk; // for equi-join
+    // reset whenever a new probe chunk is loaded, so probe operators can cache per-chunk state
+    protected boolean probeKeysResolved;
 
     // Special mode only for semi/anti-join
     protected boolean passThrough;
@@ -173,6 +175,7 @@ abstract class AbstractBufferedJoinExec extends AbstractJoinExec {
                             probeJoinKeyChunk = getProbeKeyChunkGetter().apply(probeChunk);
                         }
                         probePosition = 0;
+                        probeKeysResolved = false;
                         // join result keep partition of probe side
                         int partition = probeChunk.getPartIndex();
                         if (keepPartition && partition >= 0) {
@@ -213,6 +216,7 @@ abstract class AbstractBufferedJoinExec extends AbstractJoinExec {
 
                     }
                     probePosition = 0;
+                    probeKeysResolved = false;
                     // join result keep partition of probe side
                     int partition = probeChunk.getPartIndex();
                     boolean continueMatch = true;
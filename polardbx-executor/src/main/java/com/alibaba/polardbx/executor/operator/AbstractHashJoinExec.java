@@ -501,6 +501,166 @@ public abstract class AbstractHashJoinExec extends AbstractBufferedJoinExec impl
         }
     }
 
+    /**
+     * Batch probe for simple inner join on arbitrary key types. Hash codes and bucket heads of the whole
+     * probe chunk are resolved up front, then the chains are expanded into candidate pairs which are
+     * filtered column by column in a selection array before the output rows are built.
+     */
+    class BatchProbeOperator implements ProbeOperator {
+        protected final int keySize;
+        protected int[] probeKeyHashCode;
+        protected int[] bucketHeads = new int[chunkLimit];
+        // candidate pairs of [probe position, build position], compacted in place by the key filter.
+        protected int[] probePositions = new int[chunkLimit];
+        protected int[] matchedPositions = new int[chunkLimit];
+        protected int[] chunkIds = new int[chunkLimit];
+        protected int[] positionsInChunk = new int[chunkLimit];
+
+        protected BatchProbeOperator(int keySize) {
+            this.keySize = keySize;
+        }
+
+        @Override
+        public void close() {
+            probeKeyHashCode = null;
+            bucketHeads = null;
+            probePositions = null;
+            matchedPositions = null;
+            chunkIds = null;
+            positionsInChunk = null;
+        }
+
+        @Override
+        public int estimateSize() {
+            return Integer.BYTES * chunkLimit * 6;
+        }
+
+        @Override
+        public void nextRows() {
+            Preconditions.checkArgument(probeJoinKeyChunk.getBlockCount() == keySize);
+            final int positionCount = probeJoinKeyChunk.getPositionCount();
+            if (!probeKeysResolved) {
+                resolveBucketHeads(positionCount);
+                probeKeysResolved = true;
+                isMatching = false;
+            }
+
+            // expand chains into candidates, never more than the rows left in the output chunk.
+            final int capacity = chunkLimit - currentPosition();
+            int candidates = 0;
+            while (probePosition < positionCount && candidates < capacity) {
+                int buildPosition = isMatching ? matchedPosition : bucketHeads[probePosition];
+                isMatching = false;
+                for (; buildPosition != LIST_END && candidates < capacity;
+                     buildPosition = positionLinks[buildPosition]) {
+                    probePositions[candidates] = probePosition;
+                    matchedPositions[candidates] = buildPosition;
+                    candidates++;
+                }
+                if (buildPosition != LIST_END) {
+                    // continue from this chain entry in the next round
+                    isMatching = true;
+                    matchedPosition = buildPosition;
+                    break;
+                }
+                probePosition++;
+            }
+            if (candidates == 0) {
+                return;
+            }
+
+            buildKeyChunks.getAddress(matchedPositions, chunkIds, positionsInChunk, candidates);
+            for (int keyCol = 0; keyCol < keySize && candidates > 0; keyCol++) {
+                candidates = filterByKeyColumn(keyCol, candidates);
+            }
+            buildJoinRowInBatch(candidates);
+        }
+
+        private void resolveBucketHeads(int positionCount) {
+            probeKeyHashCode = probeJoinKeyChunk.hashCodeVector();
+            if (bucketHeads.length < positionCount) {
+                bucketHeads = new int[positionCount];
+            }
+            for (int i = 0; i < positionCount; i++) {
+                int hashCode = probeKeyHashCode[i];
+                bucketHeads[i] = bloomFilter != null && !bloomFilter.mightContainInt(hashCode)
+                    ? LIST_END : hashTable.get(hashCode);
+            }
+        }
+
+        /**
+         * Keep only the candidates whose key at keyCol equals, and return the remaining count.
+         */
+        private int filterByKeyColumn(int keyCol, int candidates) {
+            final Block probeBlock = probeJoinKeyChunk.getBlock(keyCol).cast(Block.class);
+            int selected = 0;
+            if (probeBlock instanceof LongBlock && !probeBlock.mayHaveNull()) {
+                for (int i = 0; i < candidates; i++) {
+                    Block buildBlock = buildKeyChunks.getChunk(chunkIds[i]).getBlock(keyCol).cast(Block.class);
+                    int buildPosition = positionsInChunk[i];
+                    boolean equal = buildBlock instanceof LongBlock && !buildBlock.mayHaveNull()
+                        ? probeBlock.getLong(probePositions[i]) == buildBlock.getLong(buildPosition)
+                        : probeBlock.equals(probePositions[i], buildBlock, buildPosition);
+                    selected = select(equal, i, selected);
+                }
+            } else if (probeBlock instanceof IntegerBlock && !probeBlock.mayHaveNull()) {
+                for (int i = 0; i < candidates; i++) {
+                    Block buildBlock = buildKeyChunks.getChunk(chunkIds[i]).getBlock(keyCol).cast(Block.class);
+                    int buildPosition = positionsInChunk[i];
+                    boolean equal = buildBlock instanceof IntegerBlock && !buildBlock.mayHaveNull()
+                        ? probeBlock.getInt(probePositions[i]) == buildBlock.getInt(buildPosition)
+                        : probeBlock.equals(probePositions[i], buildBlock, buildPosition);
+                    selected = select(equal, i, selected);
+                }
+            } else {
+                // slice and other blocks compare by their own collation-aware equals
+                for (int i = 0; i < candidates; i++) {
+                    Block buildBlock = buildKeyChunks.getChunk(chunkIds[i]).getBlock(keyCol).cast(Block.class);
+                    boolean equal = probeBlock.equals(probePositions[i], buildBlock, positionsInChunk[i]);
+                    selected = select(equal, i, selected);
+                }
+            }
+            return selected;
+        }
+
+        private int select(boolean equal, int from, int to) {
+            if (!equal) {
+                return to;
+            }
+            probePositions[to] = probePositions[from];
+            matchedPositions[to] = matchedPositions[from];
+            chunkIds[to] = chunkIds[from];
+            positionsInChunk[to] = positionsInChunk[from];
+            return to + 1;
+        }
+
+        protected void buildJoinRowInBatch(int matchedRows) {
+            // first outer side, then inner side
+            int col = 0;
+            for (int i = 0; i < outerInput.getDataTypes().size(); i++) {
+                if (blockBuilders[col] instanceof BatchBlockWriter) {
+                    ((BatchBlockWriter) blockBuilders[col]).copyBlock(probeChunk.getBlock(i), probePositions,
+                        matchedRows);
+                } else {
+                    for (int row = 0; row < matchedRows; row++) {
+                        probeChunk.getBlock(i).writePositionTo(probePositions[row], blockBuilders[col]);
+                    }
+                }
+                col++;
+            }
+
+            final int rightColumns = singleJoin ? 1 : innerInput.getDataTypes().size();
+            for (int i = 0; i < rightColumns; i++) {
+                for (int row = 0; row < matchedRows; row++) {
+                    buildChunks.writePositionTo(chunkIds[row], positionsInChunk[row], i, blockBuilders[col]);
+                }
+                col++;
+            }
+
+            assert col == blockBuilders.length;
+        }
+    }
+
     class IntProbeOperator implements ProbeOperator {
         protected final boolean enableVecBuildJoinRow;
         // for hash code.
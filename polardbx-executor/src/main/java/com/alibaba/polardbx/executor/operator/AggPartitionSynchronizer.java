@@ -0,0 +1,174 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.operator;
+
+import com.alibaba.polardbx.common.utils.logger.Logger;
+import com.alibaba.polardbx.common.utils.logger.LoggerFactory;
+import com.alibaba.polardbx.executor.chunk.Chunk;
+import com.alibaba.polardbx.executor.operator.spill.Spiller;
+import com.alibaba.polardbx.optimizer.memory.MemoryAllocatorCtx;
+import com.alibaba.polardbx.optimizer.memory.MemoryPool;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterators;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shared states of {@link ParallelHashAggExec}: partial aggregation states are hash-partitioned by group key
+ * into these partitions by every driver, and each partition is merged by exactly one driver afterwards.
+ * <p>
+ * The partial states stay charged to a memory pool of the driver that built them until the merging driver takes
+ * them, and those pools are destroyed once all drivers are closed.
+ */
+public class AggPartitionSynchronizer {
+    private static final Logger LOGGER = LoggerFactory.getLogger(AggPartitionSynchronizer.class);
+
+    /**
+     * How many partitions, the same as the degrees of parallelism of the aggregation.
+     */
+    final int numberOfPartition;
+
+    private final List<PartialState>[] partitionChunks;
+
+    private final List<Spiller>[] partitionSpillers;
+
+    /**
+     * Executors not closed yet, the spilled files are removed once all of them are closed.
+     */
+    private final AtomicInteger openedExecs;
+
+    private final List<MemoryPool> partialStatePools = new ArrayList<>();
+
+    private final AtomicLong partialStateBytes = new AtomicLong();
+
+    private static class PartialState {
+        final Chunk chunk;
+        final long size;
+        final MemoryAllocatorCtx allocator;
+
+        PartialState(Chunk chunk, long size, MemoryAllocatorCtx allocator) {
+            this.chunk = chunk;
+            this.size = size;
+            this.allocator = allocator;
+        }
+    }
+
+    public AggPartitionSynchronizer(int numberOfPartition) {
+        Preconditions.checkArgument(numberOfPartition > 0, "numberOfPartition must be positive");
+        this.numberOfPartition = numberOfPartition;
+        this.partitionChunks = new List[numberOfPartition];
+        this.partitionSpillers = new List[numberOfPartition];
+        for (int i = 0; i < numberOfPartition; i++) {
+            partitionChunks[i] = new ArrayList<>();
+            partitionSpillers[i] = new ArrayList<>();
+        }
+        this.openedExecs = new AtomicInteger(numberOfPartition);
+    }
+
+    /**
+     * Registers the pool charged with the partial states of one driver, destroyed in {@link #release()}.
+     */
+    void addPartialStatePool(MemoryPool pool) {
+        synchronized (partialStatePools) {
+            partialStatePools.add(pool);
+        }
+    }
+
+    /**
+     * @param size bytes of the chunk already allocated from the reserved memory of the allocator
+     */
+    void addChunk(int partition, Chunk chunk, long size, MemoryAllocatorCtx allocator) {
+        partialStateBytes.addAndGet(size);
+        synchronized (partitionChunks[partition]) {
+            partitionChunks[partition].add(new PartialState(chunk, size, allocator));
+        }
+    }
+
+    long getPartialStateBytes() {
+        return partialStateBytes.get();
+    }
+
+    void addSpiller(int partition, Spiller spiller) {
+        synchronized (partitionSpillers[partition]) {
+            partitionSpillers[partition].add(spiller);
+        }
+    }
+
+    /**
+     * Partial states of the partition, including the spilled ones. Only valid after all drivers built.
+     */
+    Iterator<Chunk> partialStates(int partition) {
+        List<Iterator<Chunk>> iterators = new ArrayList<>();
+        synchronized (partitionChunks[partition]) {
+            // the memory of a partial state is released once the merging driver takes it
+            iterators.add(Iterators.transform(new ArrayList<>(partitionChunks[partition]).iterator(),
+                state -> {
+                    releasePartialState(state);
+                    return state.chunk;
+                }));
+            partitionChunks[partition].clear();
+        }
+        synchronized (partitionSpillers[partition]) {
+            for (Spiller spiller : partitionSpillers[partition]) {
+                iterators.addAll(spiller.getSpills());
+            }
+        }
+        return Iterators.concat(iterators.iterator());
+    }
+
+    private void releasePartialState(PartialState state) {
+        partialStateBytes.addAndGet(-state.size);
+        // the allocator is shared by the merging drivers of all partitions
+        synchronized (state.allocator) {
+            state.allocator.releaseReservedMemory(state.size, true);
+        }
+    }
+
+    void release() {
+        if (openedExecs.decrementAndGet() > 0) {
+            return;
+        }
+        for (int i = 0; i < numberOfPartition; i++) {
+            synchronized (partitionChunks[i]) {
+                for (PartialState state : partitionChunks[i]) {
+                    partialStateBytes.addAndGet(-state.size);
+                }
+                partitionChunks[i].clear();
+            }
+            synchronized (partitionSpillers[i]) {
+                for (Spiller spiller : partitionSpillers[i]) {
+                    try {
+                        spiller.close();
+                    } catch (Throwable t) {
+                        LOGGER.warn("close spiller of aggregation partition " + i + " failed", t);
+                    }
+                }
+                partitionSpillers[i].clear();
+            }
+        }
+        synchronized (partialStatePools) {
+            for (MemoryPool pool : partialStatePools) {
+                pool.destroy();
+            }
+            partialStatePools.clear();
+        }
+    }
+}
@@ -28,6 +28,7 @@ import com.alibaba.polardbx.executor.chunk.Chunk;
 import com.alibaba.polardbx.executor.ddl.job.task.basic.oss.OSSTaskUtils;
 import com.alibaba.polardbx.executor.gms.ColumnarManager;
 import com.alibaba.polardbx.executor.mpp.metadata.Split;
+import com.alibaba.polardbx.executor.mpp.planner.FragmentRFItem;
 import com.alibaba.polardbx.executor.mpp.planner.FragmentRFManager;
 import com.alibaba.polardbx.executor.mpp.split.OssSplit;
 import com.alibaba.polardbx.executor.operator.scan.BlockCacheManager;
@@ -58,6 +59,7 @@ import com.alibaba.polardbx.optimizer.memory.MemoryPoolUtils;
 import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.apache.calcite.rex.RexDynamicParam;
 import org.apache.calcite.rex.RexNode;
 import org.apache.hadoop.conf.Configuration;
@@ -74,6 +76,8 @@ import java.util.TimeZone;
 import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -92,6 +96,11 @@ public class ColumnarScanExec extends SourceExec {
         Executors.newFixedThreadPool(CPU_CORES * CPU_CORES, new NamedThreadFactory(
             "columnar-scan"
         ));
+    private static final ScheduledExecutorService RF_WAIT_SCHEDULER =
+        Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory(
+            "columnar-rf-wait", true
+        ));
+
     private static final AtomicLong SNAPSHOT_FILE_ACCESS_COUNT = new AtomicLong(0);
 
     public static final double DEFAULT_RATIO = .3D;
@@ -107,6 +116,7 @@ public class ColumnarScanExec extends SourceExec {
 
     private ScanPreProcessor preProcessor;
     private ListenableFuture preProcessorFuture;
+    private ListenableFuture<?> rfWaitFuture;
     private Supplier<ListenableFuture<?>> blockedSupplier;
 
     /**
@@ -369,6 +379,7 @@ public class ColumnarScanExec extends SourceExec {
                     .nodePartCount(nodePartCount)
                     .memoryAllocator(memoryAllocator)
                     .fragmentRFManager(fragmentRFManager)
+                    .columnarScanExec(this)
                     .operatorStatistic(statistics)
                     .build();
 
@@ -426,6 +437,23 @@ public class ColumnarScanExec extends SourceExec {
         if (preProcessor != null) {
             preProcessorFuture = preProcessor.prepare(scanExecutor, context.getTraceId(), context.getColumnarTracer());
         }
+
+        // wait a moment for the runtime filters of small build side, so that the row-groups can be pruned before IO.
+        final int rfWaitTimeMs = context.getParamManager().getInt(ConnectionParams.NEW_RF_WAIT_TIME_MS);
+        if (fragmentRFManager != null && rfWaitTimeMs > 0) {
+            List<ListenableFuture<?>> rfFutures = fragmentRFManager.getAllItems().values().stream()
+                .filter(item -> item.isSmallBuildSide() && item.getRegisteredSource().contains(this))
+                .map(FragmentRFItem::getRFFuture)
+                .collect(Collectors.toList());
+            if (!rfFutures.isEmpty()) {
+                ListenableFuture<?> allRF = Futures.withTimeout(
+                    Futures.nonCancellationPropagating(Futures.allAsList(rfFutures)),
+                    rfWaitTimeMs, TimeUnit.MILLISECONDS, RF_WAIT_SCHEDULER);
+
+                // Timeout is not an error, just stop waiting.
+                rfWaitFuture = Futures.catching(allRF, Throwable.class, t -> null, MoreExecutors.directExecutor());
+            }
+        }
     }
 
     @Override
@@ -442,6 +470,11 @@ public class ColumnarScanExec extends SourceExec {
             // The blocked future is from pre-processor.
             blockedSupplier = () -> preProcessorFuture;
             return null;
+        } else if (rfWaitFuture != null && !rfWaitFuture.isDone()) {
+
+            // The blocked future is from runtime filter.
+            blockedSupplier = () -> rfWaitFuture;
+            return null;
         } else {
 
             // The blocked future is from IOStatus.
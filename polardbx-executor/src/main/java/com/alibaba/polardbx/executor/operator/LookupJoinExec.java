@@ -71,6 +71,28 @@ public class LookupJoinExec extends AbstractBufferedJoinExec implements ResumeEx
      */
     boolean allowMultiReadConnStreaming;
 
+    /**
+     * 自适应切换: 内表估算行数, 小于0表示未开启
+     */
+    long adaptiveInnerRowCount = -1;
+    long adaptiveRowThreshold;
+    long adaptiveByteThreshold;
+    long adaptiveMaxBuildRows;
+    long outerRowsSeen;
+    long outerBytesSeen;
+    boolean adaptiveDecided;
+
+    /**
+     * 切换后内表只全量扫描一次, 构建的hash表被后续所有批次复用
+     */
+    boolean fullHashBuild;
+    boolean fullHashTableBuilt;
+
+    /**
+     * 统计行数只是估算, 全表扫描实际读取的行数超过该上限后退回逐批lookup
+     */
+    long fullScanRowLimit;
+
     public LookupJoinExec(Executor outerInput, Executor innerInput,
                           JoinRelType joinType, boolean maxOneRow,
                           List<EquiJoinKey> joinKeys, List<EquiJoinKey> allJoinKeys, IExpression otherCondition,
@@ -120,6 +142,43 @@ public class LookupJoinExec extends AbstractBufferedJoinExec implements ResumeEx
         this.batchSize = batchSize;
     }
 
+    /**
+     * 开启lookup join到hash join的自适应切换
+     *
+     * @param innerRowCount 内表估算行数
+     */
+    public void enableAdaptiveHashBuild(long innerRowCount) {
+        if (innerRowCount <= 0 || !lookupTableExec.supportFullScan()) {
+            return;
+        }
+        long maxBuildRows = context.getParamManager().getLong(ConnectionParams.ADAPTIVE_LOOKUP_JOIN_MAX_BUILD_ROWS);
+        if (innerRowCount > maxBuildRows) {
+            return;
+        }
+        this.adaptiveInnerRowCount = innerRowCount;
+        this.adaptiveMaxBuildRows = maxBuildRows;
+        this.adaptiveRowThreshold =
+            context.getParamManager().getLong(ConnectionParams.ADAPTIVE_LOOKUP_JOIN_ROW_THRESHOLD);
+        this.adaptiveByteThreshold =
+            context.getParamManager().getLong(ConnectionParams.ADAPTIVE_LOOKUP_JOIN_BYTE_THRESHOLD);
+    }
+
+    /**
+     * 外表数据量超过阈值后决定一次: 内表不大于已读取的外表行数时, 全量扫描内表比逐批lookup代价更低
+     */
+    private void decideJoinAlgorithm(Chunk outerChunk) {
+        outerRowsSeen += outerChunk.getPositionCount();
+        outerBytesSeen += outerChunk.estimateSize();
+        if (outerRowsSeen < adaptiveRowThreshold && outerBytesSeen < adaptiveByteThreshold) {
+            return;
+        }
+        adaptiveDecided = true;
+        if (adaptiveInnerRowCount <= outerRowsSeen) {
+            fullHashBuild = true;
+            fullScanRowLimit = Math.min(outerRowsSeen, adaptiveMaxBuildRows);
+        }
+    }
+
     private void getOuterExec() {
         Executor outerChild = outerInput;
         while (outerChild != null) {
@@ -180,6 +239,9 @@ public class LookupJoinExec extends AbstractBufferedJoinExec implements ResumeEx
             Chunk outerChunk = outerInput.nextChunk();
             if (outerChunk != null) {
                 batchQueue.addChunk(outerChunk);
+                if (adaptiveInnerRowCount >= 0 && !adaptiveDecided) {
+                    decideJoinAlgorithm(outerChunk);
+                }
                 if (allowMultiReadConnStreaming && batchQueue.getTotalRowCount().get() > batchSize) {
                     // 流式情况下攒够一批数据就去lookup
                     beingConsumeOuter = false;
@@ -228,6 +290,7 @@ public class LookupJoinExec extends AbstractBufferedJoinExec implements ResumeEx
         this.batchQueue = new BufferInputBatchQueue(batchSize, outerInput.getDataTypes(), memoryAllocator, context);
         this.hashTable = null;
         this.positionLinks = null;
+        this.fullHashTableBuilt = false;
         this.beingConsumeOuter = true;
         if (bufferMemoryAllocator != null) {
             this.bufferMemoryAllocator.releaseReservedMemory(bufferMemoryAllocator.getReservedAllocated(), true);
@@ -256,13 +319,25 @@ public class LookupJoinExec extends AbstractBufferedJoinExec implements ResumeEx
     @Override
     Chunk nextProbeChunk() {
         if (this.savePopChunk == null) {
+            if (fullHashTableBuilt) {
+                // 内表已全量构建hash表, 直接探测剩余批次
+                Chunk probeChunk = batchQueue.pop();
+                if (probeChunk == null) {
+                    noMoreProbeBatch();
+                }
+                return probeChunk;
+            }
             buildChunks = new ChunksIndex();
             buildKeyChunks = new ChunksIndex();
             savePopChunk = batchQueue.pop();
             if (savePopChunk != null) {
                 getLookupTableExec().releaseConditionMemory();
-                Chunk allJoinKeys = allOuterKeyChunkGetter.apply(savePopChunk);
-                getLookupTableExec().updateLookupPredicate(allJoinKeys);
+                if (fullHashBuild) {
+                    getLookupTableExec().updateFullScan();
+                } else {
+                    Chunk allJoinKeys = allOuterKeyChunkGetter.apply(savePopChunk);
+                    getLookupTableExec().updateLookupPredicate(allJoinKeys);
+                }
                 if (innerIsOpen) {
                     getLookupTableExec().resume();
                 } else {
@@ -270,12 +345,7 @@ public class LookupJoinExec extends AbstractBufferedJoinExec implements ResumeEx
                     innerIsOpen = true;
                 }
             } else {
-                // 再尝试拉取outer数据
-                if (allowMultiReadConnStreaming && !beingConsumeOuter && !outerInput.produceIsFinished()) {
-                    beingConsumeOuter = true;
-                    return null;
-                }
-                outerNoMoreData = true;
+                noMoreProbeBatch();
                 return null;
             }
         }
@@ -283,6 +353,9 @@ public class LookupJoinExec extends AbstractBufferedJoinExec implements ResumeEx
         if (result != null) {
             buildChunks.addChunk(result);
             buildKeyChunks.addChunk(innerKeyChunkGetter.apply(result));
+            if (fullHashBuild && buildChunks.getPositionCount() > fullScanRowLimit) {
+                fallbackToLookup();
+            }
             this.blocked = ProducerExecutor.NOT_BLOCKED;
             return null;
         } else {
@@ -296,6 +369,10 @@ public class LookupJoinExec extends AbstractBufferedJoinExec implements ResumeEx
                 // Allocate memory for hash-table
                 bufferMemoryAllocator.allocateReservedMemory(hashTable.estimateSizeInBytes());
                 bufferMemoryAllocator.allocateReservedMemory(SizeOf.sizeOf(positionLinks));
+                if (fullHashBuild) {
+                    fullHashTableBuilt = true;
+                    statistics.addJoinSwitchCnt(1);
+                }
                 Chunk ret = savePopChunk;
                 this.savePopChunk = null;
                 this.blocked = ProducerExecutor.NOT_BLOCKED;
@@ -307,6 +384,28 @@ public class LookupJoinExec extends AbstractBufferedJoinExec implements ResumeEx
         }
     }
 
+    /**
+     * 内表实际行数超过上限, 放弃全表扫描, 当前批次及后续批次都按lookup条件扫描内表
+     */
+    private void fallbackToLookup() {
+        fullHashBuild = false;
+        getLookupTableExec().doSuspend();
+        buildChunks = new ChunksIndex();
+        buildKeyChunks = new ChunksIndex();
+        Chunk allJoinKeys = allOuterKeyChunkGetter.apply(savePopChunk);
+        getLookupTableExec().updateLookupPredicate(allJoinKeys);
+        getLookupTableExec().resume();
+    }
+
+    private void noMoreProbeBatch() {
+        // 再尝试拉取outer数据
+        if (allowMultiReadConnStreaming && !beingConsumeOuter && !outerInput.produceIsFinished()) {
+            beingConsumeOuter = true;
+            return;
+        }
+        outerNoMoreData = true;
+    }
+
     void buildHashTable() {
         final int size = buildKeyChunks.getPositionCount();
         hashTable = new ConcurrentRawHashTable(size);
@@ -57,6 +57,16 @@ public class LookupJoinGsiExec extends LookupJoinExec implements LookupTableExec
         ((LookupTableScanExec) outerInput).updateLookupPredicate(chunk);
     }
 
+    @Override
+    public boolean supportFullScan() {
+        return ((LookupTableScanExec) outerInput).supportFullScan();
+    }
+
+    @Override
+    public void updateFullScan() {
+        ((LookupTableScanExec) outerInput).updateFullScan();
+    }
+
     @Override
     public void setMemoryAllocator(MemoryAllocatorCtx memoryAllocator) {
         ((LookupTableScanExec) outerInput).setMemoryAllocator(memoryAllocator);
@@ -30,4 +30,14 @@ public interface LookupTableExec extends ResumeExec, Executor {
     void releaseConditionMemory();
 
     boolean shardEnabled();
+
+    /**
+     * 是否支持不带lookup条件扫描整张表, 用于自适应切换到hash join
+     */
+    boolean supportFullScan();
+
+    /**
+     * 去掉lookup条件, 扫描整张表
+     */
+    void updateFullScan();
 }
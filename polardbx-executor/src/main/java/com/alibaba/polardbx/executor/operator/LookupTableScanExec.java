@@ -101,6 +101,38 @@ public class LookupTableScanExec extends TableScanExec implements LookupTableExe
 
     @Override
     public void updateLookupPredicate(Chunk chunk) {
+        reserveSplits();
+
+        scanClient.getSplitList().clear();
+        if (shardEnabled) {
+            updateShardedWhereSql(chunk);
+        } else {
+            // 不分片 把值全部下推
+            updateNoShardedWhereSql(chunk);
+        }
+    }
+
+    @Override
+    public boolean supportFullScan() {
+        return predicate.getOperator() == SqlStdOperatorTable.IN;
+    }
+
+    /**
+     * 原始split中的lookup条件为 'bka_magic' = 'bka_magic', 直接下发即为全表扫描
+     */
+    @Override
+    public void updateFullScan() {
+        reserveSplits();
+
+        scanClient.getSplitList().clear();
+        for (Split split : reservedSplits) {
+            JdbcSplit jdbcSplit = (JdbcSplit) split.getConnectorSplit();
+            phySqlCnt++;
+            scanClient.addSplit(split.copyWithSplit(new JdbcSplit(jdbcSplit)));
+        }
+    }
+
+    private void reserveSplits() {
         if (!scanClient.noMoreSplit()) {
             throw new TddlRuntimeException(ERR_EXECUTE_ON_MYSQL, "input split not ready");
         }
@@ -113,14 +145,6 @@ public class LookupTableScanExec extends TableScanExec implements LookupTableExe
             }
             reservedSplits.addAll(scanClient.getSplitList());
         }
-
-        scanClient.getSplitList().clear();
-        if (shardEnabled) {
-            updateShardedWhereSql(chunk);
-        } else {
-            // 不分片 把值全部下推
-            updateNoShardedWhereSql(chunk);
-        }
     }
 
     @Override
@@ -0,0 +1,413 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.operator;
+
+import com.alibaba.polardbx.common.utils.logger.Logger;
+import com.alibaba.polardbx.common.utils.logger.LoggerFactory;
+import com.alibaba.polardbx.executor.chunk.Chunk;
+import com.alibaba.polardbx.executor.chunk.ChunkBuilder;
+import com.alibaba.polardbx.executor.chunk.ChunkConverter;
+import com.alibaba.polardbx.executor.chunk.Converters;
+import com.alibaba.polardbx.executor.mpp.operator.LocalHashBucketFunction;
+import com.alibaba.polardbx.executor.operator.spill.MemoryRevoker;
+import com.alibaba.polardbx.executor.operator.spill.Spiller;
+import com.alibaba.polardbx.executor.operator.spill.SpillerFactory;
+import com.alibaba.polardbx.executor.operator.util.AggOpenHashMap;
+import com.alibaba.polardbx.executor.operator.util.AggResultIterator;
+import com.alibaba.polardbx.executor.operator.util.AggregateUtils;
+import com.alibaba.polardbx.executor.operator.util.SpillableAggHashMap;
+import com.alibaba.polardbx.optimizer.context.ExecutionContext;
+import com.alibaba.polardbx.optimizer.core.datatype.DataType;
+import com.alibaba.polardbx.optimizer.core.expression.calc.Aggregator;
+import com.alibaba.polardbx.optimizer.core.expression.calc.aggfunctions.BitAnd;
+import com.alibaba.polardbx.optimizer.core.expression.calc.aggfunctions.BitOr;
+import com.alibaba.polardbx.optimizer.core.expression.calc.aggfunctions.BitXor;
+import com.alibaba.polardbx.optimizer.core.expression.calc.aggfunctions.CountV2;
+import com.alibaba.polardbx.optimizer.core.expression.calc.aggfunctions.MaxV2;
+import com.alibaba.polardbx.optimizer.core.expression.calc.aggfunctions.MinV2;
+import com.alibaba.polardbx.optimizer.core.expression.calc.aggfunctions.Sum0;
+import com.alibaba.polardbx.optimizer.core.expression.calc.aggfunctions.SumV2;
+import com.alibaba.polardbx.optimizer.memory.MemoryAllocatorCtx;
+import com.alibaba.polardbx.optimizer.memory.MemoryPool;
+import com.alibaba.polardbx.optimizer.memory.MemoryPoolUtils;
+import com.alibaba.polardbx.optimizer.memory.OperatorMemoryAllocatorCtx;
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Intra-node two-phase hash aggregation.
+ * <p>
+ * Each driver pre-aggregates its own input into a local {@link AggOpenHashMap}. On build, the partial states
+ * are hash-partitioned by group key into the shared {@link AggPartitionSynchronizer}, and on produce each driver
+ * merges exactly one partition, so the merge runs in parallel as well. When memory is revoked during consuming,
+ * the partial states are spilled per partition and read back by the merging driver.
+ */
+public class ParallelHashAggExec extends AbstractHashAggExec implements ConsumerExecutor, MemoryRevoker {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ParallelHashAggExec.class);
+
+    private final AggPartitionSynchronizer shared;
+    private final int partition;
+
+    private final ChunkConverter inputKeyChunkGetter;
+    private final DataType[] groupKeyType;
+    private final DataType[] aggValueType;
+    private final DataType[] inputType;
+    private final List<DataType> partialTypes;
+    private final LocalHashBucketFunction partitioner;
+    private final int expectedGroups;
+    private final SpillerFactory spillerFactory;
+
+    private Spiller[] spillers;
+    private List<Chunk>[] spillingChunks;
+    private ListenableFuture<?> spillInProgress = ProducerExecutor.NOT_BLOCKED;
+
+    private boolean merging = false;
+    private Iterator<Chunk> mergeInput;
+    private long needMemoryAllocated = 0;
+
+    public ParallelHashAggExec(AggPartitionSynchronizer shared,
+                               int partition,
+                               List<DataType> inputDataTypes,
+                               int[] groups,
+                               List<Aggregator> aggregators,
+                               List<DataType> outputColumns,
+                               int expectedGroups,
+                               SpillerFactory spillerFactory,
+                               ExecutionContext context) {
+        super(groups, aggregators, outputColumns, context);
+        Preconditions.checkArgument(groups.length > 0, "parallel hash aggregation requires group keys");
+        Preconditions.checkArgument(partition >= 0 && partition < shared.numberOfPartition);
+        this.shared = shared;
+        this.partition = partition;
+        this.expectedGroups = expectedGroups;
+        this.spillerFactory = spillerFactory;
+        this.groupKeyType = AggregateUtils.collectDataTypes(inputDataTypes, groups);
+        this.aggValueType = AggregateUtils.collectDataTypes(outputColumns, groups.length, outputColumns.size());
+        this.inputType = AggregateUtils.collectDataTypes(inputDataTypes);
+        this.inputKeyChunkGetter = Converters.createChunkConverter(inputDataTypes, groups, groupKeyType, context);
+        this.partialTypes = new ArrayList<>(groupKeyType.length + aggValueType.length);
+        this.partialTypes.addAll(Arrays.asList(groupKeyType));
+        this.partialTypes.addAll(Arrays.asList(aggValueType));
+        this.partitioner = new LocalHashBucketFunction(shared.numberOfPartition);
+    }
+
+    /**
+     * Whether the partial states of these aggregators can be merged by {@link #createMergeAggregators}.
+     */
+    public static boolean supportPartialMerge(List<Aggregator> aggregators) {
+        for (Aggregator aggCall : aggregators) {
+            if (aggCall.isDistinct() || aggCall.getFilterArg() >= 0) {
+                return false;
+            }
+            if (!(aggCall instanceof CountV2 || aggCall instanceof SumV2 || aggCall instanceof Sum0
+                || aggCall instanceof MinV2 || aggCall instanceof MaxV2 || aggCall instanceof BitOr
+                || aggCall instanceof BitAnd || aggCall instanceof BitXor)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Aggregators merging the partial states laid out as [group keys, agg values].
+     */
+    static List<Aggregator> createMergeAggregators(List<Aggregator> aggregators, int groupKeySize,
+                                                   MemoryAllocatorCtx memoryAllocator) {
+        List<Aggregator> aggList = new ArrayList<>(aggregators.size());
+        for (Aggregator aggCall : aggregators) {
+            int index = groupKeySize + aggList.size();
+            if (aggCall instanceof CountV2 || aggCall instanceof SumV2) {
+                aggList.add(new SumV2(index, false, memoryAllocator, -1));
+            } else if (aggCall instanceof Sum0) {
+                aggList.add(new Sum0(index, false, memoryAllocator, -1));
+            } else if (aggCall instanceof MinV2) {
+                aggList.add(new MinV2(index, -1));
+            } else if (aggCall instanceof MaxV2) {
+                aggList.add(new MaxV2(index, -1));
+            } else if (aggCall instanceof BitOr) {
+                aggList.add(new BitOr(index, -1));
+            } else if (aggCall instanceof BitAnd) {
+                aggList.add(new BitAnd(index, -1));
+            } else if (aggCall instanceof BitXor) {
+                aggList.add(new BitXor(index, -1));
+            } else {
+                throw new UnsupportedOperationException("Unsupported partial merge of " + aggCall.getClass());
+            }
+        }
+        return aggList;
+    }
+
+    @Override
+    public void openConsume() {
+        memoryPool = MemoryPoolUtils.createOperatorTmpTablePool(getExecutorName(), context.getMemoryPool());
+        memoryAllocator = new OperatorMemoryAllocatorCtx(memoryPool, spillerFactory != null);
+        hashTable = new AggOpenHashMap(groupKeyType, aggregators, aggValueType, inputType, expectedGroups,
+            chunkLimit, context, memoryAllocator);
+    }
+
+    @Override
+    public void consumeChunk(Chunk inputChunk) {
+        Chunk inputKeyChunk = inputKeyChunkGetter.apply(inputChunk);
+        long beforeEstimateSize = hashTable.estimateSize();
+        hashTable.putChunk(inputKeyChunk, inputChunk, null);
+        long afterEstimateSize = hashTable.estimateSize();
+        this.needMemoryAllocated = Math.max(afterEstimateSize - beforeEstimateSize, 0);
+
+        // release input chunk
+        inputChunk.recycle();
+    }
+
+    @Override
+    public void buildConsume() {
+        long start = System.nanoTime();
+        if (hashTable != null) {
+            List<Chunk>[] partitioned = partitionPartialStates(hashTable.buildChunks());
+            hashTable.close();
+            hashTable = null;
+
+            // keep the partial states charged until they are merged, even after this driver is closed
+            long totalSize = 0;
+            for (int i = 0; i < partitioned.length; i++) {
+                for (Chunk chunk : partitioned[i]) {
+                    totalSize += chunk.estimateSize();
+                }
+            }
+            MemoryPool partialStatePool = MemoryPoolUtils.createOperatorTmpTablePool(
+                getExecutorName() + "@PartialState", context.getMemoryPool());
+            shared.addPartialStatePool(partialStatePool);
+            MemoryAllocatorCtx partialStateAllocator = new OperatorMemoryAllocatorCtx(partialStatePool, false);
+            partialStateAllocator.allocateReservedMemory(totalSize);
+            for (int i = 0; i < partitioned.length; i++) {
+                for (Chunk chunk : partitioned[i]) {
+                    shared.addChunk(i, chunk, chunk.estimateSize(), partialStateAllocator);
+                }
+            }
+        }
+        long end = System.nanoTime();
+        LOGGER.debug(MessageFormat.format("ParallelHashAggExec: {0} build consume time cost = {1} ns, "
+            + "partition is {2}", this.toString(), (end - start), partition));
+    }
+
+    private List<Chunk>[] partitionPartialStates(AggResultIterator partialStates) {
+        final int partitionCount = shared.numberOfPartition;
+        List<Chunk>[] result = new List[partitionCount];
+        for (int i = 0; i < partitionCount; i++) {
+            result[i] = new ArrayList<>();
+        }
+        int[][] selections = new int[partitionCount][];
+        int[] selSizes = new int[partitionCount];
+        Chunk chunk;
+        while ((chunk = partialStates.nextChunk()) != null) {
+            final int positionCount = chunk.getPositionCount();
+            Chunk keyChunk = new Chunk(positionCount, Arrays.copyOf(chunk.getBlocks(), groupKeyType.length));
+            Arrays.fill(selSizes, 0);
+            for (int position = 0; position < positionCount; position++) {
+                int target = partitioner.getPartition(keyChunk, position);
+                if (selections[target] == null || selections[target].length < positionCount) {
+                    selections[target] = new int[Math.max(positionCount, chunkLimit)];
+                }
+                selections[target][selSizes[target]++] = position;
+            }
+            for (int i = 0; i < partitionCount; i++) {
+                if (selSizes[i] == 0) {
+                    continue;
+                }
+                ChunkBuilder builder = new ChunkBuilder(partialTypes, selSizes[i], context);
+                for (int channel = 0; channel < partialTypes.size(); channel++) {
+                    builder.appendTo(chunk.getBlock(channel), channel, selections[i], 0, selSizes[i]);
+                }
+                builder.declarePosition(selSizes[i]);
+                result[i].add(builder.build());
+            }
+        }
+        return result;
+    }
+
+    @Override
+    Chunk doNextChunk() {
+        if (resultIterator != null) {
+            return super.doNextChunk();
+        }
+        if (!merging) {
+            startMerge();
+        }
+        if (needMemoryAllocated > 0 && !tryAllocateMemory()) {
+            return null;
+        }
+        if (mergeInput.hasNext()) {
+            Chunk partialChunk = mergeInput.next();
+            Chunk keyChunk =
+                new Chunk(partialChunk.getPositionCount(),
+                    Arrays.copyOf(partialChunk.getBlocks(), groupKeyType.length));
+            long beforeEstimateSize = hashTable.estimateSize();
+            hashTable.putChunk(keyChunk, partialChunk, null);
+            long afterEstimateSize = hashTable.estimateSize();
+            this.needMemoryAllocated = Math.max(afterEstimateSize - beforeEstimateSize, 0);
+            return null;
+        }
+        mergeInput = null;
+        resultIterator = hashTable.buildChunks();
+        return super.doNextChunk();
+    }
+
+    private void startMerge() {
+        merging = true;
+        List<Aggregator> mergeAggregators =
+            createMergeAggregators(aggregators, groupKeyType.length, memoryAllocator);
+        DataType[] partialType = partialTypes.toArray(new DataType[0]);
+        if (memoryAllocator.isRevocable()) {
+            hashTable = new SpillableAggHashMap(groupKeyType, mergeAggregators, aggValueType, outputColumnMeta,
+                partialType, expectedGroups, chunkLimit, context, memoryAllocator, spillerFactory);
+        } else {
+            hashTable = new AggOpenHashMap(groupKeyType, mergeAggregators, aggValueType, partialType,
+                expectedGroups, chunkLimit, context, memoryAllocator);
+        }
+        mergeInput = shared.partialStates(partition);
+    }
+
+    private boolean tryAllocateMemory() {
+        boolean ret;
+        if (memoryAllocator.isRevocable()) {
+            ret = memoryAllocator.tryAllocateRevocableMemory(needMemoryAllocated);
+        } else {
+            memoryAllocator.allocateReservedMemory(needMemoryAllocated);
+            ret = true;
+        }
+        if (ret) {
+            needMemoryAllocated = 0;
+        }
+        return ret;
+    }
+
+    @Override
+    public boolean needsInput() {
+        if (needMemoryAllocated > 0) {
+            return tryAllocateMemory();
+        }
+        return true;
+    }
+
+    @Override
+    public ListenableFuture<?> startMemoryRevoke() {
+        if (merging) {
+            addSpillCnt(1);
+            return hashTable.startMemoryRevoke();
+        }
+        if (hashTable == null) {
+            spillInProgress = ProducerExecutor.NOT_BLOCKED;
+            return spillInProgress;
+        }
+        addSpillCnt(1);
+        if (spillers == null) {
+            spillers = new Spiller[shared.numberOfPartition];
+        }
+        spillingChunks = partitionPartialStates(hashTable.buildChunks());
+        List<ListenableFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < spillingChunks.length; i++) {
+            if (spillingChunks[i].isEmpty()) {
+                continue;
+            }
+            if (spillers[i] == null) {
+                spillers[i] = spillerFactory.create(partialTypes, context.getQuerySpillSpaceMonitor(), null);
+                shared.addSpiller(i, spillers[i]);
+            }
+            futures.add(spillers[i].spill(spillingChunks[i].iterator(), false));
+        }
+        spillInProgress = Futures.allAsList(futures);
+        return spillInProgress;
+    }
+
+    @Override
+    public void finishMemoryRevoke() {
+        if (merging) {
+            hashTable.finishMemoryRevoke();
+            return;
+        }
+        Preconditions.checkState(spillInProgress.isDone());
+        if (spillingChunks != null) {
+            spillingChunks = null;
+            memoryAllocator.releaseRevocableMemory(memoryAllocator.getRevocableAllocated(), true);
+            if (hashTable != null) {
+                hashTable.close();
+            }
+            hashTable = new AggOpenHashMap(groupKeyType, aggregators, aggValueType, inputType, expectedGroups,
+                chunkLimit, context, memoryAllocator);
+        }
+    }
+
+    @Override
+    public OperatorMemoryAllocatorCtx getMemoryAllocatorCtx() {
+        return memoryAllocator;
+    }
+
+    @Override
+    public ListenableFuture<?> consumeIsBlocked() {
+        if (memoryAllocator.isRevocable()) {
+            return memoryAllocator.isWaitingForTryMemory();
+        } else {
+            return ConsumerExecutor.NOT_BLOCKED;
+        }
+    }
+
+    @Override
+    public void closeConsume(boolean force) {
+        if (hashTable != null) {
+            hashTable.close();
+        }
+        hashTable = null;
+        needMemoryAllocated = 0;
+        resultIterator = null;
+        mergeInput = null;
+        spillingChunks = null;
+        if (memoryPool != null) {
+            collectMemoryUsage(memoryPool);
+            memoryPool.destroy();
+            memoryPool = null;
+            shared.release();
+        }
+    }
+
+    @Override
+    void doOpen() {
+
+    }
+
+    @Override
+    void doClose() {
+        closeConsume(true);
+    }
+
+    @Override
+    public boolean produceIsFinished() {
+        return finished;
+    }
+
+    @Override
+    public ListenableFuture<?> produceIsBlocked() {
+        if (merging && needMemoryAllocated > 0 && memoryAllocator.isRevocable()) {
+            return memoryAllocator.isWaitingForTryMemory();
+        }
+        return ProducerExecutor.NOT_BLOCKED;
+    }
+}
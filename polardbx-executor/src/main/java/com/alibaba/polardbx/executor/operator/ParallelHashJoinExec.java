@@ -156,7 +156,7 @@ public class ParallelHashJoinExec extends AbstractHashJoinExec {
 
     private void buildSimpleInnerProbe(boolean enableVecBuildJoinRow) {
         if (!useVecJoin) {
-            buildDefaultProbe();
+            buildBatchOrDefaultProbe();
             return;
         }
         switch (joinKeyType) {
@@ -170,7 +170,7 @@ public class ParallelHashJoinExec extends AbstractHashJoinExec {
             buildMultiIntProbe(enableVecBuildJoinRow);
             break;
         case OTHER:
-            buildDefaultProbe();
+            buildBatchOrDefaultProbe();
             break;
         default:
             throw new UnsupportedOperationException(
@@ -178,6 +178,14 @@ public class ParallelHashJoinExec extends AbstractHashJoinExec {
         }
     }
 
+    private void buildBatchOrDefaultProbe() {
+        if (context.getParamManager().getBoolean(ConnectionParams.ENABLE_BATCH_PROBE_JOIN)) {
+            this.probeOperator = new BatchProbeOperator(joinKeys.size());
+        } else {
+            buildDefaultProbe();
+        }
+    }
+
     private void buildSingleLongProbe(boolean enableVecBuildJoinRow) {
         this.probeOperator = new LongProbeOperator(enableVecBuildJoinRow);
         shared.builderKeyChunks.setTypedHashTable(new TypedListHandle() {
@@ -22,8 +22,8 @@ import com.alibaba.polardbx.executor.mpp.execution.buffer.PagesSerde;
 import com.alibaba.polardbx.executor.mpp.metadata.Split;
 import com.alibaba.polardbx.executor.mpp.metadata.TaskLocation;
 import com.alibaba.polardbx.executor.mpp.operator.DriverYieldSignal;
-import com.alibaba.polardbx.executor.mpp.operator.ExchangeClient;
 import com.alibaba.polardbx.executor.mpp.operator.ExchangeClientSupplier;
+import com.alibaba.polardbx.executor.mpp.operator.IExchangeClient;
 import com.alibaba.polardbx.executor.mpp.operator.WorkProcessor;
 import com.alibaba.polardbx.executor.mpp.split.RemoteSplit;
 import com.alibaba.polardbx.executor.operator.util.ChunkWithPositionComparator;
@@ -161,8 +161,8 @@ public class SortMergeExchangeExec extends SourceExec implements Closeable {
 
     private void addExchangeClient(TaskLocation taskLocation) {
 
-        ExchangeClient exchangeClient =
-            closer.register((ExchangeClient) supplier
+        IExchangeClient exchangeClient =
+            closer.register(supplier
                 .get(new RecordMemSystemListener(memoryPool.getMemoryAllocatorCtx()), context));
         exchangeClient.addLocation(taskLocation);
         exchangeClient.noMoreLocations();
@@ -22,9 +22,12 @@ import com.alibaba.polardbx.common.utils.logger.Logger;
 import com.alibaba.polardbx.common.utils.logger.LoggerFactory;
 import com.alibaba.polardbx.executor.chunk.Block;
 import com.alibaba.polardbx.executor.chunk.Chunk;
+import com.alibaba.polardbx.executor.chunk.IntegerBlock;
+import com.alibaba.polardbx.executor.chunk.LongBlock;
 import com.alibaba.polardbx.executor.mpp.planner.FragmentRFItem;
 import com.alibaba.polardbx.executor.mpp.planner.FragmentRFManager;
 import com.alibaba.polardbx.executor.operator.util.ChunksIndex;
+import com.alibaba.polardbx.executor.operator.util.minmaxfilter.LongMinMaxFilter;
 
 import java.text.MessageFormat;
 import java.util.List;
@@ -49,6 +52,11 @@ public class SynchronizerRFMerger implements RuntimeFilterMerger {
 
     private volatile RFBloomFilter globalRFBloomFilter;
 
+    // value range of build side for global RF, guarded by globalRFBloomFilter.
+    private long minValue = Long.MAX_VALUE;
+    private long maxValue = Long.MIN_VALUE;
+    private boolean rangeSupported = true;
+
     public SynchronizerRFMerger(FragmentRFManager fragmentRFManager, FragmentRFItem rfItem, int buildSideParallelism,
                                 int blockChannel) {
         this.fragmentRFManager = fragmentRFManager;
@@ -110,6 +118,7 @@ public class SynchronizerRFMerger implements RuntimeFilterMerger {
                     buildSideRows, rowUpperBound
                 ));
             }
+            rfItem.abandonRF();
             return;
         }
 
@@ -138,18 +147,28 @@ public class SynchronizerRFMerger implements RuntimeFilterMerger {
         RFBloomFilter rfComponent = RFBloomFilter.createBlockLongBloomFilter((int) buildSideRows);
 
         // Every thread has it's owned chunk id to build RF.
+        long[] localRange = new long[] {Long.MAX_VALUE, Long.MIN_VALUE};
+        boolean localRangeSupported = true;
         for (int chunkId = startChunkId; chunkId < endChunkId; ++chunkId) {
             final Chunk keyChunk = builderKeyChunks.getChunk(chunkId);
             Block block = keyChunk.getBlock(blockChannel);
             block.addLongToBloomFilter(rfComponent);
+            localRangeSupported = localRangeSupported && updateRange(block, localRange);
         }
 
         synchronized (globalRFBloomFilter) {
             // merge thread-local component into globalRFBloomFilter
             globalRFBloomFilter.merge(rfComponent);
+            rangeSupported = rangeSupported && localRangeSupported;
+            minValue = Math.min(minValue, localRange[0]);
+            maxValue = Math.max(maxValue, localRange[1]);
 
             // check if all thread has finished the global RF building.
             if (bfParallelismCounter.decrementAndGet() == 0) {
+                // the value range must be visible once the bloom filter is assigned.
+                if (rangeSupported && minValue <= maxValue) {
+                    rfItem.assignMinMaxFilter(new LongMinMaxFilter(minValue, maxValue));
+                }
                 rfItem.assignRF(new RFBloomFilter[] {globalRFBloomFilter});
 
                 long endGlobalMode = System.nanoTime();
@@ -322,6 +341,35 @@ public class SynchronizerRFMerger implements RuntimeFilterMerger {
         return bfSizeOfPartition;
     }
 
+    /**
+     * Update the value range {min, max} by the integer values in block.
+     *
+     * @return FALSE if the block type is not supported.
+     */
+    private static boolean updateRange(Block block, long[] range) {
+        final int positionCount = block.getPositionCount();
+        if (block instanceof IntegerBlock) {
+            for (int pos = 0; pos < positionCount; pos++) {
+                if (!block.isNull(pos)) {
+                    int value = block.getInt(pos);
+                    range[0] = Math.min(range[0], value);
+                    range[1] = Math.max(range[1], value);
+                }
+            }
+            return true;
+        } else if (block instanceof LongBlock) {
+            for (int pos = 0; pos < positionCount; pos++) {
+                if (!block.isNull(pos)) {
+                    long value = block.getLong(pos);
+                    range[0] = Math.min(range[0], value);
+                    range[1] = Math.max(range[1], value);
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
     private static int getPartition(Block block, int position, int partitionCount) {
 
         // Convert the searchVal from field space to hash space
@@ -21,7 +21,11 @@ import com.alibaba.polardbx.executor.chunk.Block;
 import com.alibaba.polardbx.executor.operator.scan.impl.SimpleBlockCacheManager;
 import org.apache.hadoop.fs.Path;
 
+import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 
 /**
  * It is responsible for managing block-level in-memory cache.
@@ -67,6 +71,15 @@ public interface BlockCacheManager<VECTOR> {
      */
     byte[][] generateCacheStatsPacket();
 
+    /**
+     * Generate cache stats packets of lower cache tiers (e.g. off-heap) for `show cache stats` statement.
+     *
+     * @return one packet per enabled tier
+     */
+    default List<byte[][]> generateTierCacheStatsPackets() {
+        return Collections.emptyList();
+    }
+
     /**
      * We consider {group_id, column_id} has already been cached only if all blocks in row-group are cached.
      *
@@ -120,6 +133,30 @@ public interface BlockCacheManager<VECTOR> {
     void putCache(VECTOR block, int chunkLimit, int totalRows,
                   Path path, int stripeId, int rowGroupId, int columnId, int position, int rows);
 
+    /**
+     * Get decoded blocks of one column in one stripe of an archived file, load and cache them on miss.
+     * They share the same memory budget and admission policy with the row-group caches of columnar files,
+     * and the memory used by each table is bounded by a quota.
+     *
+     * @param schemaName logical schema of the archived table
+     * @param tableName logical name of the archived table
+     * @param fileName archived file name
+     * @param column column name
+     * @param stripeId stripe id
+     * @param loader decodes the blocks on miss
+     * @return blocks of the column in this stripe
+     */
+    List<VECTOR> getStripeBlocks(String schemaName, String tableName, String fileName, String column, int stripeId,
+                                 Callable<List<VECTOR>> loader) throws ExecutionException;
+
+    /**
+     * Invalidate cached stripes of archived tables.
+     *
+     * @param schemaName logical schema, null means all schemas
+     * @param tableName logical table, null means all tables in the schema
+     */
+    void invalidateStripeBlocks(String schemaName, String tableName);
+
     long getHitCount();
 
     long getMissCount();
@@ -116,6 +116,15 @@ public interface ColumnReader {
         return 0;
     }
 
+    /**
+     * Whether the selective {@link #next(RandomAccessBlock, int, int[], int)} only skips decoding of
+     * unselected positions without skipping any compression block, so that it can be used even if
+     * ENABLE_SKIP_COMPRESSION_IN_ORC is off.
+     */
+    default boolean supportSelectiveDecoding() {
+        return false;
+    }
+
     /**
      * Release the buffers in this column reader.
      */
@@ -23,6 +23,7 @@ import com.alibaba.polardbx.executor.chunk.Chunk;
 import com.alibaba.polardbx.executor.gms.ColumnarManager;
 import com.alibaba.polardbx.executor.mpp.planner.FragmentRFManager;
 import com.alibaba.polardbx.executor.mpp.spi.ConnectorSplit;
+import com.alibaba.polardbx.executor.operator.ColumnarScanExec;
 import com.alibaba.polardbx.optimizer.context.ExecutionContext;
 import com.alibaba.polardbx.optimizer.core.datatype.DataType;
 import com.alibaba.polardbx.optimizer.memory.MemoryAllocatorCtx;
@@ -115,6 +116,8 @@ public interface ColumnarSplit extends ConnectorSplit, Comparable<ColumnarSplit>
 
         ColumnarSplitBuilder fragmentRFManager(FragmentRFManager fragmentRFManager);
 
+        ColumnarSplitBuilder columnarScanExec(ColumnarScanExec columnarScanExec);
+
         ColumnarSplitBuilder operatorStatistic(OperatorStatistics operatorStatistics);
     }
 
@@ -0,0 +1,166 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.operator.scan.impl;
+
+import com.alibaba.polardbx.executor.chunk.BigIntegerBlock;
+import com.alibaba.polardbx.executor.chunk.BigIntegerBlockEncoding;
+import com.alibaba.polardbx.executor.chunk.Block;
+import com.alibaba.polardbx.executor.chunk.BlockEncoding;
+import com.alibaba.polardbx.executor.chunk.ByteArrayBlock;
+import com.alibaba.polardbx.executor.chunk.ByteArrayBlockEncoding;
+import com.alibaba.polardbx.executor.chunk.ByteBlock;
+import com.alibaba.polardbx.executor.chunk.ByteBlockEncoding;
+import com.alibaba.polardbx.executor.chunk.DateBlock;
+import com.alibaba.polardbx.executor.chunk.DateBlockEncoding;
+import com.alibaba.polardbx.executor.chunk.DecimalBlock;
+import com.alibaba.polardbx.executor.chunk.DecimalBlockEncoding;
+import com.alibaba.polardbx.executor.chunk.DoubleBlock;
+import com.alibaba.polardbx.executor.chunk.DoubleBlockEncoding;
+import com.alibaba.polardbx.executor.chunk.FloatBlock;
+import com.alibaba.polardbx.executor.chunk.FloatBlockEncoding;
+import com.alibaba.polardbx.executor.chunk.IntegerBlock;
+import com.alibaba.polardbx.executor.chunk.IntegerBlockEncoding;
+import com.alibaba.polardbx.executor.chunk.LongBlock;
+import com.alibaba.polardbx.executor.chunk.LongBlockEncoding;
+import com.alibaba.polardbx.executor.chunk.ShortBlock;
+import com.alibaba.polardbx.executor.chunk.ShortBlockEncoding;
+import com.alibaba.polardbx.executor.chunk.SliceBlock;
+import com.alibaba.polardbx.executor.chunk.SliceBlockEncoding;
+import com.alibaba.polardbx.executor.chunk.StringBlock;
+import com.alibaba.polardbx.executor.chunk.StringBlockEncoding;
+import com.alibaba.polardbx.executor.chunk.TimeBlock;
+import com.alibaba.polardbx.executor.chunk.TimeBlockEncoding;
+import com.alibaba.polardbx.executor.chunk.TimestampBlock;
+import com.alibaba.polardbx.executor.chunk.TimestampBlockEncoding;
+import com.alibaba.polardbx.executor.chunk.ULongBlock;
+import com.alibaba.polardbx.executor.chunk.ULongBlockEncoding;
+import com.alibaba.polardbx.optimizer.core.datatype.DataTypes;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+
+/**
+ * Serialized form of the blocks of one cached row-group, used by the off-heap tier of block cache.
+ * Layout: chunk limit (short) + block count (int) + for each block: tag (byte, -1 for absent) + encoded block.
+ */
+public class CachedBlockEncoding {
+    private static final byte ABSENT = -1;
+
+    /**
+     * The tag of a block class is its index in this array.
+     */
+    private static final Class<?>[] BLOCK_CLASSES = {
+        LongBlock.class, IntegerBlock.class, ShortBlock.class, ByteBlock.class, DoubleBlock.class,
+        FloatBlock.class, DecimalBlock.class, DateBlock.class, TimestampBlock.class, TimeBlock.class,
+        SliceBlock.class, ByteArrayBlock.class, BigIntegerBlock.class, ULongBlock.class, StringBlock.class};
+
+    private static int tagOf(Block block) {
+        Class<?> clazz = block.getClass();
+        for (int i = 0; i < BLOCK_CLASSES.length; i++) {
+            if (BLOCK_CLASSES[i] == clazz) {
+                return i;
+            }
+        }
+        return ABSENT;
+    }
+
+    private static BlockEncoding encodingOf(int tag, Block block) {
+        switch (tag) {
+        case 0:
+            return new LongBlockEncoding();
+        case 1:
+            return new IntegerBlockEncoding();
+        case 2:
+            return new ShortBlockEncoding();
+        case 3:
+            return new ByteBlockEncoding();
+        case 4:
+            return new DoubleBlockEncoding();
+        case 5:
+            return new FloatBlockEncoding();
+        case 6:
+            return new DecimalBlockEncoding();
+        case 7:
+            return new DateBlockEncoding();
+        case 8:
+            return new TimestampBlockEncoding();
+        case 9:
+            return new TimeBlockEncoding();
+        case 10:
+            // Slice block encoding writes charset and collation by itself, the type is only used for reading
+            // the encoding name.
+            return new SliceBlockEncoding(block == null ? DataTypes.VarcharType : ((SliceBlock) block).getType());
+        case 11:
+            return new ByteArrayBlockEncoding();
+        case 12:
+            return new BigIntegerBlockEncoding();
+        case 13:
+            return new ULongBlockEncoding();
+        case 14:
+            return new StringBlockEncoding();
+        default:
+            throw new IllegalArgumentException("unknown block tag: " + tag);
+        }
+    }
+
+    /**
+     * @return serialized blocks, or null if any block can not be encoded.
+     */
+    public static Slice encode(int chunkLimit, Block[] blocks) {
+        int estimatedSize = Short.BYTES + Integer.BYTES;
+        int[] tags = new int[blocks.length];
+        for (int i = 0; i < blocks.length; i++) {
+            if (blocks[i] == null) {
+                tags[i] = ABSENT;
+                continue;
+            }
+            tags[i] = tagOf(blocks[i]);
+            if (tags[i] == ABSENT) {
+                return null;
+            }
+            estimatedSize += Byte.BYTES + blocks[i].getElementUsedBytes();
+        }
+
+        DynamicSliceOutput output = new DynamicSliceOutput(estimatedSize);
+        output.writeShort(chunkLimit);
+        output.writeInt(blocks.length);
+        for (int i = 0; i < blocks.length; i++) {
+            output.writeByte(tags[i]);
+            if (tags[i] != ABSENT) {
+                encodingOf(tags[i], blocks[i]).writeBlock(output, blocks[i]);
+            }
+        }
+        return output.slice();
+    }
+
+    public static int decodeChunkLimit(Slice slice) {
+        return slice.getShort(0);
+    }
+
+    public static Block[] decodeBlocks(Slice slice) {
+        SliceInput input = slice.getInput();
+        input.readShort();
+        Block[] blocks = new Block[input.readInt()];
+        for (int i = 0; i < blocks.length; i++) {
+            byte tag = input.readByte();
+            if (tag != ABSENT) {
+                blocks[i] = encodingOf(tag, null).readBlock(input);
+            }
+        }
+        return blocks;
+    }
+}
@@ -25,6 +25,7 @@ import com.alibaba.polardbx.executor.chunk.Chunk;
 import com.alibaba.polardbx.executor.gms.ColumnarManager;
 import com.alibaba.polardbx.executor.gms.ColumnarSchemaTransformer;
 import com.alibaba.polardbx.executor.mpp.planner.FragmentRFManager;
+import com.alibaba.polardbx.executor.operator.ColumnarScanExec;
 import com.alibaba.polardbx.executor.operator.scan.BlockCacheManager;
 import com.alibaba.polardbx.executor.operator.scan.ColumnarSplit;
 import com.alibaba.polardbx.executor.operator.scan.LazyEvaluator;
@@ -297,6 +298,12 @@ public class CsvColumnarSplit implements ColumnarSplit {
             return this;
         }
 
+        @Override
+        public ColumnarSplitBuilder columnarScanExec(ColumnarScanExec columnarScanExec) {
+            // The csv file has no row-group statistics for runtime filter pruning.
+            return this;
+        }
+
         @Override
         public ColumnarSplitBuilder operatorStatistic(OperatorStatistics operatorStatistics) {
             this.operatorStatistics = operatorStatistics;
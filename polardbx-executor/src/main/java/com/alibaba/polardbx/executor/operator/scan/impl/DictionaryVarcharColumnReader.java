@@ -68,6 +68,146 @@ public class DictionaryVarcharColumnReader extends AbstractDictionaryColumnReade
         }
     }
 
+    @Override
+    public boolean supportSelectiveDecoding() {
+        return true;
+    }
+
+    @Override
+    public int next(RandomAccessBlock randomAccessBlock, int positionCount, int[] selection, int selSize)
+        throws IOException {
+        if (selection == null || selSize == 0 || selection.length == 0) {
+            next(randomAccessBlock, positionCount);
+            return 0;
+        }
+
+        Preconditions.checkArgument(isOpened.get());
+        Preconditions.checkArgument(!openFailed.get());
+        Preconditions.checkArgument(randomAccessBlock instanceof SliceBlock);
+        init();
+
+        long start = System.nanoTime();
+
+        SliceBlock block = (SliceBlock) randomAccessBlock;
+        int totalSkipCount;
+        if (present != null) {
+            // the dict ids of null positions are absent in stream, just read all positions.
+            if (enableSliceDict) {
+                readToSliceDict(block, positionCount);
+            } else {
+                readToSliceData(block, positionCount);
+            }
+            totalSkipCount = 0;
+        } else if (enableSliceDict) {
+            totalSkipCount = readToSliceDict(block, positionCount, selection, selSize);
+        } else {
+            totalSkipCount = readToSliceData(block, positionCount, selection, selSize);
+        }
+
+        // metrics
+        if (enableMetrics) {
+            parseTimer.inc(System.nanoTime() - start);
+        }
+
+        return totalSkipCount;
+    }
+
+    /**
+     * Read dict ids of selected positions only, and keep the block dictionary-encoded.
+     * The dict ids of unselected positions are filled with 0 and will never be accessed.
+     */
+    private int readToSliceDict(SliceBlock block, int positionCount, int[] selection, int selSize)
+        throws IOException {
+        int[] dictIds = block.getDictIds();
+        Preconditions.checkArgument(dictIds != null && dictIds.length == positionCount);
+        Preconditions.checkArgument(dictionary != null);
+        block.setDictionary(dictionary);
+        block.setHasNull(false);
+
+        int totalSkipCount = 0;
+        int lastSelectedPos = -1;
+        for (int i = 0; i < selSize; i++) {
+            int selectedPos = selection[i];
+
+            int skipPos = selectedPos - lastSelectedPos - 1;
+            if (skipPos > 0) {
+                dictIdReader.skip(skipPos);
+                totalSkipCount += skipPos;
+                lastPosition += skipPos;
+            }
+            dictIds[selectedPos] = (int) dictIdReader.next();
+            lastPosition++;
+
+            lastSelectedPos = selectedPos;
+        }
+
+        // skip the tail of this block.
+        int tailCount = positionCount - lastSelectedPos - 1;
+        if (tailCount > 0) {
+            dictIdReader.skip(tailCount);
+            totalSkipCount += tailCount;
+            lastPosition += tailCount;
+        }
+
+        // destroy null array to save the memory.
+        block.destroyNulls(true);
+        return totalSkipCount;
+    }
+
+    /**
+     * Only copy the values of selected positions, unselected positions are left empty.
+     */
+    private int readToSliceData(SliceBlock block, int positionCount, int[] selection, int selSize)
+        throws IOException {
+        int[] offsets = block.getOffsets();
+        Preconditions.checkArgument(offsets != null && offsets.length == positionCount);
+        Preconditions.checkArgument(dictionary != null);
+        block.setHasNull(false);
+
+        SliceOutput sliceOutput = new DynamicSliceOutput(selSize);
+        long totalLength = 0;
+        int totalSkipCount = 0;
+        int lastSelectedPos = -1;
+        for (int i = 0; i < selSize; i++) {
+            int selectedPos = selection[i];
+
+            int skipPos = selectedPos - lastSelectedPos - 1;
+            if (skipPos > 0) {
+                dictIdReader.skip(skipPos);
+                for (int pos = lastSelectedPos + 1; pos < selectedPos; pos++) {
+                    offsets[pos] = (int) totalLength;
+                }
+                totalSkipCount += skipPos;
+                lastPosition += skipPos;
+            }
+
+            int dictId = (int) dictIdReader.next();
+            Slice sliceValue = dictionary.getValue(dictId);
+            sliceOutput.writeBytes(sliceValue);
+            totalLength += sliceValue.length();
+            offsets[selectedPos] = (int) totalLength;
+            lastPosition++;
+
+            lastSelectedPos = selectedPos;
+        }
+
+        // skip the tail of this block.
+        int tailCount = positionCount - lastSelectedPos - 1;
+        if (tailCount > 0) {
+            dictIdReader.skip(tailCount);
+            for (int pos = lastSelectedPos + 1; pos < positionCount; pos++) {
+                offsets[pos] = (int) totalLength;
+            }
+            totalSkipCount += tailCount;
+            lastPosition += tailCount;
+        }
+
+        // destroy null array to save the memory.
+        block.destroyNulls(true);
+        block.setData(sliceOutput.slice());
+        return totalSkipCount;
+    }
+
     private void readToSliceDict(SliceBlock block, int positionCount) throws IOException {
         int[] dictIds = block.getDictIds();
         boolean[] nulls = block.nulls();
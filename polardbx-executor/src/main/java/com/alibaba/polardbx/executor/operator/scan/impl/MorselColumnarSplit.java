@@ -20,12 +20,14 @@ import com.alibaba.polardbx.common.Engine;
 import com.alibaba.polardbx.common.properties.ConnectionParams;
 import com.alibaba.polardbx.common.utils.GeneralUtil;
 import com.alibaba.polardbx.executor.archive.reader.OSSColumnTransformer;
+import com.alibaba.polardbx.executor.columnar.pruning.ColumnarPruneManager;
 import com.alibaba.polardbx.executor.chunk.Block;
 import com.alibaba.polardbx.executor.chunk.Chunk;
 import com.alibaba.polardbx.executor.gms.ColumnarManager;
 import com.alibaba.polardbx.executor.mpp.planner.FragmentRFItem;
 import com.alibaba.polardbx.executor.mpp.planner.FragmentRFItemKey;
 import com.alibaba.polardbx.executor.mpp.planner.FragmentRFManager;
+import com.alibaba.polardbx.executor.operator.ColumnarScanExec;
 import com.alibaba.polardbx.executor.operator.scan.BlockCacheManager;
 import com.alibaba.polardbx.executor.operator.scan.ColumnReader;
 import com.alibaba.polardbx.executor.operator.scan.ColumnarSplit;
@@ -38,6 +40,7 @@ import com.alibaba.polardbx.executor.operator.scan.ScanWork;
 import com.alibaba.polardbx.executor.operator.scan.metrics.ProfileAccumulatorType;
 import com.alibaba.polardbx.executor.operator.scan.metrics.ProfileUnit;
 import com.alibaba.polardbx.executor.operator.scan.metrics.RuntimeMetrics;
+import com.alibaba.polardbx.executor.operator.util.minmaxfilter.MinMaxFilter;
 import com.alibaba.polardbx.optimizer.config.table.TableMeta;
 import com.alibaba.polardbx.optimizer.context.ExecutionContext;
 import com.alibaba.polardbx.optimizer.core.datatype.DataType;
@@ -54,6 +57,7 @@ import org.apache.orc.OrcProto;
 import org.apache.orc.StripeInformation;
 import org.apache.orc.TypeDescription;
 import org.apache.orc.UserMetadataUtil;
+import org.apache.orc.impl.OrcIndex;
 import org.apache.orc.impl.OrcTail;
 import org.apache.orc.impl.reader.ReaderEncryption;
 import org.roaringbitmap.RoaringBitmap;
@@ -63,9 +67,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
 import java.util.concurrent.ExecutorService;
@@ -158,6 +164,11 @@ public class MorselColumnarSplit implements ColumnarSplit {
 
     private final FragmentRFManager fragmentRFManager;
     private final Map<FragmentRFItemKey, Integer> rfFilterRefInFileMap;
+
+    /**
+     * Keys of the runtime filter items registered on the owner scan, whose range can prune the row-groups.
+     */
+    private final Set<FragmentRFItemKey> rfPruneItemKeys;
     private final OperatorStatistics operatorStatistics;
 
     public MorselColumnarSplit(ExecutionContext executionContext, ExecutorService ioExecutor, Engine engine,
@@ -172,6 +183,7 @@ public class MorselColumnarSplit implements ColumnarSplit {
                                int partNum, int nodePartCount, MemoryAllocatorCtx memoryAllocatorCtx,
                                FragmentRFManager fragmentRFManager,
                                Map<FragmentRFItemKey, Integer> rfFilterRefInFileMap,
+                               Set<FragmentRFItemKey> rfPruneItemKeys,
                                OperatorStatistics operatorStatistics)
         throws IOException {
         this.executionContext = executionContext;
@@ -198,6 +210,7 @@ public class MorselColumnarSplit implements ColumnarSplit {
         this.memoryAllocatorCtx = memoryAllocatorCtx;
         this.fragmentRFManager = fragmentRFManager;
         this.rfFilterRefInFileMap = rfFilterRefInFileMap;
+        this.rfPruneItemKeys = rfPruneItemKeys;
         this.operatorStatistics = operatorStatistics;
     }
 
@@ -316,6 +329,14 @@ public class MorselColumnarSplit implements ColumnarSplit {
          */
         private final RoaringBitmap deletion;
 
+        /**
+         * Row-group bitmap of current stripe, further pruned by the value range of runtime filter.
+         */
+        private final boolean enableRFPruning;
+        private int rfPrunedStripeId;
+        private int rfAppliedCount;
+        private boolean[] rfPrunedRowGroups;
+
         /*================== Come from parameter collection ====================*/
 
         // parsed from file meta and reused by all scan work.
@@ -345,6 +366,10 @@ public class MorselColumnarSplit implements ColumnarSplit {
             rowGroups = preProcessor.getPruningResult(filePath);
             stripeIds = rowGroups.keySet().stream().sorted().collect(Collectors.toList());
             deletion = preProcessor.getDeletion(filePath);
+            enableRFPruning = fragmentRFManager != null && !rfPruneItemKeys.isEmpty()
+                && executionContext.getParamManager()
+                .getBoolean(ConnectionParams.ENABLE_NEW_RF_ROW_GROUP_PRUNING);
+            rfPrunedStripeId = -1;
 
             // for iterator inner states.
             stripeListIndex = 0;
@@ -435,7 +460,7 @@ public class MorselColumnarSplit implements ColumnarSplit {
 
         @Override
         public boolean hasNext() {
-            if (stripeIds.isEmpty()) {
+            if (stripeListIndex >= stripeIds.size()) {
                 return false;
             }
 
@@ -445,7 +470,8 @@ public class MorselColumnarSplit implements ColumnarSplit {
             }
 
             // Try to get the next stripe when row-group index is out of bound.
-            if (++stripeListIndex < stripeIds.size()) {
+            // Skip the stripes in which all row-groups have been pruned.
+            while (++stripeListIndex < stripeIds.size()) {
                 rowGroupIndex = 0;
                 if (moveRowGroupIndex()) {
                     return true;
@@ -613,7 +639,7 @@ public class MorselColumnarSplit implements ColumnarSplit {
                 int maxRowGroupCount = Math.min(rowGroupCountInStripe - rowGroupIndex, rgThreshold);
 
                 // It's the bitmap of all selected row-group in a stripe.
-                boolean[] rgIncluded = rowGroups.get(stripeId);
+                boolean[] rgIncluded = enableRFPruning ? pruneByRuntimeFilter(stripeId) : rowGroups.get(stripeId);
                 int effectiveCount = 0;
                 int effectiveRowGroupIndex;
                 for (effectiveRowGroupIndex = rowGroupIndex;
@@ -640,6 +666,45 @@ public class MorselColumnarSplit implements ColumnarSplit {
             }
             return false;
         }
+
+        /**
+         * Prune the row-groups of stripe by the value range of arrived runtime filters.
+         * The ranges already generated keep their own bitmap, so it's safe to re-prune in the middle of stripe.
+         */
+        private boolean[] pruneByRuntimeFilter(int stripeId) {
+            int availableCount = 0;
+            for (FragmentRFItemKey itemKey : rfPruneItemKeys) {
+                FragmentRFItem item = fragmentRFManager.getAllItems().get(itemKey);
+                if (item != null && item.getMinMaxFilter() != null) {
+                    availableCount++;
+                }
+            }
+
+            if (stripeId == rfPrunedStripeId && availableCount == rfAppliedCount) {
+                return rfPrunedRowGroups;
+            }
+
+            boolean[] rgIncluded = rowGroups.get(stripeId);
+            OrcIndex stripeIndex = preheatFileMeta.getOrcIndex(stripeId);
+            for (FragmentRFItemKey itemKey : rfPruneItemKeys) {
+                FragmentRFItem item = fragmentRFManager.getAllItems().get(itemKey);
+                MinMaxFilter minMaxFilter = item == null ? null : item.getMinMaxFilter();
+                if (minMaxFilter == null
+                    || minMaxFilter.getMinNumber() == null || minMaxFilter.getMaxNumber() == null) {
+                    continue;
+                }
+
+                // The column id in orc starts from 1.
+                final int columnId = rfFilterRefInFileMap.get(itemKey) + 1;
+                rgIncluded = ColumnarPruneManager.pruneByRange(stripeIndex, columnId,
+                    minMaxFilter.getMinNumber().longValue(), minMaxFilter.getMaxNumber().longValue(), rgIncluded);
+            }
+
+            rfPrunedStripeId = stripeId;
+            rfAppliedCount = availableCount;
+            rfPrunedRowGroups = rgIncluded;
+            return rgIncluded;
+        }
     }
 
     @Override
@@ -724,6 +789,7 @@ public class MorselColumnarSplit implements ColumnarSplit {
         private MemoryAllocatorCtx memoryAllocatorCtx;
 
         private FragmentRFManager fragmentRFManager;
+        private ColumnarScanExec columnarScanExec;
         private OperatorStatistics operatorStatistics;
 
         @Override
@@ -737,6 +803,7 @@ public class MorselColumnarSplit implements ColumnarSplit {
                     "when evaluator is null, the input refs for filter must be empty.");
 
                 Map<FragmentRFItemKey, Integer> rfFilterRefInFileMap = new HashMap<>();
+                Set<FragmentRFItemKey> rfPruneItemKeys = new HashSet<>();
                 if (fragmentRFManager != null) {
 
                     // For each item, mapping the source ref to file column ref.
@@ -750,6 +817,12 @@ public class MorselColumnarSplit implements ColumnarSplit {
                             : rfFilterChannels;
 
                         rfFilterRefInFileMap.put(itemEntry.getKey(), rfFilterChannels.get(0));
+
+                        // Only the items registered on this scan are about the columns of this file.
+                        if (columnarScanExec != null
+                            && itemEntry.getValue().getRegisteredSource().contains(columnarScanExec)) {
+                            rfPruneItemKeys.add(itemEntry.getKey());
+                        }
                     }
                 }
 
@@ -768,7 +841,7 @@ public class MorselColumnarSplit implements ColumnarSplit {
                     rgThreshold, lazyEvaluator,
                     preProcessor,
                     partNum, nodePartCount, memoryAllocatorCtx, fragmentRFManager, rfFilterRefInFileMap,
-                    operatorStatistics);
+                    rfPruneItemKeys, operatorStatistics);
             } catch (IOException e) {
                 throw GeneralUtil.nestedException("Fail to build columnar split.", e);
             }
@@ -904,6 +977,12 @@ public class MorselColumnarSplit implements ColumnarSplit {
             return this;
         }
 
+        @Override
+        public ColumnarSplitBuilder columnarScanExec(ColumnarScanExec columnarScanExec) {
+            this.columnarScanExec = columnarScanExec;
+            return this;
+        }
+
         @Override
         public ColumnarSplitBuilder operatorStatistic(OperatorStatistics operatorStatistics) {
             this.operatorStatistics = operatorStatistics;
@@ -0,0 +1,266 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.operator.scan.impl;
+
+import com.alibaba.polardbx.common.utils.GeneralUtil;
+import com.alibaba.polardbx.common.utils.logger.Logger;
+import com.alibaba.polardbx.common.utils.logger.LoggerFactory;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * The second tier of block cache, storing serialized row-group blocks outside of java heap.
+ * <p>
+ * Memory is organized as a ring of fixed-size segments, either direct buffers or regions of a memory-mapped
+ * local file. Entries are appended at the write position and evicted in FIFO order when the ring wraps around,
+ * so the recency decision is left to the heap tier which demotes its evicted entries here.
+ * <p>
+ * Readers copy bytes out under an optimistic stamp and retry with the read lock if a writer overwrote the region
+ * concurrently.
+ */
+public class OffHeapBlockCache {
+    private static final Logger LOGGER = LoggerFactory.getLogger("oss");
+
+    private static final int MAX_SEGMENT_SIZE = 1 << 30;
+
+    private final ByteBuffer[] segments;
+    private final int segmentSize;
+    private final long totalSize;
+    private final String location;
+
+    private final Map<Long, Entry> index = new ConcurrentHashMap<>();
+
+    /**
+     * Entries in write order, guarded by write lock.
+     */
+    private final ArrayDeque<Entry> fifo = new ArrayDeque<>();
+    private final StampedLock lock = new StampedLock();
+
+    /**
+     * Logical (never wrapped) positions, guarded by write lock.
+     * Bytes before headPos may have been overwritten.
+     */
+    private long writePos = 0L;
+    private volatile long headPos = 0L;
+
+    private final AtomicLong usedBytes = new AtomicLong(0L);
+    private final AtomicLong hitCount = new AtomicLong(0L);
+    private final AtomicLong missCount = new AtomicLong(0L);
+    private final AtomicLong evictCount = new AtomicLong(0L);
+
+    private static class Entry {
+        final long key;
+        final long start;
+        final int length;
+
+        Entry(long key, long start, int length) {
+            this.key = key;
+            this.start = start;
+            this.length = length;
+        }
+    }
+
+    /**
+     * @param capacity total bytes of the tier.
+     * @param filePath local file backing the tier, or null/empty to use direct memory.
+     */
+    public OffHeapBlockCache(long capacity, String filePath) {
+        this.segmentSize = (int) Math.min(capacity, MAX_SEGMENT_SIZE);
+        int segmentCount = (int) ((capacity + segmentSize - 1) / segmentSize);
+        this.segments = new ByteBuffer[segmentCount];
+        this.totalSize = (long) segmentCount * segmentSize;
+
+        if (filePath == null || filePath.isEmpty()) {
+            this.location = "OFF HEAP";
+            for (int i = 0; i < segmentCount; i++) {
+                segments[i] = ByteBuffer.allocateDirect(segmentSize);
+            }
+        } else {
+            this.location = "MMAP " + filePath;
+            try {
+                Path path = Paths.get(filePath);
+                // Content of last run is useless since the index lives in memory.
+                Files.deleteIfExists(path);
+                // Mappings stay valid after the channel is closed.
+                try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                    for (int i = 0; i < segmentCount; i++) {
+                        segments[i] = channel.map(FileChannel.MapMode.READ_WRITE, (long) i * segmentSize, segmentSize);
+                    }
+                }
+            } catch (IOException e) {
+                throw GeneralUtil.nestedException("Failed to map block cache file " + filePath, e);
+            }
+        }
+        LOGGER.info("Off-heap block cache initialized at " + location + " with " + totalSize + " bytes");
+    }
+
+    public boolean contains(long key) {
+        Entry entry = index.get(key);
+        return entry != null && entry.start >= headPos;
+    }
+
+    /**
+     * Append the serialized blocks, evicting the oldest entries if needed.
+     */
+    public void put(long key, Slice serialized) {
+        int length = serialized.length();
+        if (length > segmentSize || contains(key)) {
+            return;
+        }
+
+        long stamp = lock.writeLock();
+        try {
+            if (contains(key)) {
+                return;
+            }
+            long start = writePos;
+            int offset = (int) ((start % totalSize) % segmentSize);
+            if (offset + length > segmentSize) {
+                // Entries never span segments, skip the tail of current segment.
+                start += segmentSize - offset;
+            }
+            long end = start + length;
+
+            // Invalidate all entries whose bytes would be overwritten before writing.
+            headPos = Math.max(headPos, end - totalSize);
+            while (!fifo.isEmpty() && fifo.peekFirst().start < headPos) {
+                Entry evicted = fifo.pollFirst();
+                if (index.remove(evicted.key, evicted)) {
+                    evictCount.getAndIncrement();
+                }
+                usedBytes.getAndAdd(-evicted.length);
+            }
+
+            ByteBuffer buffer = segments[segmentOf(start)].duplicate();
+            buffer.position(offsetOf(start));
+            buffer.put(serialized.toByteBuffer());
+
+            Entry entry = new Entry(key, start, length);
+            index.put(key, entry);
+            fifo.addLast(entry);
+            usedBytes.getAndAdd(length);
+            writePos = end;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * @return a heap copy of the serialized blocks, or null if absent.
+     */
+    public Slice get(long key) {
+        Entry entry = index.get(key);
+        if (entry == null) {
+            missCount.getAndIncrement();
+            return null;
+        }
+
+        byte[] bytes = new byte[entry.length];
+        long stamp = lock.tryOptimisticRead();
+        boolean valid = copy(entry, bytes);
+        if (!lock.validate(stamp)) {
+            stamp = lock.readLock();
+            try {
+                valid = copy(entry, bytes);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        if (!valid) {
+            missCount.getAndIncrement();
+            return null;
+        }
+        hitCount.getAndIncrement();
+        return Slices.wrappedBuffer(bytes);
+    }
+
+    private boolean copy(Entry entry, byte[] bytes) {
+        if (entry.start < headPos) {
+            return false;
+        }
+        ByteBuffer buffer = segments[segmentOf(entry.start)].duplicate();
+        buffer.position(offsetOf(entry.start));
+        buffer.get(bytes);
+        return true;
+    }
+
+    private int segmentOf(long pos) {
+        return (int) ((pos % totalSize) / segmentSize);
+    }
+
+    private int offsetOf(long pos) {
+        return (int) ((pos % totalSize) % segmentSize);
+    }
+
+    public void clear() {
+        long stamp = lock.writeLock();
+        try {
+            index.clear();
+            fifo.clear();
+            headPos = writePos;
+            usedBytes.set(0L);
+            hitCount.set(0L);
+            missCount.set(0L);
+            evictCount.set(0L);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    public long getTotalSize() {
+        return totalSize;
+    }
+
+    public long getEntryCount() {
+        return index.size();
+    }
+
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    public long getEvictCount() {
+        return evictCount.get();
+    }
+
+    public String getLocation() {
+        return location;
+    }
+}
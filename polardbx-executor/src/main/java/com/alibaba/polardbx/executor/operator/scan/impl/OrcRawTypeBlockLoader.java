@@ -99,7 +99,7 @@ public class OrcRawTypeBlockLoader extends ReactiveBlockLoader {
         try {
             columnReader.startAt(rowGroupId, startPosition);
 
-            if (enableSkipCompression) {
+            if (enableSkipCompression || columnReader.supportSelectiveDecoding()) {
                 lastSkipCount = columnReader.next(targetBlock.cast(RandomAccessBlock.class), positionCount,
                     selection, selSize);
             } else {
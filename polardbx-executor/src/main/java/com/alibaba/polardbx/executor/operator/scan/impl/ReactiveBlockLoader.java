@@ -184,10 +184,10 @@ public class ReactiveBlockLoader implements BlockLoader {
 
             // write back to cache manager
             // condition1: use block cache
-            // condition2: there is no compression block has been skipped.
+            // condition2: no compression block or position has been skipped.
             // condition3: the column is primary key.
             if (useBlockCache
-                && (!enableSkipCompression || lastSkipCount == 0)
+                && lastSkipCount == 0
                 && (!onlyCachePrimaryKey || columnReader.needCache())) {
                 blockCacheManager.putCache(
                     block, // cache entity
@@ -214,7 +214,7 @@ public class ReactiveBlockLoader implements BlockLoader {
         try {
             columnReader.startAt(rowGroupId, startPosition);
 
-            if (enableSkipCompression) {
+            if (enableSkipCompression || columnReader.supportSelectiveDecoding()) {
                 lastSkipCount = columnReader.next(targetBlock.cast(RandomAccessBlock.class), positionCount,
                     selection, selSize);
             } else {
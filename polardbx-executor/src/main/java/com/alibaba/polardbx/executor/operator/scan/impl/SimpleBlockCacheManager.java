@@ -16,7 +16,9 @@
 
 package com.alibaba.polardbx.executor.operator.scan.impl;
 
+import com.alibaba.polardbx.common.properties.DynamicConfig;
 import com.alibaba.polardbx.common.utils.GeneralUtil;
+import com.alibaba.polardbx.common.utils.thread.NamedThreadFactory;
 import com.alibaba.polardbx.executor.chunk.Block;
 import com.alibaba.polardbx.executor.operator.scan.BlockCacheManager;
 import com.alibaba.polardbx.executor.operator.scan.SeekableIterator;
@@ -27,11 +29,22 @@ import com.github.benmanes.caffeine.cache.LoadingCache;
 import com.github.benmanes.caffeine.cache.RemovalListener;
 import com.github.benmanes.caffeine.cache.Weigher;
 import com.google.common.base.Preconditions;
+import io.airlift.slice.Slice;
 import org.apache.hadoop.fs.Path;
 
 import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -47,14 +60,26 @@ import static com.alibaba.polardbx.gms.engine.FileStoreStatistics.CACHE_STATS_FI
 public class SimpleBlockCacheManager implements BlockCacheManager<Block> {
     public static final String BLOCK_CACHE = "BLOCK CACHE";
     public static final String IN_MEMORY = "IN MEMORY";
+    public static final String OFF_HEAP_BLOCK_CACHE = "OFF HEAP BLOCK CACHE";
+    public static final String ARCHIVE_BLOCK_CACHE = "ARCHIVE BLOCK CACHE";
 
     // mark word (8 Bytes) + class pointer (4 Bytes) + long value (8 Bytes)
     private static final int LONG_OBJECT_IN_BYTES = 20;
 
+    private static final int DEMOTION_THREADS = 2;
+    private static final int DEMOTION_QUEUE_SIZE = 1024;
+
+    /**
+     * Serializes the row-groups evicted from valid cache into the off-heap tier.
+     * Demotion is best effort, it is dropped when the queue is full.
+     */
+    private static final ThreadPoolExecutor DEMOTION_EXECUTOR = createDemotionExecutor();
+
     /**
      * Caching the block collections that covering all blocks in row-group which the block in collection belongs to.
+     * Keyed by Long for row-groups of columnar files, and by StripeKey for stripes of archived files.
      */
-    private Cache<Long, SimplifiedBlockCache> validCache;
+    private Cache<Object, SimplifiedBlockCache> validCache;
 
     /**
      * The in-flight cache is responsible for caching the block collection
@@ -62,12 +87,32 @@ public class SimpleBlockCacheManager implements BlockCacheManager<Block> {
      */
     private LoadingCache<Long, BlockCache> inFlightCache;
 
+    /**
+     * The optional second tier holding serialized blocks out of java heap.
+     * Entries evicted from valid cache are demoted into it, and promoted back on hit.
+     */
+    private final OffHeapBlockCache offHeapCache;
+
     private AtomicLong size;
     private AtomicLong hitCount;
     private AtomicLong flightCount;
     private AtomicLong missCount;
     private AtomicLong quotaExceedCount;
 
+    /**
+     * Stats of archived stripes, and memory size held by each archived table.
+     */
+    private final AtomicLong stripeEntries = new AtomicLong(0L);
+    private final AtomicLong stripeHitCount = new AtomicLong(0L);
+    private final AtomicLong stripeMissCount = new AtomicLong(0L);
+    private final AtomicLong stripeQuotaExceedCount = new AtomicLong(0L);
+    private final Map<String, AtomicLong> stripeTableSize = new ConcurrentHashMap<>();
+
+    /**
+     * Archived stripes being loaded, so that concurrent misses of the same stripe share one load.
+     */
+    private final Map<StripeKey, CompletableFuture<List<Block>>> stripeLoading = new ConcurrentHashMap<>();
+
     /**
      * The CacheId is combined by:
      * pathId (tableId + fileId) (32bit) + rowGroupId (16bit) + stripeId (4bit) + columnId (12bit).
@@ -85,6 +130,12 @@ public class SimpleBlockCacheManager implements BlockCacheManager<Block> {
     }
 
     public SimpleBlockCacheManager() {
+        this(DynamicConfig.getInstance().getBlockCacheOffHeapSize(),
+            DynamicConfig.getInstance().getBlockCacheOffHeapFile());
+    }
+
+    public SimpleBlockCacheManager(long offHeapSize, String offHeapFile) {
+        this.offHeapCache = offHeapSize > 0 ? new OffHeapBlockCache(offHeapSize, offHeapFile) : null;
         this.size = new AtomicLong(0L);
         this.hitCount = new AtomicLong(0L);
         this.missCount = new AtomicLong(0L);
@@ -92,15 +143,36 @@ public class SimpleBlockCacheManager implements BlockCacheManager<Block> {
         this.flightCount = new AtomicLong(0L);
         this.validCache = Caffeine.newBuilder()
             .maximumWeight(MAXIMUM_MEMORY_SIZE)
-            .weigher((Weigher<Long, SimplifiedBlockCache>) (key, value) ->
+            .weigher((Weigher<Object, SimplifiedBlockCache>) (key, value) ->
 
                 // calculate memory size of block cache for cache weight.
                 LONG_OBJECT_IN_BYTES + value.memorySize()
             )
-            .removalListener((longValue, simplifiedBlockCache, removalCause) -> {
+            // Run the removal listener synchronously, so the table quota is released once invalidation returns.
+            .executor(Runnable::run)
+            .removalListener((key, simplifiedBlockCache, removalCause) -> {
                     // decrement memory size when invalidate block cache.
                     size.getAndAdd(-(LONG_OBJECT_IN_BYTES + simplifiedBlockCache.memorySize()));
+
+                    if (key instanceof StripeKey) {
+                        stripeEntries.decrementAndGet();
+                        stripeTableSize.computeIfPresent(((StripeKey) key).tableKey(), (k, tableSize) -> {
+                            tableSize.addAndGet(-(LONG_OBJECT_IN_BYTES + simplifiedBlockCache.memorySize()));
+                            return tableSize;
+                        });
+                        return;
+                    }
                     quotaExceedCount.getAndIncrement();
+
+                    // demote to off-heap tier only when evicted by size, not when invalidated.
+                    if (offHeapCache != null && removalCause.wasEvicted()) {
+                        DEMOTION_EXECUTOR.execute(() -> {
+                            Slice serialized = simplifiedBlockCache.serialize();
+                            if (serialized != null) {
+                                offHeapCache.put((Long) key, serialized);
+                            }
+                        });
+                    }
                 }
             )
             .build();
@@ -124,6 +196,18 @@ public class SimpleBlockCacheManager implements BlockCacheManager<Block> {
             });
     }
 
+    private static ThreadPoolExecutor createDemotionExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(DEMOTION_THREADS,
+            DEMOTION_THREADS,
+            60,
+            TimeUnit.SECONDS,
+            new LinkedBlockingQueue<>(DEMOTION_QUEUE_SIZE),
+            new NamedThreadFactory("BlockCache-OffHeap-Demotion", true),
+            new ThreadPoolExecutor.DiscardPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /**
      * A cache unit for all blocks within a row-group.
      */
@@ -290,11 +374,27 @@ public class SimpleBlockCacheManager implements BlockCacheManager<Block> {
             this.blocks = blocks;
         }
 
+        static SimplifiedBlockCache deserialize(Slice serialized) {
+            return new SimplifiedBlockCache(
+                CachedBlockEncoding.decodeChunkLimit(serialized), CachedBlockEncoding.decodeBlocks(serialized));
+        }
+
+        /**
+         * @return serialized blocks, or null if some block is not supported by off-heap tier.
+         */
+        Slice serialize() {
+            return CachedBlockEncoding.encode(chunkLimit, blocks);
+        }
+
         public SeekableIterator<Block> newIterator() {
             Preconditions.checkNotNull(blocks);
             return new BlockIterator();
         }
 
+        public List<Block> blocks() {
+            return Arrays.asList(blocks);
+        }
+
         public int memorySize() {
             int totalSize = BASE_MEMORY_SIZE;
             if (blocks != null) {
@@ -344,11 +444,19 @@ public class SimpleBlockCacheManager implements BlockCacheManager<Block> {
     public void clear() {
         validCache.invalidateAll();
         inFlightCache.invalidateAll();
+        if (offHeapCache != null) {
+            offHeapCache.clear();
+        }
         size.set(0L);
         hitCount.set(0);
         missCount.set(0);
         quotaExceedCount.set(0);
         flightCount.set(0);
+        stripeTableSize.clear();
+        stripeEntries.set(0);
+        stripeHitCount.set(0);
+        stripeMissCount.set(0);
+        stripeQuotaExceedCount.set(0);
     }
 
     @Override
@@ -372,21 +480,212 @@ public class SimpleBlockCacheManager implements BlockCacheManager<Block> {
         return results;
     }
 
+    @Override
+    public List<byte[][]> generateTierCacheStatsPackets() {
+        List<byte[][]> packets = new ArrayList<>();
+        packets.add(generateStripeCacheStatsPacket());
+        if (offHeapCache == null) {
+            return packets;
+        }
+        byte[][] results = new byte[CACHE_STATS_FIELD_COUNT][];
+        int pos = 0;
+        results[pos++] = OFF_HEAP_BLOCK_CACHE.getBytes();
+        results[pos++] = String.valueOf(offHeapCache.getUsedBytes()).getBytes();
+        results[pos++] = String.valueOf(offHeapCache.getEntryCount()).getBytes();
+        results[pos++] = String.valueOf(-1).getBytes();
+        results[pos++] = String.valueOf(offHeapCache.getHitCount()).getBytes();
+        results[pos++] = String.valueOf(-1).getBytes();
+        results[pos++] = String.valueOf(offHeapCache.getMissCount()).getBytes();
+        results[pos++] = String.valueOf(offHeapCache.getEvictCount()).getBytes();
+        results[pos++] = String.valueOf(-1).getBytes();
+        results[pos++] = offHeapCache.getLocation().getBytes();
+        results[pos++] = String.valueOf(-1).getBytes();
+        results[pos++] = String.valueOf(-1).getBytes();
+        results[pos++] = new StringBuilder().append(offHeapCache.getTotalSize()).append(" BYTES").toString().getBytes();
+        packets.add(results);
+        return packets;
+    }
+
+    /**
+     * Stats of archived stripes held in valid cache, the max cache size column shows the per-table quota.
+     */
+    private byte[][] generateStripeCacheStatsPacket() {
+        long stripeSize = 0;
+        for (AtomicLong tableSize : stripeTableSize.values()) {
+            stripeSize += tableSize.get();
+        }
+        byte[][] results = new byte[CACHE_STATS_FIELD_COUNT][];
+        int pos = 0;
+        results[pos++] = ARCHIVE_BLOCK_CACHE.getBytes();
+        results[pos++] = String.valueOf(stripeSize).getBytes();
+        results[pos++] = String.valueOf(stripeEntries.get()).getBytes();
+        results[pos++] = String.valueOf(-1).getBytes();
+        results[pos++] = String.valueOf(stripeHitCount.get()).getBytes();
+        results[pos++] = String.valueOf(-1).getBytes();
+        results[pos++] = String.valueOf(stripeMissCount.get()).getBytes();
+        results[pos++] = String.valueOf(stripeQuotaExceedCount.get()).getBytes();
+        results[pos++] = String.valueOf(-1).getBytes();
+        results[pos++] = IN_MEMORY.getBytes();
+        results[pos++] = String.valueOf(-1).getBytes();
+        results[pos++] = String.valueOf(-1).getBytes();
+        results[pos++] = new StringBuilder().append(getTableQuota()).append(" BYTES").toString().getBytes();
+        return results;
+    }
+
+    private static long getTableQuota() {
+        return (long) (MAXIMUM_MEMORY_SIZE * DynamicConfig.getInstance().getBlockCacheTableQuotaRatio());
+    }
+
+    @Override
+    public List<Block> getStripeBlocks(String schemaName, String tableName, String fileName, String column,
+                                       int stripeId, Callable<List<Block>> loader) throws ExecutionException {
+        StripeKey key = new StripeKey(schemaName, tableName, fileName, column, stripeId);
+        SimplifiedBlockCache blockCache = validCache.getIfPresent(key);
+        if (blockCache != null) {
+            stripeHitCount.getAndIncrement();
+            return blockCache.blocks();
+        }
+
+        // Only one thread loads the stripe, the others wait for its result.
+        CompletableFuture<List<Block>> loading = new CompletableFuture<>();
+        CompletableFuture<List<Block>> existing = stripeLoading.putIfAbsent(key, loading);
+        if (existing != null) {
+            stripeHitCount.getAndIncrement();
+            try {
+                return existing.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ExecutionException(e);
+            }
+        }
+        stripeMissCount.getAndIncrement();
+
+        try {
+            List<Block> blocks = loader.call();
+            cacheStripeBlocks(key, blocks);
+            loading.complete(blocks);
+            return blocks;
+        } catch (Throwable t) {
+            // wake up the waiting threads with the same failure.
+            loading.completeExceptionally(t);
+            throw new ExecutionException(t);
+        } finally {
+            stripeLoading.remove(key, loading);
+        }
+    }
+
+    private void cacheStripeBlocks(StripeKey key, List<Block> blocks) {
+        // Skip caching once the table has used up its quota, so one hot table cannot evict all the others.
+        SimplifiedBlockCache blockCache = new SimplifiedBlockCache(0, blocks.toArray(new Block[0]));
+        long weight = LONG_OBJECT_IN_BYTES + blockCache.memorySize();
+        AtomicLong tableSize = stripeTableSize.computeIfAbsent(key.tableKey(), k -> new AtomicLong(0L));
+        long quota = getTableQuota();
+        long current;
+        do {
+            current = tableSize.get();
+            if (current + weight > quota) {
+                stripeQuotaExceedCount.getAndIncrement();
+                return;
+            }
+        } while (!tableSize.compareAndSet(current, current + weight));
+        size.addAndGet(weight);
+        stripeEntries.incrementAndGet();
+        validCache.put(key, blockCache);
+    }
+
+    @Override
+    public void invalidateStripeBlocks(String schemaName, String tableName) {
+        for (Object key : validCache.asMap().keySet()) {
+            if (key instanceof StripeKey && ((StripeKey) key).belongsTo(schemaName, tableName)) {
+                validCache.invalidate(key);
+            }
+        }
+    }
+
+    /**
+     * Cache key of one column in one stripe of an archived file.
+     */
+    private static class StripeKey {
+        private final String schemaName;
+        private final String tableName;
+        private final String fileName;
+        private final String column;
+        private final int stripeId;
+
+        StripeKey(String schemaName, String tableName, String fileName, String column, int stripeId) {
+            this.schemaName = schemaName;
+            this.tableName = tableName;
+            this.fileName = fileName;
+            this.column = column;
+            this.stripeId = stripeId;
+        }
+
+        String tableKey() {
+            return (schemaName + "." + tableName).toLowerCase();
+        }
+
+        boolean belongsTo(String schemaName, String tableName) {
+            return (schemaName == null || this.schemaName.equalsIgnoreCase(schemaName))
+                && (tableName == null || this.tableName.equalsIgnoreCase(tableName));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            StripeKey that = (StripeKey) o;
+            return stripeId == that.stripeId
+                && schemaName.equals(that.schemaName)
+                && tableName.equals(that.tableName)
+                && fileName.equals(that.fileName)
+                && column.equals(that.column);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(schemaName, tableName, fileName, column, stripeId);
+        }
+    }
+
+    /**
+     * Look up the off-heap tier after a miss in valid cache, and promote the entry back to valid cache if hit.
+     */
+    private SimplifiedBlockCache promote(long cacheKey) {
+        if (offHeapCache == null) {
+            return null;
+        }
+        Slice serialized = offHeapCache.get(cacheKey);
+        if (serialized == null) {
+            return null;
+        }
+        SimplifiedBlockCache blockCache = SimplifiedBlockCache.deserialize(serialized);
+        validCache.put(cacheKey, blockCache);
+        size.addAndGet(LONG_OBJECT_IN_BYTES + blockCache.memorySize());
+        return blockCache;
+    }
+
     @Override
     public boolean isCached(Path path, int stripeId, int rowGroupId, int columnId) {
-        return validCache.getIfPresent(buildBlockCacheKey(path, stripeId, columnId, rowGroupId)) != null;
+        long cacheKey = buildBlockCacheKey(path, stripeId, columnId, rowGroupId);
+        return validCache.getIfPresent(cacheKey) != null
+            || (offHeapCache != null && offHeapCache.contains(cacheKey));
     }
 
     @Override
     public SeekableIterator<Block> getCaches(Path path, int stripeId, int rowGroupId, int columnId) {
-        SimplifiedBlockCache blockCache = validCache.getIfPresent(
-            buildBlockCacheKey(path, stripeId, columnId, rowGroupId));
+        long cacheKey = buildBlockCacheKey(path, stripeId, columnId, rowGroupId);
+        SimplifiedBlockCache blockCache = validCache.getIfPresent(cacheKey);
         if (blockCache != null) {
             hitCount.getAndIncrement();
             return blockCache.newIterator();
         }
         missCount.getAndIncrement();
-        return null;
+        blockCache = promote(cacheKey);
+        return blockCache == null ? null : blockCache.newIterator();
     }
 
     @Override
@@ -405,6 +704,10 @@ public class SimpleBlockCacheManager implements BlockCacheManager<Block> {
                 hitCount.getAndIncrement();
             } else {
                 missCount.getAndIncrement();
+                blockCache = promote(cacheKey);
+                if (blockCache != null) {
+                    result.put(groupId, blockCache.newIterator());
+                }
             }
         }
 
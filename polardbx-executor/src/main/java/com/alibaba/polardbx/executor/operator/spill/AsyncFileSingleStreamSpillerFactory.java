@@ -33,6 +33,7 @@ import com.alibaba.polardbx.common.exception.TddlRuntimeException;
 import com.alibaba.polardbx.common.properties.FileConfig;
 import com.alibaba.polardbx.common.utils.logger.Logger;
 import com.alibaba.polardbx.common.utils.logger.LoggerFactory;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.ChunkCompression;
 import com.alibaba.polardbx.executor.mpp.execution.buffer.PagesSerde;
 import com.alibaba.polardbx.executor.mpp.execution.buffer.PagesSerdeFactory;
 import com.alibaba.polardbx.optimizer.config.table.ColumnMeta;
@@ -206,10 +207,22 @@ public class AsyncFileSingleStreamSpillerFactory implements SingleStreamSpillerF
                 (List<ColumnMeta>) params.getColumnMeata(), params, spillMonitor);
         } else {
             return new AsyncFileSingleStreamSpiller(this, getNextFileHolder(filePrefix),
-                serdeFactory.createPagesSerde(types), spillMonitor);
+                createPagesSerde(types), spillMonitor);
         }
     }
 
+    /**
+     * 压缩算法按创建时的 MPP_SPILL_COMPRESSION 选择, 读取时按页内标记解压
+     */
+    private PagesSerde createPagesSerde(List<DataType> types) {
+        ChunkCompression codec =
+            ChunkCompression.fromCodecName(FileConfig.getInstance().getSpillConfig().getSpillCompression());
+        if (!codec.isCompressed()) {
+            return serdeFactory.createPagesSerde(types);
+        }
+        return new PagesSerde(codec, true, types);
+    }
+
     public void close() {
         if (closed.compareAndSet(false, true)) {
             for (AsyncFileSingleStreamSpillerFactory.WriterThread wt : writerThreads) {
@@ -16,6 +16,7 @@
 
 package com.alibaba.polardbx.executor.operator.util;
 
+import com.alibaba.polardbx.common.properties.ConnectionParams;
 import com.alibaba.polardbx.common.utils.logger.Logger;
 import com.alibaba.polardbx.common.utils.logger.LoggerFactory;
 import com.alibaba.polardbx.executor.chunk.Chunk;
@@ -85,6 +86,16 @@ public class ExternalSorter extends Sorter {
         this.memSortor.sort();
         resultIterator = new SpillableChunkIterator(this.memSortor.getSortedChunks());
 
+        if (spiller.isPresent() && context.getParamManager().getBoolean(ConnectionParams.ENABLE_SORTED_RUN_MERGE)) {
+            List<Iterator<Chunk>> sortedRuns = ImmutableList.<Iterator<Chunk>>builder()
+                .addAll(spiller.get().getSpills())
+                .add(resultIterator)
+                .build();
+            sortedPages = transform(
+                new SortedRunMerger(sortedRuns, orderBys, columnMetas, chunkLimit, context), Optional::of);
+            return;
+        }
+
         List<WorkProcessor<Chunk>> spilledPages = getSpilledPages();
         if (spilledPages.isEmpty()) {
             sortedPages = transform(resultIterator, Optional::of);
@@ -16,6 +16,7 @@
 
 package com.alibaba.polardbx.executor.operator.util;
 
+import com.alibaba.polardbx.common.properties.ConnectionParams;
 import com.alibaba.polardbx.executor.chunk.Block;
 import com.alibaba.polardbx.executor.chunk.BlockBuilder;
 import com.alibaba.polardbx.executor.chunk.BlockBuilders;
@@ -45,12 +46,15 @@ public class MemSortor extends Sorter {
     private int[] index;
     private boolean revokeMem;
     private ExecutionContext context;
+    private final boolean enableNormalizedKey;
 
     public MemSortor(MemoryAllocatorCtx memoryAllocator, List<OrderByOption> orderBys,
                      List<DataType> columnMetas, int chunkLimit, boolean revokeMem, ExecutionContext context) {
         super(memoryAllocator, orderBys, columnMetas, chunkLimit);
         this.context = context;
         this.revokeMem = revokeMem;
+        this.enableNormalizedKey =
+            context != null && context.getParamManager().getBoolean(ConnectionParams.ENABLE_NORMALIZED_KEY_SORT);
         blockBuilders = new BlockBuilder[columnMetas.size()];
         for (int i = 0; i < columnMetas.size(); i++) {
             blockBuilders[i] = BlockBuilders.create(columnMetas.get(i), context);
@@ -98,6 +102,23 @@ public class MemSortor extends Sorter {
             memoryAllocator.allocateReservedMemory(chunksIndex.getPositionCount() * Integer.BYTES);
         }
 
+        NormalizedSortKeys normalizedKeys =
+            enableNormalizedKey ? NormalizedSortKeys.create(chunksIndex, orderBys, columnMetas, comparator) : null;
+        if (normalizedKeys != null) {
+            // 归一化键只在排序期间存在, 排序后立即释放
+            long keySize = normalizedKeys.estimateSize();
+            if (revokeMem) {
+                memoryAllocator.allocateRevocableMemory(keySize);
+                index = normalizedKeys.sort();
+                memoryAllocator.releaseRevocableMemory(keySize, true);
+            } else {
+                memoryAllocator.allocateReservedMemory(keySize);
+                index = normalizedKeys.sort();
+                memoryAllocator.releaseReservedMemory(keySize, true);
+            }
+            return;
+        }
+
         // init index
         index = new int[chunksIndex.getPositionCount()];
         for (int i = 0; i < index.length; i++) {
@@ -113,8 +134,11 @@ public class MemSortor extends Sorter {
         if (resultPosition < chunksIndex.getPositionCount()) {
             while (resultPosition < chunksIndex.getPositionCount()
                 && blockBuilders[0].getPositionCount() < chunkLimit) {
-                for (int i = 0; i < chunksIndex.getChunk(0).getBlockCount(); i++) {
-                    blockBuilders[i].writeObject(chunksIndex.getObject(i, index[resultPosition]));
+                long address = chunksIndex.getAddress(index[resultPosition]);
+                Chunk chunk = chunksIndex.getChunk(SyntheticAddress.decodeIndex(address));
+                int offset = SyntheticAddress.decodeOffset(address);
+                for (int i = 0; i < chunk.getBlockCount(); i++) {
+                    chunk.getBlock(i).writePositionTo(offset, blockBuilders[i]);
                 }
                 resultPosition++;
             }
@@ -0,0 +1,387 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.operator.util;
+
+import com.alibaba.polardbx.common.charset.SortKey;
+import com.alibaba.polardbx.executor.chunk.Block;
+import com.alibaba.polardbx.executor.chunk.ByteBlock;
+import com.alibaba.polardbx.executor.chunk.Chunk;
+import com.alibaba.polardbx.executor.chunk.DecimalBlock;
+import com.alibaba.polardbx.executor.chunk.DoubleBlock;
+import com.alibaba.polardbx.executor.chunk.IntegerBlock;
+import com.alibaba.polardbx.executor.chunk.LongBlock;
+import com.alibaba.polardbx.executor.chunk.ShortBlock;
+import com.alibaba.polardbx.executor.chunk.SliceBlock;
+import com.alibaba.polardbx.executor.utils.OrderByOption;
+import com.alibaba.polardbx.optimizer.config.table.collation.AsciiBinCollationHandler;
+import com.alibaba.polardbx.optimizer.config.table.collation.AsciiGeneralCiCollationHandler;
+import com.alibaba.polardbx.optimizer.config.table.collation.CollationHandler;
+import com.alibaba.polardbx.optimizer.config.table.collation.Gb18030BinCollationHandler;
+import com.alibaba.polardbx.optimizer.config.table.collation.GbkBinCollationHandler;
+import com.alibaba.polardbx.optimizer.config.table.collation.GbkChineseCiCollationHandler;
+import com.alibaba.polardbx.optimizer.config.table.collation.Latin1BinCollationHandler;
+import com.alibaba.polardbx.optimizer.config.table.collation.SimpleCollationHandler;
+import com.alibaba.polardbx.optimizer.config.table.collation.Utf16BinCollationHandler;
+import com.alibaba.polardbx.optimizer.config.table.collation.Utf16GeneralCiCollationHandler;
+import com.alibaba.polardbx.optimizer.config.table.collation.Utf8BinCollationHandler;
+import com.alibaba.polardbx.optimizer.config.table.collation.Utf8GeneralCiCollationHandler;
+import com.alibaba.polardbx.optimizer.config.table.collation.Utf8mb4BinCollationHandler;
+import com.alibaba.polardbx.optimizer.config.table.collation.Utf8mb4GeneralCiCollationHandler;
+import com.alibaba.polardbx.optimizer.core.datatype.DataType;
+import com.alibaba.polardbx.optimizer.core.datatype.DataTypeUtil;
+import com.alibaba.polardbx.optimizer.core.datatype.DataTypes;
+import com.alibaba.polardbx.optimizer.core.datatype.SliceType;
+import com.google.common.collect.ImmutableSet;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 把排序键编码为定长的归一化键, 按无符号 long 比较即得到与 ExecUtils.comp 一致的顺序
+ * <p>
+ * 每个排序列占一个 long, 含 null 的列在前面多占一个 long 作为 null 标记; null 视为最小值, DESC 时整体取反.
+ * 单个 long 的键做 LSD 基数排序, 多个 long 的键用快排比较原始数组, 都不再逐行装箱比较.
+ * 支持整数 (不含 unsigned bigint), double 与同一 scale 的 decimal64, 其余类型返回 null 由调用方回退到比较器.
+ * 字符串列只编码 collation sort key 的前 8 字节, 前缀相同时交给原有的行比较器判定.
+ * 只有 sort key 由权重组成并按 PAD SPACE 补齐的 collation 才能这样编码, 前缀的无符号序与 collation 的比较结果一致
+ * (只可能更粗); 其余 collation 的 sort key 是原始字节, 与大小写不敏感等比较规则不一致, 返回 null
+ */
+public final class NormalizedSortKeys {
+
+    private static final int RADIX_BITS = 8;
+    private static final int RADIX_BUCKETS = 1 << RADIX_BITS;
+    private static final int RADIX_PASSES = Long.SIZE / RADIX_BITS;
+
+    /**
+     * 部分 JVM 在数组头部保留若干字, 数组长度上限比 Integer.MAX_VALUE 略小
+     */
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+
+    /**
+     * sort key 由权重组成并按 PAD SPACE 补齐的 collation, 按具体类匹配, 子类可能改写比较规则
+     */
+    private static final Set<Class<? extends CollationHandler>> PREFIX_COLLATIONS = ImmutableSet.of(
+        Utf8mb4GeneralCiCollationHandler.class,
+        Utf8GeneralCiCollationHandler.class,
+        Utf8mb4BinCollationHandler.class,
+        Utf8BinCollationHandler.class,
+        Utf16GeneralCiCollationHandler.class,
+        Utf16BinCollationHandler.class,
+        GbkChineseCiCollationHandler.class,
+        GbkBinCollationHandler.class,
+        Gb18030BinCollationHandler.class,
+        Latin1BinCollationHandler.class,
+        AsciiGeneralCiCollationHandler.class,
+        AsciiBinCollationHandler.class,
+        SimpleCollationHandler.class);
+
+    private final ChunksIndex chunksIndex;
+    private final List<OrderByOption> orderBys;
+    private final boolean[] hasNull;
+    private final int width;
+
+    /**
+     * 字符串排序列的类型, 其它列为 null; 字符串列的键只是 sort key 的前缀, 前缀相同并不代表值相同
+     */
+    private final SliceType[] prefixTypes;
+    private final boolean hasPrefixKey;
+
+    /**
+     * 比较全部排序列的行比较器, 用于判定前缀相同的行
+     */
+    private final IntComparator tieBreaker;
+
+    private NormalizedSortKeys(ChunksIndex chunksIndex, List<OrderByOption> orderBys, boolean[] hasNull,
+                               SliceType[] prefixTypes, IntComparator tieBreaker) {
+        this.chunksIndex = chunksIndex;
+        this.orderBys = orderBys;
+        this.hasNull = hasNull;
+        this.prefixTypes = prefixTypes;
+        this.tieBreaker = tieBreaker;
+        boolean hasPrefixKey = false;
+        for (SliceType prefix : prefixTypes) {
+            hasPrefixKey |= prefix != null;
+        }
+        this.hasPrefixKey = hasPrefixKey;
+        int width = 0;
+        for (boolean nullable : hasNull) {
+            width += nullable ? 2 : 1;
+        }
+        this.width = width;
+    }
+
+    /**
+     * @param tieBreaker the row comparator on all sort keys, used when string prefixes are equal
+     * @return null if any sort key cannot be normalized
+     */
+    public static NormalizedSortKeys create(ChunksIndex chunksIndex, List<OrderByOption> orderBys,
+                                            List<DataType> columnMetas, IntComparator tieBreaker) {
+        if (orderBys.isEmpty() || chunksIndex.getChunkCount() == 0) {
+            return null;
+        }
+        boolean[] hasNull = new boolean[orderBys.size()];
+        SliceType[] prefixTypes = new SliceType[orderBys.size()];
+        for (int i = 0; i < orderBys.size(); i++) {
+            int column = orderBys.get(i).getIndex();
+            DataType type = columnMetas.get(column);
+            boolean integral = DataTypeUtil.isUnderLongType(type);
+            boolean real = DataTypeUtil.equalsSemantically(type, DataTypes.DoubleType);
+            boolean decimal = DataTypeUtil.isDecimalType(type);
+            boolean string = type instanceof SliceType;
+            if (string && !PREFIX_COLLATIONS.contains(((SliceType) type).getCollationHandler().getClass())) {
+                return null;
+            }
+            if (!integral && !real && !decimal && !string) {
+                return null;
+            }
+            prefixTypes[i] = string ? (SliceType) type : null;
+            int scale = -1;
+            for (int c = 0; c < chunksIndex.getChunkCount(); c++) {
+                Block block = chunksIndex.getChunk(c).getBlock(column);
+                if (string && !(block instanceof SliceBlock)) {
+                    return null;
+                }
+                if (integral && !(block instanceof LongBlock || block instanceof IntegerBlock
+                    || block instanceof ShortBlock || block instanceof ByteBlock)) {
+                    return null;
+                }
+                if (real && !(block instanceof DoubleBlock)) {
+                    return null;
+                }
+                if (decimal) {
+                    if (!(block instanceof DecimalBlock) || !((DecimalBlock) block).isDecimal64()) {
+                        return null;
+                    }
+                    // 不同 scale 的 unscaled 值不可直接比较
+                    int blockScale = ((DecimalBlock) block).getScale();
+                    if (scale >= 0 && scale != blockScale) {
+                        return null;
+                    }
+                    scale = blockScale;
+                }
+                hasNull[i] |= block.mayHaveNull();
+            }
+        }
+        NormalizedSortKeys keys = new NormalizedSortKeys(chunksIndex, orderBys, hasNull, prefixTypes, tieBreaker);
+        // 键数组超出单个数组长度上限时回退到比较器
+        return isEncodable(chunksIndex.getPositionCount(), keys.width) ? keys : null;
+    }
+
+    static boolean isEncodable(long positionCount, int width) {
+        return positionCount * width <= MAX_ARRAY_LENGTH;
+    }
+
+    /**
+     * 归一化键与排序过程需要的额外内存
+     */
+    public long estimateSize() {
+        long positions = chunksIndex.getPositionCount();
+        // 基数排序需要键与位置各一份辅助数组
+        return width == 1 ? positions * 2 * (Long.BYTES + Integer.BYTES) : positions * width * Long.BYTES;
+    }
+
+    /**
+     * @return positions of the chunks index in sorted order
+     */
+    public int[] sort() {
+        final int positionCount = chunksIndex.getPositionCount();
+        final long[] keys = encode(positionCount);
+        final int[] index = new int[positionCount];
+        for (int i = 0; i < positionCount; i++) {
+            index[i] = i;
+        }
+        if (width == 1) {
+            radixSort(keys, index);
+            if (hasPrefixKey) {
+                sortPrefixTies(keys, index);
+            }
+        } else {
+            IntArrays.quickSort(index, new AbstractIntComparator() {
+                @Override
+                public int compare(int position1, int position2) {
+                    int offset1 = position1 * width;
+                    int offset2 = position2 * width;
+                    int offset = 0;
+                    for (int i = 0; i < orderBys.size(); i++) {
+                        int end = offset + (hasNull[i] ? 2 : 1);
+                        for (; offset < end; offset++) {
+                            int n = Long.compareUnsigned(keys[offset1 + offset], keys[offset2 + offset]);
+                            if (n != 0) {
+                                return n;
+                            }
+                        }
+                        // 前面的排序列都相等, 行比较器的结果即为最终顺序
+                        if (prefixTypes[i] != null) {
+                            return tieBreaker.compare(position1, position2);
+                        }
+                    }
+                    return 0;
+                }
+            });
+        }
+        return index;
+    }
+
+    /**
+     * 基数排序后, 对单个字符串前缀相同的每一段位置用行比较器重新排序
+     */
+    private void sortPrefixTies(long[] sortedKeys, int[] index) {
+        int from = 0;
+        for (int i = 1; i <= sortedKeys.length; i++) {
+            if (i == sortedKeys.length || sortedKeys[i] != sortedKeys[from]) {
+                if (i - from > 1) {
+                    IntArrays.quickSort(index, from, i, tieBreaker);
+                }
+                from = i;
+            }
+        }
+    }
+
+    private long[] encode(int positionCount) {
+        final long[] keys = new long[positionCount * width];
+        int offset = 0;
+        for (int i = 0; i < orderBys.size(); i++) {
+            final int column = orderBys.get(i).getIndex();
+            final boolean asc = orderBys.get(i).isAsc();
+            int position = 0;
+            for (int c = 0; c < chunksIndex.getChunkCount(); c++) {
+                final Chunk chunk = chunksIndex.getChunk(c);
+                final Block block = chunk.getBlock(column);
+                for (int p = 0; p < chunk.getPositionCount(); p++, position++) {
+                    final int base = position * width + offset;
+                    final boolean isNull = hasNull[i] && block.isNull(p);
+                    long key;
+                    if (isNull) {
+                        key = 0;
+                    } else if (prefixTypes[i] != null) {
+                        // 只生成前缀长度的 sort key, 与完整 sort key 的前 8 字节相同
+                        key = prefixOf(prefixTypes[i].getSortKey(((SliceBlock) block).getRegion(p), Long.BYTES));
+                    } else {
+                        key = Long.MIN_VALUE ^ valueOf(block, p);
+                    }
+                    if (hasNull[i]) {
+                        keys[base] = asc ? (isNull ? 0 : 1) : (isNull ? 1 : 0);
+                        keys[base + 1] = asc ? key : ~key;
+                    } else {
+                        keys[base] = asc ? key : ~key;
+                    }
+                }
+            }
+            offset += hasNull[i] ? 2 : 1;
+        }
+        return keys;
+    }
+
+    /**
+     * 该 block 的值可以无损编码为单个 long, decimal64 因 scale 可能不同不在此列
+     */
+    static boolean isPrefixBlock(Block block) {
+        return block instanceof LongBlock || block instanceof IntegerBlock || block instanceof ShortBlock
+            || block instanceof ByteBlock || block instanceof DoubleBlock;
+    }
+
+    /**
+     * 有符号比较顺序下的 long 值, 之后异或符号位即可按无符号比较
+     */
+    static long valueOf(Block block, int position) {
+        if (block instanceof LongBlock) {
+            return ((LongBlock) block).getLong(position);
+        } else if (block instanceof IntegerBlock) {
+            return ((IntegerBlock) block).getInt(position);
+        } else if (block instanceof ShortBlock) {
+            return ((ShortBlock) block).getShort(position);
+        } else if (block instanceof ByteBlock) {
+            return ((ByteBlock) block).getByte(position);
+        } else if (block instanceof DoubleBlock) {
+            double value = ((DoubleBlock) block).getDouble(position);
+            // -0.0 与 0.0 比较相等
+            long bits = value == 0 ? 0 : Double.doubleToLongBits(value);
+            // 负数翻转除符号位外的所有位, 使有符号比较与 Double.compare 一致
+            return bits < 0 ? bits ^ Long.MAX_VALUE : bits;
+        } else {
+            return ((DecimalBlock) block).getLong(position);
+        }
+    }
+
+    /**
+     * sort key 的前 8 个字节按大端拼成 long, 不足 8 字节补 0, 按无符号比较与 sort key 的字节序比较一致
+     */
+    static long prefixOf(SortKey sortKey) {
+        long prefix = 0;
+        for (int i = 0; i < Long.BYTES; i++) {
+            prefix = (prefix << 8) | (i < sortKey.length ? sortKey.keys[i] & 0xFF : 0);
+        }
+        return prefix;
+    }
+
+    /**
+     * 按字节从低到高做 LSD 基数排序, 跳过所有键在该字节上相同的轮次
+     */
+    static void radixSort(long[] keys, int[] index) {
+        final int n = keys.length;
+        if (n <= 1) {
+            return;
+        }
+        final int[][] counts = new int[RADIX_PASSES][RADIX_BUCKETS];
+        for (long key : keys) {
+            for (int pass = 0; pass < RADIX_PASSES; pass++) {
+                counts[pass][(int) (key >>> (pass * RADIX_BITS)) & (RADIX_BUCKETS - 1)]++;
+            }
+        }
+
+        long[] srcKeys = keys;
+        int[] srcIndex = index;
+        long[] dstKeys = null;
+        int[] dstIndex = null;
+        for (int pass = 0; pass < RADIX_PASSES; pass++) {
+            final int[] count = counts[pass];
+            final int shift = pass * RADIX_BITS;
+            if (count[(int) (srcKeys[0] >>> shift) & (RADIX_BUCKETS - 1)] == n) {
+                continue;
+            }
+            if (dstKeys == null) {
+                dstKeys = new long[n];
+                dstIndex = new int[n];
+            }
+            int sum = 0;
+            for (int b = 0; b < RADIX_BUCKETS; b++) {
+                int c = count[b];
+                count[b] = sum;
+                sum += c;
+            }
+            for (int i = 0; i < n; i++) {
+                long key = srcKeys[i];
+                int dst = count[(int) (key >>> shift) & (RADIX_BUCKETS - 1)]++;
+                dstKeys[dst] = key;
+                dstIndex[dst] = srcIndex[i];
+            }
+            long[] tmpKeys = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = tmpKeys;
+            int[] tmpIndex = srcIndex;
+            srcIndex = dstIndex;
+            dstIndex = tmpIndex;
+        }
+        if (srcIndex != index) {
+            System.arraycopy(srcKeys, 0, keys, 0, n);
+            System.arraycopy(srcIndex, 0, index, 0, n);
+        }
+    }
+}
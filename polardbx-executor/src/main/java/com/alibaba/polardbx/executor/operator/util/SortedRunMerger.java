@@ -0,0 +1,257 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.operator.util;
+
+import com.alibaba.polardbx.executor.chunk.Block;
+import com.alibaba.polardbx.executor.chunk.Chunk;
+import com.alibaba.polardbx.executor.chunk.ChunkBuilder;
+import com.alibaba.polardbx.executor.utils.ExecUtils;
+import com.alibaba.polardbx.executor.utils.OrderByOption;
+import com.alibaba.polardbx.optimizer.context.ExecutionContext;
+import com.alibaba.polardbx.optimizer.core.datatype.DataType;
+import com.alibaba.polardbx.optimizer.core.datatype.DataTypeUtil;
+import com.alibaba.polardbx.optimizer.core.datatype.DataTypes;
+import com.google.common.collect.AbstractIterator;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * 基于败者树的多路归并, 输入为若干按 orderBys 有序的 run
+ * <p>
+ * 首个排序键为整数或 double 时, 每个块先编码出一个 long 前缀, 前缀不同即可判定大小, 相同才逐列比较.
+ * 一个 run 切换到新块时, 若块的最大值 (最后一行) 不大于其余 run 的队头, 则整块直接输出, 不再逐行比较.
+ * 块的读取由 spill 的异步读线程预取
+ */
+public class SortedRunMerger extends AbstractIterator<Chunk> {
+
+    private final List<OrderByOption> orderBys;
+    private final List<DataType> types;
+    private final Run[] runs;
+
+    /**
+     * tree[0] 为胜者, tree[1..k-1] 为各内部节点的败者, 叶子 i 对应节点 i + k
+     */
+    private final int[] tree;
+    private final ChunkBuilder chunkBuilder;
+    private final boolean prefixEnabled;
+
+    private Chunk pendingChunk;
+
+    public SortedRunMerger(List<Iterator<Chunk>> sortedRuns, List<OrderByOption> orderBys, List<DataType> types,
+                           int chunkLimit, ExecutionContext context) {
+        this.orderBys = orderBys;
+        this.types = types;
+        this.chunkBuilder = new ChunkBuilder(types, chunkLimit, context);
+        DataType firstKeyType = orderBys.isEmpty() ? null : types.get(orderBys.get(0).getIndex());
+        this.prefixEnabled = firstKeyType != null && (DataTypeUtil.isUnderLongType(firstKeyType)
+            || DataTypeUtil.equalsSemantically(firstKeyType, DataTypes.DoubleType));
+        this.runs = new Run[sortedRuns.size()];
+        for (int i = 0; i < runs.length; i++) {
+            runs[i] = new Run(sortedRuns.get(i));
+            runs[i].load();
+        }
+        this.tree = new int[Math.max(runs.length, 1)];
+        if (runs.length > 0) {
+            tree[0] = build(1);
+        }
+    }
+
+    @Override
+    protected Chunk computeNext() {
+        if (pendingChunk != null) {
+            Chunk chunk = pendingChunk;
+            pendingChunk = null;
+            return chunk;
+        }
+        while (runs.length > 0) {
+            final int winner = tree[0];
+            final Run run = runs[winner];
+            if (run.chunk == null) {
+                // 胜者已耗尽说明所有 run 都已耗尽
+                break;
+            }
+            if (!run.checked) {
+                // 块首次成为胜者时 position 必为 0
+                run.checked = true;
+                if (isBulk(winner)) {
+                    // 整块原样输出, 已累积的行先作为一个块返回
+                    Chunk chunk = run.chunk;
+                    run.load();
+                    replay(winner);
+                    if (chunkBuilder.isEmpty()) {
+                        return chunk;
+                    }
+                    pendingChunk = chunk;
+                    return flush();
+                }
+            }
+            append(run.chunk, run.position++);
+            if (run.position == run.chunk.getPositionCount()) {
+                run.load();
+            }
+            replay(winner);
+            if (chunkBuilder.isFull()) {
+                return flush();
+            }
+        }
+        return chunkBuilder.isEmpty() ? endOfData() : flush();
+    }
+
+    /**
+     * 当前块的最后一行是否不大于其余 run 的队头; 除胜者外的最小队头必在胜者到根路径上的败者中
+     */
+    private boolean isBulk(int winner) {
+        final Run run = runs[winner];
+        final int last = run.chunk.getPositionCount() - 1;
+        for (int node = (winner + runs.length) >> 1; node >= 1; node >>= 1) {
+            Run other = runs[tree[node]];
+            if (other.chunk != null && compare(run, last, other, other.position) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int build(int node) {
+        if (node >= runs.length) {
+            return node - runs.length;
+        }
+        int left = build(node << 1);
+        int right = build((node << 1) + 1);
+        if (less(left, right)) {
+            tree[node] = right;
+            return left;
+        } else {
+            tree[node] = left;
+            return right;
+        }
+    }
+
+    private void replay(int leaf) {
+        int winner = leaf;
+        for (int node = (leaf + runs.length) >> 1; node >= 1; node >>= 1) {
+            if (less(tree[node], winner)) {
+                int loser = winner;
+                winner = tree[node];
+                tree[node] = loser;
+            }
+        }
+        tree[0] = winner;
+    }
+
+    /**
+     * 已耗尽的 run 视为无穷大, 相等时按 run 下标保证归并稳定
+     */
+    private boolean less(int a, int b) {
+        Run runA = runs[a];
+        Run runB = runs[b];
+        if (runA.chunk == null || runB.chunk == null) {
+            return runB.chunk == null && (runA.chunk != null || a < b);
+        }
+        int n = compare(runA, runA.position, runB, runB.position);
+        return n < 0 || (n == 0 && a < b);
+    }
+
+    private int compare(Run runA, int positionA, Run runB, int positionB) {
+        if (runA.prefixes != null && runB.prefixes != null) {
+            int n = Long.compareUnsigned(runA.prefixes[positionA], runB.prefixes[positionB]);
+            if (n != 0) {
+                return n;
+            }
+        }
+        for (OrderByOption orderBy : orderBys) {
+            int index = orderBy.getIndex();
+            Object o1 = runA.chunk.getBlock(index).getObjectForCmp(positionA);
+            Object o2 = runB.chunk.getBlock(index).getObjectForCmp(positionB);
+            if (o1 == null && o2 == null) {
+                continue;
+            }
+            int n = ExecUtils.comp(o1, o2, types.get(index), orderBy.isAsc());
+            if (n != 0) {
+                return n;
+            }
+        }
+        return 0;
+    }
+
+    private void append(Chunk chunk, int position) {
+        chunkBuilder.declarePosition();
+        for (int i = 0; i < chunk.getBlockCount(); i++) {
+            chunkBuilder.appendTo(chunk.getBlock(i), i, position);
+        }
+    }
+
+    private Chunk flush() {
+        Chunk chunk = chunkBuilder.build();
+        chunkBuilder.reset();
+        return chunk;
+    }
+
+    /**
+     * 首个排序键的前缀, null 与最小值编码相同, 此时回退到逐列比较
+     */
+    private long[] encodePrefixes(Chunk chunk) {
+        if (!prefixEnabled) {
+            return null;
+        }
+        final OrderByOption orderBy = orderBys.get(0);
+        final Block block = chunk.getBlock(orderBy.getIndex());
+        if (!NormalizedSortKeys.isPrefixBlock(block)) {
+            return null;
+        }
+        final boolean mayHaveNull = block.mayHaveNull();
+        final long[] prefixes = new long[chunk.getPositionCount()];
+        for (int i = 0; i < prefixes.length; i++) {
+            long prefix = mayHaveNull && block.isNull(i) ? 0 : Long.MIN_VALUE ^ NormalizedSortKeys.valueOf(block, i);
+            prefixes[i] = orderBy.isAsc() ? prefix : ~prefix;
+        }
+        return prefixes;
+    }
+
+    private final class Run {
+
+        private final Iterator<Chunk> chunks;
+        private Chunk chunk;
+        private long[] prefixes;
+        private int position;
+
+        /**
+         * 当前块是否已做过整块输出的判断
+         */
+        private boolean checked;
+
+        Run(Iterator<Chunk> chunks) {
+            this.chunks = chunks;
+        }
+
+        void load() {
+            chunk = null;
+            prefixes = null;
+            position = 0;
+            checked = false;
+            while (chunks.hasNext()) {
+                Chunk next = chunks.next();
+                if (next.getPositionCount() > 0) {
+                    chunk = next;
+                    prefixes = encodePrefixes(next);
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -70,6 +70,13 @@ public class NewSequence extends FunctionalSequence {
         return value;
     }
 
+    /**
+     * 从 DN 分配 size 个连续值并返回其中的最大值, 不更新 currentValue
+     */
+    protected long allocateBatch(int size) {
+        return newSequenceDao.nextValue(name, size);
+    }
+
     private long nextValueGrouping() {
         final NewSeqValueTask valueTask = new NewSeqValueTask(name);
 
@@ -17,18 +17,37 @@
 package com.alibaba.polardbx.sequence.impl;
 
 import com.alibaba.polardbx.common.logger.LoggerInit;
+import com.alibaba.polardbx.common.utils.thread.NamedThreadFactory;
 import com.alibaba.polardbx.sequence.SequenceRangePlus;
 import com.alibaba.polardbx.sequence.exception.SequenceException;
 
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 
+/**
+ * CN 上缓存一段 New Sequence 值, 取值只需一次原子加; 当前缓存消耗过半时异步预取下一段,
+ * 切换缓存时通常无需等待 DN
+ */
 public class NewSequenceWithCache extends NewSequence {
 
+    private static final ExecutorService PREFETCH_EXECUTOR =
+        Executors.newCachedThreadPool(new NamedThreadFactory("NewSeq-Prefetch", true));
+
     private final Lock lock = new ReentrantLock();
 
     private volatile SequenceRangePlus currentRange;
 
+    /**
+     * 预取中或已预取的下一段缓存
+     */
+    private final AtomicReference<Future<SequenceRangePlus>> nextRange = new AtomicReference<>();
+
     private int cacheSize;
 
     public NewSequenceWithCache(String name, int cacheSize, NewSequenceDao newSequenceDao,
@@ -40,8 +59,11 @@ public class NewSequenceWithCache extends NewSequence {
     @Override
     public long nextValue() throws SequenceException {
         checkSequenceRange();
-        long value = currentRange.getAndIncrement();
-        if (value == -1) {
+        SequenceRangePlus range = currentRange;
+        long value = range.getAndIncrement();
+        if (value != -1) {
+            prefetchIfNeeded(range, value);
+        } else {
             lock.lock();
             try {
                 while (true) {
@@ -75,9 +97,12 @@ public class NewSequenceWithCache extends NewSequence {
 
         checkSequenceRange();
 
-        long value = currentRange.getBatch(size);
+        SequenceRangePlus range = currentRange;
+        long value = range.getBatch(size);
 
-        if (value == -1) {
+        if (value != -1) {
+            prefetchIfNeeded(range, value);
+        } else {
             lock.lock();
             try {
                 for (; ; ) {
@@ -112,6 +137,11 @@ public class NewSequenceWithCache extends NewSequence {
             if (currentRange != null) {
                 currentRange.setOver(true);
             }
+            // 预取的值可能早于 updateValue, 一并丢弃
+            Future<SequenceRangePlus> prefetched = nextRange.getAndSet(null);
+            if (prefetched != null) {
+                prefetched.cancel(false);
+            }
         } finally {
             lock.unlock();
         }
@@ -164,13 +194,45 @@ public class NewSequenceWithCache extends NewSequence {
     }
 
     protected void setSequenceRange() {
-        long maxValueInRange = super.nextValue(cacheSize);
-        long minValueInRange = maxValueInRange - cacheSize * incrementBy + incrementBy;
-        currentRange = new SequenceRangePlus(minValueInRange, maxValueInRange, incrementBy);
+        SequenceRangePlus range = null;
+        Future<SequenceRangePlus> prefetched = nextRange.getAndSet(null);
+        if (prefetched != null) {
+            try {
+                range = prefetched.get();
+            } catch (ExecutionException e) {
+                LoggerInit.TDDL_SEQUENCE_LOG.warn("Failed to prefetch range for New Sequence " + name, e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SequenceException(e, "Interrupted while waiting for New Sequence " + name);
+            }
+        }
+        if (range == null) {
+            range = buildRange(super.nextValue(cacheSize));
+        }
+        currentRange = range;
         String infoMsg = String.format("Got a new range for New Sequence %s. Range: %s", name, currentRange);
         LoggerInit.TDDL_SEQUENCE_LOG.info(infoMsg);
     }
 
+    /**
+     * 当前缓存消耗过半且没有预取任务时, 异步获取下一段缓存
+     */
+    private void prefetchIfNeeded(SequenceRangePlus range, long value) {
+        if (cacheSize <= 1 || value - range.getMin() < (range.getMax() - range.getMin()) / 2
+            || nextRange.get() != null || range != currentRange) {
+            return;
+        }
+        FutureTask<SequenceRangePlus> task = new FutureTask<>(() -> buildRange(allocateBatch(cacheSize)));
+        if (nextRange.compareAndSet(null, task)) {
+            PREFETCH_EXECUTOR.execute(task);
+        }
+    }
+
+    private SequenceRangePlus buildRange(long maxValueInRange) {
+        long minValueInRange = maxValueInRange - cacheSize * incrementBy + incrementBy;
+        return new SequenceRangePlus(minValueInRange, maxValueInRange, incrementBy);
+    }
+
     protected void checkBatchSize(int size) {
         if (size > cacheSize) {
             throw new SequenceException(
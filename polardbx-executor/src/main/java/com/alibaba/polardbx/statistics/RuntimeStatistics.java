@@ -947,6 +947,7 @@ public class RuntimeStatistics extends RuntimeStat implements CpuCollector {
             long runtimeFilteredCount = 0;
             long memory = 0;
             int spillCnt = 0;
+            int joinSwitchCnt = 0;
             long workerDuration = 0;
             long outputBytes = 0;
             for (OperatorStatistics statistic : statistics) {
@@ -957,6 +958,7 @@ public class RuntimeStatistics extends RuntimeStat implements CpuCollector {
                 memory += statistic.getMemory();
                 workerDuration += statistic.getWorkerDuration();
                 spillCnt += statistic.getSpillCnt();
+                joinSwitchCnt += statistic.getJoinSwitchCnt();
             }
             double durationSeconds = (double) duration / 1e9;
             double startupDurationSeconds = (double) startupDuration / 1e9;
@@ -967,9 +969,11 @@ public class RuntimeStatistics extends RuntimeStat implements CpuCollector {
                 n = this.fetchJdbcResultSetParallelism;
             }
 
-            return new RuntimeStatisticsSketch(durationSeconds, startupDurationSeconds,
+            RuntimeStatisticsSketch sketch = new RuntimeStatisticsSketch(durationSeconds, startupDurationSeconds,
                 workerDurationSeconds, rowCount, runtimeFilteredCount,
                 outputBytes, memory, n, spillCnt);
+            sketch.setJoinSwitchCnt(joinSwitchCnt);
+            return sketch;
         }
 
         RuntimeStatisticsSketch toSketchExt() {
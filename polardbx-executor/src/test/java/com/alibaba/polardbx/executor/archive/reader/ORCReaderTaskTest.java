@@ -0,0 +1,145 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.archive.reader;
+
+import com.google.common.collect.Range;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.orc.StripeInformation;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class ORCReaderTaskTest {
+
+    private static final int FILE_LENGTH = 256 << 10;
+
+    private File file;
+    private FileSystem fileSystem;
+    private Path path;
+    private long baseline;
+
+    @Before
+    public void setUp() throws IOException {
+        file = File.createTempFile("orc-reader-task", ".orc");
+        Files.write(file.toPath(), new byte[FILE_LENGTH]);
+        fileSystem = FileSystem.getLocal(new Configuration());
+        path = new Path(file.toURI());
+        baseline = ORCReaderTask.getPrefetchBytesInFlight();
+    }
+
+    @After
+    public void tearDown() {
+        file.delete();
+    }
+
+    @Test
+    public void testFindFirstStripe() {
+        List<StripeInformation> stripes = Arrays.asList(stripe(3, 97), stripe(100, 100), stripe(200, 100));
+
+        Assert.assertEquals(3, ORCReaderTask.findFirstStripe(stripes, Range.closed(0L, 100L)).getOffset());
+        Assert.assertEquals(100, ORCReaderTask.findFirstStripe(stripes, Range.closed(50L, 150L)).getOffset());
+        Assert.assertEquals(100, ORCReaderTask.findFirstStripe(stripes, Range.closed(100L, 300L)).getOffset());
+        Assert.assertEquals(200, ORCReaderTask.findFirstStripe(stripes, Range.closed(150L, 300L)).getOffset());
+        // 起始位置落在范围外的 stripe 不属于该范围, 与 RecordReader 一致
+        Assert.assertNull(ORCReaderTask.findFirstStripe(stripes, Range.closed(0L, 3L)));
+        Assert.assertNull(ORCReaderTask.findFirstStripe(stripes, Range.closed(101L, 200L)));
+        Assert.assertNull(ORCReaderTask.findFirstStripe(stripes, Range.closed(300L, 400L)));
+    }
+
+    @Test
+    public void testQuotaReleasedOnCompletion() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        Future<?> future = ORCReaderTask.prefetchStripe(executor, fileSystem, path, stripe(1024, FILE_LENGTH - 1024),
+            new AtomicBoolean(false), file.getName());
+        Assert.assertNotNull(future);
+        future.get(10, TimeUnit.SECONDS);
+        // 额度在任务线程中释放, 等待线程池结束
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals(baseline, ORCReaderTask.getPrefetchBytesInFlight());
+    }
+
+    @Test
+    public void testQuotaReleasedOnCancel() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        CountDownLatch blocker = new CountDownLatch(1);
+        executor.execute(() -> {
+            try {
+                blocker.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        Future<?> future = ORCReaderTask.prefetchStripe(executor, fileSystem, path, stripe(0, FILE_LENGTH),
+            new AtomicBoolean(false), file.getName());
+        Assert.assertNotNull(future);
+        Assert.assertEquals(baseline + FILE_LENGTH, ORCReaderTask.getPrefetchBytesInFlight());
+
+        future.cancel(false);
+        Assert.assertEquals(baseline, ORCReaderTask.getPrefetchBytesInFlight());
+
+        // 被取消的任务不再执行, 额度不会重复释放
+        blocker.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals(baseline, ORCReaderTask.getPrefetchBytesInFlight());
+    }
+
+    @Test
+    public void testQuotaReleasedOnReject() {
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        executor.shutdown();
+        Future<?> future = ORCReaderTask.prefetchStripe(executor, fileSystem, path, stripe(0, FILE_LENGTH),
+            new AtomicBoolean(false), file.getName());
+        Assert.assertNull(future);
+        Assert.assertEquals(baseline, ORCReaderTask.getPrefetchBytesInFlight());
+    }
+
+    @Test
+    public void testSkipWhenQuotaExceeded() {
+        ExecutorService executor = Mockito.mock(ExecutorService.class);
+        Future<?> future = ORCReaderTask.prefetchStripe(executor, fileSystem, path, stripe(0, 512L << 20),
+            new AtomicBoolean(false), file.getName());
+        Assert.assertNull(future);
+        Mockito.verify(executor, Mockito.never()).execute(Mockito.any());
+        Assert.assertEquals(baseline, ORCReaderTask.getPrefetchBytesInFlight());
+    }
+
+    private static StripeInformation stripe(long offset, long length) {
+        StripeInformation stripe = Mockito.mock(StripeInformation.class);
+        Mockito.when(stripe.getOffset()).thenReturn(offset);
+        Mockito.when(stripe.getLength()).thenReturn(length);
+        return stripe;
+    }
+}
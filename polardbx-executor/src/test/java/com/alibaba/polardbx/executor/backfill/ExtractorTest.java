@@ -0,0 +1,86 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.backfill;
+
+import com.alibaba.polardbx.common.exception.TddlRuntimeException;
+import com.alibaba.polardbx.common.exception.code.ErrorCode;
+import com.alibaba.polardbx.executor.gsi.GsiBackfillManager;
+import com.google.common.collect.ImmutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ExtractorTest {
+
+    private static List<GsiBackfillManager.BackfillObjectBean> backfillObjects(String physicalDb,
+                                                                               String physicalTable) {
+        return ImmutableList.of(new GsiBackfillManager.BackfillObjectBean(1, 1, "d1", "t1", "d1", "g1", physicalDb,
+            physicalTable, 0, null, null, null, GsiBackfillManager.BackfillStatus.INIT, "", 0, null, null, null, 0));
+    }
+
+    /**
+     * 后派发的任务抛出拆批异常时, 先派发的任务随后因 interrupted 以 cancelled 退出, 重抛的应是拆批异常
+     */
+    @Test
+    public void testRethrowFirstFailureOnSamePhysicalDb() {
+        final ShardBackfillController shard = new ShardBackfillController("g0", false, 1024, 8, 1000);
+        final AtomicReference<Boolean> interrupted = new AtomicReference<>(false);
+
+        Throwable excep = Extractor.dispatchPhyTableTasks(
+            ImmutableList.of(backfillObjects("g0", "tb_00"), backfillObjects("g0", "tb_01")),
+            0,
+            k -> shard,
+            interrupted,
+            v -> {
+                if ("tb_01".equals(v.get(0).physicalTable)) {
+                    throw new TddlRuntimeException(ErrorCode.ERR_DDL_JOB_ERROR,
+                        "The physical batch 'tb_01' of backfillTask '1' need to be split into smaller batches");
+                }
+                final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+                while (!interrupted.get() && System.nanoTime() < deadline) {
+                    Thread.yield();
+                }
+                throw new TddlRuntimeException(ErrorCode.ERR_DDL_JOB_ERROR, "The job '1' has been cancelled");
+            });
+
+        Assert.assertTrue(interrupted.get());
+        Assert.assertNotNull(excep);
+        Assert.assertTrue(excep.getMessage(), excep.getMessage().contains("need to be split into smaller batches"));
+        Assert.assertEquals(0, shard.getInFlight());
+    }
+
+    @Test
+    public void testNoFailure() {
+        final ShardBackfillController shard = new ShardBackfillController("g0", true, 1024, 1, 1000);
+        final AtomicReference<Boolean> interrupted = new AtomicReference<>(false);
+
+        Throwable excep = Extractor.dispatchPhyTableTasks(
+            ImmutableList.of(backfillObjects("g0", "tb_00"), backfillObjects("g0", "tb_01")),
+            0,
+            k -> shard,
+            interrupted,
+            v -> {
+            });
+
+        Assert.assertNull(excep);
+        Assert.assertFalse(interrupted.get());
+        Assert.assertEquals(0, shard.getInFlight());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.backfill;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class ShardBackfillControllerTest {
+
+    @Test
+    public void testMultiplicativeDecrease() {
+        ShardBackfillController shard = new ShardBackfillController("g0", true, 1024, 8, 1000);
+        Assert.assertTrue(shard.tryAcquire());
+        shard.onBatchFinished(2000, false);
+        Assert.assertEquals(512, shard.getBatchSize());
+        Assert.assertEquals(4, shard.getInFlightLimit());
+
+        shard.onBatchFinished(10, true);
+        Assert.assertEquals(256, shard.getBatchSize());
+        Assert.assertEquals(2, shard.getInFlightLimit());
+    }
+
+    @Test
+    public void testAdditiveIncrease() {
+        ShardBackfillController shard = new ShardBackfillController("g0", true, 1024, 8, 1000);
+        shard.onBatchFinished(2000, false);
+        shard.onBatchFinished(2000, false);
+        Assert.assertEquals(256, shard.getBatchSize());
+        Assert.assertEquals(2, shard.getInFlightLimit());
+
+        // 并发名额未用满时只增大批
+        shard.onBatchFinished(100, false);
+        Assert.assertEquals(320, shard.getBatchSize());
+        Assert.assertEquals(2, shard.getInFlightLimit());
+
+        Assert.assertTrue(shard.tryAcquire());
+        Assert.assertTrue(shard.tryAcquire());
+        Assert.assertFalse(shard.tryAcquire());
+        shard.onBatchFinished(100, false);
+        Assert.assertEquals(3, shard.getInFlightLimit());
+        Assert.assertTrue(shard.tryAcquire());
+
+        // 介于目标 3/4 与目标之间时保持不变
+        shard.onBatchFinished(900, false);
+        Assert.assertEquals(384, shard.getBatchSize());
+        Assert.assertEquals(3, shard.getInFlightLimit());
+
+        for (int i = 0; i < 100; i++) {
+            shard.tryAcquire();
+            shard.onBatchFinished(100, false);
+        }
+        Assert.assertEquals(1024, shard.getBatchSize());
+        Assert.assertEquals(8, shard.getInFlightLimit());
+    }
+
+    @Test
+    public void testNonAdaptive() {
+        ShardBackfillController shard = new ShardBackfillController("g0", false, 1024, 8, 1000);
+        for (int i = 0; i < 100; i++) {
+            Assert.assertTrue(shard.tryAcquire());
+        }
+        shard.onBatchFinished(5000, true);
+        Assert.assertEquals(1024, shard.getBatchSize());
+        shard.onBatchFinished(10, false);
+        Assert.assertEquals(1024, shard.getBatchSize());
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.columnar.pruning;
+
+import org.apache.orc.OrcProto;
+import org.apache.orc.impl.OrcIndex;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RuntimeRangePruneTest {
+
+    /**
+     * Column 1 has 4 row-groups: [0, 99], [100, 199], [200, 299], all null.
+     */
+    private static OrcIndex mockIndex() {
+        OrcProto.RowIndex.Builder rowIndex = OrcProto.RowIndex.newBuilder();
+        for (int rg = 0; rg < 3; rg++) {
+            rowIndex.addEntry(OrcProto.RowIndexEntry.newBuilder()
+                .setStatistics(OrcProto.ColumnStatistics.newBuilder()
+                    .setIntStatistics(OrcProto.IntegerStatistics.newBuilder()
+                        .setMinimum(rg * 100L)
+                        .setMaximum(rg * 100L + 99))));
+        }
+        rowIndex.addEntry(OrcProto.RowIndexEntry.newBuilder()
+            .setStatistics(OrcProto.ColumnStatistics.newBuilder().setHasNull(true)));
+
+        return new OrcIndex(new OrcProto.RowIndex[] {null, rowIndex.build()},
+            new OrcProto.Stream.Kind[2],
+            new OrcProto.BloomFilterIndex[2],
+            new OrcProto.BitmapIndex[2]);
+    }
+
+    @Test
+    public void testPruneByRange() {
+        OrcIndex orcIndex = mockIndex();
+        boolean[] rgIncluded = new boolean[] {true, true, false, true};
+
+        boolean[] result = ColumnarPruneManager.pruneByRange(orcIndex, 1, 150, 250, rgIncluded);
+        Assert.assertArrayEquals(new boolean[] {false, true, false, true}, result);
+        // the input bitmap is not modified.
+        Assert.assertArrayEquals(new boolean[] {true, true, false, true}, rgIncluded);
+
+        // nothing pruned
+        Assert.assertSame(rgIncluded, ColumnarPruneManager.pruneByRange(orcIndex, 1, 0, 1000, rgIncluded));
+
+        // no index for column
+        Assert.assertSame(rgIncluded, ColumnarPruneManager.pruneByRange(orcIndex, 0, 150, 250, rgIncluded));
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.fastchecker;
+
+import com.alibaba.polardbx.common.jdbc.ParameterContext;
+import com.google.common.collect.ImmutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class FastCheckerMerkleTreeTest {
+
+    private static FastCheckerMerkleTree buildTree(int leafCount) {
+        List<Map<Integer, ParameterContext>> bounds = new ArrayList<>();
+        for (int i = 0; i < leafCount - 1; i++) {
+            bounds.add(new HashMap<>());
+        }
+        return new FastCheckerMerkleTree(bounds, 1000);
+    }
+
+    @Test
+    public void testCombineIsOrderIndependent() {
+        long a = 0x9e3779b97f4a7c15L, b = 12345L, c = -42L;
+        Long left = FastCheckerMerkleTree.combine(FastCheckerMerkleTree.combine(a, b), c);
+        Long right = FastCheckerMerkleTree.combine(a, FastCheckerMerkleTree.combine(c, b));
+        Assert.assertEquals(left, right);
+        Assert.assertEquals(Long.valueOf(a), FastCheckerMerkleTree.combine(null, a));
+        Assert.assertNull(FastCheckerMerkleTree.combine(null, null));
+    }
+
+    @Test
+    public void testBounds() {
+        FastCheckerMerkleTree tree = buildTree(3);
+        Assert.assertEquals(3, tree.getLeafCount());
+        Assert.assertNull(tree.getLowerBound(0));
+        Assert.assertNotNull(tree.getUpperBound(0));
+        Assert.assertNotNull(tree.getLowerBound(2));
+        Assert.assertNull(tree.getUpperBound(2));
+
+        FastCheckerMerkleTree single = buildTree(1);
+        Assert.assertNull(single.getLowerBound(0));
+        Assert.assertNull(single.getUpperBound(0));
+    }
+
+    @Test
+    public void testDiffNarrowsToRanges() {
+        FastCheckerMerkleTree tree = buildTree(5);
+        for (int i = 0; i < 5; i++) {
+            tree.setLeaf(i, (long) i, (long) i);
+        }
+        tree.setLeaf(3, 3L, 33L);
+        tree.setLeaf(4, null, null);
+        Assert.assertEquals(ImmutableList.of(3), tree.diff());
+
+        // 复核用同样的区间建新树重算全部区间, 之前一致的区间在新快照上出现差异也能发现
+        tree = buildTree(5);
+        for (int i = 0; i < 5; i++) {
+            tree.setLeaf(i, (long) i, (long) i);
+        }
+        tree.setLeaf(0, 0L, 7L);
+        Assert.assertEquals(ImmutableList.of(0), tree.diff());
+
+        tree = buildTree(5);
+        for (int i = 0; i < 5; i++) {
+            tree.setLeaf(i, (long) i, (long) i);
+        }
+        Assert.assertTrue(tree.diff().isEmpty());
+        Assert.assertEquals(tree.getSrcRoot(), tree.getDstRoot());
+    }
+
+    @Test
+    public void testRetainBoundsOnly() {
+        final long jobId = 10001L;
+        FastCheckerMerkleTree tree = buildTree(2);
+        tree.setLeaf(0, 1L, 1L);
+        tree.setLeaf(1, 2L, 3L);
+        Assert.assertEquals(ImmutableList.of(1), tree.diff());
+        FastCheckerMerkleTree.retain(jobId, "t1:t2", tree);
+
+        // 复核拿到同样区间的新树, 不带旧摘要
+        FastCheckerMerkleTree retained = FastCheckerMerkleTree.getRetained(jobId, "t1:t2", 1000);
+        Assert.assertNotNull(retained);
+        Assert.assertEquals(2, retained.getLeafCount());
+        Assert.assertSame(tree.getUpperBound(0), retained.getUpperBound(0));
+        Assert.assertNull(retained.getSrcRoot());
+        retained.setLeaf(1, 2L, 2L);
+        Assert.assertTrue(retained.diff().isEmpty());
+
+        Assert.assertNull(FastCheckerMerkleTree.getRetained(jobId, "t1:t2", 2000));
+        Assert.assertNull(FastCheckerMerkleTree.getRetained(jobId, "t1:t3", 1000));
+        Assert.assertNull(FastCheckerMerkleTree.getRetained(null, "t1:t2", 1000));
+
+        FastCheckerMerkleTree.releaseJob(jobId);
+        Assert.assertNull(FastCheckerMerkleTree.getRetained(jobId, "t1:t2", 1000));
+    }
+
+    @Test
+    public void testRootEqualsWholeDigest() {
+        FastCheckerMerkleTree tree = buildTree(3);
+        tree.setLeaf(0, 1L, 1L);
+        tree.setLeaf(1, 2L, null);
+        tree.setLeaf(2, 3L, 5L);
+        Assert.assertEquals(ImmutableList.of(1, 2), tree.diff());
+        Assert.assertEquals(FastCheckerMerkleTree.combine(FastCheckerMerkleTree.combine(1L, 2L), 3L),
+            tree.getSrcRoot());
+    }
+}
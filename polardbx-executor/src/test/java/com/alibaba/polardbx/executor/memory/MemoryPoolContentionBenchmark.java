@@ -0,0 +1,126 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.memory;
+
+import com.alibaba.polardbx.optimizer.memory.DefaultMemoryAllocatorCtx;
+import com.alibaba.polardbx.optimizer.memory.GlobalMemoryPool;
+import com.alibaba.polardbx.optimizer.memory.MemoryAllocatorCtx;
+import com.alibaba.polardbx.optimizer.memory.MemoryPool;
+import com.alibaba.polardbx.optimizer.memory.MemoryType;
+import com.alibaba.polardbx.optimizer.memory.OperatorMemoryAllocatorCtx;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 多个 driver 线程同时通过各自的 allocator 向同一棵内存池树 (global/schema/query/operator) 申请预留内存,
+ * 模拟 block builder 逐步扩容后整体释放. 对比按块申请的 DefaultMemoryAllocatorCtx
+ * 与按已分配量续租的 OperatorMemoryAllocatorCtx 在 1 到 128 线程下的吞吐.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class MemoryPoolContentionBenchmark {
+
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32, 64, 128};
+
+    @Param({"default", "operator"})
+    private String allocator;
+
+    /**
+     * 每次扩容申请的字节数
+     */
+    @Param({"16384"})
+    private long allocateBytes;
+
+    /**
+     * 达到该字节数后整体释放, 相当于一个算子处理完一批数据; 256KB 对应不超过一个块的小算子,
+     * 续租量等于缺口, 每批只有一次申请和一次释放
+     */
+    @Param({"262144", "67108864"})
+    private long resetBytes;
+
+    private MemoryPool queryPool;
+    private final AtomicInteger operatorId = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        GlobalMemoryPool globalPool = new GlobalMemoryPool("global", Long.MAX_VALUE / 4);
+        MemoryPool schemaPool = globalPool.getOrCreatePool("schema", MemoryType.OTHER);
+        queryPool = schemaPool.getOrCreatePool("query", MemoryType.OTHER);
+    }
+
+    @State(Scope.Thread)
+    public static class Driver {
+        private MemoryAllocatorCtx ctx;
+        private long used;
+
+        @Setup(Level.Trial)
+        public void setup(MemoryPoolContentionBenchmark benchmark) {
+            MemoryPool operatorPool = benchmark.queryPool.getOrCreatePool(
+                "op-" + benchmark.operatorId.incrementAndGet(), MemoryType.OPERATOR);
+            ctx = "operator".equals(benchmark.allocator) ?
+                new OperatorMemoryAllocatorCtx(operatorPool, false) : new DefaultMemoryAllocatorCtx(operatorPool);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            ctx.releaseReservedMemory(ctx.getReservedAllocated(), true);
+        }
+    }
+
+    @Benchmark
+    public long allocate(Driver driver) {
+        driver.ctx.allocateReservedMemory(allocateBytes);
+        driver.used += allocateBytes;
+        if (driver.used >= resetBytes) {
+            driver.ctx.releaseReservedMemory(driver.used, false);
+            driver.used = 0;
+        }
+        return driver.used;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : THREADS) {
+            Options options = new OptionsBuilder()
+                .include(MemoryPoolContentionBenchmark.class.getSimpleName())
+                .threads(threads)
+                .build();
+            new Runner(options).run();
+        }
+    }
+}
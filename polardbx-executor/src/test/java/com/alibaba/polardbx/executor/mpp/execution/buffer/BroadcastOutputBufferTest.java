@@ -0,0 +1,140 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.mpp.execution.buffer;
+
+import com.alibaba.polardbx.executor.chunk.Chunk;
+import com.alibaba.polardbx.executor.mpp.OutputBuffers;
+import com.alibaba.polardbx.executor.mpp.execution.StateMachine;
+import com.alibaba.polardbx.optimizer.context.ExecutionContext;
+import com.alibaba.polardbx.optimizer.core.datatype.DataType;
+import com.alibaba.polardbx.optimizer.core.datatype.DataTypes;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import io.airlift.units.DataSize;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.alibaba.polardbx.executor.mpp.OutputBuffers.BufferType.BROADCAST;
+import static com.alibaba.polardbx.executor.mpp.OutputBuffers.createInitialEmptyOutputBuffers;
+import static com.alibaba.polardbx.executor.operator.util.RowChunkBuilder.rowChunkBuilder;
+
+public class BroadcastOutputBufferTest {
+
+    private static final List<DataType> TYPES = ImmutableList.of(DataTypes.LongType, DataTypes.StringType);
+    private static final DataSize MAX_SIZE = new DataSize(1, DataSize.Unit.MEGABYTE);
+
+    private static final OutputBuffers.OutputBufferId FIRST = new OutputBuffers.OutputBufferId(0);
+    private static final OutputBuffers.OutputBufferId SECOND = new OutputBuffers.OutputBufferId(1);
+
+    private final PagesSerde serde =
+        new PagesSerdeFactory(ChunkCompression.UNCOMPRESSED, false).createPagesSerde(TYPES);
+
+    @Test
+    public void testSingleConsumerZeroCopy() throws Exception {
+        BroadcastOutputBuffer buffer = createBuffer();
+        buffer.setOutputBuffers(createInitialEmptyOutputBuffers(BROADCAST)
+            .withBuffer(FIRST, 0)
+            .withNoMoreBufferIds(), new ExecutionContext());
+
+        ClientBuffer clientBuffer = buffer.getClientBuffer(0);
+        Assert.assertNotNull(clientBuffer);
+        Assert.assertFalse(clientBuffer.isPreferLocal());
+
+        // the in-process consumer marks its client buffer on the first fetch
+        ListenableFuture<BufferResult> pending = buffer.get(FIRST, true, 0, MAX_SIZE);
+        Assert.assertTrue(clientBuffer.isPreferLocal());
+
+        // so the producer hands the chunk over without serialization
+        Chunk page = buildPage();
+        buffer.enqueue(ImmutableList.of(serde.serialize(clientBuffer.isPreferLocal(), page)));
+
+        BufferResult result = pending.get();
+        Assert.assertEquals(1, result.size());
+        SerializedChunk received = result.getSerializedPages().get(0);
+        Assert.assertSame(page, received.getPage());
+        Assert.assertNull(received.getSlice());
+    }
+
+    @Test
+    public void testRemoteConsumerSerialize() throws Exception {
+        BroadcastOutputBuffer buffer = createBuffer();
+        buffer.setOutputBuffers(createInitialEmptyOutputBuffers(BROADCAST)
+            .withBuffer(FIRST, 0)
+            .withNoMoreBufferIds(), new ExecutionContext());
+
+        ListenableFuture<BufferResult> pending = buffer.get(FIRST, false, 0, MAX_SIZE);
+        ClientBuffer clientBuffer = buffer.getClientBuffer(0);
+        Assert.assertNotNull(clientBuffer);
+        Assert.assertFalse(clientBuffer.isPreferLocal());
+
+        buffer.enqueue(ImmutableList.of(serde.serialize(clientBuffer.isPreferLocal(), buildPage())));
+
+        SerializedChunk received = pending.get().getSerializedPages().get(0);
+        Assert.assertNull(received.getPage());
+        Assert.assertNotNull(received.getSlice());
+    }
+
+    @Test
+    public void testNoClientBufferBeforeSealed() {
+        BroadcastOutputBuffer buffer = createBuffer();
+        Assert.assertNull(buffer.getClientBuffer(0));
+
+        // more consumers may be added later, the chunks would be shared by them
+        buffer.setOutputBuffers(createInitialEmptyOutputBuffers(BROADCAST)
+            .withBuffer(FIRST, 0), new ExecutionContext());
+        buffer.get(FIRST, true, 0, MAX_SIZE);
+        Assert.assertNull(buffer.getClientBuffer(0));
+
+        buffer.setOutputBuffers(createInitialEmptyOutputBuffers(BROADCAST)
+            .withBuffer(FIRST, 0)
+            .withNoMoreBufferIds(), new ExecutionContext());
+        Assert.assertNotNull(buffer.getClientBuffer(0));
+    }
+
+    @Test
+    public void testNoClientBufferForMultipleConsumers() {
+        BroadcastOutputBuffer buffer = createBuffer();
+        buffer.setOutputBuffers(createInitialEmptyOutputBuffers(BROADCAST)
+            .withBuffer(FIRST, 0)
+            .withBuffer(SECOND, 0)
+            .withNoMoreBufferIds(), new ExecutionContext());
+
+        buffer.get(FIRST, true, 0, MAX_SIZE);
+        buffer.get(SECOND, true, 0, MAX_SIZE);
+        Assert.assertNull(buffer.getClientBuffer(0));
+    }
+
+    private static BroadcastOutputBuffer createBuffer() {
+        StateMachine<BufferState> state = new StateMachine<>("buffer", MoreExecutors.directExecutor(),
+            BufferState.OPEN, BufferState.TERMINAL_BUFFER_STATES);
+        OutputBufferMemoryManager memoryManager = new OutputBufferMemoryManager(
+            MAX_SIZE.toBytes(), deltaMemoryInBytes -> {
+        }, MoreExecutors.directExecutor());
+        return new BroadcastOutputBuffer("task_instance", state, memoryManager, 0);
+    }
+
+    private static Chunk buildPage() {
+        return rowChunkBuilder(TYPES)
+            .row(1L, "a")
+            .row(2L, "b")
+            .row(3L, "c")
+            .build();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.mpp.execution.buffer;
+
+import com.alibaba.polardbx.executor.chunk.Chunk;
+import com.alibaba.polardbx.executor.operator.util.RowChunkBuilder;
+import com.alibaba.polardbx.optimizer.core.datatype.DataType;
+import com.alibaba.polardbx.optimizer.core.datatype.DataTypes;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import java.util.List;
+
+import static com.alibaba.polardbx.executor.operator.BaseExecTest.assertExecResultByRow;
+import static com.alibaba.polardbx.executor.operator.util.RowChunkBuilder.rowChunkBuilder;
+import static org.junit.Assert.assertEquals;
+
+public class PagesSerdeTest {
+
+    private static final List<DataType> TYPES = ImmutableList.of(DataTypes.LongType, DataTypes.StringType);
+
+    @Test
+    public void testRoundTripForEachCodec() {
+        Chunk page = buildCompressiblePage(1000);
+        for (ChunkCompression codec : ChunkCompression.values()) {
+            PagesSerde serde = new PagesSerdeFactory(codec, false).createPagesSerde(TYPES);
+            SerializedChunk serialized = serde.serialize(false, page);
+            assertEquals(codec, serialized.getCompression());
+            assertExecResultByRow(ImmutableList.of(page), ImmutableList.of(serde.deserialize(serialized)), true);
+        }
+    }
+
+    @Test
+    public void testDecompressByMarker() {
+        Chunk page = buildCompressiblePage(1000);
+        SerializedChunk serialized =
+            new PagesSerdeFactory(ChunkCompression.ZSTD, false).createPagesSerde(TYPES).serialize(false, page);
+        PagesSerde reader = new PagesSerdeFactory(ChunkCompression.UNCOMPRESSED, false).createPagesSerde(TYPES);
+        assertExecResultByRow(ImmutableList.of(page), ImmutableList.of(reader.deserialize(serialized)), true);
+    }
+
+    @Test
+    public void testAdaptiveSkipsTinyPages() {
+        Chunk page = buildCompressiblePage(1);
+        PagesSerde serde = new PagesSerdeFactory(ChunkCompression.LZ4, true).createPagesSerde(TYPES);
+        SerializedChunk serialized = serde.serialize(false, page);
+        assertEquals(ChunkCompression.UNCOMPRESSED, serialized.getCompression());
+        assertExecResultByRow(ImmutableList.of(page), ImmutableList.of(serde.deserialize(serialized)), true);
+    }
+
+    @Test
+    public void testFromCodecName() {
+        assertEquals(ChunkCompression.LZ4, ChunkCompression.fromCodecName("lz4"));
+        assertEquals(ChunkCompression.ZSTD, ChunkCompression.fromCodecName("ZSTD"));
+        assertEquals(ChunkCompression.UNCOMPRESSED, ChunkCompression.fromCodecName("NONE"));
+        assertEquals(ChunkCompression.UNCOMPRESSED, ChunkCompression.fromCodecName(null));
+    }
+
+    private static Chunk buildCompressiblePage(int rows) {
+        RowChunkBuilder builder = rowChunkBuilder(TYPES);
+        for (int i = 0; i < rows; i++) {
+            builder.row((long) (i % 16), "polardbx-exchange-page");
+        }
+        return builder.build();
+    }
+}
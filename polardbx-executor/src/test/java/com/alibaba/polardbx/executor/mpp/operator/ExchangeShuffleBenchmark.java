@@ -0,0 +1,222 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.polardbx.executor.mpp.operator;
+
+import com.alibaba.polardbx.common.properties.ConnectionParams;
+import com.alibaba.polardbx.common.properties.ParamManager;
+import com.alibaba.polardbx.executor.mpp.OutputBuffers;
+import com.alibaba.polardbx.executor.mpp.client.MppMediaTypes;
+import com.alibaba.polardbx.executor.mpp.execution.TaskId;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.BufferResult;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.PagesSerdeUtil;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.SerializedChunk;
+import com.alibaba.polardbx.executor.mpp.metadata.TaskLocation;
+import com.alibaba.polardbx.executor.mpp.server.ExchangeStreamServer;
+import com.alibaba.polardbx.gms.node.NodeServer;
+import com.alibaba.polardbx.optimizer.context.ExecutionContext;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.airlift.http.client.HttpClientConfig;
+import io.airlift.http.client.jetty.JettyHttpClient;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.units.DataSize;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+
+/**
+ * Shuffle throughput of the http exchange client against the streaming one. Both read the same in-memory output
+ * buffers over loopback, served by a minimal http endpoint and by {@link ExchangeStreamServer}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ExchangeShuffleBenchmark {
+
+    private static final int PORT_OFFSET = 1;
+
+    @Param({"HTTP", "STREAM"})
+    private String transport;
+
+    @Param({"16", "256"})
+    private int buffers;
+
+    @Param({"32"})
+    private int pagesPerBuffer;
+
+    @Param({"4096"})
+    private int pageSize;
+
+    private final AtomicInteger queryId = new AtomicInteger();
+
+    private ScheduledExecutorService executor;
+    private TestingExchangeResultSource source;
+    private HttpServer httpServer;
+    private ExchangeStreamServer streamServer;
+    private JettyHttpClient httpClient;
+    private ExecutionContext context;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        executor = Executors.newScheduledThreadPool(16);
+        source = new TestingExchangeResultSource();
+
+        httpServer = HttpServer.create(new InetSocketAddress(0), 0);
+        httpServer.createContext("/v1/task", this::handle);
+        httpServer.setExecutor(Executors.newFixedThreadPool(16));
+        httpServer.start();
+
+        streamServer = new ExchangeStreamServer(httpServer.getAddress().getPort() + PORT_OFFSET, source, executor,
+            new DataSize(1, MEGABYTE).toBytes());
+        streamServer.start();
+
+        httpClient = new JettyHttpClient(new HttpClientConfig());
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(ConnectionParams.MPP_RPC_LOCAL_ENABLED.getName(), false);
+        context = new ExecutionContext();
+        context.setParamManager(new ParamManager(properties));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        httpClient.close();
+        streamServer.close();
+        httpServer.stop(0);
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public long shuffle() throws Exception {
+        NodeServer nodeServer = new NodeServer("127.0.0.1", httpServer.getAddress().getPort());
+        String query = "q" + queryId.incrementAndGet();
+        List<TaskLocation> locations = new ArrayList<>(buffers);
+        for (int i = 0; i < buffers; i++) {
+            locations.add(source.addBuffer(nodeServer, query + ".1." + i, 0, pagesPerBuffer, pageSize));
+        }
+
+        IExchangeClient client = createClient();
+        client.addLocations(locations);
+        client.noMoreLocations();
+
+        long bytes = 0;
+        while (!client.isFinished()) {
+            SerializedChunk page = client.pollPage();
+            if (page == null) {
+                client.isBlocked().get(10, TimeUnit.SECONDS);
+                continue;
+            }
+            bytes += page.getSizeInBytes();
+        }
+        client.close();
+        return bytes;
+    }
+
+    private IExchangeClient createClient() {
+        DataSize maxResponseSize = new DataSize(1, MEGABYTE);
+        if ("STREAM".equals(transport)) {
+            return new StreamingExchangeClient(context, maxResponseSize, PORT_OFFSET, executor, delta -> {
+            });
+        }
+        return new ExchangeClient(context, maxResponseSize, 3, 60000L, 180000L, httpClient, executor, delta -> {
+        });
+    }
+
+    /**
+     * Serves /v1/task/{taskId}/results/{bufferId}/{token} the way TaskResource does.
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            TaskId taskId = TaskId.valueOf(path[3]);
+            OutputBuffers.OutputBufferId bufferId = new OutputBuffers.OutputBufferId(Integer.parseInt(path[5]));
+            if ("DELETE".equals(exchange.getRequestMethod())) {
+                source.abortResults(taskId, bufferId);
+                exchange.sendResponseHeaders(204, -1);
+                return;
+            }
+
+            long token = Long.parseLong(path[6]);
+            DataSize maxSize = DataSize.valueOf(exchange.getRequestHeaders().getFirst(MppMediaTypes.MPP_MAX_SIZE));
+            BufferResult result = source.getResults(taskId, bufferId, token, maxSize).get();
+
+            exchange.getResponseHeaders().set("Content-Type", MppMediaTypes.MPP_PAGES);
+            exchange.getResponseHeaders().set(MppMediaTypes.MPP_TASK_INSTANCE_ID, result.getTaskInstanceId());
+            exchange.getResponseHeaders().set(MppMediaTypes.MPP_PAGE_TOKEN, String.valueOf(result.getToken()));
+            exchange.getResponseHeaders()
+                .set(MppMediaTypes.MPP_PAGE_NEXT_TOKEN, String.valueOf(result.getNextToken()));
+            exchange.getResponseHeaders()
+                .set(MppMediaTypes.MPP_BUFFER_COMPLETE, String.valueOf(result.isBufferComplete()));
+            if (result.getSerializedPages().isEmpty()) {
+                exchange.sendResponseHeaders(204, -1);
+                return;
+            }
+
+            DynamicSliceOutput output = new DynamicSliceOutput(1024);
+            PagesSerdeUtil.writeSerializedChunks(output, result.getSerializedPages());
+            Slice body = output.slice();
+            exchange.sendResponseHeaders(200, body.length());
+            try (OutputStream out = exchange.getResponseBody()) {
+                body.getBytes(0, out, body.length());
+            }
+        } catch (Exception e) {
+            exchange.sendResponseHeaders(500, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(ExchangeShuffleBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
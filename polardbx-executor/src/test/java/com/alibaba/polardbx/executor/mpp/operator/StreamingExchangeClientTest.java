@@ -0,0 +1,164 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.polardbx.executor.mpp.operator;
+
+import com.alibaba.polardbx.common.properties.ConnectionParams;
+import com.alibaba.polardbx.common.properties.ParamManager;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.SerializedChunk;
+import com.alibaba.polardbx.executor.mpp.metadata.TaskLocation;
+import com.alibaba.polardbx.executor.mpp.server.ExchangeStreamServer;
+import com.alibaba.polardbx.gms.node.NodeServer;
+import com.alibaba.polardbx.optimizer.context.ExecutionContext;
+import com.google.common.base.Throwables;
+import io.airlift.units.DataSize;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.airlift.units.DataSize.Unit.BYTE;
+
+public class StreamingExchangeClientTest {
+
+    private static final int PORT_OFFSET = 1;
+    private static final int PAGE_SIZE = 256;
+
+    private ScheduledExecutorService executor;
+    private TestingExchangeResultSource source;
+    private ExchangeStreamServer server;
+
+    @Before
+    public void setUp() throws Exception {
+        executor = Executors.newScheduledThreadPool(4);
+        source = new TestingExchangeResultSource();
+        server = new ExchangeStreamServer(0, source, executor, 1024);
+        server.start();
+    }
+
+    @After
+    public void tearDown() {
+        server.close();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testStreamAllBuffers() throws Exception {
+        int bufferCount = 8;
+        int pageCount = 200;
+        List<TaskLocation> locations = new ArrayList<>();
+        for (int i = 0; i < bufferCount; i++) {
+            locations.add(source.addBuffer(nodeServer(), "q1.1." + i, 0, pageCount, PAGE_SIZE));
+        }
+
+        AtomicLong memory = new AtomicLong();
+        StreamingExchangeClient client = new StreamingExchangeClient(createContext(), new DataSize(1024, BYTE),
+            PORT_OFFSET, executor, memory::addAndGet);
+        client.addLocations(locations);
+        client.noMoreLocations();
+
+        Map<Integer, Integer> nextPage = new HashMap<>();
+        int received = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!client.isFinished()) {
+            Assert.assertTrue("exchange did not finish in time", System.nanoTime() < deadline);
+            SerializedChunk page = client.pollPage();
+            if (page == null) {
+                client.isBlocked().get(1, TimeUnit.SECONDS);
+                continue;
+            }
+            // pages of one buffer arrive in order
+            int buffer = page.getSlice().getInt(0);
+            int sequence = page.getSlice().getInt(Integer.BYTES);
+            Assert.assertEquals(nextPage.getOrDefault(buffer, 0).intValue(), sequence);
+            nextPage.put(buffer, sequence + 1);
+            received++;
+        }
+
+        Assert.assertEquals(bufferCount * pageCount, received);
+        Assert.assertEquals(0, memory.get());
+        Assert.assertEquals(bufferCount, source.released.size());
+    }
+
+    @Test
+    public void testCloseAbortsBuffers() throws Exception {
+        TaskLocation location = source.addBuffer(nodeServer(), "q2.1.0", 0, 1000, PAGE_SIZE);
+        StreamingExchangeClient client = new StreamingExchangeClient(createContext(), new DataSize(1024, BYTE),
+            PORT_OFFSET, executor, delta -> {
+        });
+        client.addLocation(location);
+        client.noMoreLocations();
+
+        client.isBlocked().get(10, TimeUnit.SECONDS);
+        Assert.assertNotNull(client.pollPage());
+        client.close();
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (source.released.isEmpty()) {
+            Assert.assertTrue("buffer was not aborted", System.nanoTime() < deadline);
+            Thread.sleep(10);
+        }
+        Assert.assertTrue(client.isClosed());
+    }
+
+    @Test
+    public void testUnreachableStreamPortWithoutFallback() throws Exception {
+        int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+        TaskLocation location =
+            source.addBuffer(new NodeServer("127.0.0.1", closedPort - PORT_OFFSET), "q3.1.0", 0, 10, PAGE_SIZE);
+        StreamingExchangeClient client = new StreamingExchangeClient(createContext(), new DataSize(1024, BYTE),
+            PORT_OFFSET, executor, delta -> {
+        });
+        client.addLocation(location);
+        client.noMoreLocations();
+
+        try {
+            client.pollPage();
+            Assert.fail("expected the stream to fail without an http fallback");
+        } catch (RuntimeException e) {
+            Assert.assertTrue(Throwables.getCausalChain(e).stream().anyMatch(t -> t instanceof ConnectException));
+        }
+    }
+
+    private NodeServer nodeServer() {
+        // the stream port is derived from the http port of the node
+        return new NodeServer("127.0.0.1", server.getPort() - PORT_OFFSET);
+    }
+
+    private ExecutionContext createContext() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put(ConnectionParams.MPP_RPC_LOCAL_ENABLED.getName(), false);
+        properties.put(ConnectionParams.MPP_OUTPUT_MAX_BUFFER_SIZE.getName(), 8 * PAGE_SIZE);
+        ExecutionContext context = new ExecutionContext();
+        context.setParamManager(new ParamManager(properties));
+        return context;
+    }
+}
@@ -11,6 +11,7 @@ import com.alibaba.polardbx.executor.mpp.planner.SimpleFragmentRFManager;
 import com.alibaba.polardbx.executor.operator.ColumnarScanExec;
 import com.alibaba.polardbx.executor.operator.SynchronizerRFMerger;
 import com.alibaba.polardbx.executor.operator.util.ChunksIndex;
+import com.alibaba.polardbx.executor.operator.util.minmaxfilter.MinMaxFilter;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -105,6 +106,13 @@ public class SynchronizedMergerGlobalRFTest {
             RFBloomFilter[] rfBloomFilters = item.getRF();
             Assert.assertTrue(rfBloomFilters.length == 1 && rfBloomFilters[0] != null);
 
+            // Check the value range of build side.
+            Assert.assertTrue(item.getRFFuture().isDone());
+            MinMaxFilter minMaxFilter = item.getMinMaxFilter();
+            Assert.assertNotNull(minMaxFilter);
+            Assert.assertEquals(0L, minMaxFilter.getMinNumber().longValue());
+            Assert.assertEquals((TOTAL_CHUNK_SIZE - 1) * 3L, minMaxFilter.getMaxNumber().longValue());
+
             // check all values in runtime filter.
             RFBloomFilter filter = rfBloomFilters[0];
             for (int i = 0; i < MAX_VALUE_IN_RF; i++) {
@@ -0,0 +1,94 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package com.alibaba.polardbx.executor.mpp.operator;
+
+import com.alibaba.polardbx.executor.mpp.OutputBuffers;
+import com.alibaba.polardbx.executor.mpp.execution.TaskId;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.BufferResult;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.ChunkCompression;
+import com.alibaba.polardbx.executor.mpp.execution.buffer.SerializedChunk;
+import com.alibaba.polardbx.executor.mpp.metadata.TaskLocation;
+import com.alibaba.polardbx.executor.mpp.server.ExchangeStream;
+import com.alibaba.polardbx.gms.node.NodeServer;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Output buffers backed by fixed page lists. Every page starts with the index of its buffer and its sequence.
+ */
+class TestingExchangeResultSource implements ExchangeStream.ResultSource {
+
+    final Set<String> released = ConcurrentHashMap.newKeySet();
+
+    private final Map<String, List<SerializedChunk>> buffers = new ConcurrentHashMap<>();
+    private final AtomicInteger bufferIndex = new AtomicInteger();
+
+    TaskLocation addBuffer(NodeServer nodeServer, String taskId, int bufferId, int pageCount, int pageSize) {
+        int index = bufferIndex.getAndIncrement();
+        List<SerializedChunk> pages = new ArrayList<>(pageCount);
+        for (int i = 0; i < pageCount; i++) {
+            Slice slice = Slices.allocate(pageSize);
+            slice.setInt(0, index);
+            slice.setInt(Integer.BYTES, i);
+            pages.add(new SerializedChunk(slice, ChunkCompression.UNCOMPRESSED, 1, pageSize));
+        }
+        buffers.put(key(TaskId.valueOf(taskId), bufferId), pages);
+        return new TaskLocation(nodeServer, TaskId.valueOf(taskId), bufferId);
+    }
+
+    @Override
+    public ListenableFuture<BufferResult> getResults(TaskId taskId, OutputBuffers.OutputBufferId bufferId,
+                                                     long token, DataSize maxSize) {
+        String key = key(taskId, bufferId.getId());
+        List<SerializedChunk> pages = buffers.get(key);
+        if (pages == null) {
+            // aborted while the request was in flight
+            return Futures.immediateFuture(BufferResult.emptyResults("instance-" + key, token, true));
+        }
+        int from = (int) token;
+        int to = from;
+        long bytes = 0;
+        while (to < pages.size() && (to == from || bytes + pages.get(to).getSizeInBytes() <= maxSize.toBytes())) {
+            bytes += pages.get(to).getSizeInBytes();
+            to++;
+        }
+        return Futures.immediateFuture(
+            new BufferResult("instance-" + key, token, to, to == pages.size(), pages.subList(from, to)));
+    }
+
+    @Override
+    public void abortResults(TaskId taskId, OutputBuffers.OutputBufferId bufferId) {
+        String key = key(taskId, bufferId.getId());
+        released.add(key);
+        buffers.remove(key);
+    }
+
+    private static String key(TaskId taskId, int bufferId) {
+        return taskId + "/" + bufferId;
+    }
+}
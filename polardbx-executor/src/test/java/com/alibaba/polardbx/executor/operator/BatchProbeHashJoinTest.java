@@ -0,0 +1,108 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.operator;
+
+import com.alibaba.polardbx.common.properties.ConnectionParams;
+import com.alibaba.polardbx.common.properties.ParamManager;
+import com.alibaba.polardbx.executor.chunk.Chunk;
+import com.alibaba.polardbx.executor.chunk.IntegerBlock;
+import com.alibaba.polardbx.executor.chunk.StringBlock;
+import com.alibaba.polardbx.optimizer.core.datatype.DataType;
+import com.alibaba.polardbx.optimizer.core.datatype.DataTypes;
+import com.alibaba.polardbx.optimizer.core.join.EquiJoinKey;
+import com.google.common.collect.ImmutableList;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class BatchProbeHashJoinTest extends BaseExecTest {
+
+    private static final List<DataType> TYPES = ImmutableList.of(DataTypes.IntegerType, DataTypes.StringType);
+
+    @Test
+    public void testDuplicateKeysAcrossSmallOutputChunks() {
+        // many duplicates on the build side so that chains are cut by the output chunk limit
+        Chunk inner = new Chunk(
+            IntegerBlock.of(1, 1, 1, 2, 2, 3, null, 1),
+            StringBlock.of("a", "a", "b", "a", "a", "c", "a", null));
+        Chunk outer = new Chunk(
+            IntegerBlock.of(1, 2, 1, 3, 4, null, 1),
+            StringBlock.of("a", "a", "b", "c", "a", "a", null));
+
+        for (int chunkSize : new int[] {1, 2, 3, 1024}) {
+            List<Chunk> expects = runInnerJoin(outer, inner, chunkSize, false);
+            List<Chunk> actuals = runInnerJoin(outer, inner, chunkSize, true);
+            Assert.assertEquals(6, countRows(actuals));
+            assertExecResultByRow(actuals, expects, false);
+            for (Chunk chunk : actuals) {
+                Assert.assertTrue(chunk.getPositionCount() <= chunkSize);
+            }
+        }
+    }
+
+    @Test
+    public void testSameProbeChunkInstanceTwice() {
+        // the upstream may hand back the same chunk object, each one must still be probed from scratch
+        Chunk inner = new Chunk(
+            IntegerBlock.of(1, 1, 2, 3),
+            StringBlock.of("a", "a", "b", "c"));
+        Chunk outer = new Chunk(
+            IntegerBlock.of(1, 2, 3, 4),
+            StringBlock.of("a", "b", "c", "a"));
+
+        for (int chunkSize : new int[] {1, 3, 1024}) {
+            List<Chunk> expects = runInnerJoin(ImmutableList.of(outer, outer), inner, chunkSize, false);
+            List<Chunk> actuals = runInnerJoin(ImmutableList.of(outer, outer), inner, chunkSize, true);
+            Assert.assertEquals(8, countRows(actuals));
+            assertExecResultByRow(actuals, expects, false);
+        }
+    }
+
+    private List<Chunk> runInnerJoin(Chunk outer, Chunk inner, int chunkSize, boolean batchProbe) {
+        return runInnerJoin(ImmutableList.of(outer), inner, chunkSize, batchProbe);
+    }
+
+    private List<Chunk> runInnerJoin(List<Chunk> outers, Chunk inner, int chunkSize, boolean batchProbe) {
+        Map connectionMap = new HashMap();
+        connectionMap.put(ConnectionParams.CHUNK_SIZE.getName(), chunkSize);
+        connectionMap.put(ConnectionParams.ENABLE_BATCH_PROBE_JOIN.getName(), batchProbe);
+        context.setParamManager(new ParamManager(connectionMap));
+
+        List<EquiJoinKey> joinKeys = ImmutableList.of(
+            HashJoinTest.mockEquiJoinKey(0, 0, DataTypes.IntegerType),
+            HashJoinTest.mockEquiJoinKey(1, 1, DataTypes.StringType));
+        MockExec innerInput = new MockExec(TYPES, ImmutableList.of(inner));
+        MockExec outerInput = new MockExec(TYPES, outers);
+        ParallelHashJoinExec exec = HashJoinTest.mockParallelHashJoinExec(outerInput, innerInput,
+            JoinRelType.INNER, false, joinKeys, null, null, context, false);
+        SingleExecTest test = new SingleExecTest.Builder(exec, innerInput).build();
+        test.exec();
+        return test.result();
+    }
+
+    private static int countRows(List<Chunk> chunks) {
+        int rows = 0;
+        for (Chunk chunk : chunks) {
+            rows += chunk.getPositionCount();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,280 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.operator;
+
+import com.alibaba.polardbx.common.properties.ConnectionParams;
+import com.alibaba.polardbx.common.properties.ParamManager;
+import com.alibaba.polardbx.executor.chunk.Block;
+import com.alibaba.polardbx.executor.chunk.Chunk;
+import com.alibaba.polardbx.executor.chunk.IntegerBlock;
+import com.alibaba.polardbx.optimizer.core.datatype.DataType;
+import com.alibaba.polardbx.optimizer.core.datatype.DataTypes;
+import com.alibaba.polardbx.optimizer.core.join.EquiJoinKey;
+import com.alibaba.polardbx.optimizer.memory.MemoryAllocatorCtx;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import org.apache.calcite.rel.core.JoinRelType;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class LookupJoinExecTest extends BaseExecTest {
+
+    private static final List<DataType> INNER_TYPES = ImmutableList.of(DataTypes.IntegerType, DataTypes.IntegerType);
+
+    @Before
+    public void before() {
+        Map connectionMap = new HashMap();
+        connectionMap.put(ConnectionParams.JOIN_BLOCK_SIZE.getName(), 10);
+        connectionMap.put(ConnectionParams.ADAPTIVE_LOOKUP_JOIN_ROW_THRESHOLD.getName(), 10L);
+        context.setParamManager(new ParamManager(connectionMap));
+    }
+
+    @Test
+    public void testSwitchToHashBuild() {
+        // 内表实际10行, 与估算一致, 全表扫描一次后所有批次共用hash表
+        MockLookupTableExec inner = new MockLookupTableExec(innerChunks(10));
+        LookupJoinExec exec = mockLookupJoinExec(outerInput(30), inner);
+        exec.enableAdaptiveHashBuild(10);
+
+        List<Chunk> result = execute(exec);
+
+        assertExecResultByRow(result, ImmutableList.of(expectedChunk(10)), false);
+        Assert.assertEquals(1, inner.fullScanCount);
+        Assert.assertEquals(0, inner.lookupCount);
+        Assert.assertEquals(1, exec.getStatistics().getJoinSwitchCnt());
+    }
+
+    @Test
+    public void testFallbackToLookupWhenInnerExceedsEstimate() {
+        // 统计信息估算10行, 内表实际20行, 全表扫描超过上限后退回lookup
+        MockLookupTableExec inner = new MockLookupTableExec(innerChunks(20));
+        LookupJoinExec exec = mockLookupJoinExec(outerInput(30), inner);
+        exec.enableAdaptiveHashBuild(10);
+
+        List<Chunk> result = execute(exec);
+
+        assertExecResultByRow(result, ImmutableList.of(expectedChunk(20)), false);
+        Assert.assertEquals(1, inner.fullScanCount);
+        Assert.assertTrue(inner.lookupCount > 0);
+        Assert.assertEquals(0, exec.getStatistics().getJoinSwitchCnt());
+    }
+
+    @Test
+    public void testNoSwitchWhenInnerLargerThanOuter() {
+        MockLookupTableExec inner = new MockLookupTableExec(innerChunks(20));
+        LookupJoinExec exec = mockLookupJoinExec(outerInput(30), inner);
+        exec.enableAdaptiveHashBuild(100);
+
+        List<Chunk> result = execute(exec);
+
+        assertExecResultByRow(result, ImmutableList.of(expectedChunk(20)), false);
+        Assert.assertEquals(0, inner.fullScanCount);
+        Assert.assertTrue(inner.lookupCount > 0);
+        Assert.assertEquals(0, exec.getStatistics().getJoinSwitchCnt());
+    }
+
+    private LookupJoinExec mockLookupJoinExec(Executor outer, MockLookupTableExec inner) {
+        List<EquiJoinKey> joinKeys = ImmutableList.of(HashJoinTest.mockEquiJoinKey(0, 0, DataTypes.IntegerType));
+        return new LookupJoinExec(outer, inner, JoinRelType.INNER, false, joinKeys, joinKeys, null, context,
+            -1, 1, false);
+    }
+
+    private static List<Chunk> execute(LookupJoinExec exec) {
+        SingleExecTest test = new SingleExecTest.Builder(exec).build();
+        test.exec();
+        return test.result();
+    }
+
+    /**
+     * 外表 key 为 1..rows, 每个chunk 10行
+     */
+    private static MockExec outerInput(int rows) {
+        MockExec.MockExecBuilder builder = MockExec.builder(DataTypes.IntegerType);
+        for (int start = 1; start <= rows; start += 10) {
+            Integer[] keys = new Integer[Math.min(10, rows - start + 1)];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = start + i;
+            }
+            builder.withChunk(new Chunk(IntegerBlock.of(keys)));
+        }
+        return builder.build();
+    }
+
+    /**
+     * 内表 (key, key * 100), key 为 1..rows, 每个chunk 5行
+     */
+    private static List<Chunk> innerChunks(int rows) {
+        List<Chunk> chunks = new ArrayList<>();
+        for (int start = 1; start <= rows; start += 5) {
+            Integer[] keys = new Integer[Math.min(5, rows - start + 1)];
+            Integer[] values = new Integer[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = start + i;
+                values[i] = keys[i] * 100;
+            }
+            chunks.add(new Chunk(IntegerBlock.of(keys), IntegerBlock.of(values)));
+        }
+        return chunks;
+    }
+
+    private static Chunk expectedChunk(int rows) {
+        Integer[] keys = new Integer[rows];
+        Integer[] values = new Integer[rows];
+        for (int i = 0; i < rows; i++) {
+            keys[i] = i + 1;
+            values[i] = keys[i] * 100;
+        }
+        return new Chunk(IntegerBlock.of(keys), IntegerBlock.of(keys), IntegerBlock.of(values));
+    }
+
+    /**
+     * 按lookup条件过滤内表数据, 并记录lookup和全表扫描的次数
+     */
+    static class MockLookupTableExec implements LookupTableExec {
+
+        private final List<Chunk> chunks;
+        private Set<Object> lookupKeys;
+        private int currentChunkIndex;
+        private boolean isFinish;
+
+        int lookupCount;
+        int fullScanCount;
+
+        MockLookupTableExec(List<Chunk> chunks) {
+            this.chunks = chunks;
+        }
+
+        @Override
+        public void updateLookupPredicate(Chunk chunk) {
+            lookupCount++;
+            lookupKeys = new HashSet<>();
+            Block keyBlock = chunk.getBlock(0);
+            for (int i = 0; i < keyBlock.getPositionCount(); i++) {
+                lookupKeys.add(keyBlock.getObject(i));
+            }
+        }
+
+        @Override
+        public boolean supportFullScan() {
+            return true;
+        }
+
+        @Override
+        public void updateFullScan() {
+            fullScanCount++;
+            lookupKeys = null;
+        }
+
+        @Override
+        public void setMemoryAllocator(MemoryAllocatorCtx memoryAllocator) {
+        }
+
+        @Override
+        public void releaseConditionMemory() {
+        }
+
+        @Override
+        public boolean shardEnabled() {
+            return false;
+        }
+
+        @Override
+        public void open() {
+            currentChunkIndex = 0;
+            isFinish = false;
+        }
+
+        @Override
+        public boolean resume() {
+            open();
+            return true;
+        }
+
+        @Override
+        public boolean shouldSuspend() {
+            return false;
+        }
+
+        @Override
+        public void doSuspend() {
+            currentChunkIndex = chunks.size();
+        }
+
+        @Override
+        public Chunk nextChunk() {
+            while (currentChunkIndex < chunks.size()) {
+                Chunk chunk = filter(chunks.get(currentChunkIndex++));
+                if (chunk != null) {
+                    return chunk;
+                }
+            }
+            isFinish = true;
+            return null;
+        }
+
+        private Chunk filter(Chunk chunk) {
+            if (lookupKeys == null) {
+                return chunk;
+            }
+            List<Integer> keys = new ArrayList<>();
+            List<Integer> values = new ArrayList<>();
+            for (int i = 0; i < chunk.getPositionCount(); i++) {
+                if (lookupKeys.contains(chunk.getBlock(0).getObject(i))) {
+                    keys.add((Integer) chunk.getBlock(0).getObject(i));
+                    values.add((Integer) chunk.getBlock(1).getObject(i));
+                }
+            }
+            if (keys.isEmpty()) {
+                return null;
+            }
+            return new Chunk(IntegerBlock.of(keys.toArray(new Integer[0])),
+                IntegerBlock.of(values.toArray(new Integer[0])));
+        }
+
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public List<DataType> getDataTypes() {
+            return INNER_TYPES;
+        }
+
+        @Override
+        public List<Executor> getInputs() {
+            return ImmutableList.of();
+        }
+
+        @Override
+        public boolean produceIsFinished() {
+            return isFinish;
+        }
+
+        @Override
+        public ListenableFuture<?> produceIsBlocked() {
+            return ProducerExecutor.NOT_BLOCKED;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.operator;
+
+import com.alibaba.polardbx.executor.chunk.Chunk;
+import com.alibaba.polardbx.executor.chunk.IntegerBlock;
+import com.alibaba.polardbx.executor.chunk.LongBlock;
+import com.alibaba.polardbx.optimizer.core.datatype.DataType;
+import com.alibaba.polardbx.optimizer.core.datatype.DataTypes;
+import com.alibaba.polardbx.optimizer.core.expression.calc.Aggregator;
+import com.alibaba.polardbx.optimizer.core.expression.calc.aggfunctions.AvgV2;
+import com.alibaba.polardbx.optimizer.core.expression.calc.aggfunctions.CountV2;
+import com.alibaba.polardbx.optimizer.core.expression.calc.aggfunctions.MaxV2;
+import com.alibaba.polardbx.optimizer.core.expression.calc.aggfunctions.SumV2;
+import com.google.common.collect.ImmutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+public class ParallelHashAggExecTest extends BaseExecTest {
+
+    private static final int DEFAULT_AGG_HASH_TABLE_SIZE = 1024;
+
+    private static final List<DataType> INPUT_TYPES = ImmutableList.of(DataTypes.IntegerType, DataTypes.IntegerType);
+
+    private static final List<DataType> OUTPUT_TYPES =
+        ImmutableList.of(DataTypes.LongType, DataTypes.LongType, DataTypes.LongType, DataTypes.LongType);
+
+    @Test
+    public void testMergePartialStatesAcrossDrivers() {
+        // the same groups show up in every driver
+        List<List<Chunk>> inputs = ImmutableList.of(
+            ImmutableList.of(
+                new Chunk(IntegerBlock.of(0, 1, 2, 3), IntegerBlock.of(3, 4, 9, 7)),
+                new Chunk(IntegerBlock.of(0, 1, 4, 5), IntegerBlock.of(1, null, 2, 6))),
+            ImmutableList.of(
+                new Chunk(IntegerBlock.of(0, 1, 2, 3), IntegerBlock.of(5, 3, 8, 1))),
+            ImmutableList.of());
+
+        AggPartitionSynchronizer shared = new AggPartitionSynchronizer(inputs.size());
+        List<ParallelHashAggExec> execs = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            ParallelHashAggExec exec = new ParallelHashAggExec(shared, i, INPUT_TYPES, new int[] {0},
+                createAggregators(), OUTPUT_TYPES, DEFAULT_AGG_HASH_TABLE_SIZE, null, context);
+            exec.openConsume();
+            for (Chunk chunk : inputs.get(i)) {
+                exec.consumeChunk(chunk);
+            }
+            execs.add(exec);
+        }
+        for (ParallelHashAggExec exec : execs) {
+            exec.buildConsume();
+        }
+        // partial states handed over to the merging drivers are still accounted
+        long partialStateBytes = shared.getPartialStateBytes();
+        Assert.assertTrue(partialStateBytes > 0);
+        Assert.assertTrue(context.getMemoryPool().getMemoryUsage() >= partialStateBytes);
+
+        List<Chunk> results = new ArrayList<>();
+        for (ParallelHashAggExec exec : execs) {
+            exec.open();
+            while (!exec.produceIsFinished()) {
+                Chunk chunk = exec.nextChunk();
+                if (chunk != null) {
+                    results.add(chunk);
+                }
+            }
+            exec.close();
+        }
+        Assert.assertEquals(0, shared.getPartialStateBytes());
+
+        // count, sum and max of column 1 grouped by column 0
+        assertExecResultByRow(results, Collections.singletonList(new Chunk(
+            LongBlock.of(0L, 1L, 2L, 3L, 4L, 5L),
+            LongBlock.of(3L, 2L, 2L, 2L, 1L, 1L),
+            LongBlock.of(9L, 7L, 17L, 8L, 2L, 6L),
+            LongBlock.of(5L, 4L, 9L, 7L, 2L, 6L)
+        )), false);
+    }
+
+    @Test
+    public void testSupportPartialMerge() {
+        Assert.assertTrue(ParallelHashAggExec.supportPartialMerge(createAggregators()));
+        Assert.assertFalse(ParallelHashAggExec.supportPartialMerge(ImmutableList.of(
+            new AvgV2(1, false, context.getMemoryPool().getMemoryAllocatorCtx(), -1))));
+        Assert.assertFalse(ParallelHashAggExec.supportPartialMerge(ImmutableList.of(
+            new SumV2(1, false, context.getMemoryPool().getMemoryAllocatorCtx(), 0))));
+    }
+
+    private List<Aggregator> createAggregators() {
+        List<Aggregator> aggregators = new ArrayList<>();
+        aggregators.add(new CountV2(new int[] {1}, false, context.getMemoryPool().getMemoryAllocatorCtx(), -1));
+        aggregators.add(new SumV2(1, false, context.getMemoryPool().getMemoryAllocatorCtx(), -1));
+        aggregators.add(new MaxV2(1, -1));
+        return aggregators;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.operator.scan;
+
+import com.alibaba.polardbx.executor.chunk.Block;
+import com.alibaba.polardbx.executor.chunk.LongBlock;
+import com.alibaba.polardbx.executor.operator.scan.impl.CachedBlockEncoding;
+import com.alibaba.polardbx.executor.operator.scan.impl.OffHeapBlockCache;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+public class OffHeapBlockCacheTest {
+    @Test
+    public void testEncodingRoundTrip() {
+        long[] values = new long[1000];
+        boolean[] nulls = new boolean[1000];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = i * 7L;
+            nulls[i] = i % 10 == 0;
+        }
+        Block[] blocks = {new LongBlock(0, 1000, nulls, values), null};
+
+        Slice serialized = CachedBlockEncoding.encode(1000, blocks);
+        Assert.assertNotNull(serialized);
+        Assert.assertEquals(1000, CachedBlockEncoding.decodeChunkLimit(serialized));
+
+        Block[] decoded = CachedBlockEncoding.decodeBlocks(serialized);
+        Assert.assertEquals(2, decoded.length);
+        Assert.assertNull(decoded[1]);
+        for (int i = 0; i < values.length; i++) {
+            Assert.assertEquals(nulls[i], decoded[0].isNull(i));
+            if (!nulls[i]) {
+                Assert.assertEquals(values[i], decoded[0].getLong(i));
+            }
+        }
+    }
+
+    @Test
+    public void testFifoEviction() {
+        // 3 entries of 400 bytes fit into 1024 bytes only twice.
+        OffHeapBlockCache cache = new OffHeapBlockCache(1024, null);
+        for (long key = 0; key < 3; key++) {
+            cache.put(key, Slices.wrappedBuffer(filled((byte) key, 400)));
+        }
+
+        Assert.assertFalse(cache.contains(0));
+        Assert.assertNull(cache.get(0));
+        Assert.assertEquals(1, cache.getEvictCount());
+        for (long key = 1; key < 3; key++) {
+            Slice slice = cache.get(key);
+            Assert.assertNotNull(slice);
+            Assert.assertEquals(Slices.wrappedBuffer(filled((byte) key, 400)), slice);
+        }
+        Assert.assertEquals(800, cache.getUsedBytes());
+
+        // Entry larger than the ring is never stored.
+        cache.put(100, Slices.wrappedBuffer(new byte[2048]));
+        Assert.assertFalse(cache.contains(100));
+
+        cache.clear();
+        Assert.assertNull(cache.get(1));
+        Assert.assertEquals(0, cache.getUsedBytes());
+    }
+
+    private static byte[] filled(byte value, int length) {
+        byte[] bytes = new byte[length];
+        Arrays.fill(bytes, value);
+        return bytes;
+    }
+}
@@ -1,16 +1,28 @@
 package com.alibaba.polardbx.executor.operator.scan;
 
+import com.alibaba.polardbx.common.properties.ConnectionProperties;
+import com.alibaba.polardbx.common.properties.DynamicConfig;
 import com.alibaba.polardbx.executor.chunk.Block;
 import com.alibaba.polardbx.executor.chunk.BlockBuilder;
 import com.alibaba.polardbx.executor.chunk.BlockBuilders;
+import com.alibaba.polardbx.executor.operator.scan.impl.SimpleBlockCacheManager;
 import com.alibaba.polardbx.optimizer.context.ExecutionContext;
 import com.alibaba.polardbx.optimizer.core.datatype.DataTypes;
 import org.apache.hadoop.fs.Path;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class SimpleBlockCacheManagerTest {
     private Random random = new Random();
@@ -76,6 +88,151 @@ public class SimpleBlockCacheManagerTest {
         Assert.assertTrue(cached.getPositionCount() == 900);
     }
 
+    @Test
+    public void testStripeBlocks() throws Exception {
+        BlockCacheManager<Block> blockCacheManager = new SimpleBlockCacheManager();
+        AtomicInteger loads = new AtomicInteger();
+
+        List<Block> loaded = blockCacheManager.getStripeBlocks("db", "tb", "file.orc", "c1", 0, () -> {
+            loads.incrementAndGet();
+            return Arrays.asList(createBlock(1000), createBlock(500));
+        });
+        Assert.assertEquals(2, loaded.size());
+
+        // hit, loader is not invoked again
+        List<Block> cached = blockCacheManager.getStripeBlocks("db", "tb", "file.orc", "c1", 0, () -> {
+            loads.incrementAndGet();
+            return Arrays.asList(createBlock(1));
+        });
+        Assert.assertEquals(1, loads.get());
+        Assert.assertEquals(1500, cached.get(0).getPositionCount() + cached.get(1).getPositionCount());
+
+        // invalidate the whole schema
+        blockCacheManager.invalidateStripeBlocks("db", null);
+        blockCacheManager.getStripeBlocks("db", "tb", "file.orc", "c1", 0, () -> {
+            loads.incrementAndGet();
+            return Arrays.asList(createBlock(1));
+        });
+        Assert.assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testStripeBlocksTableQuota() throws Exception {
+        BlockCacheManager<Block> blockCacheManager = new SimpleBlockCacheManager();
+        AtomicInteger loads = new AtomicInteger();
+        Callable<List<Block>> loader = () -> {
+            loads.incrementAndGet();
+            return Arrays.asList(createBlock(1000));
+        };
+
+        // The quota of each table only holds one stripe.
+        long stripeBytes = createBlock(1000).getElementUsedBytes();
+        float originRatio = DynamicConfig.getInstance().getBlockCacheTableQuotaRatio();
+        DynamicConfig.getInstance().loadValue(null, ConnectionProperties.BLOCK_CACHE_TABLE_QUOTA_RATIO,
+            String.valueOf(stripeBytes * 1.5d / BlockCacheManager.MAXIMUM_MEMORY_SIZE));
+        try {
+            blockCacheManager.getStripeBlocks("db", "tb1", "file1.orc", "c1", 0, loader);
+            blockCacheManager.getStripeBlocks("db", "tb1", "file1.orc", "c1", 0, loader);
+            Assert.assertEquals(1, loads.get());
+
+            // tb1 has used up its quota, the stripe is loaded every time.
+            blockCacheManager.getStripeBlocks("db", "tb1", "file1.orc", "c1", 1, loader);
+            blockCacheManager.getStripeBlocks("db", "tb1", "file1.orc", "c1", 1, loader);
+            Assert.assertEquals(3, loads.get());
+
+            // other tables are not affected.
+            blockCacheManager.getStripeBlocks("db", "tb2", "file2.orc", "c1", 0, loader);
+            blockCacheManager.getStripeBlocks("db", "tb2", "file2.orc", "c1", 0, loader);
+            Assert.assertEquals(4, loads.get());
+
+            // the quota is released after invalidation.
+            blockCacheManager.invalidateStripeBlocks("db", "tb1");
+            blockCacheManager.getStripeBlocks("db", "tb1", "file1.orc", "c1", 1, loader);
+            blockCacheManager.getStripeBlocks("db", "tb1", "file1.orc", "c1", 1, loader);
+            Assert.assertEquals(5, loads.get());
+        } finally {
+            DynamicConfig.getInstance().loadValue(null, ConnectionProperties.BLOCK_CACHE_TABLE_QUOTA_RATIO,
+                String.valueOf(originRatio));
+        }
+    }
+
+    @Test
+    public void testStripeBlocksConcurrentMiss() throws Exception {
+        BlockCacheManager<Block> blockCacheManager = new SimpleBlockCacheManager();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loadStarted = new CountDownLatch(1);
+        CountDownLatch loadBlocked = new CountDownLatch(1);
+        Callable<List<Block>> loader = () -> {
+            loads.incrementAndGet();
+            loadStarted.countDown();
+            loadBlocked.await();
+            return Arrays.asList(createBlock(1000));
+        };
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<List<Block>>> futures = new ArrayList<>();
+            futures.add(executor.submit(
+                () -> blockCacheManager.getStripeBlocks("db", "tb", "file.orc", "c1", 0, loader)));
+            loadStarted.await();
+            for (int i = 0; i < 3; i++) {
+                futures.add(executor.submit(
+                    () -> blockCacheManager.getStripeBlocks("db", "tb", "file.orc", "c1", 0, loader)));
+            }
+            loadBlocked.countDown();
+
+            for (Future<List<Block>> future : futures) {
+                Assert.assertEquals(1000, future.get().get(0).getPositionCount());
+            }
+            Assert.assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testStripeBlocksTableQuotaConcurrent() throws Exception {
+        BlockCacheManager<Block> blockCacheManager = new SimpleBlockCacheManager();
+        AtomicInteger loads = new AtomicInteger();
+        Callable<List<Block>> loader = () -> {
+            loads.incrementAndGet();
+            return Arrays.asList(createBlock(1000));
+        };
+
+        // The quota of the table holds two stripes, no matter how many stripes are loaded at the same time.
+        final int stripes = 16;
+        long stripeBytes = createBlock(1000).getElementUsedBytes();
+        float originRatio = DynamicConfig.getInstance().getBlockCacheTableQuotaRatio();
+        DynamicConfig.getInstance().loadValue(null, ConnectionProperties.BLOCK_CACHE_TABLE_QUOTA_RATIO,
+            String.valueOf(stripeBytes * 2.5d / BlockCacheManager.MAXIMUM_MEMORY_SIZE));
+        ExecutorService executor = Executors.newFixedThreadPool(stripes);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<List<Block>>> futures = new ArrayList<>();
+            for (int i = 0; i < stripes; i++) {
+                final int stripeId = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return blockCacheManager.getStripeBlocks("db", "tb", "file.orc", "c1", stripeId, loader);
+                }));
+            }
+            start.countDown();
+            for (Future<List<Block>> future : futures) {
+                future.get();
+            }
+            Assert.assertEquals(stripes, loads.get());
+
+            for (int i = 0; i < stripes; i++) {
+                blockCacheManager.getStripeBlocks("db", "tb", "file.orc", "c1", i, loader);
+            }
+            Assert.assertEquals(2, stripes * 2 - loads.get());
+        } finally {
+            executor.shutdownNow();
+            DynamicConfig.getInstance().loadValue(null, ConnectionProperties.BLOCK_CACHE_TABLE_QUOTA_RATIO,
+                String.valueOf(originRatio));
+        }
+    }
+
     private Block createBlock(int positionCount) {
         BlockBuilder blockBuilder = BlockBuilders.create(DataTypes.LongType, context, positionCount);
         for (int i = 0; i < positionCount; i++) {
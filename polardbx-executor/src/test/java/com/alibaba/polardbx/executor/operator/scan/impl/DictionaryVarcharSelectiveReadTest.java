@@ -0,0 +1,243 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.operator.scan.impl;
+
+import com.alibaba.polardbx.executor.chunk.SliceBlock;
+import com.alibaba.polardbx.optimizer.core.datatype.SliceType;
+import org.apache.hadoop.hive.ql.exec.vector.BytesColumnVector;
+import org.apache.hadoop.hive.ql.exec.vector.VectorizedRowBatch;
+import org.apache.orc.OrcFile;
+import org.apache.orc.OrcProto;
+import org.apache.orc.TypeDescription;
+import org.apache.orc.Writer;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Selective read of dictionary-encoded varchar column, covering both slice-dict and slice-data paths,
+ * and the fallback to full read when the present stream exists.
+ */
+public class DictionaryVarcharSelectiveReadTest extends ColumnarStartAtTestBase {
+    private static final int ROW_COUNT = 31500;
+    private static final int BLOCK_SIZE = 1000;
+
+    // column id of nullable string column.
+    private static final int NULLABLE_COLUMN_ID = 2;
+
+    private static final int[] LEADING_SELECTION = {0, 1, 2};
+    private static final int[] TRAILING_SELECTION = {997, 998, 999};
+    private static final int[] SPARSE_SELECTION = {3, 100, 511, 512, 998};
+
+    private OrcProto.ColumnEncoding[] encodings;
+
+    public DictionaryVarcharSelectiveReadTest() throws IOException {
+        super("dict_varchar_selective_test.orc", 1, 0);
+    }
+
+    @Before
+    public void prepare() throws IOException {
+        prepareWriting();
+        prepareReading();
+
+        boolean[] columnIncluded = new boolean[fileSchema.getMaximumId() + 1];
+        Arrays.fill(columnIncluded, true);
+        encodings = StaticStripePlanner.buildEncodings(
+            encryption, columnIncluded, preheatFileMeta.getStripeFooter(stripeId)
+        );
+    }
+
+    private void prepareWriting() throws IOException {
+        TypeDescription schema = TypeDescription.createStruct()
+            .addField("f1", TypeDescription.createString())
+            .addField("f2", TypeDescription.createString());
+
+        try (Writer writer = OrcFile.createWriter(filePath,
+            OrcFile.writerOptions(configuration)
+                .fileSystem(fileSystem)
+                .overwrite(true)
+                .rowIndexStride(DEFAULT_INDEX_STRIDE)
+                .setSchema(schema))) {
+
+            VectorizedRowBatch batch = schema.createRowBatch(1000);
+            BytesColumnVector f1 = (BytesColumnVector) batch.cols[0];
+            BytesColumnVector f2 = (BytesColumnVector) batch.cols[1];
+
+            for (int rowIndex = 0; rowIndex < ROW_COUNT; rowIndex++) {
+                int row = batch.size;
+                f1.setVal(row, nonNullValue(rowIndex).getBytes(StandardCharsets.UTF_8));
+
+                String nullableValue = nullableValue(rowIndex);
+                if (nullableValue == null) {
+                    f2.noNulls = false;
+                    f2.isNull[row] = true;
+                } else {
+                    f2.setVal(row, nullableValue.getBytes(StandardCharsets.UTF_8));
+                }
+
+                batch.size += 1;
+                if (batch.size == batch.getMaxSize()) {
+                    writer.addRowBatch(batch);
+                    batch.reset();
+                }
+            }
+            if (batch.size > 0) {
+                writer.addRowBatch(batch);
+                batch.reset();
+            }
+        }
+    }
+
+    private static String nonNullValue(int rowIndex) {
+        return "v" + (rowIndex % 10);
+    }
+
+    private static String nullableValue(int rowIndex) {
+        return rowIndex % 7 == 0 ? null : "n" + (rowIndex % 5);
+    }
+
+    @Test
+    public void testSliceDict() throws IOException {
+        doTestSelection(true);
+    }
+
+    @Test
+    public void testSliceData() throws IOException {
+        doTestSelection(false);
+    }
+
+    @Test
+    public void testPresentStreamSliceDict() throws IOException {
+        doTestPresentStream(true);
+    }
+
+    @Test
+    public void testPresentStreamSliceData() throws IOException {
+        doTestPresentStream(false);
+    }
+
+    private void doTestSelection(boolean enableSliceDict) throws IOException {
+        DictionaryVarcharColumnReader columnReader = createColumnReader(columnId, enableSliceDict);
+        // block loaders decode selected positions only even if ENABLE_SKIP_COMPRESSION_IN_ORC is off.
+        Assert.assertTrue(columnReader.supportSelectiveDecoding());
+        try {
+            // the selective reads must keep the stream position consistent with the following blocks.
+            columnReader.startAt(0, 0);
+            checkSelectiveRead(columnReader, 0, LEADING_SELECTION, enableSliceDict);
+            checkSelectiveRead(columnReader, BLOCK_SIZE, TRAILING_SELECTION, enableSliceDict);
+            checkSelectiveRead(columnReader, 2 * BLOCK_SIZE, SPARSE_SELECTION, enableSliceDict);
+            checkFullRead(columnReader, 3 * BLOCK_SIZE, enableSliceDict);
+
+            // start at the middle of row group.
+            columnReader.startAt(0, 7000);
+            checkSelectiveRead(columnReader, 7000, SPARSE_SELECTION, enableSliceDict);
+            checkFullRead(columnReader, 8000, enableSliceDict);
+
+            // start at another row group.
+            columnReader.startAt(1, 0);
+            checkSelectiveRead(columnReader, DEFAULT_INDEX_STRIDE, TRAILING_SELECTION, enableSliceDict);
+            checkSelectiveRead(columnReader, DEFAULT_INDEX_STRIDE + BLOCK_SIZE, LEADING_SELECTION,
+                enableSliceDict);
+            checkFullRead(columnReader, DEFAULT_INDEX_STRIDE + 2 * BLOCK_SIZE, enableSliceDict);
+        } finally {
+            columnReader.close();
+        }
+    }
+
+    private void doTestPresentStream(boolean enableSliceDict) throws IOException {
+        DictionaryVarcharColumnReader columnReader = createColumnReader(NULLABLE_COLUMN_ID, enableSliceDict);
+        try {
+            columnReader.startAt(0, 0);
+            int startPosition = 0;
+            for (int[] selection : new int[][] {LEADING_SELECTION, TRAILING_SELECTION, SPARSE_SELECTION}) {
+                SliceBlock block = allocateBlock(enableSliceDict);
+                int skipCount = columnReader.next(block, BLOCK_SIZE, selection, selection.length);
+
+                // all positions are read, including the unselected ones.
+                Assert.assertEquals(0, skipCount);
+                checkReadPosition(columnReader, startPosition);
+                for (int pos = 0; pos < BLOCK_SIZE; pos++) {
+                    checkValue(nullableValue(startPosition + pos), block, pos);
+                }
+                startPosition += BLOCK_SIZE;
+            }
+        } finally {
+            columnReader.close();
+        }
+    }
+
+    private void checkSelectiveRead(DictionaryVarcharColumnReader columnReader, int startPosition,
+                                    int[] selection, boolean enableSliceDict) throws IOException {
+        SliceBlock block = allocateBlock(enableSliceDict);
+        int skipCount = columnReader.next(block, BLOCK_SIZE, selection, selection.length);
+
+        Assert.assertEquals(BLOCK_SIZE - selection.length, skipCount);
+        checkReadPosition(columnReader, startPosition);
+        Assert.assertEquals(enableSliceDict, block.getDictionary() != null);
+        for (int selectedPos : selection) {
+            checkValue(nonNullValue(startPosition + selectedPos), block, selectedPos);
+        }
+    }
+
+    private void checkFullRead(DictionaryVarcharColumnReader columnReader, int startPosition,
+                               boolean enableSliceDict) throws IOException {
+        SliceBlock block = allocateBlock(enableSliceDict);
+        columnReader.next(block, BLOCK_SIZE);
+
+        checkReadPosition(columnReader, startPosition);
+        for (int pos = 0; pos < BLOCK_SIZE; pos++) {
+            checkValue(nonNullValue(startPosition + pos), block, pos);
+        }
+    }
+
+    /**
+     * The position in row group should be moved to the end of block, no matter how many positions are selected.
+     */
+    private static void checkReadPosition(DictionaryVarcharColumnReader columnReader, int startPosition) {
+        Assert.assertEquals(startPosition % DEFAULT_INDEX_STRIDE + BLOCK_SIZE, columnReader.lastPosition);
+    }
+
+    private static void checkValue(String expected, SliceBlock block, int position) {
+        if (expected == null) {
+            Assert.assertTrue("position = " + position, block.isNull(position));
+        } else {
+            Assert.assertFalse("position = " + position, block.isNull(position));
+            Assert.assertEquals("position = " + position, expected, block.getRegion(position).toStringUtf8());
+        }
+    }
+
+    private DictionaryVarcharColumnReader createColumnReader(int colId, boolean enableSliceDict) {
+        Assert.assertEquals(OrcProto.ColumnEncoding.Kind.DICTIONARY_V2, encodings[colId].getKind());
+
+        DictionaryVarcharColumnReader columnReader = new DictionaryVarcharColumnReader(
+            colId, false,
+            stripeLoader,
+            orcIndex,
+            null, encodings[colId], indexStride, false, enableSliceDict
+        );
+        columnReader.open(true, rowGroupIncluded);
+        return columnReader;
+    }
+
+    private static SliceBlock allocateBlock(boolean enableSliceDict) {
+        return new SliceBlock(new SliceType(), BLOCK_SIZE, false, enableSliceDict);
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.operator.util;
+
+import com.alibaba.polardbx.common.charset.CharsetName;
+import com.alibaba.polardbx.common.charset.CollationName;
+import com.alibaba.polardbx.executor.chunk.Chunk;
+import com.alibaba.polardbx.executor.chunk.DecimalBlock;
+import com.alibaba.polardbx.executor.chunk.LongBlock;
+import com.alibaba.polardbx.executor.utils.ExecUtils;
+import com.alibaba.polardbx.executor.utils.OrderByOption;
+import com.alibaba.polardbx.optimizer.core.datatype.DataType;
+import com.alibaba.polardbx.optimizer.core.datatype.DataTypes;
+import com.alibaba.polardbx.optimizer.core.datatype.DecimalType;
+import com.alibaba.polardbx.optimizer.core.datatype.VarcharType;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.ints.IntComparator;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+public class NormalizedSortKeysTest {
+
+    private static final List<DataType> TYPES =
+        ImmutableList.of(DataTypes.LongType, DataTypes.DoubleType, DataTypes.StringType);
+
+    @Test
+    public void testSingleKey() {
+        ChunksIndex chunksIndex = randomChunks(false);
+        for (boolean asc : new boolean[] {true, false}) {
+            List<OrderByOption> orderBys = ImmutableList.of(new OrderByOption(0, asc, false));
+            NormalizedSortKeys keys = NormalizedSortKeys.create(chunksIndex, orderBys, TYPES,
+                rowComparator(chunksIndex, orderBys, TYPES));
+            Assert.assertNotNull(keys);
+            assertSameOrder(chunksIndex, orderBys, TYPES, keys.sort());
+        }
+    }
+
+    @Test
+    public void testNullableMultiKey() {
+        ChunksIndex chunksIndex = randomChunks(true);
+        List<OrderByOption> orderBys = ImmutableList.of(
+            new OrderByOption(1, false, false), new OrderByOption(0, true, false));
+        NormalizedSortKeys keys = NormalizedSortKeys.create(chunksIndex, orderBys, TYPES,
+            rowComparator(chunksIndex, orderBys, TYPES));
+        Assert.assertNotNull(keys);
+        assertSameOrder(chunksIndex, orderBys, TYPES, keys.sort());
+    }
+
+    @Test
+    public void testUnsupportedType() {
+        ChunksIndex chunksIndex = randomChunks(false);
+        List<OrderByOption> orderBys = ImmutableList.of(
+            new OrderByOption(0, true, false), new OrderByOption(2, true, false));
+        Assert.assertNull(NormalizedSortKeys.create(chunksIndex, orderBys, TYPES,
+            rowComparator(chunksIndex, orderBys, TYPES)));
+    }
+
+    @Test
+    public void testDecimal64Key() {
+        DataType decimalType = new DecimalType(18, 2);
+        List<DataType> types = ImmutableList.of(decimalType, DataTypes.LongType);
+        Random random = new Random(42);
+        ChunksIndex chunksIndex = new ChunksIndex();
+        for (int c = 0; c < 3; c++) {
+            final int positionCount = 500;
+            boolean[] nulls = new boolean[positionCount];
+            long[] unscaled = new long[positionCount];
+            long[] longs = new long[positionCount];
+            for (int i = 0; i < positionCount; i++) {
+                nulls[i] = random.nextInt(10) == 0;
+                unscaled[i] = nulls[i] ? 0 : random.nextInt(20000) - 10000L;
+                longs[i] = random.nextInt(100);
+            }
+            chunksIndex.addChunk(new Chunk(
+                new DecimalBlock(decimalType, positionCount, true, nulls, unscaled),
+                LongBlock.wrap(longs)));
+        }
+
+        for (boolean asc : new boolean[] {true, false}) {
+            List<OrderByOption> orderBys = ImmutableList.of(
+                new OrderByOption(0, asc, false), new OrderByOption(1, true, false));
+            NormalizedSortKeys keys = NormalizedSortKeys.create(chunksIndex, orderBys, types,
+                rowComparator(chunksIndex, orderBys, types));
+            Assert.assertNotNull(keys);
+            assertSameOrder(chunksIndex, orderBys, types, keys.sort());
+        }
+    }
+
+    @Test
+    public void testStringKeys() {
+        List<DataType> types = ImmutableList.of(DataTypes.VarcharType, DataTypes.LongType);
+        Random random = new Random(42);
+        ChunksIndex chunksIndex = new ChunksIndex();
+        for (int c = 0; c < 3; c++) {
+            RowChunkBuilder builder = RowChunkBuilder.rowChunkBuilder(types);
+            for (int i = 0; i < 500; i++) {
+                builder.row(randomString(random, c > 0), (long) random.nextInt(10));
+            }
+            chunksIndex.addChunk(builder.build());
+        }
+
+        // 只含字符串列时走基数排序, 前缀相同的段再由行比较器排序
+        for (boolean asc : new boolean[] {true, false}) {
+            List<OrderByOption> orderBys = ImmutableList.of(new OrderByOption(0, asc, false));
+            NormalizedSortKeys keys = NormalizedSortKeys.create(chunksIndex, orderBys, types,
+                rowComparator(chunksIndex, orderBys, types));
+            Assert.assertNotNull(keys);
+            assertSameOrder(chunksIndex, orderBys, types, keys.sort());
+        }
+
+        List<OrderByOption> orderBys = ImmutableList.of(
+            new OrderByOption(0, false, false), new OrderByOption(1, true, false));
+        NormalizedSortKeys keys = NormalizedSortKeys.create(chunksIndex, orderBys, types,
+            rowComparator(chunksIndex, orderBys, types));
+        Assert.assertNotNull(keys);
+        assertSameOrder(chunksIndex, orderBys, types, keys.sort());
+    }
+
+    /**
+     * big5_chinese_ci 的 sort key 是原始字节, 'B' 的字节小于 'a' 但大小写不敏感的比较认为 'a' 在前, 不能用前缀排序
+     */
+    @Test
+    public void testRawBytesCollation() {
+        DataType big5Type = new VarcharType(CharsetName.BIG5, CollationName.BIG5_CHINESE_CI);
+        List<DataType> types = ImmutableList.of(big5Type, DataTypes.LongType);
+        Assert.assertTrue(big5Type.compare(Slices.utf8Slice("a"), Slices.utf8Slice("B")) < 0);
+
+        ChunksIndex chunksIndex = new ChunksIndex();
+        chunksIndex.addChunk(RowChunkBuilder.rowChunkBuilder(types)
+            .row(Slices.utf8Slice("B"), 1L)
+            .row(Slices.utf8Slice("a"), 2L)
+            .build());
+        List<OrderByOption> orderBys = ImmutableList.of(new OrderByOption(0, true, false));
+        Assert.assertNull(NormalizedSortKeys.create(chunksIndex, orderBys, types,
+            rowComparator(chunksIndex, orderBys, types)));
+    }
+
+    /**
+     * 大小写, 尾部空格与超过 8 字节的公共前缀都会产生前缀相同的键
+     */
+    private static Slice randomString(Random random, boolean withNull) {
+        if (withNull && random.nextInt(10) == 0) {
+            return null;
+        }
+        StringBuilder builder = new StringBuilder(random.nextBoolean() ? "common_prefix_" : "");
+        String alphabet = "aAbB zZ";
+        int length = random.nextInt(6);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return Slices.utf8Slice(builder.toString());
+    }
+
+    @Test
+    public void testTooManyKeys() {
+        Assert.assertTrue(NormalizedSortKeys.isEncodable(1000, 4));
+        // positionCount * width 超过 int 范围
+        Assert.assertFalse(NormalizedSortKeys.isEncodable(Integer.MAX_VALUE / 2, 3));
+        Assert.assertFalse(NormalizedSortKeys.isEncodable(Integer.MAX_VALUE, 1));
+    }
+
+    @Test
+    public void testRadixSort() {
+        long[] keys = {5L, -1L, 0L, Long.MIN_VALUE, 5L, 1L << 40};
+        int[] index = {0, 1, 2, 3, 4, 5};
+        NormalizedSortKeys.radixSort(keys, index);
+        // 按无符号比较且保持稳定
+        Assert.assertArrayEquals(new long[] {0L, 5L, 5L, 1L << 40, Long.MIN_VALUE, -1L}, keys);
+        Assert.assertArrayEquals(new int[] {2, 0, 4, 5, 3, 1}, index);
+    }
+
+    private static ChunksIndex randomChunks(boolean withNull) {
+        Random random = new Random(42);
+        ChunksIndex chunksIndex = new ChunksIndex();
+        for (int c = 0; c < 3; c++) {
+            RowChunkBuilder builder = RowChunkBuilder.rowChunkBuilder(TYPES);
+            for (int i = 0; i < 500; i++) {
+                Long longValue = withNull && random.nextInt(10) == 0 ? null : (long) random.nextInt(200) - 100;
+                Double doubleValue = withNull && random.nextInt(10) == 0 ? null : (double) random.nextInt(20) - 10.5;
+                builder.row(longValue, doubleValue, String.valueOf(i));
+            }
+            chunksIndex.addChunk(builder.build());
+        }
+        return chunksIndex;
+    }
+
+    private static void assertSameOrder(ChunksIndex chunksIndex, List<OrderByOption> orderBys, List<DataType> types,
+                                        int[] actual) {
+        int[] expected = new int[chunksIndex.getPositionCount()];
+        for (int i = 0; i < expected.length; i++) {
+            expected[i] = i;
+        }
+        IntArrays.quickSort(expected, (p1, p2) -> compare(chunksIndex, orderBys, types, p1, p2));
+        Assert.assertEquals(expected.length, actual.length);
+        for (int i = 0; i < expected.length; i++) {
+            Assert.assertEquals("position " + i, 0,
+                compare(chunksIndex, orderBys, types, expected[i], actual[i]));
+        }
+    }
+
+    private static IntComparator rowComparator(ChunksIndex chunksIndex, List<OrderByOption> orderBys,
+                                               List<DataType> types) {
+        return (p1, p2) -> compare(chunksIndex, orderBys, types, p1, p2);
+    }
+
+    private static int compare(ChunksIndex chunksIndex, List<OrderByOption> orderBys, List<DataType> types,
+                               int p1, int p2) {
+        for (OrderByOption orderBy : orderBys) {
+            Object o1 = chunksIndex.getObjectForCmp(orderBy.getIndex(), p1);
+            Object o2 = chunksIndex.getObjectForCmp(orderBy.getIndex(), p2);
+            if (o1 == null && o2 == null) {
+                continue;
+            }
+            int n = ExecUtils.comp(o1, o2, types.get(orderBy.getIndex()), orderBy.isAsc());
+            if (n != 0) {
+                return n;
+            }
+        }
+        return 0;
+    }
+}
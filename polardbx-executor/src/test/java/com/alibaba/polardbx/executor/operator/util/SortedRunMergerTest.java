@@ -0,0 +1,116 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.executor.operator.util;
+
+import com.alibaba.polardbx.executor.chunk.Chunk;
+import com.alibaba.polardbx.executor.utils.ExecUtils;
+import com.alibaba.polardbx.executor.utils.OrderByOption;
+import com.alibaba.polardbx.optimizer.context.ExecutionContext;
+import com.alibaba.polardbx.optimizer.core.datatype.DataType;
+import com.alibaba.polardbx.optimizer.core.datatype.DataTypes;
+import com.alibaba.polardbx.optimizer.core.row.Row;
+import com.google.common.collect.ImmutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+public class SortedRunMergerTest {
+
+    private static final List<DataType> TYPES = ImmutableList.of(DataTypes.LongType, DataTypes.StringType);
+
+    @Test
+    public void testMergeWithPrefix() {
+        for (boolean asc : new boolean[] {true, false}) {
+            checkMerge(ImmutableList.of(new OrderByOption(0, asc, false)), 5);
+        }
+    }
+
+    @Test
+    public void testMergeWithoutPrefix() {
+        checkMerge(ImmutableList.of(new OrderByOption(1, false, false), new OrderByOption(0, true, false)), 4);
+    }
+
+    @Test
+    public void testSingleRun() {
+        checkMerge(ImmutableList.of(new OrderByOption(0, true, false)), 1);
+    }
+
+    @Test
+    public void testDisjointRunsPassThrough() {
+        // run 之间值域不重叠时整块输出
+        Chunk first = new RowChunkBuilder(TYPES).row(1L, "a").row(2L, "b").build();
+        Chunk second = new RowChunkBuilder(TYPES).row(3L, "c").row(4L, "d").build();
+        List<Iterator<Chunk>> runs = ImmutableList.of(
+            ImmutableList.of(second).iterator(), ImmutableList.<Chunk>of().iterator(),
+            ImmutableList.of(first).iterator());
+        SortedRunMerger merger = new SortedRunMerger(
+            runs, ImmutableList.of(new OrderByOption(0, true, false)), TYPES, 1024, new ExecutionContext());
+        Assert.assertSame(first, merger.next());
+        Assert.assertSame(second, merger.next());
+        Assert.assertFalse(merger.hasNext());
+    }
+
+    private static void checkMerge(List<OrderByOption> orderBys, int runCount) {
+        Comparator<Row> comparator = ExecUtils.getComparator(orderBys, TYPES);
+        Random random = new Random(7);
+        List<Iterator<Chunk>> runs = new ArrayList<>();
+        List<Row> expected = new ArrayList<>();
+        for (int r = 0; r < runCount; r++) {
+            List<Row> rows = new ArrayList<>();
+            RowChunkBuilder source = new RowChunkBuilder(TYPES);
+            int rowCount = random.nextInt(300);
+            for (int i = 0; i < rowCount; i++) {
+                Long value = random.nextInt(8) == 0 ? null : (long) random.nextInt(100) - 50;
+                source.row(value, String.valueOf(random.nextInt(20)));
+            }
+            Chunk chunk = source.build();
+            for (int i = 0; i < chunk.getPositionCount(); i++) {
+                rows.add(chunk.rowAt(i));
+            }
+            rows.sort(comparator);
+            expected.addAll(rows);
+
+            // 每个 run 切分为多个小块
+            List<Chunk> chunks = new ArrayList<>();
+            for (int from = 0; from < rows.size(); from += 16) {
+                RowChunkBuilder builder = new RowChunkBuilder(TYPES);
+                for (Row row : rows.subList(from, Math.min(from + 16, rows.size()))) {
+                    builder.row(row.getObject(0), row.getObject(1));
+                }
+                chunks.add(builder.build());
+            }
+            runs.add(chunks.iterator());
+        }
+        expected.sort(comparator);
+
+        SortedRunMerger merger = new SortedRunMerger(runs, orderBys, TYPES, 50, new ExecutionContext());
+        int position = 0;
+        while (merger.hasNext()) {
+            Chunk chunk = merger.next();
+            for (int i = 0; i < chunk.getPositionCount(); i++) {
+                Assert.assertEquals("position " + position, 0,
+                    comparator.compare(expected.get(position++), chunk.rowAt(i)));
+            }
+        }
+        Assert.assertEquals(expected.size(), position);
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.sequence;
+
+import com.alibaba.polardbx.sequence.impl.BaseSequence;
+import com.alibaba.polardbx.sequence.impl.GroupSequence;
+import com.alibaba.polardbx.sequence.impl.GroupSequenceDao;
+import com.alibaba.polardbx.sequence.impl.NewSequence;
+import com.alibaba.polardbx.sequence.impl.NewSequenceDao;
+import com.alibaba.polardbx.sequence.impl.NewSequenceWithCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Throughput and latency of New Sequence without cache, New Sequence with CN cache and Group Sequence,
+ * against in-process DAOs which simulate the DN round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(256)
+public class SequenceCacheBenchmark {
+
+    private static final String SEQ_NAME = "bench_seq";
+
+    @Param({"new", "new_cached", "group"})
+    private String sequenceType;
+
+    @Param({"1", "10"})
+    private int batchSize;
+
+    @Param({"1000"})
+    private int cacheSize;
+
+    @Param({"200"})
+    private long rttMicros;
+
+    private BaseSequence sequence;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        switch (sequenceType) {
+        case "new":
+            NewSequence newSequence = new NewSequence(SEQ_NAME, new LocalNewSequenceDao(rttMicros), null);
+            newSequence.setGroupingEnabled(false);
+            sequence = newSequence;
+            break;
+        case "new_cached":
+            sequence = new NewSequenceWithCache(SEQ_NAME, cacheSize, new LocalNewSequenceDao(rttMicros), null);
+            break;
+        case "group":
+            GroupSequence groupSequence = new GroupSequence();
+            groupSequence.setName(SEQ_NAME);
+            groupSequence.setGroupSequenceDao(new LocalGroupSequenceDao(rttMicros, cacheSize));
+            sequence = groupSequence;
+            break;
+        default:
+            throw new IllegalArgumentException(sequenceType);
+        }
+    }
+
+    @Benchmark
+    public long nextValue() {
+        return sequence.nextValue(batchSize);
+    }
+
+    static class LocalNewSequenceDao extends NewSequenceDao {
+        private final AtomicLong value = new AtomicLong();
+        private final long rttNanos;
+
+        LocalNewSequenceDao(long rttMicros) {
+            this.rttNanos = TimeUnit.MICROSECONDS.toNanos(rttMicros);
+        }
+
+        @Override
+        public long nextValue(String name, int batchSize) {
+            final long max = value.addAndGet(batchSize);
+            LockSupport.parkNanos(rttNanos);
+            return max;
+        }
+    }
+
+    static class LocalGroupSequenceDao extends GroupSequenceDao {
+        private final AtomicLong value = new AtomicLong();
+        private final long rttNanos;
+
+        LocalGroupSequenceDao(long rttMicros, int step) {
+            this.rttNanos = TimeUnit.MICROSECONDS.toNanos(rttMicros);
+            this.step = step;
+        }
+
+        @Override
+        public SequenceRange nextRange(String name) {
+            final long max = value.addAndGet(step);
+            LockSupport.parkNanos(rttNanos);
+            return new SequenceRange(max - step + 1, max);
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(SequenceCacheBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
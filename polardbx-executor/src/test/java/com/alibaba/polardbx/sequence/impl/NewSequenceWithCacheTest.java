@@ -0,0 +1,154 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.sequence.impl;
+
+import com.alibaba.polardbx.sequence.exception.SequenceException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class NewSequenceWithCacheTest {
+
+    private static final String SEQ_NAME = "seq";
+    private static final int CACHE_SIZE = 10;
+
+    @Test
+    public void testNextRangeFromPrefetch() {
+        StubNewSequenceDao dao = new StubNewSequenceDao();
+        NewSequenceWithCache sequence = new NewSequenceWithCache(SEQ_NAME, CACHE_SIZE, dao, null);
+        for (long expected = 1; expected <= CACHE_SIZE * 10; expected++) {
+            Assert.assertEquals(expected, sequence.nextValue());
+        }
+        // 只有第一段由取值线程同步获取, 之后每段都来自预取
+        Assert.assertEquals(1, dao.syncCalls.get());
+        Assert.assertTrue(dao.prefetchCalls.get() >= 9);
+    }
+
+    @Test
+    public void testBatchAcrossPrefetchedRanges() {
+        StubNewSequenceDao dao = new StubNewSequenceDao();
+        NewSequenceWithCache sequence = new NewSequenceWithCache(SEQ_NAME, CACHE_SIZE, dao, null);
+        long last = 0;
+        for (int i = 0; i < 50; i++) {
+            long value = sequence.nextValue(3);
+            // 批量取值返回批内最大值, 同一段内不足一批时切换到下一段
+            Assert.assertTrue(value - 3 >= last);
+            last = value;
+        }
+        Assert.assertEquals(1, dao.syncCalls.get());
+    }
+
+    @Test
+    public void testFailedPrefetchFallsBackToSyncFetch() {
+        StubNewSequenceDao dao = new StubNewSequenceDao();
+        dao.failPrefetch = true;
+        NewSequenceWithCache sequence = new NewSequenceWithCache(SEQ_NAME, CACHE_SIZE, dao, null);
+        for (long expected = 1; expected <= CACHE_SIZE * 3; expected++) {
+            Assert.assertEquals(expected, sequence.nextValue());
+        }
+        Assert.assertEquals(3, dao.syncCalls.get());
+        Assert.assertTrue(dao.prefetchCalls.get() >= 2);
+    }
+
+    @Test
+    public void testExhaustDiscardsInFlightPrefetch() throws InterruptedException {
+        StubNewSequenceDao dao = new StubNewSequenceDao();
+        dao.prefetchStarted = new CountDownLatch(1);
+        dao.prefetchGate = new CountDownLatch(1);
+        NewSequenceWithCache sequence = new NewSequenceWithCache(SEQ_NAME, CACHE_SIZE, dao, null);
+        for (long expected = 1; expected <= CACHE_SIZE / 2; expected++) {
+            Assert.assertEquals(expected, sequence.nextValue());
+        }
+        // 预取已在 DN 上分配 [11, 20], 结果尚未返回时修改起始值
+        Assert.assertTrue(dao.prefetchStarted.await(10, TimeUnit.SECONDS));
+        dao.updateValue(SEQ_NAME, 100);
+        sequence.exhaustValue();
+        dao.prefetchGate.countDown();
+
+        Assert.assertEquals(101, sequence.nextValue());
+        Assert.assertEquals(2, dao.syncCalls.get());
+    }
+
+    @Test
+    public void testExhaustDiscardsCompletedPrefetch() throws InterruptedException {
+        StubNewSequenceDao dao = new StubNewSequenceDao();
+        dao.prefetchDone = new CountDownLatch(1);
+        NewSequenceWithCache sequence = new NewSequenceWithCache(SEQ_NAME, CACHE_SIZE, dao, null);
+        for (long expected = 1; expected <= CACHE_SIZE / 2; expected++) {
+            Assert.assertEquals(expected, sequence.nextValue());
+        }
+        Assert.assertTrue(dao.prefetchDone.await(10, TimeUnit.SECONDS));
+        dao.updateValue(SEQ_NAME, 100);
+        sequence.exhaustValue();
+
+        for (long expected = 101; expected <= 100 + CACHE_SIZE * 3; expected++) {
+            Assert.assertEquals(expected, sequence.nextValue());
+        }
+        Assert.assertEquals(2, dao.syncCalls.get());
+    }
+
+    /**
+     * 模拟 DN 上的 New Sequence, 区分取值线程的同步获取与预取线程的异步获取
+     */
+    private static class StubNewSequenceDao extends NewSequenceDao {
+        private final AtomicLong value = new AtomicLong(0);
+        private final AtomicInteger syncCalls = new AtomicInteger(0);
+        private final AtomicInteger prefetchCalls = new AtomicInteger(0);
+
+        private volatile boolean failPrefetch = false;
+        private volatile CountDownLatch prefetchStarted;
+        private volatile CountDownLatch prefetchGate;
+        private volatile CountDownLatch prefetchDone;
+
+        @Override
+        public long nextValue(String name, int batchSize) {
+            if (!Thread.currentThread().getName().startsWith("NewSeq-Prefetch")) {
+                syncCalls.incrementAndGet();
+                return value.addAndGet(batchSize);
+            }
+            prefetchCalls.incrementAndGet();
+            if (failPrefetch) {
+                throw new SequenceException("Failed to prefetch " + name);
+            }
+            long maxValue = value.addAndGet(batchSize);
+            CountDownLatch started = prefetchStarted;
+            CountDownLatch gate = prefetchGate;
+            if (started != null && gate != null) {
+                started.countDown();
+                try {
+                    gate.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            CountDownLatch done = prefetchDone;
+            if (done != null) {
+                done.countDown();
+            }
+            return maxValue;
+        }
+
+        @Override
+        public void updateValue(String name, long maxValue) {
+            value.accumulateAndGet(maxValue, Math::max);
+        }
+    }
+}
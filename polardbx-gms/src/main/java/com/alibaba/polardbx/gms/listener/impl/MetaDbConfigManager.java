@@ -19,6 +19,7 @@ package com.alibaba.polardbx.gms.listener.impl;
 import com.alibaba.polardbx.common.exception.TddlRuntimeException;
 import com.alibaba.polardbx.common.exception.code.ErrorCode;
 import com.alibaba.polardbx.common.model.lifecycle.AbstractLifecycle;
+import com.alibaba.polardbx.common.properties.DynamicConfig;
 import com.alibaba.polardbx.common.utils.GeneralUtil;
 import com.alibaba.polardbx.common.utils.logger.Logger;
 import com.alibaba.polardbx.common.utils.logger.LoggerFactory;
@@ -39,6 +40,7 @@ import com.alibaba.polardbx.gms.util.MetaDbLogUtil;
 
 import java.sql.Connection;
 import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Deque;
 import java.util.List;
@@ -52,8 +54,12 @@ import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -70,6 +76,7 @@ public class MetaDbConfigManager extends AbstractLifecycle implements ConfigMana
     public final static int DEFAULT_NOTIFY_INTERVAL = 1000;
     public final static int DEFAULT_SCAN_INTERVAL = 1000;
     public final static int DEFAULT_CLEAN_INTERVAL = 10000;
+    public final static int DEFAULT_COMMIT_CHECK_INTERVAL = 50;
 
     // time interval for scaning the gmtModified of dataId, unit: min
     protected static int TIME_INTERVAL_FOR_SCAN_MODIFIED_DATA_ID = 120;
@@ -88,6 +95,28 @@ public class MetaDbConfigManager extends AbstractLifecycle implements ConfigMana
     protected final ScheduledExecutorService cleanTaskExecutor = Executors
         .newSingleThreadScheduledExecutor(new NamedThreadFactory("DataId-Scanner-Executor", true));
 
+    /**
+     * dataId -> 待推送给其他 CN 的最新 opVersion, 由推送线程批量发送
+     */
+    protected final Map<String, Long> pendingPushes = new ConcurrentHashMap<>();
+    protected final ScheduledExecutorService dataIdPushTaskExecutor = Executors
+        .newSingleThreadScheduledExecutor(new NamedThreadFactory("DataId-Push-Executor", true));
+
+    /**
+     * dataId -> 事务内更新的 opVersion, 提交后(在 metaDb 中可见时)才推送; 等待期间扫描保持默认频率
+     */
+    protected final Map<String, UncommittedPush> uncommittedPushes = new ConcurrentHashMap<>();
+    protected final AtomicBoolean commitCheckScheduled = new AtomicBoolean(false);
+
+    /**
+     * 唤醒 Notifier, 推送到达或监听任务完成时无需等待下一个通知周期
+     */
+    protected final Semaphore notifySignal = new Semaphore(0);
+
+    protected final AtomicLong pushApplyCount = new AtomicLong();
+    protected final AtomicLong pushApplyTotalLatencyMs = new AtomicLong();
+    protected final LongAccumulator pushApplyMaxLatencyMs = new LongAccumulator(Long::max, 0);
+
     protected int listenerTaskExecutorPoolSize = 4;
     protected ThreadPoolExecutor listenerTaskExecutor =
         ExecutorUtil.createExecutor("ListenerTaskExecutor", listenerTaskExecutorPoolSize);
@@ -121,11 +150,30 @@ public class MetaDbConfigManager extends AbstractLifecycle implements ConfigMana
         protected String dataId;
         protected long opVersion;
         protected Timestamp changeTimestamp;
+        /**
+         * 推送发出的时间, 扫描得到的事件为 0
+         */
+        protected long pushTimeMillis;
 
         public OpVersionChangeEvent(String dataId, long opVersion, Timestamp changeTimestamp) {
+            this(dataId, opVersion, changeTimestamp, 0);
+        }
+
+        public OpVersionChangeEvent(String dataId, long opVersion, Timestamp changeTimestamp, long pushTimeMillis) {
             this.dataId = dataId;
             this.opVersion = opVersion;
             this.changeTimestamp = changeTimestamp;
+            this.pushTimeMillis = pushTimeMillis;
+        }
+    }
+
+    protected static class UncommittedPush {
+        protected final long opVersion;
+        protected final long deadlineMillis;
+
+        public UncommittedPush(long opVersion, long deadlineMillis) {
+            this.opVersion = opVersion;
+            this.deadlineMillis = deadlineMillis;
         }
     }
 
@@ -143,6 +191,14 @@ public class MetaDbConfigManager extends AbstractLifecycle implements ConfigMana
         }
 
         protected void runInner() {
+            if (manager.lastScanTimestamp != null && DynamicConfig.getInstance().isEnableMetaDbConfigPush()
+                && manager.uncommittedPushes.isEmpty()) {
+                // 开启推送后扫描仅作为兜底, 降低扫描频率; 有未提交的事务内更新时保持默认频率
+                long elapsed = System.currentTimeMillis() - manager.lastScanTimestamp.getTime();
+                if (elapsed < DynamicConfig.getInstance().getMetaDbConfigScanIntervalWithPush()) {
+                    return;
+                }
+            }
             fetchOpVersionChangeEvents();
         }
 
@@ -176,36 +232,8 @@ public class MetaDbConfigManager extends AbstractLifecycle implements ConfigMana
 
                         Timestamp gmtModified = record.gmtModified;
                         DataIdContext dataIdContext = manager.dataIdContextMap.get(dataId);
-
-                        // Check if newOpVer has already exist in  dataIdInfo.changeEventQueue
-                        // if exists, should ignored
-                        synchronized (dataIdContext) {
-                            if (dataIdContext.currOpVersion < newOpVersion) {
-                                if (dataIdContext.dataIdListener != null) {
-                                    OpVersionChangeEvent lastChangeEvent = dataIdContext.changeEventQueue.peekLast();
-                                    int queueSize = dataIdContext.changeEventQueue.size();
-                                    boolean needAddNewEvent = true;
-                                    boolean lastEventOpVerHigherNewOpVer = lastChangeEvent == null ? false : lastChangeEvent.opVersion >= newOpVersion;
-                                    if (lastChangeEvent != null && lastEventOpVerHigherNewOpVer) {
-                                        needAddNewEvent = false;
-                                    }
-                                    if (needAddNewEvent) {
-                                        boolean needRemoveLastChangeEvent = false;
-                                        if (queueSize > 1 && !lastEventOpVerHigherNewOpVer) {
-                                            needRemoveLastChangeEvent = true;
-                                        }
-                                        if (needRemoveLastChangeEvent) {
-                                            /**
-                                             * remove the last event because new opVer is higher
-                                             */
-                                            dataIdContext.changeEventQueue.removeLast();
-                                        }
-                                        dataIdContext.changeEventQueue
-                                            .offerLast(new OpVersionChangeEvent(dataId, newOpVersion, gmtModified));
-                                    }
-                                }
-                            }
-                        }
+                        offerChangeEvent(dataIdContext,
+                            new OpVersionChangeEvent(dataId, newOpVersion, gmtModified));
                     }
                 }
                 manager.lastScanTimestamp = new Date();
@@ -216,6 +244,33 @@ public class MetaDbConfigManager extends AbstractLifecycle implements ConfigMana
         }
     }
 
+    /**
+     * Check if newOpVer has already exist in dataIdContext.changeEventQueue, if exists, should be ignored
+     */
+    protected static boolean offerChangeEvent(DataIdContext dataIdContext, OpVersionChangeEvent event) {
+        long newOpVersion = event.opVersion;
+        synchronized (dataIdContext) {
+            if (dataIdContext.currOpVersion >= newOpVersion || dataIdContext.dataIdListener == null) {
+                return false;
+            }
+            OpVersionChangeEvent lastChangeEvent = dataIdContext.changeEventQueue.peekLast();
+            int queueSize = dataIdContext.changeEventQueue.size();
+            boolean lastEventOpVerHigherNewOpVer =
+                lastChangeEvent == null ? false : lastChangeEvent.opVersion >= newOpVersion;
+            if (lastChangeEvent != null && lastEventOpVerHigherNewOpVer) {
+                return false;
+            }
+            if (queueSize > 1) {
+                /**
+                 * remove the last event because new opVer is higher
+                 */
+                dataIdContext.changeEventQueue.removeLast();
+            }
+            dataIdContext.changeEventQueue.offerLast(event);
+            return true;
+        }
+    }
+
     protected static class Notifier implements Runnable {
 
         MetaDbConfigManager manager;
@@ -260,7 +315,9 @@ public class MetaDbConfigManager extends AbstractLifecycle implements ConfigMana
                             dataIdInfo.listenerTaskFuture = null;
                         }
                     }
-                    Thread.sleep(DEFAULT_NOTIFY_INTERVAL);
+                    if (manager.notifySignal.tryAcquire(DEFAULT_NOTIFY_INTERVAL, TimeUnit.MILLISECONDS)) {
+                        manager.notifySignal.drainPermits();
+                    }
 
                 } catch (Throwable ex) {
                     logger.warn(ex);
@@ -292,8 +349,12 @@ public class MetaDbConfigManager extends AbstractLifecycle implements ConfigMana
                     synchronized (dataIdContext) {
                         dataIdContext.changeEventQueue.pollFirst();
                     }
+                    if (opVersionChangeEvent.pushTimeMillis > 0) {
+                        MetaDbConfigManager.getInstance().recordPushApplyLatency(dataId, opVersionToBeRefresh,
+                            System.currentTimeMillis() - opVersionChangeEvent.pushTimeMillis);
+                    }
                     completeListenTaskQueue.add(dataIdContext);
-
+                    MetaDbConfigManager.getInstance().notifySignal.release();
                 }
                 return result;
             } catch (Throwable ex) {
@@ -410,6 +471,12 @@ public class MetaDbConfigManager extends AbstractLifecycle implements ConfigMana
         }
 
         logger.info("dataid: " + dataId + " version updated to: " + opVer);
+        if (conn == null) {
+            pushOpVersion(dataId, opVer);
+        } else {
+            // 事务内的更新在提交前对其他 CN 不可见, 等提交后再推送
+            pushOpVersionAfterCommit(dataId, opVer);
+        }
         return opVer;
     }
 
@@ -424,10 +491,22 @@ public class MetaDbConfigManager extends AbstractLifecycle implements ConfigMana
             } catch (Throwable ex) {
                 throw GeneralUtil.nestedException(ex);
             }
+            for (String dataId : dataIds) {
+                // 新版本号由接收方从 metaDb 读取
+                pushOpVersion(dataId, -1L);
+            }
         } else {
             ConfigListenerAccessor configListenerAccessor = new ConfigListenerAccessor();
             configListenerAccessor.setConnection(conn);
             configListenerAccessor.updateMultipleOpVersion(dataIds, ignoreCntError);
+            if (DynamicConfig.getInstance().isEnableMetaDbConfigPush()) {
+                for (String dataId : dataIds) {
+                    ConfigListenerRecord record = configListenerAccessor.getDataId(dataId, false);
+                    if (record != null) {
+                        pushOpVersionAfterCommit(dataId, record.opVersion);
+                    }
+                }
+            }
         }
     }
 
@@ -443,6 +522,161 @@ public class MetaDbConfigManager extends AbstractLifecycle implements ConfigMana
         return;
     }
 
+    /**
+     * 异步将 dataId 的新版本推送给所有 CN, 推送失败时由兜底扫描保证最终生效
+     */
+    protected void pushOpVersion(String dataId, long opVersion) {
+        if (!DynamicConfig.getInstance().isEnableMetaDbConfigPush()) {
+            return;
+        }
+        pendingPushes.merge(dataId, opVersion, Math::max);
+        dataIdPushTaskExecutor.submit(this::flushPendingPushes);
+    }
+
+    /**
+     * 事务内更新的 dataId 由推送线程轮询 metaDb, 新版本可见(即事务已提交)后再推送;
+     * 超时仍不可见(事务回滚或长时间未提交)则放弃, 由扫描兜底
+     */
+    protected void pushOpVersionAfterCommit(String dataId, long opVersion) {
+        if (!DynamicConfig.getInstance().isEnableMetaDbConfigPush()) {
+            return;
+        }
+        long deadline =
+            System.currentTimeMillis() + DynamicConfig.getInstance().getMetaDbConfigScanIntervalWithPush();
+        uncommittedPushes.merge(dataId, new UncommittedPush(opVersion, deadline),
+            (oldVal, newVal) -> oldVal.opVersion >= newVal.opVersion ? oldVal : newVal);
+        scheduleCommitCheck();
+    }
+
+    protected void scheduleCommitCheck() {
+        if (commitCheckScheduled.compareAndSet(false, true)) {
+            dataIdPushTaskExecutor.schedule(this::checkCommittedPushes, DEFAULT_COMMIT_CHECK_INTERVAL,
+                TimeUnit.MILLISECONDS);
+        }
+    }
+
+    protected void checkCommittedPushes() {
+        commitCheckScheduled.set(false);
+        try (Connection metaDbConn = MetaDbDataSource.getInstance().getConnection()) {
+            ConfigListenerAccessor configListenerAccessor = new ConfigListenerAccessor();
+            configListenerAccessor.setConnection(metaDbConn);
+            long now = System.currentTimeMillis();
+            for (Map.Entry<String, UncommittedPush> entry : new ArrayList<>(uncommittedPushes.entrySet())) {
+                String dataId = entry.getKey();
+                UncommittedPush push = entry.getValue();
+                ConfigListenerRecord record = configListenerAccessor.getDataId(dataId, false);
+                if (record != null && record.opVersion >= push.opVersion) {
+                    uncommittedPushes.remove(dataId, push);
+                    pushOpVersion(dataId, record.opVersion);
+                } else if (now > push.deadlineMillis) {
+                    uncommittedPushes.remove(dataId, push);
+                }
+            }
+        } catch (Throwable ex) {
+            MetaDbLogUtil.META_DB_LOG.warn("Failed to check committed op versions, wait for scanning", ex);
+            long now = System.currentTimeMillis();
+            uncommittedPushes.values().removeIf(push -> now > push.deadlineMillis);
+        }
+        if (!uncommittedPushes.isEmpty()) {
+            scheduleCommitCheck();
+        }
+    }
+
+    protected void flushPendingPushes() {
+        List<String> dataIds = new ArrayList<>();
+        List<Long> opVersions = new ArrayList<>();
+        for (String dataId : new ArrayList<>(pendingPushes.keySet())) {
+            Long opVersion = pendingPushes.remove(dataId);
+            if (opVersion != null) {
+                dataIds.add(dataId);
+                opVersions.add(opVersion);
+            }
+        }
+        if (dataIds.isEmpty()) {
+            return;
+        }
+        try {
+            GmsSyncManagerHelper.sync(new MetaDbConfigPushAction(dataIds, opVersions, System.currentTimeMillis()),
+                SystemDbHelper.DEFAULT_DB_NAME, SyncScope.ALL);
+        } catch (Throwable ex) {
+            MetaDbLogUtil.META_DB_LOG.warn("Failed to push op versions of " + dataIds + ", wait for scanning", ex);
+        }
+    }
+
+    /**
+     * 接收其他 CN 推送的新版本, 加入变更队列并立即唤醒 Notifier
+     */
+    protected void onOpVersionsPushed(List<String> dataIds, List<Long> opVersions, long pushTimeMillis) {
+        boolean offered = false;
+        ConfigListenerAccessor configListenerAccessor = null;
+        Connection metaDbConn = null;
+        try {
+            for (int i = 0; i < dataIds.size(); i++) {
+                String dataId = MetaDbDataIdBuilder.formatDataId(dataIds.get(i));
+                DataIdContext dataIdContext = dataIdContextMap.get(dataId);
+                if (dataIdContext == null) {
+                    continue;
+                }
+                long opVersion = opVersions.get(i);
+                if (opVersion < 0) {
+                    if (configListenerAccessor == null) {
+                        metaDbConn = MetaDbDataSource.getInstance().getConnection();
+                        configListenerAccessor = new ConfigListenerAccessor();
+                        configListenerAccessor.setConnection(metaDbConn);
+                    }
+                    ConfigListenerRecord record = configListenerAccessor.getDataId(dataId, false);
+                    if (record == null) {
+                        continue;
+                    }
+                    opVersion = record.opVersion;
+                }
+                offered |= offerChangeEvent(dataIdContext,
+                    new OpVersionChangeEvent(dataId, opVersion, null, pushTimeMillis));
+            }
+        } catch (Throwable ex) {
+            throw GeneralUtil.nestedException(ex);
+        } finally {
+            if (metaDbConn != null) {
+                try {
+                    metaDbConn.close();
+                } catch (Throwable ex) {
+                    MetaDbLogUtil.META_DB_LOG.warn(ex);
+                }
+            }
+            if (offered) {
+                notifySignal.release();
+            }
+        }
+    }
+
+    protected void recordPushApplyLatency(String dataId, long opVersion, long latencyMs) {
+        pushApplyCount.incrementAndGet();
+        pushApplyTotalLatencyMs.addAndGet(latencyMs);
+        pushApplyMaxLatencyMs.accumulate(latencyMs);
+        MetaDbLogUtil.META_DB_DYNAMIC_CONFIG.info(
+            String.format("[MetaDB Config Push] DataId[%s]-Version[%s]-[notifyToApply: %d ms]", dataId, opVersion,
+                latencyMs));
+    }
+
+    /**
+     * 推送生效的次数
+     */
+    public long getPushApplyCount() {
+        return pushApplyCount.get();
+    }
+
+    /**
+     * 推送从发出到监听器执行完成的平均延迟, 单位 ms
+     */
+    public long getPushApplyAvgLatencyMs() {
+        long count = pushApplyCount.get();
+        return count == 0 ? 0 : pushApplyTotalLatencyMs.get() / count;
+    }
+
+    public long getPushApplyMaxLatencyMs() {
+        return pushApplyMaxLatencyMs.get();
+    }
+
     protected ConfigListenerRecord addDataIdInfoIntoDb(String dataId, Connection metaDbConn) {
         try {
             ConfigListenerRecord dataIdInfo = null;
@@ -606,6 +840,52 @@ public class MetaDbConfigManager extends AbstractLifecycle implements ConfigMana
         }
     }
 
+    public static class MetaDbConfigPushAction implements IGmsSyncAction {
+
+        private List<String> dataIds;
+        private List<Long> opVersions;
+        private long pushTimeMillis;
+
+        public MetaDbConfigPushAction() {
+        }
+
+        public MetaDbConfigPushAction(List<String> dataIds, List<Long> opVersions, long pushTimeMillis) {
+            this.dataIds = dataIds;
+            this.opVersions = opVersions;
+            this.pushTimeMillis = pushTimeMillis;
+        }
+
+        @Override
+        public Object sync() {
+            MetaDbConfigManager.getInstance().onOpVersionsPushed(dataIds, opVersions, pushTimeMillis);
+            return null;
+        }
+
+        public List<String> getDataIds() {
+            return dataIds;
+        }
+
+        public void setDataIds(List<String> dataIds) {
+            this.dataIds = dataIds;
+        }
+
+        public List<Long> getOpVersions() {
+            return opVersions;
+        }
+
+        public void setOpVersions(List<Long> opVersions) {
+            this.opVersions = opVersions;
+        }
+
+        public long getPushTimeMillis() {
+            return pushTimeMillis;
+        }
+
+        public void setPushTimeMillis(long pushTimeMillis) {
+            this.pushTimeMillis = pushTimeMillis;
+        }
+    }
+
     public static class MetaDbConfigSyncUnbindAction implements IGmsSyncAction {
         private String dataId;
 
@@ -123,6 +123,7 @@ public class GmsSystemTables {
     public static final String SPM_BASELINE = "spm_baseline";
     public static final String PLAN_INFO = "plan_info";
     public static final String SPM_PLAN = "spm_plan";
+    public static final String PLAN_CACHE_SNAPSHOT = "plan_cache_snapshot";
 
     /**
      * CBO Statistics
@@ -309,6 +310,7 @@ public class GmsSystemTables {
         register(NDV_SKETCH_STATISTICS);
         register(PLAN_INFO);
         register(SPM_PLAN);
+        register(PLAN_CACHE_SNAPSHOT);
         register(RECYCLE_BIN);
         register(GLOBAL_TX_LOG);
         register(REDO_LOG);
@@ -0,0 +1,100 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.polardbx.gms.metadb.table;
+
+import com.alibaba.polardbx.common.exception.TddlRuntimeException;
+import com.alibaba.polardbx.common.exception.code.ErrorCode;
+import com.alibaba.polardbx.common.jdbc.ParameterContext;
+import com.alibaba.polardbx.common.jdbc.ParameterMethod;
+import com.alibaba.polardbx.gms.metadb.accessor.AbstractAccessor;
+import com.alibaba.polardbx.gms.topology.ServerInstIdManager;
+import com.alibaba.polardbx.gms.util.MetaDbUtil;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.alibaba.polardbx.gms.metadb.GmsSystemTables.PLAN_CACHE_SNAPSHOT;
+
+/**
+ * 热点 SQL 模板快照, 供 CN 启动时预热 plan cache; 只保存参数化 SQL 与参数类型, 不含参数取值
+ */
+public class PlanCacheSnapshotAccessor extends AbstractAccessor {
+
+    private static final String PLAN_CACHE_SNAPSHOT_TABLE = wrap(PLAN_CACHE_SNAPSHOT);
+
+    private static final String REPLACE_SNAPSHOT =
+        "REPLACE INTO " + PLAN_CACHE_SNAPSHOT_TABLE
+            + "(`INST_ID`, `SCHEMA_NAME`, `TEMPLATE_ID`, `SQL`, `PARAM_TYPES`, `AUTO_COMMIT`, `FOREIGN_KEY_CHECKS`, "
+            + "`SQL_MODE`, `CHARSET`, `HIT_COUNT`) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String LOAD_HOTTEST =
+        "SELECT `SCHEMA_NAME`, `TEMPLATE_ID`, `SQL`, `PARAM_TYPES`, `AUTO_COMMIT`, `FOREIGN_KEY_CHECKS`, "
+            + "`SQL_MODE`, `CHARSET`, `HIT_COUNT` FROM " + PLAN_CACHE_SNAPSHOT_TABLE
+            + " WHERE `INST_ID` = ? ORDER BY `HIT_COUNT` DESC LIMIT ?";
+
+    private static final String DELETE_EXPIRED =
+        "DELETE FROM " + PLAN_CACHE_SNAPSHOT_TABLE
+            + " WHERE `INST_ID` = ? AND `GMT_MODIFIED` < DATE_SUB(NOW(), INTERVAL ? SECOND)";
+
+    public void replace(List<PlanCacheSnapshotRecord> records) {
+        if (records.isEmpty()) {
+            return;
+        }
+        try {
+            String instId = ServerInstIdManager.getInstance().getInstId();
+            List<Map<Integer, ParameterContext>> paramsBatch = new ArrayList<>(records.size());
+            for (PlanCacheSnapshotRecord record : records) {
+                record.instId = instId;
+                paramsBatch.add(record.buildInsertParams());
+            }
+            MetaDbUtil.insert(REPLACE_SNAPSHOT, paramsBatch, connection);
+        } catch (Exception e) {
+            throw new TddlRuntimeException(ErrorCode.ERR_GMS_ACCESS_TO_SYSTEM_TABLE, e, "replace into",
+                PLAN_CACHE_SNAPSHOT_TABLE, e.getMessage());
+        }
+    }
+
+    public List<PlanCacheSnapshotRecord> loadHottest(int limit) {
+        try {
+            Map<Integer, ParameterContext> params = new HashMap<>(2);
+            MetaDbUtil.setParameter(1, params, ParameterMethod.setString,
+                ServerInstIdManager.getInstance().getInstId());
+            MetaDbUtil.setParameter(2, params, ParameterMethod.setInt, limit);
+            return MetaDbUtil.query(LOAD_HOTTEST, params, PlanCacheSnapshotRecord.class, connection);
+        } catch (Exception e) {
+            throw new TddlRuntimeException(ErrorCode.ERR_GMS_ACCESS_TO_SYSTEM_TABLE, e, "query",
+                PLAN_CACHE_SNAPSHOT_TABLE, e.getMessage());
+        }
+    }
+
+    /**
+     * 删除超过 expireSeconds 未被任何 CN 刷新的模板
+     */
+    public int deleteExpired(long expireSeconds) {
+        try {
+            Map<Integer, ParameterContext> params = new HashMap<>(2);
+            MetaDbUtil.setParameter(1, params, ParameterMethod.setString,
+                ServerInstIdManager.getInstance().getInstId());
+            MetaDbUtil.setParameter(2, params, ParameterMethod.setLong, expireSeconds);
+            return MetaDbUtil.delete(DELETE_EXPIRED, params, connection);
+        } catch (Exception e) {
+            throw new TddlRuntimeException(ErrorCode.ERR_GMS_ACCESS_TO_SYSTEM_TABLE, e, "delete from",
+                PLAN_CACHE_SNAPSHOT_TABLE, e.getMessage());
+        }
+    }
+}
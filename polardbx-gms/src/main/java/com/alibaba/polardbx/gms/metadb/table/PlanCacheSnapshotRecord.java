@@ -0,0 +1,79 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.polardbx.gms.metadb.table;
+
+import com.alibaba.polardbx.common.jdbc.ParameterContext;
+import com.alibaba.polardbx.common.jdbc.ParameterMethod;
+import com.alibaba.polardbx.gms.metadb.record.SystemTableRecord;
+import com.alibaba.polardbx.gms.util.MetaDbUtil;
+import lombok.Data;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Record wrapper for table: plan_cache_snapshot
+ */
+@Data
+public class PlanCacheSnapshotRecord implements SystemTableRecord {
+
+    public String instId;
+    public String schemaName;
+    public String templateId;
+    /**
+     * 参数化 SQL
+     */
+    public String sql;
+    public String paramTypes;
+    public boolean autoCommit;
+    public boolean foreignKeyChecks;
+    public String sqlMode;
+    public String charset;
+    public long hitCount;
+
+    @Override
+    public PlanCacheSnapshotRecord fill(ResultSet rs) throws SQLException {
+        this.schemaName = rs.getString("SCHEMA_NAME");
+        this.templateId = rs.getString("TEMPLATE_ID");
+        this.sql = rs.getString("SQL");
+        this.paramTypes = rs.getString("PARAM_TYPES");
+        this.autoCommit = rs.getBoolean("AUTO_COMMIT");
+        this.foreignKeyChecks = rs.getBoolean("FOREIGN_KEY_CHECKS");
+        this.sqlMode = rs.getString("SQL_MODE");
+        this.charset = rs.getString("CHARSET");
+        this.hitCount = rs.getLong("HIT_COUNT");
+        return this;
+    }
+
+    public Map<Integer, ParameterContext> buildInsertParams() {
+        Map<Integer, ParameterContext> params = new HashMap<>(16);
+        int index = 0;
+        MetaDbUtil.setParameter(++index, params, ParameterMethod.setString, this.instId);
+        MetaDbUtil.setParameter(++index, params, ParameterMethod.setString, this.schemaName);
+        MetaDbUtil.setParameter(++index, params, ParameterMethod.setString, this.templateId);
+        MetaDbUtil.setParameter(++index, params, ParameterMethod.setString, this.sql);
+        MetaDbUtil.setParameter(++index, params, ParameterMethod.setString, this.paramTypes);
+        MetaDbUtil.setParameter(++index, params, ParameterMethod.setBoolean, this.autoCommit);
+        MetaDbUtil.setParameter(++index, params, ParameterMethod.setBoolean, this.foreignKeyChecks);
+        MetaDbUtil.setParameter(++index, params, ParameterMethod.setString, this.sqlMode);
+        MetaDbUtil.setParameter(++index, params, ParameterMethod.setString, this.charset);
+        MetaDbUtil.setParameter(++index, params, ParameterMethod.setLong, this.hitCount);
+        // skip automatically updated column: create_time and update_time
+        return params;
+    }
+}
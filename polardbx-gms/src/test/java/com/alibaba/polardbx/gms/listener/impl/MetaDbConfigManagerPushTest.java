@@ -0,0 +1,92 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.gms.listener.impl;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MetaDbConfigManagerPushTest {
+
+    @Test
+    public void testScanKeepsDefaultIntervalWhileTrxPushPending() {
+        MetaDbConfigManager manager = new MetaDbConfigManager();
+        AtomicInteger fetchCount = new AtomicInteger();
+        MetaDbConfigManager.Scanner scanner = new MetaDbConfigManager.Scanner(manager) {
+            @Override
+            protected void fetchOpVersionChangeEvents() {
+                fetchCount.incrementAndGet();
+            }
+        };
+        manager.lastScanTimestamp = new Date();
+
+        // 推送开启且没有未提交的更新时, 扫描降频
+        scanner.runInner();
+        Assert.assertEquals(0, fetchCount.get());
+
+        manager.uncommittedPushes.put("test.data.id",
+            new MetaDbConfigManager.UncommittedPush(10, System.currentTimeMillis() + 10000));
+        scanner.runInner();
+        Assert.assertEquals(1, fetchCount.get());
+    }
+
+    @Test
+    public void testPushApplyLatencyStats() throws Exception {
+        MetaDbConfigManager manager = new MetaDbConfigManager();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 1; i <= 8; i++) {
+            final long latency = i * 10;
+            Thread t = new Thread(() -> {
+                for (int j = 0; j < 1000; j++) {
+                    manager.recordPushApplyLatency("test.data.id", j, latency);
+                }
+            });
+            threads.add(t);
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        Assert.assertEquals(8000, manager.getPushApplyCount());
+        Assert.assertEquals(45, manager.getPushApplyAvgLatencyMs());
+        Assert.assertEquals(80, manager.getPushApplyMaxLatencyMs());
+    }
+
+    @Test
+    public void testOfferChangeEventKeepsNewestVersion() {
+        MetaDbConfigManager.DataIdContext ctx = new MetaDbConfigManager.DataIdContext("test.data.id", 5, null);
+        // 没有监听器时忽略
+        Assert.assertFalse(MetaDbConfigManager.offerChangeEvent(ctx,
+            new MetaDbConfigManager.OpVersionChangeEvent("test.data.id", 6, null, 1)));
+
+        ctx.dataIdListener = (dataId, newOpVersion) -> {
+        };
+        Assert.assertFalse(MetaDbConfigManager.offerChangeEvent(ctx,
+            new MetaDbConfigManager.OpVersionChangeEvent("test.data.id", 5, null, 1)));
+        Assert.assertTrue(MetaDbConfigManager.offerChangeEvent(ctx,
+            new MetaDbConfigManager.OpVersionChangeEvent("test.data.id", 7, null, 1)));
+        // 推送和扫描得到相同版本时只保留一个事件
+        Assert.assertFalse(MetaDbConfigManager.offerChangeEvent(ctx,
+            new MetaDbConfigManager.OpVersionChangeEvent("test.data.id", 7, null)));
+        Assert.assertEquals(1, ctx.changeEventQueue.size());
+        Assert.assertEquals(7, ctx.changeEventQueue.peekLast().opVersion);
+    }
+}
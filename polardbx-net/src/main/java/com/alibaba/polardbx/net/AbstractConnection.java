@@ -166,6 +166,13 @@ public abstract class AbstractConnection implements NIOConnection {
         return processor.getBufferPool().allocate();
     }
 
+    /**
+     * 分配容量不小于 size 的缓存
+     */
+    public ByteBufferHolder allocate(int size) {
+        return processor.getBufferPool().allocate(size);
+    }
+
     /**
      * 回收缓存
      */
@@ -228,7 +235,7 @@ public abstract class AbstractConnection implements NIOConnection {
 
             int length = sslReadBuffer.remaining() > peek.readable() ? peek.readable() : sslReadBuffer.remaining();
 
-            sslReadBuffer.put(peek.array(), peek.readerIndex(), length);
+            sslReadBuffer.put(peek, peek.readerIndex(), length);
             peek.skipBytes(length);
             doRead(sslReadBuffer);
             if (!peek.isReadable()) {
@@ -711,10 +718,9 @@ public abstract class AbstractConnection implements NIOConnection {
             }
             int size = buffer.capacity() << 1;
             size = (size > maxPacketSize + packetHeaderSize) ? maxPacketSize + packetHeaderSize : size;
-            ByteBuffer newBuffer = ByteBuffer.allocate(size);
+            ByteBufferHolder newBufferHolder = allocate(size);
             buffer.position(offset);
-            newBuffer.put(buffer.getBuffer());
-            ByteBufferHolder newBufferHolder = new ByteBufferHolder(newBuffer);
+            newBufferHolder.getBuffer().put(buffer.getBuffer());
             newBufferHolder.setIndex(buffer.readerIndex(), buffer.writerIndex());
             // 回收扩容前的缓存块
             recycle(buffer);
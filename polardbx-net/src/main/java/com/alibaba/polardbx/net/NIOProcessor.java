@@ -39,6 +39,12 @@ public final class NIOProcessor {
     private static final int DEFAULT_BUFFER_SIZE = 1024 * 1024 * 16;
     private static final int DEFAULT_BUFFER_CHUNK_SIZE = 4096;
 
+    /**
+     * 使用堆外缓存, 避免 socket 读写时的额外拷贝
+     */
+    public static final String DIRECT_BUFFER_KEY = "polardbx.net.directBuffer";
+    private static final boolean DEFAULT_DIRECT_BUFFER = Boolean.parseBoolean(System.getProperty(DIRECT_BUFFER_KEY));
+
     private int index;
     private final String name;
     private final NIOReactor reactor;
@@ -62,7 +68,7 @@ public final class NIOProcessor {
         this.index = index;
         this.name = name;
         this.reactor = new NIOReactor(name);
-        this.bufferPool = new BufferPool(buffer, chunk);
+        this.bufferPool = new BufferPool(buffer, chunk, DEFAULT_DIRECT_BUFFER);
         // handler进行流控，出现单个schema或者ip链接过大时，拒绝链接
         this.handler = (handler > 0) ? ExecutorUtil.create(name + "-H", handler) : null;
         this.frontends = new ConcurrentHashMap<Long, FrontendConnection>();
@@ -73,7 +79,7 @@ public final class NIOProcessor {
         this.index = index;
         this.name = name;
         this.reactor = new NIOReactor(name);
-        this.bufferPool = new BufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_CHUNK_SIZE);
+        this.bufferPool = new BufferPool(DEFAULT_BUFFER_SIZE, DEFAULT_BUFFER_CHUNK_SIZE, DEFAULT_DIRECT_BUFFER);
         this.handler = handler;
         this.frontends = new ConcurrentHashMap<Long, FrontendConnection>();
         this.commands = new CommandCount();
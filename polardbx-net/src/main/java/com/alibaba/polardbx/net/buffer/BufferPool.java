@@ -16,104 +16,292 @@
 
 package com.alibaba.polardbx.net.buffer;
 
+import com.alibaba.polardbx.common.utils.logger.Logger;
+import com.alibaba.polardbx.common.utils.logger.LoggerFactory;
+
+import java.lang.ref.PhantomReference;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
+ * 按尺寸分级的缓存池, 尺寸依次为 chunkSize 的 1, 2, 4 ... 倍
+ * <p>
+ * 每级有一个共享队列, 第一级另有线程本地缓存, 超过最大等级的申请不入池且总是使用堆内存; 按采样对未回收的缓存做泄露检测
+ *
  * @author xianmao.hexm
  */
 public final class BufferPool {
 
+    private static final Logger logger = LoggerFactory.getLogger(BufferPool.class);
+
+    private static final int SIZE_CLASS_COUNT = 5;
+
+    /**
+     * 线程本地只缓存第一级, 避免大量业务线程各自囤积大块缓存
+     */
+    private static final int THREAD_CACHE_SIZE = 4;
+
+    /**
+     * 每 LEAK_SAMPLE_INTERVAL 次分配跟踪一次
+     */
+    private static final int LEAK_SAMPLE_INTERVAL = 128;
+
     private final int chunkSize;
-    private final ByteBuffer[] items;
-    private final ReentrantLock lock;
-    private int putIndex;
-    private int takeIndex;
-    private int count;
-    private volatile int newCount;
+    private final boolean direct;
+    private final SizeClass[] sizeClasses;
+    private final ThreadLocal<ThreadCache> threadCaches;
+    private final AtomicInteger newCount = new AtomicInteger();
+    private final AtomicLong inUseCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+    private final AtomicLong allocateCount = new AtomicLong();
+
+    private final ReferenceQueue<ByteBufferHolder> leakQueue = new ReferenceQueue<>();
+    private final Set<LeakTracker> leakTrackers = ConcurrentHashMap.newKeySet();
 
     public BufferPool(int bufferSize, int chunkSize) {
+        this(bufferSize, chunkSize, false);
+    }
+
+    public BufferPool(int bufferSize, int chunkSize, boolean direct) {
         this.chunkSize = chunkSize;
-        int capacity = bufferSize / chunkSize;
-        capacity = (bufferSize % chunkSize == 0) ? capacity : capacity + 1;
-        this.items = new ByteBuffer[capacity];
-        this.lock = new ReentrantLock();
-        for (int i = 0; i < capacity; i++) {
-            insert(create(chunkSize));
+        this.direct = direct;
+        this.sizeClasses = new SizeClass[SIZE_CLASS_COUNT];
+        for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+            int size = chunkSize << i;
+            // 第一级预分配全部容量, 其余等级各自最多缓存 bufferSize / 4 字节, 按需创建
+            int capacity = i == 0 ? bufferSize / chunkSize : bufferSize / 4 / size;
+            capacity = (i == 0 && bufferSize % chunkSize != 0) ? capacity + 1 : Math.max(capacity, 1);
+            sizeClasses[i] = new SizeClass(size, capacity);
         }
+        for (int i = 0; i < sizeClasses[0].items.length; i++) {
+            sizeClasses[0].offer(create(chunkSize));
+        }
+        this.threadCaches = ThreadLocal.withInitial(ThreadCache::new);
     }
 
     public int capacity() {
-        return items.length;
+        return sizeClasses[0].items.length;
     }
 
     public int size() {
-        return count;
+        return sizeClasses[0].count;
     }
 
     public int getNewCount() {
-        return newCount;
+        return newCount.get();
+    }
+
+    public boolean isDirect() {
+        return direct;
+    }
+
+    /**
+     * 已分配且尚未回收的缓存数
+     */
+    public long getInUseCount() {
+        return inUseCount.get();
+    }
+
+    /**
+     * 未回收即被 GC 的采样缓存数
+     */
+    public long getLeakCount() {
+        return leakCount.get();
+    }
+
+    /**
+     * 共享队列中空闲缓存的总字节数
+     */
+    public long getFreeBytes() {
+        long bytes = 0;
+        for (SizeClass sizeClass : sizeClasses) {
+            bytes += (long) sizeClass.count * sizeClass.size;
+        }
+        return bytes;
     }
 
     public ByteBufferHolder allocate() {
-        ByteBuffer node = null;
-        final ReentrantLock lock = this.lock;
-        lock.lock();
-        try {
-            node = (count == 0) ? null : extract();
-        } finally {
-            lock.unlock();
+        return allocate(chunkSize);
+    }
+
+    /**
+     * 分配容量不小于 size 的缓存
+     */
+    public ByteBufferHolder allocate(int size) {
+        int index = sizeClassIndex(size);
+        ByteBuffer node;
+        if (index < 0) {
+            // 超过最大等级的缓存不入池, 使用堆内存以便随 GC 及时释放, 避免堆外内存滞留
+            node = ByteBuffer.allocate(size);
+        } else {
+            node = index == 0 ? pollThreadCache() : null;
+            if (node == null) {
+                node = sizeClasses[index].poll();
+            }
+            if (node == null) {
+                newCount.incrementAndGet();
+                node = create(sizeClasses[index].size);
+            }
         }
-        if (node == null) {
-            ++newCount;
-            node = create(chunkSize);
+        ByteBufferHolder holder = new ByteBufferHolder(node);
+        holder.pooled = true;
+        inUseCount.incrementAndGet();
+        if (allocateCount.incrementAndGet() % LEAK_SAMPLE_INTERVAL == 0) {
+            trackLeak(holder);
         }
-        return new ByteBufferHolder(node);
+        return holder;
     }
 
     public void recycle(ByteBufferHolder bufferHolder) {
-        // 拒绝回收null和容量大于chunkSize的缓存
-        if (bufferHolder == null || bufferHolder.getBuffer() == null
-            || bufferHolder.getBuffer().capacity() > chunkSize) {
+        if (bufferHolder == null || bufferHolder.getBuffer() == null) {
             return;
         }
-        final ReentrantLock lock = this.lock;
-        lock.lock();
-        try {
-            ByteBuffer buffer = bufferHolder.getBuffer();
-            if (buffer != null) {
-                if (count != items.length) {
-                    buffer.clear();
-                    insert(buffer);
-                }
-                bufferHolder.setBuffer(null);
+        if (bufferHolder.pooled) {
+            bufferHolder.pooled = false;
+            inUseCount.decrementAndGet();
+        }
+        LeakTracker tracker = bufferHolder.leakTracker;
+        if (tracker != null) {
+            bufferHolder.leakTracker = null;
+            leakTrackers.remove(tracker);
+            tracker.clear();
+        }
+        // 拒绝回收与尺寸等级不符或类型不同的缓存
+        ByteBuffer buffer = bufferHolder.getBuffer();
+        int index = sizeClassIndex(buffer.capacity());
+        if (buffer.isDirect() != direct || index < 0 || sizeClasses[index].size != buffer.capacity()) {
+            return;
+        }
+        bufferHolder.setBuffer(null);
+        buffer.clear();
+        if (index != 0 || !offerThreadCache(buffer)) {
+            sizeClasses[index].offer(buffer);
+        }
+    }
+
+    private int sizeClassIndex(int size) {
+        for (int i = 0; i < SIZE_CLASS_COUNT; i++) {
+            if (size <= sizeClasses[i].size) {
+                return i;
             }
-        } finally {
-            lock.unlock();
         }
+        return -1;
     }
 
-    private void insert(ByteBuffer buffer) {
-        items[putIndex] = buffer;
-        putIndex = inc(putIndex);
-        ++count;
+    private ByteBuffer pollThreadCache() {
+        ThreadCache cache = threadCaches.get();
+        if (cache.count == 0) {
+            return null;
+        }
+        ByteBuffer buffer = cache.buffers[--cache.count];
+        cache.buffers[cache.count] = null;
+        return buffer;
     }
 
-    private ByteBuffer extract() {
-        final ByteBuffer[] items = this.items;
-        ByteBuffer item = items[takeIndex];
-        items[takeIndex] = null;
-        takeIndex = inc(takeIndex);
-        --count;
-        return item;
+    private boolean offerThreadCache(ByteBuffer buffer) {
+        ThreadCache cache = threadCaches.get();
+        if (cache.count >= THREAD_CACHE_SIZE) {
+            return false;
+        }
+        cache.buffers[cache.count++] = buffer;
+        return true;
     }
 
-    private int inc(int i) {
-        return (++i == items.length) ? 0 : i;
+    private void trackLeak(ByteBufferHolder holder) {
+        Reference<? extends ByteBufferHolder> ref;
+        while ((ref = leakQueue.poll()) != null) {
+            if (leakTrackers.remove(ref)) {
+                long leaks = leakCount.incrementAndGet();
+                logger.warn("ByteBufferHolder was garbage collected without recycle, allocated by "
+                    + ((LeakTracker) ref).threadName + ", total leaks: " + leaks);
+            }
+        }
+        LeakTracker tracker = new LeakTracker(holder, leakQueue, Thread.currentThread().getName());
+        leakTrackers.add(tracker);
+        holder.leakTracker = tracker;
     }
 
     private ByteBuffer create(int size) {
-        return ByteBuffer.allocate(size);
+        return direct ? ByteBuffer.allocateDirect(size) : ByteBuffer.allocate(size);
+    }
+
+    static final class LeakTracker extends PhantomReference<ByteBufferHolder> {
+
+        private final String threadName;
+
+        LeakTracker(ByteBufferHolder referent, ReferenceQueue<? super ByteBufferHolder> q, String threadName) {
+            super(referent, q);
+            this.threadName = threadName;
+        }
+    }
+
+    private static final class ThreadCache {
+
+        private final ByteBuffer[] buffers = new ByteBuffer[THREAD_CACHE_SIZE];
+        private int count;
+    }
+
+    private static final class SizeClass {
+
+        private final int size;
+        private final ByteBuffer[] items;
+        private final ReentrantLock lock;
+        private int putIndex;
+        private int takeIndex;
+        private int count;
+
+        SizeClass(int size, int capacity) {
+            this.size = size;
+            this.items = new ByteBuffer[capacity];
+            this.lock = new ReentrantLock();
+        }
+
+        ByteBuffer poll() {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                return (count == 0) ? null : extract();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void offer(ByteBuffer buffer) {
+            final ReentrantLock lock = this.lock;
+            lock.lock();
+            try {
+                if (count != items.length) {
+                    insert(buffer);
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void insert(ByteBuffer buffer) {
+            items[putIndex] = buffer;
+            putIndex = inc(putIndex);
+            ++count;
+        }
+
+        private ByteBuffer extract() {
+            final ByteBuffer[] items = this.items;
+            ByteBuffer item = items[takeIndex];
+            items[takeIndex] = null;
+            takeIndex = inc(takeIndex);
+            --count;
+            return item;
+        }
+
+        private int inc(int i) {
+            return (++i == items.length) ? 0 : i;
+        }
     }
 
 }
@@ -16,6 +16,7 @@
 
 package com.alibaba.polardbx.net.buffer;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.ByteBuffer;
 
 /**
@@ -35,6 +36,13 @@ public class ByteBufferHolder {
 
     private int maxCapacity;
 
+    /**
+     * 由 BufferPool 分配且尚未回收
+     */
+    boolean pooled;
+
+    BufferPool.LeakTracker leakTracker;
+
     public ByteBufferHolder(ByteBuffer buffer) {
         this.buffer = buffer;
         maxCapacity = buffer.capacity();
@@ -89,11 +97,41 @@ public class ByteBufferHolder {
     }
 
     public ByteBufferHolder put(ByteBufferHolder src) {
-        buffer.put(src.array(), src.readerIndex, src.writerIndex);
+        if (src.buffer.hasArray()) {
+            buffer.put(src.array(), src.readerIndex, src.writerIndex);
+        } else {
+            buffer.put(src.nioBuffer(src.readerIndex, src.writerIndex));
+        }
         this.writerIndex += src.readable();
         return this;
     }
 
+    /**
+     * 从 src 的 index 处拷贝 length 字节, 支持堆外缓存
+     */
+    public ByteBufferHolder put(ByteBufferHolder src, int index, int length) {
+        if (src.buffer.hasArray()) {
+            buffer.put(src.array(), index, length);
+        } else {
+            buffer.put(src.nioBuffer(index, length));
+        }
+        this.writerIndex += length;
+        return this;
+    }
+
+    /**
+     * 将 [0, length) 写入 out, 支持堆外缓存
+     */
+    public void writeTo(ByteArrayOutputStream out, int length) {
+        if (buffer.hasArray()) {
+            out.write(buffer.array(), buffer.arrayOffset(), length);
+        } else {
+            byte[] bytes = new byte[length];
+            ((ByteBuffer) buffer.duplicate().position(0)).get(bytes);
+            out.write(bytes, 0, length);
+        }
+    }
+
     public byte get(int index) {
         return buffer.get(index);
     }
@@ -157,13 +157,13 @@ public class CompressPacketByteBufferOutputProxy extends PacketByteBufferOutputP
         /* 临时原始拼接区 */
         ByteArrayOutputStream origOut = new ByteArrayOutputStream();
         for (ByteBufferHolder byteBuffer : waitForCompressQueue) {
-            origOut.write(byteBuffer.array(), 0, byteBuffer.position());
+            byteBuffer.writeTo(origOut, byteBuffer.position());
             byteBuffer.clear();
         }
         waitForCompressQueue.clear();
         waitForCompressContentLen = 0;
 
-        origOut.write(currentBuffer.array(), 0, currentBuffer.position());
+        currentBuffer.writeTo(origOut, currentBuffer.position());
         currentBuffer.clear();
 
         if (origOut.size() <= MIN_COMPRESS_LENGTH) {
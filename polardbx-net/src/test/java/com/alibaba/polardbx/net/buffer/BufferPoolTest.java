@@ -0,0 +1,83 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.net.buffer;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+public class BufferPoolTest {
+
+    @Test
+    public void testSizeClass() {
+        BufferPool pool = new BufferPool(64 * 1024, 4096, true);
+        Assert.assertEquals(16, pool.capacity());
+
+        ByteBufferHolder small = pool.allocate();
+        Assert.assertTrue(small.getBuffer().isDirect());
+        Assert.assertEquals(4096, small.capacity());
+
+        ByteBufferHolder medium = pool.allocate(5000);
+        Assert.assertEquals(8192, medium.capacity());
+
+        ByteBufferHolder large = pool.allocate(1024 * 1024);
+        Assert.assertEquals(1024 * 1024, large.capacity());
+        Assert.assertFalse(large.getBuffer().isDirect());
+        Assert.assertEquals(3, pool.getInUseCount());
+
+        pool.recycle(small);
+        pool.recycle(medium);
+        pool.recycle(large);
+        Assert.assertNull(small.getBuffer());
+        Assert.assertNull(medium.getBuffer());
+        Assert.assertEquals(0, pool.getInUseCount());
+    }
+
+    @Test
+    public void testReuse() {
+        BufferPool pool = new BufferPool(64 * 1024, 4096, false);
+        ByteBufferHolder holder = pool.allocate(6000);
+        ByteBuffer buffer = holder.getBuffer();
+        pool.recycle(holder);
+        Assert.assertSame(buffer, pool.allocate(7000).getBuffer());
+        Assert.assertEquals(1, pool.getNewCount());
+    }
+
+    @Test
+    public void testRejectForeignBuffer() {
+        BufferPool pool = new BufferPool(64 * 1024, 4096, true);
+        ByteBufferHolder heap = new ByteBufferHolder(ByteBuffer.allocate(4096));
+        pool.recycle(heap);
+        Assert.assertNotNull(heap.getBuffer());
+
+        pool.recycle(ByteBufferHolder.EMPTY);
+        Assert.assertNotNull(ByteBufferHolder.EMPTY.getBuffer());
+    }
+
+    @Test
+    public void testCopyFromDirect() {
+        BufferPool pool = new BufferPool(64 * 1024, 4096, true);
+        ByteBufferHolder src = pool.allocate();
+        src.put(new byte[] {1, 2, 3, 4}, 0, 4);
+        ByteBufferHolder dst = new ByteBufferHolder(ByteBuffer.allocate(16));
+        dst.put(src, 1, 2);
+        Assert.assertEquals(2, dst.writerIndex());
+        Assert.assertEquals(2, dst.get(0));
+        Assert.assertEquals(3, dst.get(1));
+    }
+}
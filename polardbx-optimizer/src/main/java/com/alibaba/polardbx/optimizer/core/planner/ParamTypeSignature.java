@@ -0,0 +1,137 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.optimizer.core.planner;
+
+import com.alibaba.polardbx.common.jdbc.ParameterContext;
+import com.alibaba.polardbx.common.jdbc.ParameterMethod;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SQL 模板参数的类型签名, 只记录类型不记录取值
+ * <p>
+ * 与 SqlParameterized 计算 type digest 的分类一致, 按签名构造同类型的占位参数即可得到相同的 plan cache key,
+ * 用于 plan cache 预热时在不保存用户数据的前提下重放参数化 SQL
+ */
+public class ParamTypeSignature {
+
+    private static final char NULL = 'N';
+    private static final char LONG = 'L';
+    private static final char BIG_INTEGER = 'U';
+    private static final char DECIMAL = 'D';
+    private static final char BYTES = 'B';
+    private static final char STRING = 'S';
+    private static final char LIST_BEGIN = '(';
+    private static final char LIST_END = ')';
+
+    /**
+     * @return null 表示参数无法用签名表示
+     */
+    public static String encode(List<Object> params) {
+        StringBuilder sb = new StringBuilder();
+        for (Object param : params) {
+            if (!encode(param, sb)) {
+                return null;
+            }
+        }
+        return sb.toString();
+    }
+
+    private static boolean encode(Object param, StringBuilder sb) {
+        if (param instanceof ParameterContext) {
+            param = ((ParameterContext) param).getValue();
+        }
+        if (param == null) {
+            sb.append(NULL);
+        } else if (param instanceof Integer || param instanceof Long) {
+            sb.append(LONG);
+        } else if (param instanceof BigInteger) {
+            sb.append(BIG_INTEGER);
+        } else if (param instanceof BigDecimal) {
+            sb.append(DECIMAL);
+        } else if (param instanceof byte[]) {
+            sb.append(BYTES);
+        } else if (param instanceof List) {
+            sb.append(LIST_BEGIN);
+            for (Object v : (List) param) {
+                if (v instanceof List || !encode(v, sb)) {
+                    return false;
+                }
+            }
+            sb.append(LIST_END);
+        } else {
+            sb.append(STRING);
+        }
+        return true;
+    }
+
+    /**
+     * 按签名构造同类型的占位参数, 下标从 1 开始
+     */
+    public static Map<Integer, ParameterContext> mockParams(String signature) {
+        Map<Integer, ParameterContext> params = new HashMap<>();
+        List<Object> list = null;
+        for (int i = 0; i < signature.length(); i++) {
+            char c = signature.charAt(i);
+            if (c == LIST_BEGIN) {
+                list = new ArrayList<>();
+                continue;
+            }
+            if (c == LIST_END) {
+                addParam(params, list);
+                list = null;
+                continue;
+            }
+            Object value = mockValue(c);
+            if (list != null) {
+                list.add(value);
+            } else {
+                addParam(params, value);
+            }
+        }
+        return params;
+    }
+
+    private static void addParam(Map<Integer, ParameterContext> params, Object value) {
+        int index = params.size() + 1;
+        params.put(index, new ParameterContext(ParameterMethod.setObject1, new Object[] {index, value}));
+    }
+
+    private static Object mockValue(char c) {
+        switch (c) {
+        case NULL:
+            return null;
+        case LONG:
+            return 0L;
+        case BIG_INTEGER:
+            return BigInteger.ZERO;
+        case DECIMAL:
+            return BigDecimal.ZERO;
+        case BYTES:
+            return new byte[0];
+        case STRING:
+            return "";
+        default:
+            throw new IllegalArgumentException("unknown param type signature: " + c);
+        }
+    }
+}
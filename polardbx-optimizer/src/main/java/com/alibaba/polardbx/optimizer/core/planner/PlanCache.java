@@ -56,7 +56,6 @@ import com.alibaba.polardbx.optimizer.statis.XplanStat;
 import com.alibaba.polardbx.optimizer.utils.CalciteUtils;
 import com.alibaba.polardbx.optimizer.utils.ForeignKeyUtils;
 import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.google.common.util.concurrent.UncheckedExecutionException;
@@ -77,12 +76,12 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.alibaba.polardbx.common.eventlogger.EventType.XPLAN_FEEDBACK_DISABLE;
 import static com.alibaba.polardbx.common.properties.ConnectionParams.ENABLE_ENCDB;
+import static com.alibaba.polardbx.common.properties.ConnectionParams.ENABLE_PLAN_CACHE_WARM_UP;
 import static com.alibaba.polardbx.common.properties.ConnectionParams.PLAN_CACHE_SIZE;
 
 /**
@@ -92,13 +91,15 @@ public final class PlanCache {
 
     private static final Logger logger = LoggerFactory.getLogger(PlanCache.class);
 
-    private Cache<CacheKey, ExecutionPlan> cache;
+    private final ShardedPlanCache cache;
 
     private static final int MAX_ERROR_COUNT = 16;
 
-    private long currentCapacity;
+    /**
+     * 只为不超过该长度的参数化 SQL 记录预热样本
+     */
+    private static final int MAX_SAMPLE_SQL_LENGTH = 4096;
 
-    private long planCacheExpireTime;
 
     private static final PlanCache pc = new PlanCache();
 
@@ -107,23 +108,11 @@ public final class PlanCache {
     }
 
     private PlanCache() {
-        this.currentCapacity = InstConfUtil.getInt(PLAN_CACHE_SIZE);
-        this.cache = buildCache(this.currentCapacity);
+        this(InstConfUtil.getInt(PLAN_CACHE_SIZE));
     }
 
     public PlanCache(long capacity) {
-        this.currentCapacity = capacity;
-        this.cache = buildCache(currentCapacity);
-    }
-
-    private Cache<CacheKey, ExecutionPlan> buildCache(long maxSize) {
-        planCacheExpireTime = DynamicConfig.getInstance().planCacheExpireTime(); // 12h
-        return CacheBuilder.newBuilder()
-            .recordStats()
-            .maximumSize(maxSize)
-            .expireAfterWrite(planCacheExpireTime, TimeUnit.MILLISECONDS)
-            .softValues()
-            .build();
+        this.cache = new ShardedPlanCache(capacity, DynamicConfig.getInstance().planCacheExpireTime()); // 12h
     }
 
     /**
@@ -250,6 +239,7 @@ public final class PlanCache {
                 Map<String, TableMeta> tableMetaSet =
                     PlanManagerUtil.getTableMetaSetByTableSet(tableSet, ec);
                 executionPlan.saveCacheState(tableSet, tablesVersion, cacheKey, tableMetaSet);
+                recordWarmUpSample(cacheKey, sqlParameterized, ec);
 
                 //get origin column names for encdb
                 if (InstConfUtil.getBool(ENABLE_ENCDB)) {
@@ -350,52 +340,11 @@ public final class PlanCache {
         if (StringUtils.isEmpty(schema) || StringUtils.isEmpty(table)) {
             return;
         }
-        schema = schema.toLowerCase();
-        table = table.toLowerCase();
-        for (Map.Entry<CacheKey, ExecutionPlan> entry : cache.asMap().entrySet()) {
-            CacheKey cacheKey = entry.getKey();
-            List<TableMeta> metas = cacheKey.getTableMetas();
-            if (metas == null || metas.isEmpty()) {
-                cache.invalidate(cacheKey);
-                continue;
-            }
-
-            for (TableMeta tm : metas) {
-                if (tm == null) {
-                    continue;
-                }
-                if (schema.equalsIgnoreCase(tm.getSchemaName()) && table.equalsIgnoreCase(tm.getTableName())) {
-                    cache.invalidate(cacheKey);
-                    break;
-                }
-            }
-        }
+        cache.invalidateByTable(schema, table);
     }
 
     public void invalidateBySchema(String schema) {
-        for (Map.Entry<CacheKey, ExecutionPlan> entry : cache.asMap().entrySet()) {
-            CacheKey cacheKey = entry.getKey();
-            if (cacheKey.getSchema().equalsIgnoreCase(schema)) {
-                cache.invalidate(cacheKey);
-            }
-
-            List<TableMeta> metas = cacheKey.getTableMetas();
-            if (metas == null || metas.isEmpty()) {
-                cache.invalidate(cacheKey);
-                continue;
-            }
-
-            // clear plan that which were crossing schema
-            for (TableMeta tm : metas) {
-                if (tm == null) {
-                    continue;
-                }
-                if (schema.equalsIgnoreCase(tm.getSchemaName())) {
-                    cache.invalidate(cacheKey);
-                    break;
-                }
-            }
-        }
+        cache.invalidateBySchema(schema);
     }
 
     /**
@@ -433,6 +382,23 @@ public final class PlanCache {
             ec.foreignKeyChecks());
     }
 
+    /**
+     * 计划加入缓存时记录预热所需的参数类型与会话设置, 不保留参数取值; 只在开启预热时记录,
+     * 命中缓存的查询不再计算. prepare 协议下参数类型要到执行时才确定
+     */
+    private static void recordWarmUpSample(CacheKey cacheKey, SqlParameterized sqlParameterized,
+                                           ExecutionContext ec) {
+        if (!InstConfUtil.getBool(ENABLE_PLAN_CACHE_WARM_UP)) {
+            return;
+        }
+        if (cacheKey.parameterizedSql.length() <= MAX_SAMPLE_SQL_LENGTH && !ec.isExecutingPreparedStmt()
+            && ec.getLoadDataContext() == null && sqlParameterized.getParameters() != null) {
+            cacheKey.sampleParamTypes = ParamTypeSignature.encode(sqlParameterized.getParameters());
+            cacheKey.sampleSqlMode = ec.getSqlMode();
+            cacheKey.sampleEncoding = ec.getEncoding();
+        }
+    }
+
     /**
      * invalidate plan cache by table
      */
@@ -473,6 +439,15 @@ public final class PlanCache {
 
         private final boolean foreignKeyChecks;
 
+        /**
+         * 生成该计划时的参数类型签名与会话设置, 用于 CN 启动时预热, 不参与比较; 签名为 null 表示不可重放
+         */
+        private String sampleParamTypes;
+
+        private String sampleSqlMode;
+
+        private String sampleEncoding;
+
         public CacheKey(String schema, String parameterizedSql, String versionInfo, List<TableMeta> metas,
                         boolean testing,
                         boolean autoCommit, boolean foreignKeyChecks) {
@@ -564,6 +539,26 @@ public final class PlanCache {
         public String getSchema() {
             return schema;
         }
+
+        public String getSampleParamTypes() {
+            return sampleParamTypes;
+        }
+
+        public String getSampleSqlMode() {
+            return sampleSqlMode;
+        }
+
+        public String getSampleEncoding() {
+            return sampleEncoding;
+        }
+
+        public boolean isAutoCommit() {
+            return autoCommit;
+        }
+
+        public boolean isForeignKeyChecks() {
+            return foreignKeyChecks;
+        }
     }
 
     /**
@@ -638,8 +633,7 @@ public final class PlanCache {
 
     /**
      * 调整cache的容量
-     * 创建一个新的cache并将原来的KV拷贝过来
-     * Key的过期时间需要重新计时
+     * 缩容时按淘汰优先级移除多余的计划, 不再重建cache
      */
     public Pair<CapacityInfo, CapacityInfo> resize(int newSize) {
         if (newSize < TddlConstants.MIN_OPTIMIZER_CACHE_SIZE) {
@@ -652,21 +646,10 @@ public final class PlanCache {
         }
         CapacityInfo oldInfo = getCurrentCapacityInfo(), newInfo;
         synchronized (this) {
-            if (newSize == this.currentCapacity) {
+            if (newSize == getCurrentCapacity()) {
                 return new Pair<>(oldInfo, oldInfo);
             }
-            Cache<CacheKey, ExecutionPlan> newCache = buildCache(newSize);
-            if (newSize > this.currentCapacity) {
-                // 扩容时把原先cache拷贝过来 缩容则只初始化空的cache
-                Map<CacheKey, ExecutionPlan> oldKVs = this.cache.asMap();
-                for (Map.Entry<CacheKey, ExecutionPlan> entry : oldKVs.entrySet()) {
-                    newCache.put(entry.getKey(), entry.getValue());
-                }
-            }
-            Cache<CacheKey, ExecutionPlan> oldCache = this.cache;
-            this.cache = newCache;
-            this.currentCapacity = newSize;
-            oldCache.invalidateAll();
+            cache.resize(newSize, DynamicConfig.getInstance().planCacheExpireTime());
             newInfo = getCurrentCapacityInfo();
         }
         return new Pair<>(oldInfo, newInfo);
@@ -718,11 +701,34 @@ public final class PlanCache {
     }
 
     public long getCurrentCapacity() {
-        return currentCapacity;
+        return cache.getCapacity();
     }
 
     public long getPlanCacheExpireTime() {
-        return planCacheExpireTime;
+        return cache.getExpireAfterWriteMillis();
+    }
+
+    /**
+     * schema -> [hit, miss, evict]
+     */
+    public Map<String, long[]> getSchemaStats() {
+        return cache.getSchemaStats();
+    }
+
+    /**
+     * 命中次数最多的 limit 个可重放的模板
+     */
+    public List<Pair<CacheKey, Long>> getHotTemplates(int limit) {
+        List<Pair<CacheKey, Long>> templates = new ArrayList<>();
+        for (Map.Entry<CacheKey, ExecutionPlan> entry : cache.asMap().entrySet()) {
+            if (entry.getValue() == PlaceHolderExecutionPlan.INSTANCE || entry.getKey().getSampleParamTypes() == null
+                || entry.getKey().testing) {
+                continue;
+            }
+            templates.add(new Pair<>(entry.getKey(), entry.getValue().getHitCount().get()));
+        }
+        templates.sort((a, b) -> Long.compare(b.getValue(), a.getValue()));
+        return templates.size() > limit ? new ArrayList<>(templates.subList(0, limit)) : templates;
     }
 
     public long getCacheKeyCountForSelect() {
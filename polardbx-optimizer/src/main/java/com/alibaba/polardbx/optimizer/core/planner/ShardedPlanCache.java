@@ -0,0 +1,611 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.polardbx.optimizer.core.planner;
+
+import com.alibaba.polardbx.optimizer.config.table.TableMeta;
+import com.alibaba.polardbx.optimizer.core.planner.PlanCache.CacheKey;
+import com.google.common.cache.AbstractCache;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.collect.ForwardingConcurrentMap;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.apache.calcite.rel.RelNode;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分片的执行计划缓存
+ * <p>
+ * 读路径只访问所在分片的 ConcurrentHashMap, 不加锁; 淘汰按 GreedyDual 策略, 优先级为
+ * 分片膨胀值 + 重建代价(加载耗时 / 计划内存), 生成代价高的计划可以在大量一次性 SQL 冲刷下存活.
+ * 按表和库维护 key 索引, 失效只访问受影响的计划
+ */
+public final class ShardedPlanCache extends AbstractCache<CacheKey, ExecutionPlan> {
+
+    private static final int SHARD_COUNT = 16;
+
+    /**
+     * 每次淘汰至少移除分片内 1/8 的计划, 摊薄排序开销
+     */
+    private static final int EVICT_BATCH_SHIFT = 3;
+
+    /**
+     * 未测量加载耗时的计划(如 putCachePlan)按 1ms 计
+     */
+    private static final long DEFAULT_LOAD_NANOS = 1_000_000L;
+
+    private static final long REL_NODE_BYTES = 1024;
+
+    private static final String NO_TABLE = "";
+
+    private final Shard[] shards;
+    private final AtomicLong size = new AtomicLong();
+    private volatile long capacity;
+    private volatile long expireAfterWriteMillis;
+
+    private final ConcurrentMap<CacheKey, CompletableFuture<ExecutionPlan>> loadings = new ConcurrentHashMap<>();
+
+    /**
+     * schema.table -> 引用该表的计划, 未引用任何表的计划记在 NO_TABLE 下
+     */
+    private final ConcurrentMap<String, Set<CacheKey>> tableIndex = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<CacheKey>> schemaIndex = new ConcurrentHashMap<>();
+
+    private final StatsCounter statsCounter = new SimpleStatsCounter();
+    private final ConcurrentMap<String, SchemaStats> schemaStats = new ConcurrentHashMap<>();
+
+    public ShardedPlanCache(long capacity, long expireAfterWriteMillis) {
+        this.capacity = capacity;
+        this.expireAfterWriteMillis = expireAfterWriteMillis;
+        this.shards = new Shard[SHARD_COUNT];
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new Shard();
+        }
+    }
+
+    @Override
+    public ExecutionPlan getIfPresent(Object key) {
+        if (!(key instanceof CacheKey)) {
+            return null;
+        }
+        CacheKey cacheKey = (CacheKey) key;
+        ExecutionPlan plan = lookup(cacheKey);
+        SchemaStats stats = schemaStats(cacheKey.getSchema());
+        if (plan == null) {
+            statsCounter.recordMisses(1);
+            stats.missCount.increment();
+        } else {
+            statsCounter.recordHits(1);
+            stats.hitCount.increment();
+        }
+        return plan;
+    }
+
+    /**
+     * 同一个 key 只有一个线程执行 loader, 其余线程等待其结果; 异常的包装方式与 guava LocalCache 一致
+     */
+    @Override
+    public ExecutionPlan get(CacheKey key, Callable<? extends ExecutionPlan> loader) throws ExecutionException {
+        ExecutionPlan plan = getIfPresent(key);
+        if (plan != null) {
+            return plan;
+        }
+        CompletableFuture<ExecutionPlan> future = new CompletableFuture<>();
+        CompletableFuture<ExecutionPlan> loading = loadings.putIfAbsent(key, future);
+        if (loading != null) {
+            return waitForLoading(loading);
+        }
+        long startNanos = System.nanoTime();
+        try {
+            // 抢到加载权之前可能已有其他线程完成加载
+            plan = lookup(key);
+            if (plan == null) {
+                plan = loader.call();
+                if (plan == null) {
+                    throw new CacheLoader.InvalidCacheLoadException("loader returned null for key " + key);
+                }
+                long loadNanos = System.nanoTime() - startNanos;
+                statsCounter.recordLoadSuccess(loadNanos);
+                putInternal(key, plan, loadNanos);
+            }
+            future.complete(plan);
+            return plan;
+        } catch (Throwable t) {
+            statsCounter.recordLoadException(System.nanoTime() - startNanos);
+            future.completeExceptionally(t);
+            throw wrapLoadException(t);
+        } finally {
+            loadings.remove(key, future);
+        }
+    }
+
+    @Override
+    public void put(CacheKey key, ExecutionPlan value) {
+        putInternal(key, value, DEFAULT_LOAD_NANOS);
+    }
+
+    @Override
+    public void invalidate(Object key) {
+        if (key instanceof CacheKey) {
+            CacheKey cacheKey = (CacheKey) key;
+            Node node = shardOf(cacheKey).map.remove(cacheKey);
+            if (node != null) {
+                onRemoved(node);
+            }
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        for (Shard shard : shards) {
+            for (Node node : shard.map.values()) {
+                if (shard.map.remove(node.key, node)) {
+                    onRemoved(node);
+                }
+            }
+        }
+    }
+
+    /**
+     * 失效引用了 schema.table 的计划以及未引用任何表的计划
+     */
+    public void invalidateByTable(String schema, String table) {
+        invalidateIndexed(tableIndex.get(tableIndexKey(schema, table)));
+        invalidateIndexed(tableIndex.get(NO_TABLE));
+    }
+
+    /**
+     * 失效属于该库或引用了该库中表的计划, 以及未引用任何表的计划
+     */
+    public void invalidateBySchema(String schema) {
+        invalidateIndexed(schemaIndex.get(schema.toLowerCase(Locale.ROOT)));
+        invalidateIndexed(tableIndex.get(NO_TABLE));
+    }
+
+    @Override
+    public long size() {
+        return size.get();
+    }
+
+    @Override
+    public CacheStats stats() {
+        return statsCounter.snapshot();
+    }
+
+    /**
+     * 当前所有有效计划的只读快照, 不是缓存的视图, 任何修改都抛出 UnsupportedOperationException
+     */
+    @Override
+    public ConcurrentMap<CacheKey, ExecutionPlan> asMap() {
+        ConcurrentMap<CacheKey, ExecutionPlan> snapshot = new ConcurrentHashMap<>();
+        long now = System.currentTimeMillis();
+        for (Shard shard : shards) {
+            for (Node node : shard.map.values()) {
+                ExecutionPlan plan = node.planRef.get();
+                if (plan != null && !node.isExpired(now, expireAfterWriteMillis)) {
+                    snapshot.put(node.key, plan);
+                }
+            }
+        }
+        return new ReadOnlyConcurrentMap<>(snapshot);
+    }
+
+    @Override
+    public void cleanUp() {
+        long now = System.currentTimeMillis();
+        for (Shard shard : shards) {
+            for (Node node : shard.map.values()) {
+                if (node.planRef.get() == null || node.isExpired(now, expireAfterWriteMillis)) {
+                    if (shard.map.remove(node.key, node)) {
+                        onRemoved(node);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 调整容量, 缩容时按优先级淘汰到新容量以内, 不需要重建缓存
+     */
+    public void resize(long newCapacity, long newExpireAfterWriteMillis) {
+        this.capacity = newCapacity;
+        this.expireAfterWriteMillis = newExpireAfterWriteMillis;
+        cleanUp();
+        while (size.get() > newCapacity) {
+            if (!evict(largestShard(), true)) {
+                break;
+            }
+        }
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    public long getExpireAfterWriteMillis() {
+        return expireAfterWriteMillis;
+    }
+
+    /**
+     * schema -> [hit, miss, evict]
+     */
+    public Map<String, long[]> getSchemaStats() {
+        Map<String, long[]> result = new HashMap<>();
+        for (Map.Entry<String, SchemaStats> entry : schemaStats.entrySet()) {
+            SchemaStats stats = entry.getValue();
+            result.put(entry.getKey(), new long[] {
+                stats.hitCount.sum(), stats.missCount.sum(), stats.evictionCount.sum()});
+        }
+        return result;
+    }
+
+    private ExecutionPlan lookup(CacheKey key) {
+        Shard shard = shardOf(key);
+        Node node = shard.map.get(key);
+        if (node == null) {
+            return null;
+        }
+        ExecutionPlan plan = node.planRef.get();
+        if (plan == null || node.isExpired(System.currentTimeMillis(), expireAfterWriteMillis)) {
+            if (shard.map.remove(key, node)) {
+                onRemoved(node);
+            }
+            return null;
+        }
+        node.priority = shard.inflation + node.cost;
+        return plan;
+    }
+
+    private void putInternal(CacheKey key, ExecutionPlan plan, long loadNanos) {
+        Shard shard = shardOf(key);
+        Node node = new Node(key, plan, rebuildCost(key, plan, loadNanos));
+        node.priority = shard.inflation + node.cost;
+        Node old = shard.map.put(key, node);
+        if (old == null) {
+            size.incrementAndGet();
+        }
+        // 先放入分片再建索引, 与 unindex 配合保证在缓存中的计划一定在索引中
+        index(key);
+        while (size.get() > capacity) {
+            Shard victim = shard.map.size() * SHARD_COUNT >= size.get() ? shard : largestShard();
+            if (!evict(victim, false)) {
+                break;
+            }
+        }
+    }
+
+    private void invalidateIndexed(Set<CacheKey> keys) {
+        if (keys == null) {
+            return;
+        }
+        for (CacheKey key : keys.toArray(new CacheKey[0])) {
+            invalidate(key);
+        }
+    }
+
+    /**
+     * 淘汰 victim 中优先级最低的一批计划, 并将分片膨胀值提升到被淘汰计划的最大优先级
+     *
+     * @param wait 为 false 时若其他线程正在淘汰该分片则直接返回
+     */
+    private boolean evict(Shard victim, boolean wait) {
+        if (wait) {
+            victim.evictLock.lock();
+        } else if (!victim.evictLock.tryLock()) {
+            return false;
+        }
+        try {
+            Node[] nodes = victim.map.values().toArray(new Node[0]);
+            if (nodes.length == 0) {
+                return false;
+            }
+            long overflow = size.get() - capacity;
+            if (overflow <= 0) {
+                return true;
+            }
+            int evictCount = (int) Math.min(nodes.length, Math.max(overflow, nodes.length >> EVICT_BATCH_SHIFT));
+            Arrays.sort(nodes, Comparator.comparingDouble(n -> n.priority));
+            double maxEvictedPriority = victim.inflation;
+            int evicted = 0;
+            for (int i = 0; i < nodes.length && evicted < evictCount; i++) {
+                Node node = nodes[i];
+                if (victim.map.remove(node.key, node)) {
+                    maxEvictedPriority = Math.max(maxEvictedPriority, node.priority);
+                    onRemoved(node);
+                    statsCounter.recordEviction();
+                    schemaStats(node.key.getSchema()).evictionCount.increment();
+                    evicted++;
+                }
+            }
+            victim.inflation = maxEvictedPriority;
+            return evicted > 0;
+        } finally {
+            victim.evictLock.unlock();
+        }
+    }
+
+    private Shard largestShard() {
+        Shard largest = shards[0];
+        for (Shard shard : shards) {
+            if (shard.map.size() > largest.map.size()) {
+                largest = shard;
+            }
+        }
+        return largest;
+    }
+
+    private void onRemoved(Node node) {
+        size.decrementAndGet();
+        unindex(node.key);
+    }
+
+    private void index(CacheKey key) {
+        for (String tableKey : tableIndexKeys(key)) {
+            addToIndex(tableIndex, tableKey, key);
+        }
+        for (String schema : schemaIndexKeys(key)) {
+            addToIndex(schemaIndex, schema, key);
+        }
+    }
+
+    private void unindex(CacheKey key) {
+        for (String tableKey : tableIndexKeys(key)) {
+            removeFromIndex(tableIndex, tableKey, key);
+        }
+        for (String schema : schemaIndexKeys(key)) {
+            removeFromIndex(schemaIndex, schema, key);
+        }
+    }
+
+    private static void addToIndex(ConcurrentMap<String, Set<CacheKey>> index, String indexKey, CacheKey key) {
+        index.compute(indexKey, (k, keys) -> {
+            if (keys == null) {
+                keys = ConcurrentHashMap.newKeySet();
+            }
+            keys.add(key);
+            return keys;
+        });
+    }
+
+    private void removeFromIndex(ConcurrentMap<String, Set<CacheKey>> index, String indexKey, CacheKey key) {
+        index.computeIfPresent(indexKey, (k, keys) -> {
+            // 相同的 key 可能已被重新放入缓存, 此时保留索引
+            if (!shardOf(key).map.containsKey(key)) {
+                keys.remove(key);
+            }
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static List<String> tableIndexKeys(CacheKey key) {
+        List<TableMeta> metas = key.getTableMetas();
+        if (metas == null || metas.isEmpty()) {
+            return Collections.singletonList(NO_TABLE);
+        }
+        List<String> result = new ArrayList<>(metas.size());
+        for (TableMeta tm : metas) {
+            if (tm != null) {
+                result.add(tableIndexKey(tm.getSchemaName(), tm.getTableName()));
+            }
+        }
+        return result;
+    }
+
+    private static List<String> schemaIndexKeys(CacheKey key) {
+        List<String> result = new ArrayList<>();
+        result.add(key.getSchema());
+        List<TableMeta> metas = key.getTableMetas();
+        if (metas != null) {
+            for (TableMeta tm : metas) {
+                if (tm != null && tm.getSchemaName() != null) {
+                    String schema = tm.getSchemaName().toLowerCase(Locale.ROOT);
+                    if (!result.contains(schema)) {
+                        result.add(schema);
+                    }
+                }
+            }
+        }
+        return result;
+    }
+
+    private static String tableIndexKey(String schema, String table) {
+        return (schema == null ? "" : schema.toLowerCase(Locale.ROOT)) + "." + table.toLowerCase(Locale.ROOT);
+    }
+
+    private SchemaStats schemaStats(String schema) {
+        SchemaStats stats = schemaStats.get(schema);
+        if (stats == null) {
+            stats = schemaStats.computeIfAbsent(schema, k -> new SchemaStats());
+        }
+        return stats;
+    }
+
+    private Shard shardOf(CacheKey key) {
+        int h = key.hashCode();
+        h ^= (h >>> 16);
+        return shards[h & (SHARD_COUNT - 1)];
+    }
+
+    /**
+     * 重建代价: 每 KB 计划内存对应的加载微秒数
+     */
+    static double rebuildCost(CacheKey key, ExecutionPlan plan, long loadNanos) {
+        long planKb = Math.max(1, estimatePlanBytes(key, plan) >> 10);
+        return (loadNanos / 1000.0) / planKb;
+    }
+
+    static long estimatePlanBytes(CacheKey key, ExecutionPlan plan) {
+        long bytes = key.getParameterizedSql() == null ? 0 : key.getParameterizedSql().length() * 2L;
+        if (plan.getPlan() != null) {
+            bytes += countRelNodes(plan.getPlan()) * REL_NODE_BYTES;
+        }
+        return bytes;
+    }
+
+    private static long countRelNodes(RelNode rel) {
+        long count = 1;
+        for (RelNode input : rel.getInputs()) {
+            count += countRelNodes(input);
+        }
+        return count;
+    }
+
+    private static ExecutionPlan waitForLoading(CompletableFuture<ExecutionPlan> loading) throws ExecutionException {
+        try {
+            return loading.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ExecutionException(e);
+        } catch (ExecutionException e) {
+            throw wrapLoadException(e.getCause());
+        }
+    }
+
+    private static ExecutionException wrapLoadException(Throwable t) {
+        if (t instanceof RuntimeException) {
+            throw new UncheckedExecutionException(t);
+        } else if (t instanceof Error) {
+            throw new ExecutionError((Error) t);
+        }
+        return new ExecutionException(t);
+    }
+
+    private static final class Shard {
+
+        private final ConcurrentHashMap<CacheKey, Node> map = new ConcurrentHashMap<>();
+        private final ReentrantLock evictLock = new ReentrantLock();
+
+        /**
+         * GreedyDual 膨胀值, 每次淘汰后提升到被淘汰计划的最大优先级
+         */
+        private volatile double inflation;
+    }
+
+    private static final class Node {
+
+        private final CacheKey key;
+        private final SoftReference<ExecutionPlan> planRef;
+        private final long writeTime;
+        private final double cost;
+        private volatile double priority;
+
+        Node(CacheKey key, ExecutionPlan plan, double cost) {
+            this.key = key;
+            this.planRef = new SoftReference<>(plan);
+            this.writeTime = System.currentTimeMillis();
+            this.cost = cost;
+        }
+
+        boolean isExpired(long now, long expireAfterWriteMillis) {
+            return now - writeTime > expireAfterWriteMillis;
+        }
+    }
+
+    private static final class ReadOnlyConcurrentMap<K, V> extends ForwardingConcurrentMap<K, V> {
+
+        private final ConcurrentMap<K, V> delegate;
+
+        ReadOnlyConcurrentMap(ConcurrentMap<K, V> delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        protected ConcurrentMap<K, V> delegate() {
+            return delegate;
+        }
+
+        @Override
+        public V put(K key, V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void putAll(Map<? extends K, ? extends V> map) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public V remove(Object key) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void clear() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public V putIfAbsent(K key, V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean remove(Object key, Object value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public boolean replace(K key, V oldValue, V newValue) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public V replace(K key, V value) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Set<K> keySet() {
+            return Collections.unmodifiableSet(delegate.keySet());
+        }
+
+        @Override
+        public Collection<V> values() {
+            return Collections.unmodifiableCollection(delegate.values());
+        }
+
+        @Override
+        public Set<Map.Entry<K, V>> entrySet() {
+            return Collections.unmodifiableSet(delegate.entrySet());
+        }
+    }
+
+    private static final class SchemaStats {
+
+        private final LongAdder hitCount = new LongAdder();
+        private final LongAdder missCount = new LongAdder();
+        private final LongAdder evictionCount = new LongAdder();
+    }
+}
@@ -73,7 +73,7 @@ public abstract class BlockingMemoryPool extends MemoryPool {
                 return NOT_BLOCKED;
             }
         } else {
-            if (reservedBytes + revocableBytes > maxElasticMemory && MemorySetting.ENABLE_SPILL) {
+            if (getElasticUsage() > maxElasticMemory && MemorySetting.ENABLE_SPILL) {
                 logger.info("The query use much more memory for the memory pool: " + name);
                 if (minRequestSize <= 0 || minRequestSize > size) {
                     minRequestSize = size;
@@ -131,7 +131,7 @@ public abstract class BlockingMemoryPool extends MemoryPool {
             return;
         }
 
-        long availableBytes = maxElasticMemory - reservedBytes - revocableBytes;
+        long availableBytes = maxElasticMemory - getElasticUsage();
         if (availableBytes >= minRequestSize && settableFuture != null && !settableFuture.isDone()) {
             minRequestSize = 0;
             settableFuture.set(null);
@@ -147,6 +147,18 @@ public abstract class BlockingMemoryPool extends MemoryPool {
         return maxElasticMemory;
     }
 
+    @Override
+    protected long getTryUsage(long totalUsage) {
+        return totalUsage - leasedBytes;
+    }
+
+    /**
+     * 与弹性阈值比较的用量, allocator 续租后尚未使用的部分不计入
+     */
+    private long getElasticUsage() {
+        return reservedBytes - leasedBytes + revocableBytes;
+    }
+
     protected boolean inheritParentFuture() {
         return true;
     }
@@ -47,6 +47,11 @@ public class MemoryPool {
     protected long reservedBytes;
     protected long revocableBytes;
 
+    /**
+     * reservedBytes 中已续租给 allocator 但尚未使用的部分, 不计入弹性阈值
+     */
+    protected long leasedBytes;
+
     protected AtomicBoolean destroyed = new AtomicBoolean(false);
 
     public MemoryPool(String name, long maxLimit, MemoryType memoryType) {
@@ -89,18 +94,39 @@ public class MemoryPool {
     }
 
     protected ListenableFuture<?> allocateReserveMemory(long size) {
+        return allocateReserveMemory(size, 0);
+    }
+
+    /**
+     * 申请预留内存, 同时把已续租但尚未使用的预留内存调整 leaseDelta, 与申请在同一次逐级加锁中完成;
+     * 申请失败时不调整
+     */
+    protected ListenableFuture<?> allocateReserveMemory(long size, long leaseDelta) {
+        return allocateReserveMemory(size, leaseDelta, false);
+    }
+
+    /**
+     * @param speculative 超限时不调用 outOfMemory, 直接返回 null, 供可退回小申请量的多租使用
+     */
+    protected ListenableFuture<?> allocateReserveMemory(long size, long leaseDelta, boolean speculative) {
         Preconditions.checkState(!destroyed.get(), fullName + " memory pool already destroyed");
         checkArgument(size >= 0, "bytes is negative");
         ListenableFuture<?> future = null;
         synchronized (this) {
             if (parent != null) {
-                future = parent.allocateReserveMemory(size);
+                future = parent.allocateReserveMemory(size, leaseDelta, speculative);
+                if (future == null) {
+                    return null;
+                }
             }
             long nowReservedBytes = reservedBytes + size;
             long nowTotalUsage = nowReservedBytes + revocableBytes;
             if (nowTotalUsage > maxLimit) {
                 if (parent != null) {
-                    parent.freeReserveMemory(size);
+                    parent.freeReserveMemory(size, -leaseDelta);
+                }
+                if (speculative) {
+                    return null;
                 }
                 outOfMemory(fullName, getMemoryUsage(), size, maxLimit, true);
             }
@@ -109,6 +135,7 @@ public class MemoryPool {
                 maxMemoryUsage = nowTotalUsage;
             }
             reservedBytes = nowReservedBytes;
+            leasedBytes += leaseDelta;
             future = block(future, size);
         }
         return future;
@@ -118,21 +145,37 @@ public class MemoryPool {
         return maxLimit;
     }
 
+    /**
+     * 与 getTryMaxLimit 比较的用量
+     */
+    protected long getTryUsage(long totalUsage) {
+        return totalUsage;
+    }
+
     protected boolean tryAllocateReserveMemory(long size, MemoryAllocateFuture allocFuture) {
+        return tryAllocateReserveMemory(size, 0, allocFuture);
+    }
+
+    /**
+     * 同 {@link #allocateReserveMemory(long, long)}, leaseDelta 在与弹性阈值比较前生效
+     */
+    protected boolean tryAllocateReserveMemory(long size, long leaseDelta, MemoryAllocateFuture allocFuture) {
         Preconditions.checkState(!destroyed.get(), fullName + " memory pool already destroyed");
         checkArgument(size >= 0, "bytes is negative");
         synchronized (this) {
             if (parent != null) {
-                if (!parent.tryAllocateReserveMemory(size, allocFuture)) {
+                if (!parent.tryAllocateReserveMemory(size, leaseDelta, allocFuture)) {
                     return false;
                 }
             }
             long nowReservedBytes = reservedBytes + size;
             long nowTotalUsage = nowReservedBytes + revocableBytes;
 
-            if (nowTotalUsage > getTryMaxLimit()) {
+            leasedBytes += leaseDelta;
+            if (getTryUsage(nowTotalUsage) > getTryMaxLimit()) {
+                leasedBytes -= leaseDelta;
                 if (parent != null) {
-                    parent.freeReserveMemory(size);
+                    parent.freeReserveMemory(size, -leaseDelta);
                 }
                 tryBlock(allocFuture, size, true);
                 return false;
@@ -159,7 +202,7 @@ public class MemoryPool {
             long nowRevocableBytes = revocableBytes + size;
             long nowTotalUsage = nowRevocableBytes + reservedBytes;
 
-            if (nowTotalUsage > getTryMaxLimit()) {
+            if (getTryUsage(nowTotalUsage) > getTryMaxLimit()) {
                 if (parent != null) {
                     parent.freeRevocableMemory(size);
                 }
@@ -232,17 +275,25 @@ public class MemoryPool {
     }
 
     protected void freeReserveMemory(long size) {
+        freeReserveMemory(size, 0);
+    }
+
+    /**
+     * 释放预留内存, 同时把已续租但尚未使用的预留内存调整 leaseDelta
+     */
+    protected void freeReserveMemory(long size, long leaseDelta) {
 
         checkArgument(size >= 0, "bytes is negative");
-        if (size == 0) {
+        if (size == 0 && leaseDelta == 0) {
             // Freeing zero bytes is a no-op
             return;
         }
         synchronized (this) {
             long releaseSize = Math.min(reservedBytes, size);
             reservedBytes -= releaseSize;
+            leasedBytes += leaseDelta;
             if (parent != null) {
-                parent.freeReserveMemory(releaseSize);
+                parent.freeReserveMemory(releaseSize, leaseDelta);
             }
             notifyBlockedQuery();
         }
@@ -265,7 +316,7 @@ public class MemoryPool {
     }
 
     protected synchronized void freeMemory() {
-        freeReserveMemory(reservedBytes);
+        freeReserveMemory(reservedBytes, -leasedBytes);
         freeRevocableMemory(revocableBytes);
     }
 
@@ -396,7 +447,7 @@ public class MemoryPool {
     protected String printDetailInfo(int level) {
         StringBuilder builder = new StringBuilder();
         String self = "Name=" + name + ", reservedBytes=" + reservedBytes +
-            ", revocableBytes=" + revocableBytes;
+            ", revocableBytes=" + revocableBytes + ", leasedBytes=" + leasedBytes;
         builder.append(self);
         String blankStr = " ";
         for (int i = 0; i < level; i++) {
@@ -40,11 +40,24 @@ import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
 @NotThreadSafe
 public class OperatorMemoryAllocatorCtx implements MemoryAllocatorCtx {
 
+    /**
+     * 预留内存每次向 memoryPool 续租的块数上限. 续租量随已分配量增长 (不超过其 1/8), 减少沿父节点逐级加锁的次数,
+     * 同时把超额占用限制在已分配量的 12.5% 以内. 未使用的续租量报告给 memoryPool, 不计入弹性阈值;
+     * 可回收内存按需申请, 以免影响 spill 的触发与回收量
+     */
+    private static final long MAX_LEASE_BLOCKS = 16;
+
     private final MemoryPool memoryPool;
     private final AtomicLong reservedFree = new AtomicLong(0L);
 
     private final AtomicLong reservedAllocated = new AtomicLong(0L);
 
+    /**
+     * 上次与 memoryPool 交互时报告的本地空闲预留内存. 两次交互之间不再报告, 其中已被使用的部分
+     * 最多一个续租量, 直到下次续租或归还时才计入弹性阈值
+     */
+    private final AtomicLong reportedLease = new AtomicLong(0L);
+
     private final AtomicLong revocableFree = new AtomicLong(0L);
 
     private final AtomicLong revocableAllocated = new AtomicLong(0L);
@@ -81,7 +94,7 @@ public class OperatorMemoryAllocatorCtx implements MemoryAllocatorCtx {
             // Align to block size
             long amount = -Math.floorDiv(left, BLOCK_SIZE) * BLOCK_SIZE;
             try {
-                updateMemoryFuture(memoryPool.allocateReserveMemory(amount), allocateBytesFuture, false);
+                amount = leaseReservedMemory(amount, left);
             } catch (MemoryNotEnoughException t) {
                 reservedFree.addAndGet(bytes);
                 throw t;
@@ -98,7 +111,9 @@ public class OperatorMemoryAllocatorCtx implements MemoryAllocatorCtx {
         allocateFuture.reset();
         if (left < 0) {
             long allocated = -left;
-            if (this.memoryPool.tryAllocateReserveMemory(allocated, allocateFuture)) {
+            long leaseDelta = unreportedLease(0);
+            if (this.memoryPool.tryAllocateReserveMemory(allocated, leaseDelta, allocateFuture)) {
+                reportedLease.addAndGet(leaseDelta);
                 reservedAllocated.addAndGet(allocated);
                 reservedFree.addAndGet(allocated);
                 return true;
@@ -163,22 +178,24 @@ public class OperatorMemoryAllocatorCtx implements MemoryAllocatorCtx {
         if (immediately) {
             long alreadyAllocated = reservedAllocated.get();
             if (alreadyAllocated - bytes < reservedFree.get()) {
-                memoryPool.freeReserveMemory(reservedAllocated.getAndSet(0));
+                freeReservedToPool(reservedAllocated.getAndSet(0), 0);
                 reservedFree.set(0);
             } else {
                 long actualFreeSize = Math.min(alreadyAllocated, bytes);
                 reservedAllocated.addAndGet(-actualFreeSize);
-                memoryPool.freeReserveMemory(actualFreeSize);
+                freeReservedToPool(actualFreeSize, Math.min(reservedFree.get(), reservedAllocated.get()));
             }
         } else if (reservedAllocated.get() > reservedFree.addAndGet(bytes)) {
-            if (reservedFree.get() >= BLOCK_SIZE) {
-                long freeSize = reservedFree.getAndSet(0);
-                long actualFreeSize = Math.min(revocableAllocated.get(), freeSize);
-                reservedAllocated.addAndGet(-actualFreeSize);
-                memoryPool.freeReserveMemory(actualFreeSize);
+            // 保留一个续租量的空闲, 只归还超出部分
+            long keep = leaseSize(reservedAllocated.get());
+            if (reservedFree.get() >= keep + BLOCK_SIZE) {
+                long surplus = Math.min(reservedAllocated.get(), reservedFree.get() - keep);
+                reservedFree.addAndGet(-surplus);
+                reservedAllocated.addAndGet(-surplus);
+                freeReservedToPool(surplus, reservedFree.get());
             }
         } else {
-            memoryPool.freeReserveMemory(reservedAllocated.getAndSet(0));
+            freeReservedToPool(reservedAllocated.getAndSet(0), 0);
             reservedFree.set(0);
         }
     }
@@ -210,6 +227,52 @@ public class OperatorMemoryAllocatorCtx implements MemoryAllocatorCtx {
         }
     }
 
+    /**
+     * 续租量: 至少一个块, 随已分配量增长到 MAX_LEASE_BLOCKS 个块
+     */
+    @VisibleForTesting
+    static long leaseSize(long allocated) {
+        long blocks = Math.min(MAX_LEASE_BLOCKS, allocated / BLOCK_SIZE / 8);
+        return Math.max(1, blocks) * BLOCK_SIZE;
+    }
+
+    /**
+     * 申请不少于 required 的预留内存, 返回实际申请量; 多租的部分超限时退回只申请 required, 且只有 required 超限时才报内存不足.
+     * 申请时一并报告申请后的本地空闲量 (left 为当前缺口, 为负数), 使弹性阈值的判断不包含未使用的续租量
+     */
+    private long leaseReservedMemory(long required, long left) {
+        long amount = Math.max(required, leaseSize(reservedAllocated.get()));
+        if (amount > required && allocateReservedFromPool(amount, left + amount, true)) {
+            return amount;
+        }
+        allocateReservedFromPool(required, left + required, false);
+        return required;
+    }
+
+    private boolean allocateReservedFromPool(long size, long unused, boolean speculative) {
+        long leaseDelta = unreportedLease(unused);
+        ListenableFuture<?> future = memoryPool.allocateReserveMemory(size, leaseDelta, speculative);
+        if (future == null) {
+            return false;
+        }
+        updateMemoryFuture(future, allocateBytesFuture, false);
+        reportedLease.addAndGet(leaseDelta);
+        return true;
+    }
+
+    private void freeReservedToPool(long size, long unused) {
+        long leaseDelta = unreportedLease(unused);
+        memoryPool.freeReserveMemory(size, leaseDelta);
+        reportedLease.addAndGet(leaseDelta);
+    }
+
+    /**
+     * 本地空闲预留内存为 unused 时尚未报告的续租量变化, 随同一次 memoryPool 申请/释放报告, 失败时不计入
+     */
+    private long unreportedLease(long unused) {
+        return Math.max(0, unused) - reportedLease.get();
+    }
+
     @Override
     public long getRevocableAllocated() {
         return revocableAllocated.get();
@@ -682,7 +682,15 @@ public class PlanManager extends AbstractLifecycle implements BaselineManageable
     @Override
     public String workload() {
         CacheStats cs = PlanCache.getInstance().getCache().stats();
-        return "plan cache workload:" + cs.toString();
+        StringBuilder sb = new StringBuilder("plan cache workload:").append(cs.toString());
+        for (Map.Entry<String, long[]> entry : PlanCache.getInstance().getSchemaStats().entrySet()) {
+            long[] stats = entry.getValue();
+            sb.append("\n").append(entry.getKey())
+                .append(" hit:").append(stats[0])
+                .append(" miss:").append(stats[1])
+                .append(" evict:").append(stats[2]);
+        }
+        return sb.toString();
     }
 
     @Override
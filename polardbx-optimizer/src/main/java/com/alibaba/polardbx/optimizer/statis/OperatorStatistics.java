@@ -65,6 +65,11 @@ public class OperatorStatistics {
 
     protected final AtomicInteger spillCnt = new AtomicInteger(0);
 
+    /**
+     * Count of runtime switches of join algorithm, e.g. lookup join switched to hash join
+     */
+    protected final AtomicInteger joinSwitchCnt = new AtomicInteger(0);
+
     public OperatorStatistics() {
 
     }
@@ -165,4 +170,13 @@ public class OperatorStatistics {
     public void addSpillCnt(int cnt) {
         this.spillCnt.addAndGet(cnt);
     }
+
+    @JsonProperty
+    public int getJoinSwitchCnt() {
+        return joinSwitchCnt.get();
+    }
+
+    public void addJoinSwitchCnt(int cnt) {
+        this.joinSwitchCnt.addAndGet(cnt);
+    }
 }
@@ -31,6 +31,15 @@ public interface ITimestampOracle extends Lifecycle {
 
     long nextTimestamp();
 
+    /**
+     * Timestamp only used as a read-only snapshot, implementations may serve it with bounded staleness. The result
+     * must still be newer than any timestamp fetched before {@code notBeforeNanos} (a {@link System#nanoTime()}
+     * value), so commits finished by then stay visible.
+     */
+    default long nextSnapshotTimestamp(long notBeforeNanos) {
+        return nextTimestamp();
+    }
+
     static long getLogicalTime(final long logicalClock) {
         return (logicalClock & LOGICAL_TIME_MASK);
     }
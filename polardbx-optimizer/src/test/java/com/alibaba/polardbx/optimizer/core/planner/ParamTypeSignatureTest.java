@@ -0,0 +1,61 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.optimizer.core.planner;
+
+import com.alibaba.polardbx.common.jdbc.ParameterContext;
+import com.alibaba.polardbx.optimizer.parse.bean.SqlParameterized;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+public class ParamTypeSignatureTest {
+
+    @Test
+    public void testMockParamsKeepTypeDigest() {
+        List<Object> params = Arrays.asList(42, "secret", Arrays.asList(1L, 2L, 3L), null,
+            new BigDecimal("3.14"), new BigInteger("18446744073709551615"), new byte[] {1, 2});
+        String signature = ParamTypeSignature.encode(params);
+        Assert.assertEquals("LS(LLL)NDUB", signature);
+        Assert.assertFalse(signature.contains("secret"));
+
+        Map<Integer, ParameterContext> mocked = ParamTypeSignature.mockParams(signature);
+        Assert.assertEquals(params.size(), mocked.size());
+        List<Object> values = new ArrayList<>();
+        for (int i = 1; i <= mocked.size(); i++) {
+            values.add(mocked.get(i).getValue());
+        }
+        Assert.assertEquals(3, ((List) values.get(2)).size());
+
+        for (boolean strict : new boolean[] {true, false}) {
+            Assert.assertEquals(new SqlParameterized("select 1", params).getDigest(strict),
+                new SqlParameterized("select 1", values).getDigest(strict));
+        }
+    }
+
+    @Test
+    public void testEmptyAndNested() {
+        Assert.assertEquals("", ParamTypeSignature.encode(new ArrayList<>()));
+        Assert.assertTrue(ParamTypeSignature.mockParams("").isEmpty());
+        Assert.assertNull(ParamTypeSignature.encode(Arrays.asList(Arrays.asList(Arrays.asList(1L)))));
+    }
+}
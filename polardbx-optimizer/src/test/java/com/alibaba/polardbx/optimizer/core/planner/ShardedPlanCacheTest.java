@@ -0,0 +1,87 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.polardbx.optimizer.core.planner;
+
+import com.alibaba.polardbx.optimizer.core.planner.PlanCache.CacheKey;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.concurrent.ExecutionException;
+
+public class ShardedPlanCacheTest {
+
+    private static CacheKey key(String schema, int i) {
+        return new CacheKey(schema, "select " + i, "", Collections.emptyList(), false, true, true);
+    }
+
+    @Test
+    public void testExpensivePlanSurvivesAdHocBurst() throws ExecutionException {
+        ShardedPlanCache cache = new ShardedPlanCache(4, Long.MAX_VALUE);
+        CacheKey expensive = key("db", -1);
+        cache.get(expensive, () -> {
+            Thread.sleep(50);
+            return new ExecutionPlan(null, null, null);
+        });
+        for (int i = 0; i < 200; i++) {
+            cache.get(key("db", i), () -> new ExecutionPlan(null, null, null));
+            Assert.assertTrue(cache.size() <= 4);
+        }
+        Assert.assertNotNull(cache.getIfPresent(expensive));
+        Assert.assertTrue(cache.stats().evictionCount() >= 196);
+        Assert.assertEquals(cache.stats().evictionCount(), cache.getSchemaStats().get("db")[2]);
+    }
+
+    @Test
+    public void testInvalidateBySchema() throws ExecutionException {
+        ShardedPlanCache cache = new ShardedPlanCache(100, Long.MAX_VALUE);
+        for (int i = 0; i < 10; i++) {
+            cache.put(key("db1", i), new ExecutionPlan(null, null, null));
+        }
+        Assert.assertEquals(10, cache.size());
+        cache.invalidateBySchema("DB1");
+        Assert.assertEquals(0, cache.size());
+        Assert.assertNull(cache.getIfPresent(key("db1", 0)));
+        Assert.assertEquals(1, cache.getSchemaStats().get("db1")[1]);
+    }
+
+    @Test
+    public void testResizeEvictsDown() {
+        ShardedPlanCache cache = new ShardedPlanCache(100, Long.MAX_VALUE);
+        for (int i = 0; i < 100; i++) {
+            cache.put(key("db", i), new ExecutionPlan(null, null, null));
+        }
+        cache.resize(10, Long.MAX_VALUE);
+        Assert.assertTrue(cache.size() <= 10);
+        Assert.assertEquals(cache.size(), cache.asMap().size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void testAsMapIsReadOnly() {
+        ShardedPlanCache cache = new ShardedPlanCache(10, Long.MAX_VALUE);
+        cache.put(key("db", 0), new ExecutionPlan(null, null, null));
+        cache.asMap().remove(key("db", 0));
+    }
+
+    @Test(expected = UncheckedExecutionException.class)
+    public void testLoaderException() throws ExecutionException {
+        ShardedPlanCache cache = new ShardedPlanCache(10, Long.MAX_VALUE);
+        cache.get(key("db", 0), () -> {
+            throw new IllegalStateException("fail");
+        });
+    }
+}
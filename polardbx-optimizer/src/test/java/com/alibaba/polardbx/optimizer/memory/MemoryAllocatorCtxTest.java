@@ -16,6 +16,7 @@
 
 package com.alibaba.polardbx.optimizer.memory;
 
+import com.alibaba.polardbx.common.exception.MemoryNotEnoughException;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -166,4 +167,103 @@ public class MemoryAllocatorCtxTest {
         Assert.assertEquals(0, root.getMemoryUsage());
         Assert.assertEquals(0, defaultMemoryAllocatorCtx.getRevocableFree().get());
     }
+
+    @Test
+    public void testReservedLeaseGrowth() {
+        final long block = MemoryAllocatorCtx.BLOCK_SIZE;
+        MemoryPool root = new MemoryPool("root", maxLimit, MemoryType.OTHER);
+        OperatorMemoryAllocatorCtx ctx = new OperatorMemoryAllocatorCtx(root, false);
+        ctx.allocateReservedMemory(block * 64);
+        Assert.assertEquals(block * 64, ctx.getReservedAllocated());
+        // 已分配 64 块, 续租 8 块
+        ctx.allocateReservedMemory(1);
+        Assert.assertEquals(block * 72, ctx.getReservedAllocated());
+        Assert.assertEquals(block * 72, root.getMemoryUsage());
+        Assert.assertEquals(block * 8 - 1, ctx.getReservedFree().get());
+
+        // 续租量有上限
+        Assert.assertEquals(block * 16, OperatorMemoryAllocatorCtx.leaseSize(block * 1000));
+        Assert.assertEquals(block, OperatorMemoryAllocatorCtx.leaseSize(0));
+    }
+
+    @Test
+    public void testReservedLeaseFallbackNearLimit() {
+        final long block = MemoryAllocatorCtx.BLOCK_SIZE;
+        MemoryPool root = new MemoryPool("root", block * 70, MemoryType.OTHER);
+        OperatorMemoryAllocatorCtx ctx = new OperatorMemoryAllocatorCtx(root, false);
+        ctx.allocateReservedMemory(block * 64);
+        // 续租 8 块会超限, 退回只申请所需的 1 块
+        ctx.allocateReservedMemory(1);
+        Assert.assertEquals(block * 65, ctx.getReservedAllocated());
+        Assert.assertEquals(block * 65, root.getMemoryUsage());
+    }
+
+    @Test
+    public void testReservedLazyReleaseKeepsLease() {
+        final long block = MemoryAllocatorCtx.BLOCK_SIZE;
+        MemoryPool root = new MemoryPool("root", maxLimit, MemoryType.OTHER);
+        OperatorMemoryAllocatorCtx ctx = new OperatorMemoryAllocatorCtx(root, false);
+        ctx.allocateReservedMemory(block * 128);
+        ctx.releaseReservedMemory(block * 64, false);
+        // 保留一个续租量 (128 / 8 = 16 块) 的空闲, 其余归还
+        Assert.assertEquals(block * 16, ctx.getReservedFree().get());
+        Assert.assertEquals(block * 80, ctx.getReservedAllocated());
+        Assert.assertEquals(block * 80, root.getMemoryUsage());
+
+        ctx.releaseReservedMemory(block * 64, false);
+        Assert.assertEquals(0, ctx.getReservedAllocated());
+        Assert.assertEquals(0, root.getMemoryUsage());
+    }
+
+    @Test
+    public void testUnusedLeaseExcludedFromElasticUsage() {
+        final long block = MemoryAllocatorCtx.BLOCK_SIZE;
+        QueryMemoryPool query = new QueryMemoryPool("query", maxLimit, null);
+        MemoryPool operator = query.getOrCreatePool("operator", MemoryType.OPERATOR);
+        OperatorMemoryAllocatorCtx ctx = new OperatorMemoryAllocatorCtx(operator, false);
+        ctx.allocateReservedMemory(block * 64);
+        ctx.allocateReservedMemory(1);
+        // 续租的 8 块只用了 1 字节, 其余仍占用 reservedBytes, 但不计入弹性阈值
+        Assert.assertEquals(block * 72, query.getReservedBytes());
+        Assert.assertEquals(block * 8 - 1, query.leasedBytes);
+        Assert.assertEquals(block * 64 + 1, query.getTryUsage(query.getMemoryUsage()));
+
+        ctx.releaseReservedMemory(ctx.getReservedAllocated(), true);
+        Assert.assertEquals(0, query.leasedBytes);
+        Assert.assertEquals(0, query.getMemoryUsage());
+
+        // 销毁算子内存池时一并撤销其续租量
+        ctx.allocateReservedMemory(block * 64);
+        ctx.allocateReservedMemory(1);
+        operator.destroy();
+        Assert.assertEquals(0, query.leasedBytes);
+        Assert.assertEquals(0, query.getMemoryUsage());
+    }
+
+    @Test
+    public void testFailedAllocationKeepsLease() {
+        final long block = MemoryAllocatorCtx.BLOCK_SIZE;
+        QueryMemoryPool query = new QueryMemoryPool("query", block * 10, null);
+        MemoryPool operator = query.getOrCreatePool("operator", MemoryType.OPERATOR);
+        OperatorMemoryAllocatorCtx ctx = new OperatorMemoryAllocatorCtx(operator, false);
+        ctx.allocateReservedMemory(block * 8);
+        ctx.allocateReservedMemory(1);
+        Assert.assertEquals(block - 1, query.leasedBytes);
+        Assert.assertEquals(block - 1, operator.leasedBytes);
+
+        try {
+            ctx.allocateReservedMemory(block * 2);
+            Assert.fail();
+        } catch (MemoryNotEnoughException e) {
+            // 申请失败时续租量的变化随申请一起撤销
+        }
+        Assert.assertEquals(block - 1, query.leasedBytes);
+        Assert.assertEquals(block - 1, operator.leasedBytes);
+        Assert.assertEquals(block * 9, query.getMemoryUsage());
+        Assert.assertEquals(block - 1, ctx.getReservedFree().get());
+
+        ctx.releaseReservedMemory(ctx.getReservedAllocated(), true);
+        Assert.assertEquals(0, query.leasedBytes);
+        Assert.assertEquals(0, query.getMemoryUsage());
+    }
 }
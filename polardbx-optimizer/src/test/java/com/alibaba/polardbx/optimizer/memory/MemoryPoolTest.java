@@ -188,6 +188,23 @@ public class MemoryPoolTest {
         return Math.min(allocatedSize, perReleaseMem);
     }
 
+    @Test
+    public void testSpeculativeAllocateExceedMemory() {
+        MemoryPool root = new MemoryPool("root", 1024, MemoryType.OTHER);
+        MemoryPool child = root.getOrCreatePool("child", 512, MemoryType.OTHER);
+        root.allocateReserveMemory(256);
+
+        // 任一层超限都不申请、不调整续租量, 也不抛出 MemoryNotEnoughException
+        Assert.assertNull(child.allocateReserveMemory(513, 513, true));
+        Assert.assertNull(child.allocateReserveMemory(769, 0, true));
+        Assert.assertEquals(256, root.getMemoryUsage());
+        Assert.assertEquals(0, child.getMemoryUsage());
+
+        Assert.assertNotNull(child.allocateReserveMemory(512, 0, true));
+        Assert.assertEquals(768, root.getMemoryUsage());
+        Assert.assertEquals(512, child.getMemoryUsage());
+    }
+
     @Test
     public void concurrentMemoryTest() throws InterruptedException {
         MemoryPool root = new MemoryPool("root", 102400, MemoryType.OTHER);
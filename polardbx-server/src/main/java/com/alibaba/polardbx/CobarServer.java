@@ -75,6 +75,7 @@ import com.alibaba.polardbx.optimizer.memory.MemoryManager;
 import com.alibaba.polardbx.optimizer.sequence.ISequenceManager;
 import com.alibaba.polardbx.rpc.CdcRpcClient;
 import com.alibaba.polardbx.rpc.pool.XConnectionManager;
+import com.alibaba.polardbx.server.PlanCacheWarmUp;
 import com.alibaba.polardbx.server.ServerConnectionFactory;
 import com.alibaba.polardbx.ssl.SslContextFactory;
 import com.google.common.annotations.VisibleForTesting;
@@ -259,6 +260,11 @@ public class CobarServer extends AbstractLifecycle implements Lifecycle {
             }
             // init and start manager, listening manager port
             startupManager(system);
+            if (!ConfigDataMode.isFastMock()) {
+                // 服务端口监听前预热热点 SQL 模板, 最多阻塞 PLAN_CACHE_WARM_UP_TIMEOUT
+                PlanCacheWarmUp.warmUpBeforeStartup();
+                PlanCacheWarmUp.scheduleSnapshot();
+            }
             // init and start server, listening server port
             startupServer(system);
             logger.info("===============================================");
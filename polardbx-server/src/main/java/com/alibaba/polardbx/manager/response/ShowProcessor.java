@@ -39,7 +39,7 @@ import com.alibaba.polardbx.server.util.PacketUtil;
  */
 public final class ShowProcessor {
 
-    private static final int FIELD_COUNT = 10;
+    private static final int FIELD_COUNT = 14;
     private static final ResultSetHeaderPacket header = PacketUtil.getHeader(FIELD_COUNT);
     private static final FieldPacket[] fields = new FieldPacket[FIELD_COUNT];
     private static final EOFPacket eof = new EOFPacket();
@@ -79,6 +79,18 @@ public final class ShowProcessor {
         fields[i] = PacketUtil.getField("BC_COUNT", Fields.FIELD_TYPE_LONG);
         fields[i++].packetId = ++packetId;
 
+        fields[i] = PacketUtil.getField("NEW_BUFFER", Fields.FIELD_TYPE_LONG);
+        fields[i++].packetId = ++packetId;
+
+        fields[i] = PacketUtil.getField("IN_USE_BUFFER", Fields.FIELD_TYPE_LONGLONG);
+        fields[i++].packetId = ++packetId;
+
+        fields[i] = PacketUtil.getField("FREE_BUFFER_BYTES", Fields.FIELD_TYPE_LONGLONG);
+        fields[i++].packetId = ++packetId;
+
+        fields[i] = PacketUtil.getField("LEAKED_BUFFER", Fields.FIELD_TYPE_LONGLONG);
+        fields[i++].packetId = ++packetId;
+
         eof.packetId = ++packetId;
     }
 
@@ -127,6 +139,10 @@ public final class ShowProcessor {
         row.add(IntegerUtil.toBytes(processor.getBufferPool().capacity()));
         row.add(IntegerUtil.toBytes(processor.getFrontends().size()));
         row.add(IntegerUtil.toBytes(0));
+        row.add(IntegerUtil.toBytes(processor.getBufferPool().getNewCount()));
+        row.add(LongUtil.toBytes(processor.getBufferPool().getInUseCount()));
+        row.add(LongUtil.toBytes(processor.getBufferPool().getFreeBytes()));
+        row.add(LongUtil.toBytes(processor.getBufferPool().getLeakCount()));
         return row;
     }
 
@@ -18,6 +18,7 @@ package com.alibaba.polardbx.manager.response;
 
 import com.alibaba.polardbx.CobarServer;
 import com.alibaba.polardbx.Fields;
+import com.alibaba.polardbx.gms.listener.impl.MetaDbConfigManager;
 import com.alibaba.polardbx.manager.ManagerConnection;
 import com.alibaba.polardbx.net.buffer.ByteBufferHolder;
 import com.alibaba.polardbx.net.compress.IPacketOutputProxy;
@@ -40,7 +41,7 @@ import com.alibaba.polardbx.server.util.StringUtil;
  */
 public final class ShowServer {
 
-    private static final int FIELD_COUNT = 6;
+    private static final int FIELD_COUNT = 9;
     private static final ResultSetHeaderPacket header = PacketUtil.getHeader(FIELD_COUNT);
     private static final FieldPacket[] fields = new FieldPacket[FIELD_COUNT];
     private static final EOFPacket eof = new EOFPacket();
@@ -68,6 +69,15 @@ public final class ShowServer {
         fields[i] = PacketUtil.getField("STATUS", Fields.FIELD_TYPE_VAR_STRING);
         fields[i++].packetId = ++packetId;
 
+        fields[i] = PacketUtil.getField("CONFIG_PUSH_APPLY_COUNT", Fields.FIELD_TYPE_LONGLONG);
+        fields[i++].packetId = ++packetId;
+
+        fields[i] = PacketUtil.getField("CONFIG_PUSH_APPLY_AVG_MS", Fields.FIELD_TYPE_LONGLONG);
+        fields[i++].packetId = ++packetId;
+
+        fields[i] = PacketUtil.getField("CONFIG_PUSH_APPLY_MAX_MS", Fields.FIELD_TYPE_LONGLONG);
+        fields[i++].packetId = ++packetId;
+
         eof.packetId = ++packetId;
     }
 
@@ -118,6 +128,10 @@ public final class ShowServer {
         row.add(LongUtil.toBytes(max));
         row.add(StringUtil.encode(charset, charset));
         row.add(StringUtil.encode(CobarServer.getInstance().isOnline() ? "ON" : "OFF", charset));
+        MetaDbConfigManager configManager = MetaDbConfigManager.getInstance();
+        row.add(LongUtil.toBytes(configManager.getPushApplyCount()));
+        row.add(LongUtil.toBytes(configManager.getPushApplyAvgLatencyMs()));
+        row.add(LongUtil.toBytes(configManager.getPushApplyMaxLatencyMs()));
         return row;
     }
 
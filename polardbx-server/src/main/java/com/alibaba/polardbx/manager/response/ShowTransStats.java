@@ -30,8 +30,12 @@ import com.alibaba.polardbx.server.util.PacketUtil;
 import com.alibaba.polardbx.server.util.StringUtil;
 import com.alibaba.polardbx.stats.TransStatsColumn;
 import com.alibaba.polardbx.executor.statistic.StatisticsUtils;
+import com.alibaba.polardbx.transaction.TransactionMetrics;
 
 import java.text.DecimalFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
 
 import static com.alibaba.polardbx.stats.TransStatsColumn.NUM_COLUMN;
 import static com.alibaba.polardbx.stats.TransStatsColumn.SORTED_COLUMNS;
@@ -41,7 +45,29 @@ import static com.alibaba.polardbx.stats.TransStatsColumn.SORTED_COLUMNS;
  */
 public final class ShowTransStats {
 
-    private static final int FIELD_COUNT = NUM_COLUMN;
+    /**
+     * CN 级别的分布式事务统计, 来自 {@link TransactionMetrics}, 时间单位为微秒
+     */
+    private static final Map<String, LongSupplier> METRIC_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        for (TransactionMetrics.CommitPhase phase : TransactionMetrics.CommitPhase.values()) {
+            METRIC_COLUMNS.put(phase.name() + "_COUNT", () -> TransactionMetrics.getPhaseCount(phase));
+            METRIC_COLUMNS.put(phase.name() + "_TIME_AVG_US", () -> TransactionMetrics.getPhaseAvgTime(phase) / 1000);
+            METRIC_COLUMNS.put(phase.name() + "_TIME_MAX_US", () -> TransactionMetrics.getPhaseMaxTime(phase) / 1000);
+        }
+        METRIC_COLUMNS.put("TRX_LOG_BATCH_COUNT", TransactionMetrics::getTrxLogBatchCount);
+        METRIC_COLUMNS.put("TRX_LOG_RECORD_COUNT", TransactionMetrics::getTrxLogRecordCount);
+        METRIC_COLUMNS.put("TRX_LOG_SINGLE_RETRY_COUNT", TransactionMetrics::getTrxLogSingleRetryCount);
+        METRIC_COLUMNS.put("DEADLOCK_DETECTION_TIME_LAST_US",
+            () -> TransactionMetrics.getLastDeadlockDetectionTime() / 1000);
+        METRIC_COLUMNS.put("DEADLOCK_DETECTION_TIME_MAX_US",
+            () -> TransactionMetrics.getMaxDeadlockDetectionTime() / 1000);
+        METRIC_COLUMNS.put("DEADLOCK_GRAPH_EDGES", TransactionMetrics::getLastDeadlockGraphEdges);
+        METRIC_COLUMNS.put("DEADLOCK_GRAPH_BRANCHES", TransactionMetrics::getLastDeadlockGraphBranches);
+    }
+
+    private static final int FIELD_COUNT = NUM_COLUMN + METRIC_COLUMNS.size();
     private static final ResultSetHeaderPacket HEADER = PacketUtil.getHeader(FIELD_COUNT);
     private static final FieldPacket[] FIELDS = new FieldPacket[FIELD_COUNT];
     private static final EOFPacket EOF = new EOFPacket();
@@ -61,6 +87,12 @@ public final class ShowTransStats {
             FIELDS[column.index] = PacketUtil.getField(column.name, type);
             FIELDS[column.index].packetId = (byte) (column.index + 2);
         }
+        int index = NUM_COLUMN;
+        for (String name : METRIC_COLUMNS.keySet()) {
+            FIELDS[index] = PacketUtil.getField(name, Fields.FIELD_TYPE_LONGLONG);
+            FIELDS[index].packetId = (byte) (index + 2);
+            index++;
+        }
 
         EOF.packetId = (byte) (FIELD_COUNT + 2);
     }
@@ -114,6 +146,9 @@ public final class ShowTransStats {
                 row.add(StringUtil.encode(String.valueOf(results[column.index]), charset));
             }
         }
+        for (LongSupplier metric : METRIC_COLUMNS.values()) {
+            row.add(LongUtil.toBytes(metric.getAsLong()));
+        }
 
         return row;
     }
@@ -233,6 +233,7 @@ public class TConnection implements ITConnection {
      * 事务级别
      */
     private ShareReadViewPolicy shareReadView = ShareReadViewPolicy.DEFAULT;
+    private volatile Long lastCommitNanos = null;
     /**
      * whether the current statement is a DDL
      */
@@ -1359,6 +1360,7 @@ public class TConnection implements ITConnection {
         if (this.trx != null) {
             try {
                 this.trx.commit();
+                onCommitted(this.trx);
             } catch (TddlRuntimeException ex) {
                 // Ignore ERR_TRANS_TERMINATED in case of connection pool error
                 if (ex.getErrorCode() != ErrorCode.ERR_TRANS_TERMINATED.getCode()) {
@@ -1396,6 +1398,7 @@ public class TConnection implements ITConnection {
             try {
                 // 事务结束,清理事务内容
                 this.trx.commit();
+                onCommitted(this.trx);
             } catch (Throwable e) {
                 // 增加打印事务异常日志
                 logger.error(e);
@@ -1634,6 +1637,20 @@ public class TConnection implements ITConnection {
         }
     }
 
+    /**
+     * 记录写事务的提交完成时间, 其后一个预取窗口内本会话的只读快照不使用预取的 TSO, 保证读到自己的提交
+     */
+    private void onCommitted(ITransaction trx) {
+        if (!(trx instanceof ReadOnlyTsoTransaction)) {
+            lastCommitNanos = System.nanoTime();
+        }
+    }
+
+    @Override
+    public Long getLastCommitNanos() {
+        return lastCommitNanos;
+    }
+
     public ExecutionContext getExecutionContext() {
         return this.executionContext;
     }
@@ -137,6 +137,10 @@ public class TResultSet implements ResultSet {
         return currentKVPair;
     }
 
+    public List<DataType> getDataTypes() {
+        return dataTypes;
+    }
+
     @Override
     public synchronized int findColumn(String columnName) throws SQLException {
         Integer index;
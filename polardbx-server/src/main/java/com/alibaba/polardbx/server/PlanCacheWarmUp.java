@@ -0,0 +1,224 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.alibaba.polardbx.server;
+
+import com.alibaba.polardbx.CobarServer;
+import com.alibaba.polardbx.common.DefaultSchema;
+import com.alibaba.polardbx.common.jdbc.Parameters;
+import com.alibaba.polardbx.common.properties.ConnectionParams;
+import com.alibaba.polardbx.common.properties.ConnectionProperties;
+import com.alibaba.polardbx.common.utils.Pair;
+import com.alibaba.polardbx.common.utils.logger.Logger;
+import com.alibaba.polardbx.common.utils.logger.LoggerFactory;
+import com.alibaba.polardbx.common.utils.thread.NamedThreadFactory;
+import com.alibaba.polardbx.config.SchemaConfig;
+import com.alibaba.polardbx.gms.config.impl.InstConfUtil;
+import com.alibaba.polardbx.gms.metadb.table.PlanCacheSnapshotAccessor;
+import com.alibaba.polardbx.gms.metadb.table.PlanCacheSnapshotRecord;
+import com.alibaba.polardbx.gms.util.MetaDbUtil;
+import com.alibaba.polardbx.matrix.jdbc.TDataSource;
+import com.alibaba.polardbx.matrix.jdbc.utils.TDataSourceInitUtils;
+import com.alibaba.polardbx.optimizer.OptimizerContext;
+import com.alibaba.polardbx.optimizer.context.ExecutionContext;
+import com.alibaba.polardbx.optimizer.core.planner.ParamTypeSignature;
+import com.alibaba.polardbx.optimizer.core.planner.PlanCache;
+import com.alibaba.polardbx.optimizer.core.planner.Planner;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Plan cache 预热
+ * <p>
+ * 运行期间定期将命中最多的 SQL 模板写入 metadb, 各 CN 共享. 只保存参数化 SQL、参数类型与影响 plan cache key 的会话设置,
+ * 不保存参数取值. CN 启动后在后台用同类型的占位参数重放这些模板, 经由 Planner 正常路径生成执行计划(包括 SPM baseline),
+ * 避免重启或扩容后所有模板同时重新优化. 预热在服务端口监听之前完成, 快照中涉及的库会先初始化数据源,
+ * 初始化与重放总共最多占用 PLAN_CACHE_WARM_UP_TIMEOUT
+ */
+public class PlanCacheWarmUp {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanCacheWarmUp.class);
+
+    /**
+     * 超过该时间未被任何 CN 刷新的模板会被清理
+     */
+    private static final long SNAPSHOT_EXPIRE_SECONDS = 7 * 24 * 3600L;
+
+    private static final ScheduledExecutorService scheduler =
+        Executors.newSingleThreadScheduledExecutor(new NamedThreadFactory("PlanCache-Snapshot", true));
+
+    /**
+     * 重放热点 SQL 模板, 最多阻塞调用方 PLAN_CACHE_WARM_UP_TIMEOUT, 失败不影响启动
+     */
+    public static void warmUpBeforeStartup() {
+        try {
+            warmUp();
+        } catch (Throwable t) {
+            logger.warn("plan cache warm up failed", t);
+        }
+    }
+
+    static void warmUp() {
+        if (!InstConfUtil.getBool(ConnectionParams.ENABLE_PLAN_CACHE_WARM_UP)) {
+            return;
+        }
+        int size = InstConfUtil.getInt(ConnectionParams.PLAN_CACHE_WARM_UP_SIZE);
+        if (size <= 0) {
+            return;
+        }
+        long startTime = System.currentTimeMillis();
+        List<PlanCacheSnapshotRecord> records;
+        try (Connection metaDbConn = MetaDbUtil.getConnection()) {
+            PlanCacheSnapshotAccessor accessor = new PlanCacheSnapshotAccessor();
+            accessor.setConnection(metaDbConn);
+            records = accessor.loadHottest(size);
+        } catch (Throwable t) {
+            logger.warn("load plan cache snapshot failed", t);
+            return;
+        }
+        if (records.isEmpty()) {
+            return;
+        }
+
+        long timeout = InstConfUtil.getLong(ConnectionParams.PLAN_CACHE_WARM_UP_TIMEOUT);
+        long deadline = startTime + timeout;
+        int parallelism = InstConfUtil.getInt(ConnectionParams.PLAN_CACHE_WARM_UP_PARALLELISM);
+        ExecutorService executor =
+            Executors.newFixedThreadPool(parallelism, new NamedThreadFactory("PlanCache-WarmUp", true));
+        CountDownLatch latch = new CountDownLatch(records.size());
+        AtomicInteger success = new AtomicInteger();
+        try {
+            for (PlanCacheSnapshotRecord record : records) {
+                executor.submit(() -> {
+                    try {
+                        if (System.currentTimeMillis() < deadline && replay(record)) {
+                            success.incrementAndGet();
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                });
+            }
+            if (!latch.await(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS)) {
+                logger.warn("plan cache warm up timeout after " + timeout + "ms, skip " + latch.getCount());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            // 超时后剩余的模板在开始前即跳过; 不中断正在初始化的数据源, 由其在后台完成
+            executor.shutdown();
+        }
+        logger.info(String.format("plan cache warm up %d/%d templates in %d ms", success.get(), records.size(),
+            System.currentTimeMillis() - startTime));
+    }
+
+    private static boolean replay(PlanCacheSnapshotRecord record) {
+        String defaultSchemaName = DefaultSchema.getSchemaName();
+        try {
+            SchemaConfig schema = CobarServer.getInstance().getConfig().getSchemas().get(record.getSchemaName());
+            if (schema == null) {
+                return false;
+            }
+            TDataSource ds = schema.getDataSource();
+            // 库在首个连接到来时才初始化, 端口监听前先初始化快照中涉及的库; init 已加锁, 同库的模板并发调用无妨
+            Throwable initEx = TDataSourceInitUtils.initDataSource(ds);
+            if (initEx != null || !ds.isInited()) {
+                logger.debug("plan cache warm up skip schema " + record.getSchemaName(), initEx);
+                return false;
+            }
+            OptimizerContext.setContext(ds.getConfigHolder().getOptimizerContext());
+            Planner.getInstance().plan(record.getSql(), buildReplayContext(record));
+            return true;
+        } catch (Throwable t) {
+            logger.debug("plan cache warm up failed for template " + record.getTemplateId(), t);
+            return false;
+        } finally {
+            // 预热线程复用, 恢复 setContext 设置的默认库
+            DefaultSchema.setSchemaName(defaultSchemaName);
+        }
+    }
+
+    /**
+     * 以快照中的参数类型与会话设置构造重放上下文, 使生成的 plan cache key 与线上请求一致
+     */
+    static ExecutionContext buildReplayContext(PlanCacheSnapshotRecord record) {
+        ExecutionContext ec = new ExecutionContext(record.getSchemaName());
+        ec.setTraceId("plan_cache_warm_up");
+        ec.setParams(new Parameters(ParamTypeSignature.mockParams(record.getParamTypes())));
+        ec.setAutoCommit(record.isAutoCommit());
+        if (record.getSqlMode() != null) {
+            ec.setSqlMode(record.getSqlMode());
+        }
+        if (record.getCharset() != null) {
+            ec.setEncoding(record.getCharset());
+        }
+        Map<String, Object> serverVariables = new HashMap<>();
+        serverVariables.put(ConnectionProperties.FOREIGN_KEY_CHECKS, record.isForeignKeyChecks());
+        ec.setServerVariables(serverVariables);
+        return ec;
+    }
+
+    public static void scheduleSnapshot() {
+        long interval = InstConfUtil.getLong(ConnectionParams.PLAN_CACHE_SNAPSHOT_INTERVAL);
+        scheduler.schedule(() -> {
+            try {
+                snapshot();
+            } catch (Throwable t) {
+                logger.warn("plan cache snapshot failed", t);
+            } finally {
+                // 间隔可动态调整, 每次重新读取
+                scheduleSnapshot();
+            }
+        }, interval, TimeUnit.MILLISECONDS);
+    }
+
+    static void snapshot() throws Exception {
+        if (!InstConfUtil.getBool(ConnectionParams.ENABLE_PLAN_CACHE_WARM_UP)) {
+            return;
+        }
+        int size = InstConfUtil.getInt(ConnectionParams.PLAN_CACHE_WARM_UP_SIZE);
+        List<Pair<PlanCache.CacheKey, Long>> templates = PlanCache.getInstance().getHotTemplates(size);
+        List<PlanCacheSnapshotRecord> records = new ArrayList<>(templates.size());
+        for (Pair<PlanCache.CacheKey, Long> template : templates) {
+            PlanCacheSnapshotRecord record = new PlanCacheSnapshotRecord();
+            record.schemaName = template.getKey().getSchema();
+            record.templateId = template.getKey().getTemplateId();
+            record.sql = template.getKey().getParameterizedSql();
+            record.paramTypes = template.getKey().getSampleParamTypes();
+            record.autoCommit = template.getKey().isAutoCommit();
+            record.foreignKeyChecks = template.getKey().isForeignKeyChecks();
+            record.sqlMode = template.getKey().getSampleSqlMode();
+            record.charset = template.getKey().getSampleEncoding();
+            record.hitCount = template.getValue();
+            records.add(record);
+        }
+        try (Connection metaDbConn = MetaDbUtil.getConnection()) {
+            PlanCacheSnapshotAccessor accessor = new PlanCacheSnapshotAccessor();
+            accessor.setConnection(metaDbConn);
+            accessor.replace(records);
+            accessor.deleteExpired(SNAPSHOT_EXPIRE_SECONDS);
+        }
+    }
+}
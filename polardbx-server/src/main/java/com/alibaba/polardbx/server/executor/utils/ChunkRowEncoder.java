@@ -0,0 +1,268 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.server.executor.utils;
+
+import com.alibaba.polardbx.common.charset.CharsetName;
+import com.alibaba.polardbx.executor.chunk.Block;
+import com.alibaba.polardbx.executor.chunk.ByteBlock;
+import com.alibaba.polardbx.executor.chunk.Chunk;
+import com.alibaba.polardbx.executor.chunk.DecimalBlock;
+import com.alibaba.polardbx.executor.chunk.IntegerBlock;
+import com.alibaba.polardbx.executor.chunk.LongBlock;
+import com.alibaba.polardbx.executor.chunk.ShortBlock;
+import com.alibaba.polardbx.executor.chunk.SliceBlock;
+import com.alibaba.polardbx.matrix.jdbc.TResultSet;
+import com.alibaba.polardbx.net.compress.IPacketOutputProxy;
+import com.alibaba.polardbx.optimizer.core.datatype.DataType;
+import com.alibaba.polardbx.optimizer.core.datatype.DataTypeUtil;
+import com.alibaba.polardbx.optimizer.core.datatype.DataTypes;
+import io.airlift.slice.Slice;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 将 ChunkRow 直接按 block 编码为 MySQL 文本协议行包
+ * <p>
+ * 整数、decimal64 与 utf8 字符串直接从 block 写入复用的行缓冲区, 其余类型回退到 TResultSet.getBytes,
+ * 避免逐个字段分配 byte[] 与 RowDataPacket
+ */
+public class ChunkRowEncoder {
+
+    private static final byte NULL_MARK = (byte) 251;
+
+    private static final int MAX_PACKET_PAYLOAD_LENGTH = 0x1000000 - 1;
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private static final long[] POWERS_OF_TEN = new long[19];
+
+    static {
+        POWERS_OF_TEN[0] = 1;
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            POWERS_OF_TEN[i] = POWERS_OF_TEN[i - 1] * 10;
+        }
+    }
+
+    private final TResultSet rs;
+    private final int columnCount;
+    private final String charset;
+    private final boolean utf8;
+
+    /**
+     * 列类型的字符串形式与 Long.toString 一致时为 true
+     */
+    private final boolean[] integralColumns;
+
+    private final Slice regionOutput = new Slice();
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int length;
+
+    public ChunkRowEncoder(TResultSet rs, int columnCount, String charset) {
+        this.rs = rs;
+        this.columnCount = columnCount;
+        this.charset = charset;
+        this.utf8 = CharsetName.isUTF8(charset);
+        this.integralColumns = new boolean[columnCount];
+        List<DataType> dataTypes = rs.getDataTypes();
+        for (int i = 0; i < columnCount && dataTypes != null && i < dataTypes.size(); i++) {
+            DataType dataType = dataTypes.get(i);
+            integralColumns[i] = dataType != null && DataTypeUtil.anyMatchSemantically(dataType,
+                DataTypes.LongType, DataTypes.IntegerType, DataTypes.ShortType, DataTypes.ByteType,
+                DataTypes.TinyIntType, DataTypes.SmallIntType, DataTypes.MediumIntType,
+                DataTypes.UTinyIntType, DataTypes.USmallIntType, DataTypes.UMediumIntType, DataTypes.UIntegerType);
+        }
+    }
+
+    /**
+     * 当前行是否可以直接从 chunk 编码
+     */
+    public boolean accept() {
+        return rs.getCurrentKVPair() instanceof Chunk.ChunkRow
+            && ((Chunk.ChunkRow) rs.getCurrentKVPair()).getChunk().getBlockCount() >= columnCount;
+    }
+
+    /**
+     * 编码当前行并写出, 调用前需要 accept() 返回 true
+     */
+    public void write(IPacketOutputProxy proxy, Supplier<Byte> packetIdGen) throws SQLException {
+        Chunk.ChunkRow row = (Chunk.ChunkRow) rs.getCurrentKVPair();
+        Chunk chunk = row.getChunk();
+        int position = row.getPosition();
+        length = 0;
+        for (int i = 0; i < columnCount; i++) {
+            encodeField(chunk.getBlock(i), position, i);
+        }
+        writePackets(proxy, packetIdGen);
+    }
+
+    private void encodeField(Block block, int position, int column) throws SQLException {
+        if (block.isNull(position)) {
+            ensureCapacity(1);
+            buffer[length++] = NULL_MARK;
+        } else if (integralColumns[column] && block instanceof LongBlock) {
+            writeLong(((LongBlock) block).getLong(position));
+        } else if (integralColumns[column] && block instanceof IntegerBlock) {
+            writeLong(((IntegerBlock) block).getInt(position));
+        } else if (integralColumns[column] && block instanceof ShortBlock) {
+            writeLong(((ShortBlock) block).getShort(position));
+        } else if (integralColumns[column] && block instanceof ByteBlock) {
+            writeLong(((ByteBlock) block).getByte(position));
+        } else if (block instanceof DecimalBlock && ((DecimalBlock) block).isDecimal64()
+            && ((DecimalBlock) block).getScale() < POWERS_OF_TEN.length
+            && ((DecimalBlock) block).getLong(position) != Long.MIN_VALUE) {
+            DecimalBlock decimalBlock = (DecimalBlock) block;
+            // 20 位数字 + 符号 + 小数点 + 1 字节长度
+            ensureCapacity(23);
+            int end = formatDecimal64(decimalBlock.getLong(position), decimalBlock.getScale(), buffer, length + 1);
+            buffer[length] = (byte) (end - length - 1);
+            length = end;
+        } else if (utf8 && block instanceof SliceBlock) {
+            Slice region = ((SliceBlock) block).getRegion(position, regionOutput);
+            int valueLen = region.length();
+            writeLength(valueLen);
+            ensureCapacity(valueLen);
+            region.getBytes(0, buffer, length, valueLen);
+            length += valueLen;
+        } else {
+            byte[] value = rs.getBytes(column + 1, charset);
+            if (value == null) {
+                ensureCapacity(1);
+                buffer[length++] = NULL_MARK;
+            } else {
+                writeLength(value.length);
+                ensureCapacity(value.length);
+                System.arraycopy(value, 0, buffer, length, value.length);
+                length += value.length;
+            }
+        }
+    }
+
+    private void writeLong(long value) {
+        // 20 位数字 + 符号 + 1 字节长度
+        ensureCapacity(22);
+        int end = formatLong(value, buffer, length + 1);
+        buffer[length] = (byte) (end - length - 1);
+        length = end;
+    }
+
+    private void writeLength(long l) {
+        ensureCapacity(9);
+        if (l < 251) {
+            buffer[length++] = (byte) l;
+        } else if (l < 0x10000L) {
+            buffer[length++] = (byte) 252;
+            buffer[length++] = (byte) (l & 0xff);
+            buffer[length++] = (byte) (l >>> 8);
+        } else if (l < 0x1000000L) {
+            buffer[length++] = (byte) 253;
+            buffer[length++] = (byte) (l & 0xff);
+            buffer[length++] = (byte) (l >>> 8);
+            buffer[length++] = (byte) (l >>> 16);
+        } else {
+            buffer[length++] = (byte) 254;
+            for (int i = 0; i < 8; i++) {
+                buffer[length++] = (byte) (l >>> (8 * i));
+            }
+        }
+    }
+
+    private void ensureCapacity(int size) {
+        if (length + size > buffer.length) {
+            int newSize = Math.max(buffer.length << 1, length + size);
+            byte[] newBuffer = new byte[newSize];
+            System.arraycopy(buffer, 0, newBuffer, 0, length);
+            buffer = newBuffer;
+        }
+    }
+
+    /**
+     * 按 MySQL 协议拆包写出, 恰好为最大包长整数倍时追加一个空包
+     */
+    private void writePackets(IPacketOutputProxy proxy, Supplier<Byte> packetIdGen) {
+        int offset = 0;
+        int packetLen;
+        do {
+            packetLen = Math.min(length - offset, MAX_PACKET_PAYLOAD_LENGTH);
+            proxy.packetBegin();
+            proxy.checkWriteCapacity(proxy.getConnection().getPacketHeaderSize());
+            proxy.writeUB3(packetLen);
+            proxy.write(packetIdGen.get());
+            if (packetLen > 0) {
+                proxy.checkWriteCapacity(packetLen);
+                proxy.write(buffer, offset, packetLen);
+            }
+            proxy.packetEnd();
+            offset += packetLen;
+        } while (packetLen == MAX_PACKET_PAYLOAD_LENGTH);
+    }
+
+    /**
+     * 将 long 的十进制字符串写入 dst, 返回结束位置
+     */
+    static int formatLong(long value, byte[] dst, int offset) {
+        if (value == Long.MIN_VALUE) {
+            byte[] bytes = Long.toString(value).getBytes();
+            System.arraycopy(bytes, 0, dst, offset, bytes.length);
+            return offset + bytes.length;
+        }
+        if (value < 0) {
+            dst[offset++] = '-';
+            value = -value;
+        }
+        int digits = digitCount(value);
+        int end = offset + digits;
+        for (int i = end - 1; i >= offset; i--) {
+            dst[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        return end;
+    }
+
+    /**
+     * 与 Decimal.toBytes 一致: 整数部分至少一位, 小数部分固定 scale 位
+     */
+    static int formatDecimal64(long unscaled, int scale, byte[] dst, int offset) {
+        if (scale <= 0) {
+            return formatLong(unscaled, dst, offset);
+        }
+        if (unscaled < 0) {
+            dst[offset++] = '-';
+            unscaled = -unscaled;
+        }
+        long intPart = unscaled / POWERS_OF_TEN[scale];
+        long fracPart = unscaled % POWERS_OF_TEN[scale];
+        offset = formatLong(intPart, dst, offset);
+        dst[offset++] = '.';
+        int end = offset + scale;
+        for (int i = end - 1; i >= offset; i--) {
+            dst[i] = (byte) ('0' + fracPart % 10);
+            fracPart /= 10;
+        }
+        return end;
+    }
+
+    private static int digitCount(long value) {
+        for (int i = 1; i < POWERS_OF_TEN.length; i++) {
+            if (value < POWERS_OF_TEN[i]) {
+                return i;
+            }
+        }
+        return 19;
+    }
+}
@@ -19,6 +19,7 @@ package com.alibaba.polardbx.server.executor.utils;
 import com.alibaba.druid.proxy.jdbc.ResultSetMetaDataProxy;
 import com.alibaba.polardbx.common.charset.CharsetName;
 import com.alibaba.polardbx.common.exception.NotSupportException;
+import com.alibaba.polardbx.common.properties.DynamicConfig;
 import com.alibaba.polardbx.common.utils.GeneralUtil;
 import com.alibaba.polardbx.executor.Xprotocol.XRowSet;
 import com.alibaba.polardbx.matrix.jdbc.TResultSet;
@@ -272,6 +273,11 @@ public class ResultSetUtil {
 
         }
 
+        ChunkRowEncoder chunkRowEncoder = null;
+        if (existNext && rs instanceof TResultSet && DynamicConfig.getInstance().isEnableChunkResultEncoder()) {
+            chunkRowEncoder = new ChunkRowEncoder((TResultSet) rs, columnCount, charset);
+        }
+
         do {
             if (!existNext) {
                 // 不存在记录，直接退出
@@ -281,6 +287,22 @@ public class ResultSetUtil {
                 && sqlSelectLimit-- <= 0L) {
                 break;
             }
+            if (chunkRowEncoder != null && chunkRowEncoder.accept()) {
+                // Fast path of chunk rows, encode fields from blocks directly.
+                if (existUndecidedType) {
+                    for (int i = 0; i < columnCount; i++) {
+                        if (undecidedTypeIndexes.contains(i)) {
+                            resetUndecidedType(rs, i, packet, undecidedTypeIndexes);
+                        }
+                    }
+                    proxy = withProxy ? writeHeaderWithProxy(packet, c, proxy) : writeHeader(packet, c);
+                    existUndecidedType = false;
+                }
+                chunkRowEncoder.write(proxy, c::getNewPacketId);
+                affectRow.incrementAndGet();
+                existNext = rs.next();
+                continue;
+            }
             RowDataPacket row = null;
             row = new RowDataMultiPacket(columnCount, c::getNewPacketId);
             final XRowSet xRowSet =
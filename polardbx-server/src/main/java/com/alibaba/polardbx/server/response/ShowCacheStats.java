@@ -115,6 +115,7 @@ public class ShowCacheStats {
         byte[][] pruneCache = ColumnarPruneManager.getCacheStat();
         resultList.addAll(fileCacheStats);
         resultList.add(blockCacheStats);
+        resultList.addAll(BlockCacheManager.getInstance().generateTierCacheStatsPackets());
         resultList.add(pruneCache);
         resultList.add(stripeFootCache);
 
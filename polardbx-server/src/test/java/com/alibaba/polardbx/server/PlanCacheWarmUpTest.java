@@ -0,0 +1,46 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.server;
+
+import com.alibaba.polardbx.gms.metadb.table.PlanCacheSnapshotRecord;
+import com.alibaba.polardbx.optimizer.context.ExecutionContext;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PlanCacheWarmUpTest {
+
+    @Test
+    public void testReplayContextFollowsSnapshot() {
+        PlanCacheSnapshotRecord record = new PlanCacheSnapshotRecord();
+        record.schemaName = "db1";
+        record.sql = "SELECT * FROM t WHERE id = ? AND name IN (?)";
+        record.paramTypes = "L(SS)";
+        record.autoCommit = false;
+        record.foreignKeyChecks = false;
+        record.sqlMode = "ANSI_QUOTES";
+        record.charset = "utf8mb4";
+
+        ExecutionContext ec = PlanCacheWarmUp.buildReplayContext(record);
+        Assert.assertEquals("db1", ec.getSchemaName());
+        Assert.assertFalse(ec.isAutoCommit());
+        Assert.assertEquals("ANSI_QUOTES", ec.getSqlMode());
+        Assert.assertEquals("utf8mb4", ec.getEncoding());
+        Assert.assertEquals(Boolean.FALSE, ec.getServerVariables().get("FOREIGN_KEY_CHECKS"));
+        Assert.assertEquals(2, ec.getParams().getCurrentParameter().size());
+        Assert.assertEquals(0L, ec.getParams().getCurrentParameter().get(1).getValue());
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.server.executor.utils;
+
+import com.alibaba.polardbx.common.datatype.Decimal;
+import com.alibaba.polardbx.executor.chunk.Block;
+import com.alibaba.polardbx.executor.chunk.BlockBuilder;
+import com.alibaba.polardbx.executor.chunk.BlockBuilders;
+import com.alibaba.polardbx.executor.chunk.Chunk;
+import com.alibaba.polardbx.executor.chunk.DecimalBlock;
+import com.alibaba.polardbx.executor.chunk.IntegerBlock;
+import com.alibaba.polardbx.executor.chunk.LongBlock;
+import com.alibaba.polardbx.matrix.jdbc.TResultSet;
+import com.alibaba.polardbx.net.FrontendConnection;
+import com.alibaba.polardbx.net.compress.RawPacketStreamOutputProxy;
+import com.alibaba.polardbx.net.packet.RowDataMultiPacket;
+import com.alibaba.polardbx.optimizer.context.ExecutionContext;
+import com.alibaba.polardbx.optimizer.core.datatype.DataType;
+import com.alibaba.polardbx.optimizer.core.datatype.DataTypes;
+import com.alibaba.polardbx.optimizer.core.datatype.DecimalType;
+import com.google.common.collect.ImmutableList;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ChunkRowEncoderTest {
+
+    private static final String CHARSET = "utf8";
+
+    private static final DataType DECIMAL_TYPE = new DecimalType(10, 2);
+
+    @Test
+    public void testFormatLong() {
+        long[] values = {0, 1, -1, 9, 10, 99, 100, 123456789L, -987654321L, Long.MAX_VALUE, Long.MIN_VALUE};
+        byte[] buffer = new byte[32];
+        for (long value : values) {
+            int end = ChunkRowEncoder.formatLong(value, buffer, 3);
+            Assert.assertEquals(Long.toString(value), new String(buffer, 3, end - 3));
+        }
+    }
+
+    @Test
+    public void testFormatDecimal64() {
+        long[] values = {0, 5, -5, 150, -150, 123456789L, -100000, 999999999999999999L};
+        int[] scales = {0, 1, 2, 5, 9, 18};
+        byte[] buffer = new byte[32];
+        for (long value : values) {
+            for (int scale : scales) {
+                int end = ChunkRowEncoder.formatDecimal64(value, scale, buffer, 0);
+                byte[] expected = new Decimal(value, scale).toBytes();
+                Assert.assertArrayEquals(value + " scale " + scale, expected, Arrays.copyOf(buffer, end));
+            }
+        }
+    }
+
+    @Test
+    public void testNulls() throws Exception {
+        List<DataType> types = ImmutableList.of(
+            DataTypes.LongType, DataTypes.IntegerType, DataTypes.VarcharType, DECIMAL_TYPE);
+        Chunk chunk = new Chunk(
+            LongBlock.of(1L, null, Long.MIN_VALUE),
+            IntegerBlock.of(null, -2, 3),
+            varcharBlock("a", "", null),
+            new DecimalBlock(DECIMAL_TYPE, 3, true, new boolean[] {false, true, false}, new long[] {-5, 0, 12345}));
+
+        assertSameAsRowDataPacket(types, chunk, 0,
+            bytes("1"), null, bytes("a"), new Decimal(-5, 2).toBytes());
+        assertSameAsRowDataPacket(types, chunk, 1,
+            null, bytes("-2"), bytes(""), null);
+        assertSameAsRowDataPacket(types, chunk, 2,
+            bytes(Long.toString(Long.MIN_VALUE)), bytes("3"), null, new Decimal(12345, 2).toBytes());
+    }
+
+    @Test
+    public void testLengthEncodedStrings() throws Exception {
+        // 覆盖 1, 3, 4 字节的长度编码边界
+        int[] lengths = {0, 250, 251, 0xFFFF, 0x10000};
+        String[] values = new String[lengths.length];
+        for (int i = 0; i < lengths.length; i++) {
+            values[i] = repeat('x', lengths[i]);
+        }
+        List<DataType> types = ImmutableList.of(DataTypes.VarcharType, DataTypes.LongType);
+        Long[] ids = new Long[lengths.length];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = (long) i;
+        }
+        Chunk chunk = new Chunk(varcharBlock(values), LongBlock.of(ids));
+
+        for (int i = 0; i < lengths.length; i++) {
+            assertSameAsRowDataPacket(types, chunk, i, bytes(values[i]), bytes(Long.toString(i)));
+        }
+    }
+
+    @Test
+    public void testSplitLargeRow() throws Exception {
+        // 超过 16MB 的行拆成多个包, 字段跨越包边界
+        String large = repeat('y', 0xFFFFFF + 100);
+        List<DataType> types = ImmutableList.of(DataTypes.LongType, DataTypes.VarcharType, DataTypes.VarcharType);
+        Chunk chunk = new Chunk(LongBlock.of(7L), varcharBlock(large), varcharBlock("tail"));
+
+        byte[] actual = assertSameAsRowDataPacket(types, chunk, 0, bytes("7"), bytes(large), bytes("tail"));
+        // 第一个包为满包, 第二个包的序号递增
+        Assert.assertEquals(0xFF, actual[0] & 0xFF);
+        Assert.assertEquals(0xFF, actual[1] & 0xFF);
+        Assert.assertEquals(0xFF, actual[2] & 0xFF);
+        Assert.assertEquals(0, actual[3]);
+        Assert.assertEquals(1, actual[4 + 0xFFFFFF + 3]);
+    }
+
+    private static byte[] assertSameAsRowDataPacket(List<DataType> types, Chunk chunk, int position,
+                                                    byte[]... fields) throws Exception {
+        TResultSet rs = mock(TResultSet.class);
+        when(rs.getDataTypes()).thenReturn(types);
+        when(rs.getCurrentKVPair()).thenReturn(chunk.rowAt(position));
+
+        ChunkRowEncoder encoder = new ChunkRowEncoder(rs, types.size(), CHARSET);
+        Assert.assertTrue(encoder.accept());
+        CapturedOutputProxy actual = new CapturedOutputProxy();
+        encoder.write(actual, packetIdGen());
+
+        RowDataMultiPacket row = new RowDataMultiPacket(types.size(), packetIdGen());
+        for (byte[] field : fields) {
+            row.add(field);
+        }
+        CapturedOutputProxy expected = new CapturedOutputProxy();
+        row.write(expected);
+
+        Assert.assertArrayEquals("position " + position, expected.toByteArray(), actual.toByteArray());
+        return actual.toByteArray();
+    }
+
+    private static Supplier<Byte> packetIdGen() {
+        byte[] packetId = new byte[1];
+        return () -> packetId[0]++;
+    }
+
+    private static Block varcharBlock(String... values) {
+        BlockBuilder builder = BlockBuilders.create(DataTypes.VarcharType, new ExecutionContext(), values.length);
+        for (String value : values) {
+            if (value == null) {
+                builder.appendNull();
+            } else {
+                builder.writeString(value);
+            }
+        }
+        return builder.build();
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String repeat(char c, int count) {
+        char[] chars = new char[count];
+        Arrays.fill(chars, c);
+        return new String(chars);
+    }
+
+    /**
+     * 将所有写出的字节 (含包头) 收集到内存中
+     */
+    private static class CapturedOutputProxy extends RawPacketStreamOutputProxy {
+        private final FrontendConnection connection = mock(FrontendConnection.class);
+
+        CapturedOutputProxy() {
+            super(new ByteArrayOutputStream());
+            this.waitForCompressStream = (ByteArrayOutputStream) out;
+            when(connection.getPacketHeaderSize()).thenReturn(4);
+        }
+
+        @Override
+        public FrontendConnection getConnection() {
+            return connection;
+        }
+
+        byte[] toByteArray() {
+            return waitForCompressStream.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.transaction.async;
+
+import com.alibaba.polardbx.executor.sync.SyncManagerHelper;
+import com.alibaba.polardbx.executor.utils.transaction.GroupConnPair;
+import com.alibaba.polardbx.executor.utils.transaction.LocalTransaction;
+import com.alibaba.polardbx.executor.utils.transaction.TrxLookupSet;
+import com.alibaba.polardbx.gms.sync.IGmsSyncAction;
+import com.alibaba.polardbx.gms.sync.SyncScope;
+import com.alibaba.polardbx.transaction.sync.FetchTransForDeadlockDetectionSyncAction;
+import com.alibaba.polardbx.transaction.utils.DiGraph;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.alibaba.polardbx.gms.topology.SystemDbHelper.DEFAULT_DB_NAME;
+
+public class DeadlockDetectionTaskTest {
+
+    private static final String GROUP_0 = "group_0";
+    private static final String GROUP_1 = "group_1";
+
+    @Test
+    public void testAddLockWaits() {
+        final TrxLookupSet lookupSet = new TrxLookupSet();
+        addTransaction(lookupSet, GROUP_0, 11L, 1L, 101L);
+        addTransaction(lookupSet, GROUP_0, 21L, 2L, 102L);
+        addTransaction(lookupSet, GROUP_1, 31L, 3L, 103L);
+
+        final List<Map<String, Object>> lockWaits = new ArrayList<>();
+        // trx 1 and trx 2 are waiting for each other on group_0
+        lockWaits.add(lockWait(11L, 21L, "lock_a"));
+        lockWaits.add(lockWait(21L, 11L, "lock_b"));
+        // trx 3 only holds a connection on group_1, which is not on this DN
+        lockWaits.add(lockWait(31L, 11L, "lock_c"));
+        // neither connection belongs to a known transaction
+        lockWaits.add(lockWait(77L, 88L, "lock_d"));
+
+        final DiGraph<TrxLookupSet.Transaction> graph = new DiGraph<>();
+        final int edges = new DeadlockDetectionTask(Collections.emptyList())
+            .addLockWaits(lockWaits, Collections.singletonList(GROUP_0), lookupSet, graph);
+        Assert.assertEquals(2, edges);
+
+        final Optional<ArrayList<TrxLookupSet.Transaction>> cycle = graph.detect();
+        Assert.assertTrue(cycle.isPresent());
+        Assert.assertEquals(
+            new HashSet<>(Arrays.asList(lookupSet.getTransaction(1L), lookupSet.getTransaction(2L))),
+            new HashSet<>(cycle.get()));
+
+        final LocalTransaction waiting = lookupSet.getTransaction(1L).getLocalTransaction(GROUP_0);
+        Assert.assertEquals("LOCK WAIT", waiting.getState());
+        Assert.assertNotNull(waiting.getWaitingTrxLock());
+        final LocalTransaction blocking = lookupSet.getTransaction(2L).getLocalTransaction(GROUP_0);
+        Assert.assertFalse(blocking.getHoldingTrxLocks().isEmpty());
+    }
+
+    @Test
+    public void testAddLockWaitsWithoutCycle() {
+        final TrxLookupSet lookupSet = new TrxLookupSet();
+        addTransaction(lookupSet, GROUP_0, 11L, 1L, 101L);
+        addTransaction(lookupSet, GROUP_0, 21L, 2L, 102L);
+
+        final DiGraph<TrxLookupSet.Transaction> graph = new DiGraph<>();
+        final int edges = new DeadlockDetectionTask(Collections.emptyList()).addLockWaits(
+            Collections.singletonList(lockWait(11L, 21L, "lock_a")),
+            Collections.singletonList(GROUP_0), lookupSet, graph);
+        Assert.assertEquals(1, edges);
+        Assert.assertFalse(graph.detect().isPresent());
+    }
+
+    @Test
+    public void testFetchTransInfo() {
+        final List<Map<String, Object>> result = new ArrayList<>();
+        result.add(transRow(1L, GROUP_0, 11L, 101L, "select 1"));
+        result.add(transRow(2L, GROUP_1, 21L, 102L, "select 2"));
+        final List<List<Map<String, Object>>> results = new ArrayList<>();
+        results.add(result);
+        // a CN that failed to respond
+        results.add(null);
+
+        final Set<Long> connIds = new HashSet<>(Arrays.asList(11L, 21L));
+        final List<IGmsSyncAction> actions = new ArrayList<>();
+        final TrxLookupSet lookupSet;
+        try (MockedStatic<SyncManagerHelper> helper = Mockito.mockStatic(SyncManagerHelper.class)) {
+            helper.when(() -> SyncManagerHelper.sync(Mockito.any(IGmsSyncAction.class), Mockito.anyString(),
+                Mockito.any(SyncScope.class))).thenAnswer(invocation -> {
+                Assert.assertEquals(DEFAULT_DB_NAME, invocation.getArgument(1));
+                Assert.assertEquals(SyncScope.CURRENT_ONLY, invocation.getArgument(2));
+                actions.add(invocation.getArgument(0));
+                return results;
+            });
+            lookupSet = new DeadlockDetectionTask(Collections.emptyList()).fetchTransInfo(connIds);
+        }
+
+        Assert.assertEquals(1, actions.size());
+        Assert.assertTrue(actions.get(0) instanceof FetchTransForDeadlockDetectionSyncAction);
+        Assert.assertEquals(connIds, ((FetchTransForDeadlockDetectionSyncAction) actions.get(0)).getConnIds());
+
+        Assert.assertEquals(Long.valueOf(1L), lookupSet.getTransactionId(Collections.singletonList(GROUP_0), 11L));
+        Assert.assertEquals(Long.valueOf(2L), lookupSet.getTransactionId(Collections.singletonList(GROUP_1), 21L));
+        Assert.assertNull(lookupSet.getTransactionId(Collections.singletonList(GROUP_0), 21L));
+        Assert.assertEquals(Long.valueOf(101L), lookupSet.getFrontendConnId(1L));
+        Assert.assertEquals("select 2", lookupSet.getSql(2L));
+        Assert.assertEquals(Long.valueOf(1000L), lookupSet.getStartTime(1L));
+    }
+
+    private static void addTransaction(TrxLookupSet lookupSet, String group, long connId, long trxId,
+                                       long frontendConnId) {
+        lookupSet.addNewTransaction(new GroupConnPair(group, connId), trxId);
+        lookupSet.updateTransaction(trxId, frontendConnId, "select " + trxId, 1000L);
+    }
+
+    private static Map<String, Object> lockWait(long waiting, long blocking, String lockId) {
+        final Map<String, Object> row = new HashMap<>();
+        row.put("waiting_conn_id", waiting);
+        row.put("blocking_conn_id", blocking);
+        row.put("waiting_state", "LOCK WAIT");
+        row.put("blocking_state", "RUNNING");
+        row.put("waiting_lock_id", lockId);
+        row.put("waiting_lock_mode", "X");
+        row.put("waiting_lock_type", "RECORD");
+        row.put("waiting_lock_physical_table", "`db`.`t`");
+        row.put("waiting_lock_index", "PRIMARY");
+        row.put("blocking_lock_id", lockId);
+        row.put("blocking_lock_mode", "X");
+        row.put("blocking_lock_type", "RECORD");
+        row.put("blocking_lock_physical_table", "`db`.`t`");
+        row.put("blocking_lock_index", "PRIMARY");
+        return row;
+    }
+
+    private static Map<String, Object> transRow(long trxId, String group, long connId, long frontendConnId,
+                                                String sql) {
+        final Map<String, Object> row = new HashMap<>();
+        row.put("TRANS_ID", trxId);
+        row.put("GROUP", group);
+        row.put("CONN_ID", connId);
+        row.put("FRONTEND_CONN_ID", frontendConnId);
+        row.put("START_TIME", 1000L);
+        row.put("SQL", sql);
+        return row;
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.transaction;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * CN 级别的分布式事务提交阶段与死锁检测统计, 提交阶段覆盖全部多分片提交 (慢事务统计只覆盖慢事务)
+ * <p>
+ * 时间单位均为纳秒
+ */
+public class TransactionMetrics {
+
+    public enum CommitPhase {
+        /**
+         * XA PREPARE 全部分支
+         */
+        PREPARE,
+        /**
+         * 写 global tx log / 提交 primary group
+         */
+        TRX_LOG,
+        /**
+         * XA COMMIT 其余分支
+         */
+        COMMIT_BRANCHES
+    }
+
+    private static final LongAdder[] PHASE_COUNT = new LongAdder[CommitPhase.values().length];
+    private static final LongAdder[] PHASE_TIME = new LongAdder[CommitPhase.values().length];
+    private static final LongAccumulator[] PHASE_MAX_TIME = new LongAccumulator[CommitPhase.values().length];
+
+    static {
+        for (int i = 0; i < PHASE_COUNT.length; i++) {
+            PHASE_COUNT[i] = new LongAdder();
+            PHASE_TIME[i] = new LongAdder();
+            PHASE_MAX_TIME[i] = new LongAccumulator(Math::max, 0);
+        }
+    }
+
+    /**
+     * global tx log 组提交的批次数与记录数
+     */
+    private static final LongAdder TRX_LOG_BATCH_COUNT = new LongAdder();
+    private static final LongAdder TRX_LOG_RECORD_COUNT = new LongAdder();
+
+    /**
+     * 批量写入冲突后退回单条写入的记录数
+     */
+    private static final LongAdder TRX_LOG_SINGLE_RETRY_COUNT = new LongAdder();
+
+    /**
+     * 最近一轮全局死锁检测的耗时, 等待图的边数与涉及的事务分支数
+     */
+    private static volatile long lastDeadlockDetectionTime;
+    private static volatile long lastDeadlockGraphEdges;
+    private static volatile long lastDeadlockGraphBranches;
+    private static final LongAccumulator MAX_DEADLOCK_DETECTION_TIME = new LongAccumulator(Math::max, 0);
+
+    public static void recordPhase(CommitPhase phase, long nanos) {
+        if (nanos <= 0) {
+            return;
+        }
+        int i = phase.ordinal();
+        PHASE_COUNT[i].increment();
+        PHASE_TIME[i].add(nanos);
+        PHASE_MAX_TIME[i].accumulate(nanos);
+    }
+
+    public static void recordTrxLogBatch(int records) {
+        TRX_LOG_BATCH_COUNT.increment();
+        TRX_LOG_RECORD_COUNT.add(records);
+    }
+
+    public static void recordTrxLogSingleRetry() {
+        TRX_LOG_SINGLE_RETRY_COUNT.increment();
+    }
+
+    public static void recordDeadlockDetection(long nanos, long edges, long branches) {
+        lastDeadlockDetectionTime = nanos;
+        lastDeadlockGraphEdges = edges;
+        lastDeadlockGraphBranches = branches;
+        MAX_DEADLOCK_DETECTION_TIME.accumulate(nanos);
+    }
+
+    public static long getLastDeadlockDetectionTime() {
+        return lastDeadlockDetectionTime;
+    }
+
+    public static long getMaxDeadlockDetectionTime() {
+        return MAX_DEADLOCK_DETECTION_TIME.get();
+    }
+
+    public static long getLastDeadlockGraphEdges() {
+        return lastDeadlockGraphEdges;
+    }
+
+    public static long getLastDeadlockGraphBranches() {
+        return lastDeadlockGraphBranches;
+    }
+
+    public static long getPhaseCount(CommitPhase phase) {
+        return PHASE_COUNT[phase.ordinal()].sum();
+    }
+
+    public static long getPhaseAvgTime(CommitPhase phase) {
+        long count = getPhaseCount(phase);
+        return count == 0 ? 0 : PHASE_TIME[phase.ordinal()].sum() / count;
+    }
+
+    public static long getPhaseMaxTime(CommitPhase phase) {
+        return PHASE_MAX_TIME[phase.ordinal()].get();
+    }
+
+    public static long getTrxLogBatchCount() {
+        return TRX_LOG_BATCH_COUNT.sum();
+    }
+
+    public static long getTrxLogRecordCount() {
+        return TRX_LOG_RECORD_COUNT.sum();
+    }
+
+    public static long getTrxLogSingleRetryCount() {
+        return TRX_LOG_SINGLE_RETRY_COUNT.sum();
+    }
+
+    /**
+     * 平均每批合并的记录数
+     */
+    public static double getTrxLogAvgBatchSize() {
+        long batches = getTrxLogBatchCount();
+        return batches == 0 ? 0 : (double) getTrxLogRecordCount() / batches;
+    }
+}
@@ -39,17 +39,23 @@ import com.alibaba.polardbx.gms.topology.DbTopologyManager;
 import com.alibaba.polardbx.group.jdbc.TGroupDataSource;
 import com.alibaba.polardbx.optimizer.OptimizerContext;
 import com.alibaba.polardbx.transaction.TransactionLogger;
+import com.alibaba.polardbx.transaction.TransactionMetrics;
 import com.alibaba.polardbx.transaction.sync.FetchTransForDeadlockDetectionSyncAction;
 import com.alibaba.polardbx.transaction.utils.DiGraph;
+import com.google.common.annotations.VisibleForTesting;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.tuple.Triple;
 
 import java.sql.Connection;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -194,119 +200,154 @@ public class DeadlockDetectionTask implements Runnable {
     }
 
     /**
-     * fetch lock-wait information to update the wait-for graph and the lookup set
+     * fetch lock-wait information of a DN, only the aliased columns in the lock-wait query are kept
      *
      * @param dataSource a DN's data source
-     * @param groupNames all group on that DN
-     * @param lookupSet a transaction lookup set which contains all transactions
-     * @param graph a wait-for graph containing "trx a is waiting for trx b"-like information
+     * @return lock-wait rows, each row means "waiting_conn_id is waiting for blocking_conn_id"
      */
-    public void fetchLockWaits(TGroupDataSource dataSource,
-                               Collection<String> groupNames,
-                               TrxLookupSet lookupSet,
-                               DiGraph<TrxLookupSet.Transaction> graph) {
+    public List<Map<String, Object>> fetchLockWaits(TGroupDataSource dataSource) {
         boolean isMySQL80 = ExecUtils.isMysql80Version();
         String deadLocksSql = isMySQL80 ? SQL_QUERY_DEADLOCKS_80 : SQL_QUERY_DEADLOCKS;
 
+        final List<Map<String, Object>> lockWaits = new ArrayList<>();
         try (final Connection conn = createPhysicalConnectionForLeaderStorage(dataSource);
             final Statement stmt = conn.createStatement();
             final ResultSet rs = stmt.executeQuery(deadLocksSql)) {
-
+            final ResultSetMetaData metaData = rs.getMetaData();
             while (rs.next()) {
-                // Get the waiting and blocking connection id of DN
-                final long waiting = rs.getLong("waiting_conn_id");
-                final long blocking = rs.getLong("blocking_conn_id");
-
-                // Get the waiting and blocking transaction
-                final Triple<TrxLookupSet.Transaction, TrxLookupSet.Transaction, String> waitingAndBlockingTrx =
-                    lookupSet.getWaitingAndBlockingTrx(groupNames, waiting, blocking);
-
-                final TrxLookupSet.Transaction waitingTrx = waitingAndBlockingTrx.getLeft();
-                final TrxLookupSet.Transaction blockingTrx = waitingAndBlockingTrx.getMiddle();
-
-                if (null != waitingTrx && null != blockingTrx) {
-                    // Update the wait-for graph and the lookup set
-                    graph.addDiEdge(waitingTrx, blockingTrx);
-                    try {
-                        // Get the group which the waiting and blocking thread id are in
-                        final String groupName = waitingAndBlockingTrx.getRight();
-
-                        // Get the waiting local transaction of this group
-                        final LocalTransaction waitingLocalTrx = waitingTrx.getLocalTransaction(groupName);
-                        extractWaitingTrx(rs, waitingLocalTrx, isMySQL80);
-
-                        // Get the blocking local transaction of this group
-                        final LocalTransaction blockingLocalTrx = blockingTrx.getLocalTransaction(groupName);
-                        extractBlockingTrx(rs, blockingLocalTrx, isMySQL80);
-                    } catch (Throwable t) {
-                        // Ignore.
-                        logger.warn("Get lock-wait message failed.", t);
-                    }
+                final Map<String, Object> row = new HashMap<>(metaData.getColumnCount() * 2);
+                for (int i = 1; i <= metaData.getColumnCount(); i++) {
+                    row.put(metaData.getColumnLabel(i).toLowerCase(), rs.getObject(i));
                 }
+                lockWaits.add(row);
             }
         } catch (SQLException ex) {
             final String dnId = dataSource.getMasterSourceAddress();
             throw new RuntimeException("Failed to fetch lock waits on data source " + dnId, ex);
         }
+        return lockWaits;
+    }
 
+    /**
+     * update the wait-for graph and the lookup set with lock-wait information of a DN
+     *
+     * @param lockWaits lock-wait rows fetched from the DN
+     * @param groupNames all group on that DN
+     * @param lookupSet a transaction lookup set which contains all related transactions
+     * @param graph a wait-for graph containing "trx a is waiting for trx b"-like information
+     * @return number of edges added to the graph
+     */
+    public int addLockWaits(List<Map<String, Object>> lockWaits,
+                            Collection<String> groupNames,
+                            TrxLookupSet lookupSet,
+                            DiGraph<TrxLookupSet.Transaction> graph) {
+        boolean isMySQL80 = ExecUtils.isMysql80Version();
+        int edges = 0;
+        for (Map<String, Object> row : lockWaits) {
+            // Get the waiting and blocking connection id of DN
+            final long waiting = getLong(row, "waiting_conn_id");
+            final long blocking = getLong(row, "blocking_conn_id");
+
+            // Get the waiting and blocking transaction
+            final Triple<TrxLookupSet.Transaction, TrxLookupSet.Transaction, String> waitingAndBlockingTrx =
+                lookupSet.getWaitingAndBlockingTrx(groupNames, waiting, blocking);
+
+            final TrxLookupSet.Transaction waitingTrx = waitingAndBlockingTrx.getLeft();
+            final TrxLookupSet.Transaction blockingTrx = waitingAndBlockingTrx.getMiddle();
+
+            if (null != waitingTrx && null != blockingTrx) {
+                // Update the wait-for graph and the lookup set
+                graph.addDiEdge(waitingTrx, blockingTrx);
+                edges++;
+                try {
+                    // Get the group which the waiting and blocking thread id are in
+                    final String groupName = waitingAndBlockingTrx.getRight();
+
+                    // Get the waiting local transaction of this group
+                    final LocalTransaction waitingLocalTrx = waitingTrx.getLocalTransaction(groupName);
+                    extractWaitingTrx(row, waitingLocalTrx, isMySQL80);
+
+                    // Get the blocking local transaction of this group
+                    final LocalTransaction blockingLocalTrx = blockingTrx.getLocalTransaction(groupName);
+                    extractBlockingTrx(row, blockingLocalTrx, isMySQL80);
+                } catch (Throwable t) {
+                    // Ignore.
+                    logger.warn("Get lock-wait message failed.", t);
+                }
+            }
+        }
+        return edges;
+    }
+
+    private static String getString(Map<String, Object> row, String column) {
+        final Object value = row.get(column);
+        return value == null ? null : value.toString();
     }
 
-    private void extractBlockingTrx(ResultSet rs, LocalTransaction blockingLocalTrx, boolean isMySQL80)
-        throws SQLException {
+    private static int getInt(Map<String, Object> row, String column) {
+        final Object value = row.get(column);
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    private static long getLong(Map<String, Object> row, String column) {
+        final Object value = row.get(column);
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    private void extractBlockingTrx(Map<String, Object> row, LocalTransaction blockingLocalTrx, boolean isMySQL80) {
         if (!blockingLocalTrx.isUpdated()) {
-            blockingLocalTrx.setState(rs.getString("blocking_state"));
-            final String physicalSql = rs.getString("blocking_physical_sql");
+            blockingLocalTrx.setState(getString(row, "blocking_state"));
+            final String physicalSql = getString(row, "blocking_physical_sql");
             // Record a truncated SQL
             blockingLocalTrx.setPhysicalSql(
                 physicalSql == null ? null : physicalSql.substring(0, min(4096, physicalSql.length())));
-            blockingLocalTrx.setOperationState(rs.getString("blocking_operation_state"));
-            blockingLocalTrx.setTablesInUse(rs.getInt("blocking_tables_in_use"));
-            blockingLocalTrx.setTablesLocked(rs.getInt("blocking_tables_locked"));
-            blockingLocalTrx.setLockStructs(rs.getInt("blocking_lock_structs"));
-            blockingLocalTrx.setHeapSize(rs.getInt("blocking_heap_size"));
-            blockingLocalTrx.setRowLocks(rs.getInt("blocking_row_locks"));
+            blockingLocalTrx.setOperationState(getString(row, "blocking_operation_state"));
+            blockingLocalTrx.setTablesInUse(getInt(row, "blocking_tables_in_use"));
+            blockingLocalTrx.setTablesLocked(getInt(row, "blocking_tables_locked"));
+            blockingLocalTrx.setLockStructs(getInt(row, "blocking_lock_structs"));
+            blockingLocalTrx.setHeapSize(getInt(row, "blocking_heap_size"));
+            blockingLocalTrx.setRowLocks(getInt(row, "blocking_row_locks"));
 
             blockingLocalTrx.setUpdated(true);
         }
         // Update holding-lock information of blocking transaction
         if (isMySQL80) {
             blockingLocalTrx.addHoldingTrxLock(new TrxLock(
-                rs.getString("blocking_lock_id"),
-                rs.getString("blocking_lock_mode"),
-                rs.getString("blocking_lock_type"),
-                rs.getString("blocking_lock_physical_table"),
-                rs.getString("blocking_lock_index"),
-                rs.getString("blocking_lock_data")
+                getString(row, "blocking_lock_id"),
+                getString(row, "blocking_lock_mode"),
+                getString(row, "blocking_lock_type"),
+                getString(row, "blocking_lock_physical_table"),
+                getString(row, "blocking_lock_index"),
+                getString(row, "blocking_lock_data")
             ));
         } else {
             blockingLocalTrx.addHoldingTrxLock(new TrxLock(
-                rs.getString("blocking_lock_id"),
-                rs.getString("blocking_lock_mode"),
-                rs.getString("blocking_lock_type"),
-                rs.getString("blocking_lock_physical_table"),
-                rs.getString("blocking_lock_index"),
-                rs.getInt("blocking_lock_space"),
-                rs.getInt("blocking_lock_page"),
-                rs.getInt("blocking_lock_rec"),
-                rs.getString("blocking_lock_data")
+                getString(row, "blocking_lock_id"),
+                getString(row, "blocking_lock_mode"),
+                getString(row, "blocking_lock_type"),
+                getString(row, "blocking_lock_physical_table"),
+                getString(row, "blocking_lock_index"),
+                getInt(row, "blocking_lock_space"),
+                getInt(row, "blocking_lock_page"),
+                getInt(row, "blocking_lock_rec"),
+                getString(row, "blocking_lock_data")
             ));
         }
     }
 
-    private void extractWaitingTrx(ResultSet rs, LocalTransaction waitingLocalTrx, boolean isMySQL80)
-        throws SQLException {
+    private void extractWaitingTrx(Map<String, Object> row, LocalTransaction waitingLocalTrx, boolean isMySQL80) {
         if (!waitingLocalTrx.isUpdated()) {
-            waitingLocalTrx.setState(rs.getString("waiting_state"));
-            final String physicalSql = rs.getString("waiting_physical_sql");
+            waitingLocalTrx.setState(getString(row, "waiting_state"));
+            final String physicalSql = getString(row, "waiting_physical_sql");
             // Record a truncated SQL
             waitingLocalTrx.setPhysicalSql(
                 physicalSql == null ? null : physicalSql.substring(0, min(4096, physicalSql.length())));
-            waitingLocalTrx.setOperationState(rs.getString("waiting_operation_state"));
-            waitingLocalTrx.setTablesInUse(rs.getInt("waiting_tables_in_use"));
-            waitingLocalTrx.setTablesLocked(rs.getInt("waiting_tables_locked"));
-            waitingLocalTrx.setLockStructs(rs.getInt("waiting_lock_structs"));
-            waitingLocalTrx.setHeapSize(rs.getInt("waiting_heap_size"));
-            waitingLocalTrx.setRowLocks(rs.getInt("waiting_row_locks"));
+            waitingLocalTrx.setOperationState(getString(row, "waiting_operation_state"));
+            waitingLocalTrx.setTablesInUse(getInt(row, "waiting_tables_in_use"));
+            waitingLocalTrx.setTablesLocked(getInt(row, "waiting_tables_locked"));
+            waitingLocalTrx.setLockStructs(getInt(row, "waiting_lock_structs"));
+            waitingLocalTrx.setHeapSize(getInt(row, "waiting_heap_size"));
+            waitingLocalTrx.setRowLocks(getInt(row, "waiting_row_locks"));
 
             waitingLocalTrx.setUpdated(true);
         }
@@ -315,40 +356,42 @@ public class DeadlockDetectionTask implements Runnable {
             // Update waiting-lock information of this local transaction
             if (isMySQL80) {
                 waitingLocalTrx.setWaitingTrxLock(new TrxLock(
-                    rs.getString("waiting_lock_id"),
-                    rs.getString("waiting_lock_mode"),
-                    rs.getString("waiting_lock_type"),
-                    rs.getString("waiting_lock_physical_table"),
-                    rs.getString("waiting_lock_index"),
+                    getString(row, "waiting_lock_id"),
+                    getString(row, "waiting_lock_mode"),
+                    getString(row, "waiting_lock_type"),
+                    getString(row, "waiting_lock_physical_table"),
+                    getString(row, "waiting_lock_index"),
                     null,
                     null,
                     null,
-                    rs.getString("waiting_lock_data")
+                    getString(row, "waiting_lock_data")
                 ));
             } else {
                 waitingLocalTrx.setWaitingTrxLock(new TrxLock(
-                    rs.getString("waiting_lock_id"),
-                    rs.getString("waiting_lock_mode"),
-                    rs.getString("waiting_lock_type"),
-                    rs.getString("waiting_lock_physical_table"),
-                    rs.getString("waiting_lock_index"),
-                    rs.getInt("waiting_lock_space"),
-                    rs.getInt("waiting_lock_page"),
-                    rs.getInt("waiting_lock_rec"),
-                    rs.getString("waiting_lock_data")
+                    getString(row, "waiting_lock_id"),
+                    getString(row, "waiting_lock_mode"),
+                    getString(row, "waiting_lock_type"),
+                    getString(row, "waiting_lock_physical_table"),
+                    getString(row, "waiting_lock_index"),
+                    getInt(row, "waiting_lock_space"),
+                    getInt(row, "waiting_lock_page"),
+                    getInt(row, "waiting_lock_rec"),
+                    getString(row, "waiting_lock_data")
                 ));
             }
         }
     }
 
     /**
-     * Fetch all transactions on the instance.
+     * Fetch transactions on the instance which hold one of the given DN connections.
      */
-    private TrxLookupSet fetchTransInfo() {
+    @VisibleForTesting
+    TrxLookupSet fetchTransInfo(Set<Long> connIds) {
         final TrxLookupSet lookupSet = new TrxLookupSet();
+        final FetchTransForDeadlockDetectionSyncAction action = new FetchTransForDeadlockDetectionSyncAction(null);
+        action.setConnIds(connIds);
         final List<List<Map<String, Object>>> results =
-            SyncManagerHelper.sync(new FetchTransForDeadlockDetectionSyncAction(null), DEFAULT_DB_NAME,
-                SyncScope.CURRENT_ONLY);
+            SyncManagerHelper.sync(action, DEFAULT_DB_NAME, SyncScope.CURRENT_ONLY);
         for (final List<Map<String, Object>> result : results) {
             if (result == null) {
                 continue;
@@ -397,15 +440,15 @@ public class DeadlockDetectionTask implements Runnable {
         TransactionLogger.debug("Deadlock detection task starts.");
         try {
 
-            // Get all global transaction information
-            final TrxLookupSet lookupSet = fetchTransInfo();
+            final long startTime = System.nanoTime();
 
             // Get all group data sources, and group by DN's ID (host:port)
             final Map<String, List<TGroupDataSource>> instId2GroupList = ExecUtils.getInstId2GroupList(allSchemas);
 
-            final DiGraph<TrxLookupSet.Transaction> graph = new DiGraph<>();
-
-            // For each DN, find the lock-wait information and add it to the graph
+            // For each DN, find the lock-wait information first, which is usually much smaller than
+            // the set of all open transactions
+            final List<Pair<Set<String>, List<Map<String, Object>>>> allLockWaits = new ArrayList<>();
+            final Set<Long> connIds = new HashSet<>();
             for (List<TGroupDataSource> groupDataSources : instId2GroupList.values()) {
                 if (CollectionUtils.isNotEmpty(groupDataSources)) {
                     // Since all data sources are in the same DN, any data source is ok
@@ -416,17 +459,41 @@ public class DeadlockDetectionTask implements Runnable {
                         continue;
                     }
 
+                    final List<Map<String, Object>> lockWaits = fetchLockWaits(groupDataSource);
+                    if (lockWaits.isEmpty()) {
+                        continue;
+                    }
+                    for (Map<String, Object> row : lockWaits) {
+                        connIds.add(getLong(row, "waiting_conn_id"));
+                        connIds.add(getLong(row, "blocking_conn_id"));
+                    }
+
                     // Get all group names in this DN
                     final Set<String> groupNames =
                         groupDataSources.stream().map(TGroupDataSource::getDbGroupKey).collect(Collectors.toSet());
-
-                    // Fetch lock-wait information for this DN,
-                    // and update the lookup set and the graph with the information
-                    fetchLockWaits(groupDataSource, groupNames, lookupSet, graph);
+                    allLockWaits.add(new Pair<>(groupNames, lockWaits));
                 }
             }
 
-            graph.detect().ifPresent((cycle) -> {
+            if (allLockWaits.isEmpty()) {
+                TransactionMetrics.recordDeadlockDetection(System.nanoTime() - startTime, 0, 0);
+                return;
+            }
+
+            // Get global transaction information of the waiting and blocking connections only
+            final TrxLookupSet lookupSet = fetchTransInfo(connIds);
+
+            final DiGraph<TrxLookupSet.Transaction> graph = new DiGraph<>();
+            int edges = 0;
+            for (Pair<Set<String>, List<Map<String, Object>>> lockWaits : allLockWaits) {
+                edges += addLockWaits(lockWaits.getValue(), lockWaits.getKey(), lookupSet, graph);
+            }
+            final Optional<ArrayList<TrxLookupSet.Transaction>> deadlock = graph.detect();
+            // Detection time covers fetching, graph building and cycle detection, but not the kill
+            TransactionMetrics.recordDeadlockDetection(System.nanoTime() - startTime, edges,
+                lookupSet.getGroupConn2Tran().size());
+
+            deadlock.ifPresent((cycle) -> {
                 assert cycle.size() >= 2;
                 final Pair<StringBuilder, StringBuilder> deadlockLog = DeadlockParser.parseGlobalDeadlock(cycle);
                 final StringBuilder simpleDeadlockLog = deadlockLog.getKey();
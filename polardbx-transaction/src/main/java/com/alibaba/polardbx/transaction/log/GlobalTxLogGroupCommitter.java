@@ -0,0 +1,167 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.transaction.log;
+
+import com.alibaba.polardbx.common.jdbc.IConnection;
+import com.alibaba.polardbx.common.jdbc.IDataSource;
+import com.alibaba.polardbx.common.jdbc.MasterSlave;
+import com.alibaba.polardbx.common.type.TransactionType;
+import com.alibaba.polardbx.transaction.TransactionMetrics;
+import com.alibaba.polardbx.transaction.TransactionState;
+
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 合并并发事务在同一 primary group 上的 global tx log 写入
+ * <p>
+ * 第一个到达的线程作为 leader, 取出排队的记录用一条多值 INSERT 写入后唤醒其余线程, leader 写入期间到达的记录组成下一批,
+ * 不额外等待. 批量写入遇到主键冲突 (如恢复线程已为某事务写入回滚记录) 时, 整批不生效, 各事务退回单条写入,
+ * 只有冲突的事务失败; 其余错误原样抛给批内所有事务, 与单条写入时的提交状态未知语义一致.
+ * <p>
+ * 只适用于通过独立连接自动提交写日志的场景 (TSO), XA 的日志写在 primary 分支内, 不能跨事务合并
+ */
+public class GlobalTxLogGroupCommitter {
+
+    private final ConcurrentHashMap<String, GroupQueue> queues = new ConcurrentHashMap<>();
+
+    /**
+     * 写入一条提交记录, 返回时记录已持久化
+     */
+    public void append(Record record, String group, IDataSource dataSource, boolean v2, int maxBatchSize)
+        throws SQLException {
+        GroupQueue queue = queues.computeIfAbsent(group + (v2 ? ":v2" : ":v1"), k -> new GroupQueue());
+        List<Record> batch = queue.enqueueOrLead(record, maxBatchSize);
+        if (batch != null) {
+            try {
+                writeBatch(batch, dataSource, v2);
+            } finally {
+                queue.finishBatch(batch);
+            }
+        }
+
+        if (record.retrySingle) {
+            TransactionMetrics.recordTrxLogSingleRetry();
+            writeBatch(record.asList(), dataSource, v2);
+        }
+        if (record.error != null) {
+            throw record.error;
+        }
+    }
+
+    private static void writeBatch(List<Record> batch, IDataSource dataSource, boolean v2) {
+        try (IConnection conn = dataSource.getConnection(MasterSlave.MASTER_ONLY)) {
+            if (v2) {
+                GlobalTxLogManager.appendV2Batch(batch, conn);
+            } else {
+                GlobalTxLogManager.appendBatch(batch, conn);
+            }
+            TransactionMetrics.recordTrxLogBatch(batch.size());
+        } catch (SQLIntegrityConstraintViolationException e) {
+            for (Record record : batch) {
+                if (batch.size() > 1) {
+                    record.retrySingle = true;
+                } else {
+                    record.retrySingle = false;
+                    record.error = e;
+                }
+            }
+        } catch (Throwable t) {
+            SQLException e = t instanceof SQLException ? (SQLException) t : new SQLException(t);
+            for (Record record : batch) {
+                record.retrySingle = false;
+                record.error = e;
+            }
+        }
+    }
+
+    public static class Record {
+        final long txid;
+        final TransactionType type;
+        final TransactionState state;
+        final ConnectionContext context;
+        final long commitTimestamp;
+
+        private boolean done;
+        private boolean retrySingle;
+        private SQLException error;
+
+        public Record(long txid, TransactionType type, TransactionState state, ConnectionContext context,
+                      long commitTimestamp) {
+            this.txid = txid;
+            this.type = type;
+            this.state = state;
+            this.context = context;
+            this.commitTimestamp = commitTimestamp;
+        }
+
+        private List<Record> asList() {
+            List<Record> list = new ArrayList<>(1);
+            list.add(this);
+            return list;
+        }
+    }
+
+    private static class GroupQueue {
+        private final List<Record> pending = new ArrayList<>();
+        private boolean leaderActive;
+
+        /**
+         * 入队并等待, 若需要当 leader 则返回本批记录, 若已被其他 leader 写完则返回 null
+         */
+        synchronized List<Record> enqueueOrLead(Record record, int maxBatchSize) {
+            pending.add(record);
+            boolean interrupted = false;
+            while (!record.done && leaderActive) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    // 日志可能已被其他线程写入, 必须等到结果
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (record.done) {
+                return null;
+            }
+
+            leaderActive = true;
+            pending.remove(record);
+            List<Record> batch = new ArrayList<>(Math.min(pending.size() + 1, maxBatchSize));
+            batch.add(record);
+            int n = Math.min(pending.size(), maxBatchSize - 1);
+            for (int i = 0; i < n; i++) {
+                batch.add(pending.get(i));
+            }
+            pending.subList(0, n).clear();
+            return batch;
+        }
+
+        synchronized void finishBatch(List<Record> batch) {
+            for (Record record : batch) {
+                record.done = true;
+            }
+            leaderActive = false;
+            notifyAll();
+        }
+    }
+}
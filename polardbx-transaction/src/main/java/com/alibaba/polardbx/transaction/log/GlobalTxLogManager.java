@@ -56,8 +56,10 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
 import java.sql.Statement;
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicLong;
@@ -98,6 +100,8 @@ public class GlobalTxLogManager extends AbstractLifecycle {
 
     private TransactionExecutor executor;
 
+    private final GlobalTxLogGroupCommitter groupCommitter = new GlobalTxLogGroupCommitter();
+
     private static final AtomicLong appendV2FailedCnt = new AtomicLong(0);
     private static final AtomicLong appendV2FailedLastTime = new AtomicLong(0);
 
@@ -168,6 +172,27 @@ public class GlobalTxLogManager extends AbstractLifecycle {
         }
     }
 
+    /**
+     * 与 appendTrxLog 相同, 但通过独立连接写入, 并与同一 primary group 上并发提交的事务合并为一次写入
+     *
+     * @return true if using trx log v2
+     */
+    public boolean appendTrxLogGrouped(long txid, TransactionType type, TransactionState state,
+                                       ConnectionContext context, long commitTimestamp, String group,
+                                       IDataSource dataSource, int maxBatchSize) throws SQLException {
+        boolean v2 = 0 != DynamicConfig.getInstance().getTrxLogMethod();
+        groupCommitter.append(new GlobalTxLogGroupCommitter.Record(txid, type, state, context, commitTimestamp),
+            group, dataSource, v2, maxBatchSize);
+        if (v2) {
+            long lastLogTime = TransactionAttribute.LAST_LOG_TRX_LOG_V2.get();
+            if (TransactionManager.shouldWriteEventLog(lastLogTime)
+                && TransactionAttribute.LAST_LOG_TRX_LOG_V2.compareAndSet(lastLogTime, System.nanoTime())) {
+                EventLogger.log(EventType.TRX_INFO, "Found use of A/B table as trx log");
+            }
+        }
+        return v2;
+    }
+
     public static void append(long txid, TransactionType type, TransactionState state, ConnectionContext context,
                               IConnection conn) throws SQLException {
         try (PreparedStatement ps = conn.prepareStatement(APPEND_TRX)) {
@@ -243,6 +268,66 @@ public class GlobalTxLogManager extends AbstractLifecycle {
         }
     }
 
+    /**
+     * 一条多值 INSERT 写入多个事务的提交记录, 整体成功或失败
+     */
+    static void appendBatch(List<GlobalTxLogGroupCommitter.Record> records, IConnection conn) throws SQLException {
+        if (records.size() == 1) {
+            GlobalTxLogGroupCommitter.Record r = records.get(0);
+            append(r.txid, r.type, r.state, r.context, r.commitTimestamp, conn);
+            return;
+        }
+        StringBuilder sql = new StringBuilder(TrxLogTableConstants.APPEND_TRX_WITH_TS);
+        for (int i = 1; i < records.size(); i++) {
+            sql.append(", (?, ?, ?, ?, ?, ?)");
+        }
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            ps.setObject(1, new TableName(DRDS_GLOBAL_TX_LOG));
+            int index = 2;
+            for (GlobalTxLogGroupCommitter.Record r : records) {
+                ps.setLong(index++, r.txid);
+                ps.setString(index++, r.type.name());
+                ps.setString(index++, r.state.name());
+                ps.setString(index++, currentServerAddr);
+                ps.setString(index++, JSON.toJSONString(r.context));
+                ps.setLong(index++, r.commitTimestamp);
+            }
+            ps.executeUpdate();
+        }
+    }
+
+    static void appendV2Batch(List<GlobalTxLogGroupCommitter.Record> records, IConnection conn)
+        throws SQLException {
+        if (records.size() == 1) {
+            GlobalTxLogGroupCommitter.Record r = records.get(0);
+            appendV2(r.txid, r.commitTimestamp, conn);
+            return;
+        }
+        StringBuilder sql = new StringBuilder(TrxLogTableConstants.APPEND_TRX_V2);
+        for (int i = 1; i < records.size(); i++) {
+            sql.append(", (?, ?)");
+        }
+        try (PreparedStatement ps = conn.prepareStatement(sql.toString())) {
+            int index = 1;
+            for (GlobalTxLogGroupCommitter.Record r : records) {
+                ps.setLong(index++, r.txid);
+                ps.setLong(index++, r.commitTimestamp);
+            }
+            ps.executeUpdate();
+        } catch (SQLIntegrityConstraintViolationException e) {
+            // 由调用方退回单条写入, 不计入 v2 失败次数
+            throw e;
+        } catch (SQLException e) {
+            EventLogger.log(EventType.TRX_LOG_ERR, "Append trx log v2 batch failed, caused by " + e.getMessage());
+            try {
+                handleV2LogError();
+            } catch (Throwable t) {
+                logger.error("Handle trx log v2 error failed", t);
+            }
+            throw e;
+        }
+    }
+
     private static void handleV2LogError() throws SQLException {
         long lastErrTime = appendV2FailedLastTime.get();
         if ((System.nanoTime() - lastErrTime) / 1000000000 > 600
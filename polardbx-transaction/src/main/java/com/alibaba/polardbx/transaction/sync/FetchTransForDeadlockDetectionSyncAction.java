@@ -25,6 +25,7 @@ import com.alibaba.polardbx.optimizer.utils.ITransaction;
 import com.alibaba.polardbx.transaction.TransactionManager;
 
 import java.util.Collection;
+import java.util.Set;
 
 /**
  * @author zhuangtianyi
@@ -33,6 +34,11 @@ public class FetchTransForDeadlockDetectionSyncAction implements ISyncAction {
 
     private String schema;
 
+    /**
+     * 只返回持有这些 DN 连接的事务, 为 null 时返回全部事务
+     */
+    private Set<Long> connIds;
+
     public FetchTransForDeadlockDetectionSyncAction() {
     }
 
@@ -68,6 +74,9 @@ public class FetchTransForDeadlockDetectionSyncAction implements ISyncAction {
             final String truncatedSql = (sql == null) ? "" : sql.substring(0, Math.min(sql.length(), 4096));
 
             tran.getConnectionHolder().handleConnIds((group, connId) -> {
+                if (connIds != null && !connIds.contains(connId)) {
+                    return;
+                }
                 result.addRow(new Object[] {
                     tran.getId(),
                     group,
@@ -89,6 +98,14 @@ public class FetchTransForDeadlockDetectionSyncAction implements ISyncAction {
         this.schema = schema;
     }
 
+    public Set<Long> getConnIds() {
+        return connIds;
+    }
+
+    public void setConnIds(Set<Long> connIds) {
+        this.connIds = connIds;
+    }
+
     @Override
     public String toString() {
         return "FetchTransForDeadlockDetectionSyncAction(schema = " + schema + ")";
@@ -44,6 +44,13 @@ public interface ITsoTransaction extends IMppTsoTransaction {
         return tso;
     }
 
+    default long nextSnapshotTimestamp(long notBeforeNanos, Consumer<Long> updateGetTsoTime) {
+        long getTsoStartTime = System.nanoTime();
+        long tso = getManager().getTimestampOracle().nextSnapshotTimestamp(notBeforeNanos);
+        updateGetTsoTime.accept(System.nanoTime() - getTsoStartTime);
+        return tso;
+    }
+
     default void updateSnapshotTimestamp() {
         // do nothing
     }
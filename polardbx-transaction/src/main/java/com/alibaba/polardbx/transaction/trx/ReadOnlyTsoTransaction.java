@@ -20,6 +20,7 @@ import com.alibaba.polardbx.common.jdbc.IConnection;
 import com.alibaba.polardbx.common.jdbc.IDataSource;
 import com.alibaba.polardbx.common.jdbc.ITransactionPolicy;
 import com.alibaba.polardbx.common.jdbc.MasterSlave;
+import com.alibaba.polardbx.common.logical.ITConnection;
 import com.alibaba.polardbx.common.properties.ConnectionParams;
 import com.alibaba.polardbx.common.type.TransactionType;
 import com.alibaba.polardbx.common.utils.logger.Logger;
@@ -65,7 +66,7 @@ public class ReadOnlyTsoTransaction extends AutoCommitTransaction implements ITs
     @Override
     public long getSnapshotSeq() {
         if (snapshotTimestamp < 0) {
-            snapshotTimestamp = nextTimestamp(t -> stat.getTsoTime += t);
+            snapshotTimestamp = nextReadTimestamp();
         }
         return snapshotTimestamp;
     }
@@ -87,10 +88,24 @@ public class ReadOnlyTsoTransaction extends AutoCommitTransaction implements ITs
     public void updateSnapshotTimestamp() {
         if (!this.autoCommit && isolationLevel == Connection.TRANSACTION_READ_COMMITTED
             && !useExternalSnapshotTimestamp) {
-            snapshotTimestamp = nextTimestamp(t -> stat.getTsoTime += t);
+            snapshotTimestamp = nextReadTimestamp();
         }
     }
 
+    /**
+     * 预取的 TSO 必须晚于本会话上次提交完成的时间, 否则可能读不到自己刚提交的数据; 没有会话时不使用预取
+     */
+    private long nextReadTimestamp() {
+        final ITConnection connection = executionContext.getConnection();
+        if (connection == null) {
+            return nextTimestamp(t -> stat.getTsoTime += t);
+        }
+        final Long lastCommitNanos = connection.getLastCommitNanos();
+        // 没有提交过时只要求预取发生在事务开始之前的任意时刻
+        final long notBeforeNanos = lastCommitNanos == null ? System.nanoTime() - Long.MAX_VALUE / 2 : lastCommitNanos;
+        return nextSnapshotTimestamp(notBeforeNanos, t -> stat.getTsoTime += t);
+    }
+
     @Override
     public IConnection getConnection(String schemaName, String group, IDataSource ds, RW rw, ExecutionContext ec)
         throws SQLException {
@@ -32,6 +32,7 @@ import com.alibaba.polardbx.rpc.client.XSession;
 import com.alibaba.polardbx.rpc.pool.XConnection;
 import com.alibaba.polardbx.transaction.TransactionLogger;
 import com.alibaba.polardbx.transaction.TransactionManager;
+import com.alibaba.polardbx.transaction.TransactionMetrics;
 import com.alibaba.polardbx.transaction.TransactionState;
 import com.alibaba.polardbx.transaction.connection.TransactionConnectionHolder;
 import com.alibaba.polardbx.transaction.jdbc.SavePoint;
@@ -172,6 +173,15 @@ public class TsoTransaction extends ShareReadViewTransaction implements ITsoTran
             commitTimestamp, logConn);
     }
 
+    /**
+     * 与同一 primary group 上并发提交的事务合并写入 global tx log
+     */
+    protected void writeCommitLogGrouped(int maxBatchSize) throws SQLException {
+        beforeWriteCommitLog();
+        useTrxLogV2 = globalTxLogManager.appendTrxLogGrouped(id, getType(), TransactionState.SUCCEED,
+            connectionContext, commitTimestamp, primaryGroup, dataSourceCache.get(primaryGroup), maxBatchSize);
+    }
+
     @Override
     protected void prepareConnections() {
         forEachHeldConnection((heldConn) -> {
@@ -250,6 +260,7 @@ public class TsoTransaction extends ShareReadViewTransaction implements ITsoTran
             // XA PREPARE on all groups
             prepareConnections();
             stat.prepareTime = System.nanoTime() - prepareStartTime;
+            TransactionMetrics.recordPhase(TransactionMetrics.CommitPhase.PREPARE, stat.prepareTime);
             TransactionLogger.info(id, "[TSO] Prepared");
 
             this.prepared = true;
@@ -260,12 +271,19 @@ public class TsoTransaction extends ShareReadViewTransaction implements ITsoTran
 
             if (!executionContext.getParamManager().getBoolean(ConnectionParams.TSO_OMIT_GLOBAL_TX_LOG)) {
                 long logStartTime = System.nanoTime();
-                try (IConnection logConn = dataSourceCache.get(primaryGroup).getConnection(MasterSlave.MASTER_ONLY)) {
+                // 开启组提交时由 leader 线程获取连接写入
+                final int maxBatchSize = DynamicConfig.getInstance().getTrxLogGroupCommitMaxBatch();
+                try (IConnection logConn = maxBatchSize > 1 ? null :
+                    dataSourceCache.get(primaryGroup).getConnection(MasterSlave.MASTER_ONLY)) {
                     beforePrimaryCommit();
                     commitState = TransactionCommitState.UNKNOWN;
 
                     duringPrimaryCommit();
-                    writeCommitLog(logConn);
+                    if (logConn == null) {
+                        writeCommitLogGrouped(maxBatchSize);
+                    } else {
+                        writeCommitLog(logConn);
+                    }
 
                     afterPrimaryCommit();
                 } catch (SQLIntegrityConstraintViolationException ex) {
@@ -277,6 +295,7 @@ public class TsoTransaction extends ShareReadViewTransaction implements ITsoTran
                         "Failed to write commit state on group: " + primaryGroup);
                 }
                 stat.trxLogTime = System.nanoTime() - logStartTime;
+                TransactionMetrics.recordPhase(TransactionMetrics.CommitPhase.TRX_LOG, stat.trxLogTime);
             }
 
             commitState = TransactionCommitState.SUCCESS;
@@ -303,7 +322,10 @@ public class TsoTransaction extends ShareReadViewTransaction implements ITsoTran
              */
             TransactionLogger.info(id, "[TSO] Commit Point");
 
+            long commitStartTime = System.nanoTime();
             commitConnections();
+            TransactionMetrics.recordPhase(TransactionMetrics.CommitPhase.COMMIT_BRANCHES,
+                System.nanoTime() - commitStartTime);
 
             TransactionLogger.info(id, "[TSO] Committed");
         } else {
@@ -28,6 +28,7 @@ import com.alibaba.polardbx.optimizer.context.ExecutionContext;
 import com.alibaba.polardbx.transaction.connection.TransactionConnectionHolder;
 import com.alibaba.polardbx.transaction.TransactionLogger;
 import com.alibaba.polardbx.transaction.TransactionManager;
+import com.alibaba.polardbx.transaction.TransactionMetrics;
 import com.alibaba.polardbx.transaction.TransactionState;
 import com.alibaba.polardbx.transaction.async.AsyncTaskQueue;
 import com.alibaba.polardbx.transaction.jdbc.SavePoint;
@@ -185,6 +186,7 @@ public class XATransaction extends ShareReadViewTransaction {
              */
             prepareConnections();
             stat.prepareTime = System.nanoTime() - prepareStartTime;
+            TransactionMetrics.recordPhase(TransactionMetrics.CommitPhase.PREPARE, stat.prepareTime);
             this.prepared = true;
             this.state = State.PREPARED;
 
@@ -206,6 +208,7 @@ public class XATransaction extends ShareReadViewTransaction {
                 throw new TddlRuntimeException(ErrorCode.ERR_TRANS_COMMIT, ex, message);
             }
             stat.trxLogTime = System.nanoTime() - logStartTime;
+            TransactionMetrics.recordPhase(TransactionMetrics.CommitPhase.TRX_LOG, stat.trxLogTime);
         } catch (RuntimeException ex) {
             exception = ex;
         }
@@ -222,7 +225,10 @@ public class XATransaction extends ShareReadViewTransaction {
             /*
              * XA 提交成功：XA COMMIT 提交刚才 PREPARE 的其他连接
              */
+            long commitStartTime = System.nanoTime();
             commitConnections();
+            TransactionMetrics.recordPhase(TransactionMetrics.CommitPhase.COMMIT_BRANCHES,
+                System.nanoTime() - commitStartTime);
 
             TransactionLogger.info(id, "Committed (XA)");
         } else {
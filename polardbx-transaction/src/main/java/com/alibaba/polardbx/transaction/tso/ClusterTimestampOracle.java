@@ -16,195 +16,217 @@
 
 package com.alibaba.polardbx.transaction.tso;
 
-import com.alibaba.polardbx.common.exception.TddlRuntimeException;
-import com.alibaba.polardbx.common.exception.code.ErrorCode;
 import com.alibaba.polardbx.common.model.lifecycle.AbstractLifecycle;
+import com.alibaba.polardbx.common.properties.DynamicConfig;
 import com.alibaba.polardbx.common.utils.GeneralUtil;
 import com.alibaba.polardbx.common.utils.logger.Logger;
 import com.alibaba.polardbx.common.utils.logger.LoggerFactory;
-import com.alibaba.polardbx.gms.util.MetaDbUtil;
 import com.alibaba.polardbx.optimizer.utils.ITimestampOracle;
-import com.alibaba.polardbx.rpc.XLog;
-import com.alibaba.polardbx.rpc.pool.XConnection;
 
-import java.sql.Connection;
-import java.sql.ResultSet;
-import java.sql.SQLException;
-import java.sql.Statement;
 import java.util.ArrayList;
-import java.util.concurrent.FutureTask;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.concurrent.atomic.AtomicReference;
 
 /**
+ * Batched TSO client. Waiters are queued lock-free, and up to {@code maxInflight} fetcher threads each drain
+ * the queue and reserve one range per round trip, so a new batch can be sent while previous ones are still
+ * waiting for GMS.
+ *
  * @version 1.0
  */
 public class ClusterTimestampOracle extends AbstractLifecycle implements ITimestampOracle {
 
     private static final Logger logger = LoggerFactory.getLogger(ClusterTimestampOracle.class);
 
+    public static final int BitReserved = 6;
+
+    public static final int DEFAULT_MAX_INFLIGHT = 4;
+
+    private static final int MAX_BATCH_SIZE = 4096;
+
+    private static final long IDLE_WAIT_MS = 100;
+
     private long timeout = 10000;
 
-    public static final int BitReserved = 6;
+    private final TsoSource source;
 
-    @Override
-    public void setTimeout(long timeout) {
-        this.timeout = timeout;
+    private final ConcurrentLinkedQueue<CompletableFuture<Long>> waiters = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Fetchers parked on {@link #wakeup}, producers only signal when someone is idle.
+     */
+    private final AtomicInteger idleFetchers = new AtomicInteger(0);
+    private final Semaphore wakeup = new Semaphore(0);
+
+    private final Thread[] fetchers;
+    private volatile boolean stopped = false;
+
+    /**
+     * Tail of the last fetched range kept for read-only snapshots, see {@link #nextSnapshotTimestamp(long)}.
+     */
+    private volatile PrefetchedRange prefetched = null;
+
+    public ClusterTimestampOracle() {
+        this(new MetaDbTsoSource(), DEFAULT_MAX_INFLIGHT);
     }
 
-    class TsoFuture {
-        private final AtomicLong tso = new AtomicLong(0);
-        private final AtomicReference<Exception> exception = new AtomicReference<>(null);
-        private final FutureTask<Long> futureTask = new FutureTask<>(tso::get);
+    public ClusterTimestampOracle(TsoSource source, int maxInflight) {
+        this.source = source;
+        this.fetchers = new Thread[Math.max(1, maxInflight)];
+    }
 
-        public void setTso(long tso) {
-            this.tso.set(tso);
-            futureTask.run();
+    @Override
+    protected void doInit() {
+        for (int i = 0; i < fetchers.length; ++i) {
+            final Thread fetcher = new Thread(this::fetchLoop, "TsoFetcher-" + i);
+            fetcher.setDaemon(true);
+            fetchers[i] = fetcher;
+            fetcher.start();
         }
+    }
 
-        public void setException(Exception exception) {
-            this.exception.set(exception);
-            futureTask.run();
-        }
+    @Override
+    public void setTimeout(long timeout) {
+        this.timeout = timeout;
+    }
 
-        public long waitTso() throws Exception {
-            try {
-                final long tso = futureTask.get(timeout, TimeUnit.MILLISECONDS);
-                if (exception.get() != null) {
-                    throw exception.get();
-                }
-                return tso;
-            } catch (TimeoutException e) {
-                throw new TimeoutException("Fetch TSO timeout.");
+    @Override
+    protected void doDestroy() {
+        stopped = true;
+        for (Thread fetcher : fetchers) {
+            if (fetcher != null) {
+                fetcher.interrupt();
             }
         }
+        // Fetchers fail their own in-flight batch on exit, the queue is failed here.
+        failWaiters();
     }
 
-    private static final ArrayList<TsoFuture> taskQueue = new ArrayList<>();
+    private void failWaiters() {
+        CompletableFuture<Long> future;
+        while ((future = waiters.poll()) != null) {
+            future.completeExceptionally(new IllegalStateException("TSO fetcher stopped."));
+        }
+    }
 
-    static private void fetchTsoTask() {
-        ArrayList<TsoFuture> copyed = null;
-        synchronized (taskQueue) {
-            while (taskQueue.isEmpty()) {
-                try {
-                    taskQueue.wait();
-                } catch (InterruptedException ignore) {
-                }
-            }
-            copyed = (ArrayList<TsoFuture>) taskQueue.clone();
-            taskQueue.clear();
+    @Override
+    public long nextTimestamp() {
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+        waiters.offer(future);
+        if (stopped) {
+            // Destroyed in between, nobody is left to serve the queue.
+            failWaiters();
+        }
+        if (idleFetchers.get() > 0 && wakeup.availablePermits() == 0) {
+            wakeup.release();
+        }
+        try {
+            return future.get(timeout, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw GeneralUtil.nestedException(new TimeoutException("Fetch TSO timeout."));
+        } catch (Exception e) {
+            throw GeneralUtil.nestedException(e.getCause() != null ? e.getCause() : e);
         }
+    }
 
-        final int totalFetchTimeout = 10000; // 10s
-        final int fetchTimeout = 2000; // 2s
-        long tsoBase = 0;
-        Exception exception = null;
-
-        // Get TSO.
-        final long startTime = System.currentTimeMillis();
-        while (true) {
-            // Add new waited.
-            synchronized (taskQueue) {
-                if (!taskQueue.isEmpty()) {
-                    copyed.addAll(taskQueue);
-                    taskQueue.clear();
-                }
+    /**
+     * Timestamp for a read-only snapshot. When TSO_SNAPSHOT_PREFETCH_WINDOW_MS is positive, this may be served
+     * from a range fetched at most that long ago, so the snapshot can miss commits of other sessions finished inside
+     * the window. A range is only used when its fetch was sent after {@code notBeforeNanos}, callers pass the time
+     * their own last commit finished so they always read their own writes. Never use it for commit timestamps.
+     */
+    @Override
+    public long nextSnapshotTimestamp(long notBeforeNanos) {
+        final PrefetchedRange range = prefetched;
+        final long now = System.nanoTime();
+        if (range != null && now - range.expireNanos < 0 && range.startNanos - notBeforeNanos > 0) {
+            final long tso = range.next.getAndAdd(1 << BitReserved);
+            if (tso <= range.last) {
+                return tso;
             }
+        }
+        return nextTimestamp();
+    }
 
-            try (Connection metaDbConn = MetaDbUtil.getConnection()) {
-                if (metaDbConn.isWrapperFor(XConnection.class)) {
-                    final XConnection xConnection = metaDbConn.unwrap(XConnection.class);
-                    final int oldTimeout = xConnection.getNetworkTimeout();
+    private void fetchLoop() {
+        final List<CompletableFuture<Long>> batch = new ArrayList<>();
+        while (!stopped) {
+            try {
+                if (!drain(batch)) {
+                    idleFetchers.incrementAndGet();
                     try {
-                        xConnection.setNetworkTimeout(null, fetchTimeout);
-                        tsoBase = xConnection.getTSO(copyed.size());
-                        // Success.
-                        break;
-                    } finally {
-                        xConnection.setNetworkTimeout(null, oldTimeout);
-                    }
-                } else {
-                    // JDBC.
-                    try (Statement statement = metaDbConn.createStatement()) {
-                        statement.setQueryTimeout(fetchTimeout / 1000);
-                        try (ResultSet rs = statement.executeQuery(
-                            "call dbms_tso.get_timestamp('mysql', 'gts_base'," + copyed.size() + ")")) {
-                            if (rs.next()) {
-                                tsoBase = rs.getLong(1);
-                                // Success.
-                                break;
-                            }
-                            throw new TddlRuntimeException(ErrorCode.ERR_GMS_UNEXPECTED,
-                                "Cannot get TSO with unexpected column.");
+                        // Re-check after announcing idle, or a waiter offered in between may not signal us.
+                        if (waiters.isEmpty()) {
+                            wakeup.tryAcquire(IDLE_WAIT_MS, TimeUnit.MILLISECONDS);
                         }
+                    } finally {
+                        idleFetchers.decrementAndGet();
                     }
+                    continue;
                 }
-            } catch (Exception e) {
-                XLog.XLogLogger.error(e);
-                // Retry if HA occurs and not timeout.
-                if (e instanceof SQLException ||
-                    (e.getMessage() != null &&
-                        (e.getMessage().contains("Failed to get TSO") ||
-                            e.getMessage().contains("channel inactive") ||
-                            e.getMessage().contains("previous unfinished") ||
-                            e.getMessage().contains("timeout") ||
-                            e.getMessage().contains("Client removed") ||
-                            e.getMessage().contains("closed") ||
-                            e.getMessage().contains("EOF")))) {
-                    if (System.currentTimeMillis() - startTime < totalFetchTimeout) {
-                        continue;
-                    }
+                fetchBatch(batch);
+            } catch (InterruptedException e) {
+                // Interrupted while fetching, the waiters of this batch would otherwise wait until timeout.
+                for (CompletableFuture<Long> future : batch) {
+                    future.completeExceptionally(new IllegalStateException("TSO fetcher stopped.", e));
+                }
+            } catch (Throwable t) {
+                logger.error(t);
+                for (CompletableFuture<Long> future : batch) {
+                    future.completeExceptionally(t);
                 }
-                exception = e;
-                break;
+            } finally {
+                batch.clear();
             }
         }
+        failWaiters();
+    }
 
-        // Ok now report success or error.
-        if (exception != null) {
-            for (TsoFuture future : copyed) {
-                future.setException(exception);
-            }
-        } else {
-            long tso = tsoBase;
-            for (TsoFuture future : copyed) {
-                future.setTso(tso += (1 << BitReserved));
-            }
+    private boolean drain(List<CompletableFuture<Long>> batch) {
+        CompletableFuture<Long> future;
+        while (batch.size() < MAX_BATCH_SIZE && (future = waiters.poll()) != null) {
+            batch.add(future);
         }
+        return !batch.isEmpty();
     }
 
-    static {
-        final Runnable tsoAsyncTask = () -> {
-            while (true) {
-                try {
-                    fetchTsoTask();
-                } catch (Throwable t) {
-                    logger.error(t);
-                }
-            }
-        };
+    private void fetchBatch(List<CompletableFuture<Long>> batch) throws Exception {
+        final long windowMs = DynamicConfig.getInstance().getTsoSnapshotPrefetchWindowMs();
+        final int extra = windowMs > 0 ? DynamicConfig.getInstance().getTsoSnapshotPrefetchSize() : 0;
+        final long startNanos = System.nanoTime();
+        final long tsoBase = source.fetch(batch.size() + extra);
 
-        (new Thread(tsoAsyncTask, "TsoFetcher")).start();
-    }
-
-    private long nextTimestampGrouping() {
-        final TsoFuture future = new TsoFuture();
-        synchronized (taskQueue) {
-            taskQueue.add(future);
-            taskQueue.notify();
+        long tso = tsoBase;
+        for (CompletableFuture<Long> future : batch) {
+            future.complete(tso += (1 << BitReserved));
         }
-        try {
-            return future.waitTso();
-        } catch (Exception e) {
-            throw GeneralUtil.nestedException(e);
+        if (extra > 0) {
+            // Validity counts from when the request was sent, the range is at least that fresh.
+            prefetched = new PrefetchedRange(tso + (1 << BitReserved), tso + ((long) extra << BitReserved),
+                startNanos, startNanos + TimeUnit.MILLISECONDS.toNanos(windowMs));
         }
     }
 
-    @Override
-    public long nextTimestamp() {
-        return nextTimestampGrouping();
+    private static class PrefetchedRange {
+        private final AtomicLong next;
+        private final long last;
+        /**
+         * When the fetch was sent, every commit finished before it is older than the whole range.
+         */
+        private final long startNanos;
+        private final long expireNanos;
+
+        PrefetchedRange(long first, long last, long startNanos, long expireNanos) {
+            this.next = new AtomicLong(first);
+            this.last = last;
+            this.startNanos = startNanos;
+            this.expireNanos = expireNanos;
+        }
     }
-
 }
@@ -0,0 +1,167 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.transaction.log;
+
+import com.alibaba.polardbx.common.jdbc.IConnection;
+import com.alibaba.polardbx.common.jdbc.IDataSource;
+import com.alibaba.polardbx.common.jdbc.MasterSlave;
+import com.alibaba.polardbx.common.type.TransactionType;
+import com.alibaba.polardbx.transaction.TransactionState;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+
+public class GlobalTxLogGroupCommitterTest {
+
+    private final AtomicInteger statementCount = new AtomicInteger();
+    private final Set<Long> writtenTxids = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 模拟 global tx log 表, 多值 INSERT 中任一 txid 冲突则整条失败
+     */
+    private IDataSource mockDataSource(Set<Long> conflictTxids, long writeMillis) throws SQLException {
+        IDataSource dataSource = Mockito.mock(IDataSource.class);
+        Mockito.when(dataSource.getConnection(MasterSlave.MASTER_ONLY)).thenAnswer(invocation -> {
+            IConnection conn = Mockito.mock(IConnection.class);
+            Mockito.when(conn.prepareStatement(anyString())).thenAnswer(i -> {
+                statementCount.incrementAndGet();
+                List<Long> txids = new ArrayList<>();
+                PreparedStatement ps = Mockito.mock(PreparedStatement.class);
+                Mockito.doAnswer(a -> {
+                    // 每条记录的第一个 long 参数是 txid
+                    int index = a.getArgument(0);
+                    if ((index - 2) % 6 == 0) {
+                        txids.add(a.getArgument(1));
+                    }
+                    return null;
+                }).when(ps).setLong(anyInt(), anyLong());
+                Mockito.when(ps.executeUpdate()).thenAnswer(a -> {
+                    Thread.sleep(writeMillis);
+                    for (Long txid : txids) {
+                        if (conflictTxids.contains(txid)) {
+                            throw new SQLIntegrityConstraintViolationException("Duplicate entry " + txid);
+                        }
+                    }
+                    writtenTxids.addAll(txids);
+                    return txids.size();
+                });
+                return ps;
+            });
+            return conn;
+        });
+        return dataSource;
+    }
+
+    private static GlobalTxLogGroupCommitter.Record record(long txid) {
+        return new GlobalTxLogGroupCommitter.Record(txid, TransactionType.TSO, TransactionState.SUCCEED, null, txid);
+    }
+
+    @Test
+    public void testConcurrentAppendsAreBatched() throws Exception {
+        final IDataSource dataSource = mockDataSource(new ConcurrentHashMap<Long, Boolean>().keySet(), 50);
+        final GlobalTxLogGroupCommitter committer = new GlobalTxLogGroupCommitter();
+        final int threads = 16;
+        final CountDownLatch start = new CountDownLatch(1);
+        final AtomicLong failures = new AtomicLong();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            final long txid = i;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                    committer.append(record(txid), "G0", dataSource, false, 64);
+                } catch (Exception e) {
+                    failures.incrementAndGet();
+                }
+            });
+            t.start();
+            workers.add(t);
+        }
+        start.countDown();
+        for (Thread t : workers) {
+            t.join();
+        }
+
+        Assert.assertEquals(0, failures.get());
+        Assert.assertEquals(threads, writtenTxids.size());
+        Assert.assertTrue("statements: " + statementCount.get(), statementCount.get() < threads);
+    }
+
+    @Test
+    public void testConflictFallsBackToSingleWrite() throws Exception {
+        Set<Long> conflicts = ConcurrentHashMap.newKeySet();
+        conflicts.add(3L);
+        final IDataSource dataSource = mockDataSource(conflicts, 50);
+        final GlobalTxLogGroupCommitter committer = new GlobalTxLogGroupCommitter();
+        final CountDownLatch start = new CountDownLatch(1);
+        final Set<Long> failed = ConcurrentHashMap.newKeySet();
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            final long txid = i;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                    committer.append(record(txid), "G0", dataSource, false, 64);
+                } catch (SQLIntegrityConstraintViolationException e) {
+                    failed.add(txid);
+                } catch (Exception e) {
+                    failed.add(-1L);
+                }
+            });
+            t.start();
+            workers.add(t);
+        }
+        start.countDown();
+        for (Thread t : workers) {
+            t.join();
+        }
+
+        Assert.assertEquals(1, failed.size());
+        Assert.assertTrue(failed.contains(3L));
+        Assert.assertEquals(7, writtenTxids.size());
+        Assert.assertFalse(writtenTxids.contains(3L));
+    }
+
+    @Test
+    public void testConnectionErrorPropagatesToBatch() throws Exception {
+        IDataSource dataSource = Mockito.mock(IDataSource.class);
+        Mockito.when(dataSource.getConnection(any(MasterSlave.class))).thenThrow(new SQLException("lost"));
+        GlobalTxLogGroupCommitter committer = new GlobalTxLogGroupCommitter();
+        try {
+            committer.append(record(1), "G0", dataSource, false, 64);
+            Assert.fail();
+        } catch (SQLException e) {
+            Assert.assertEquals("lost", e.getMessage());
+        }
+    }
+}
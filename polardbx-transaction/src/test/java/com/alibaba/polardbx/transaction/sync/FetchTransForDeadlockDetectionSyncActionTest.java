@@ -0,0 +1,96 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.transaction.sync;
+
+import com.alibaba.polardbx.executor.cursor.impl.ArrayResultCursor;
+import com.alibaba.polardbx.optimizer.context.ExecutionContext;
+import com.alibaba.polardbx.optimizer.core.row.Row;
+import com.alibaba.polardbx.optimizer.utils.IConnectionHolder;
+import com.alibaba.polardbx.optimizer.utils.ITransaction;
+import com.alibaba.polardbx.transaction.TransactionManager;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.MockedStatic;
+import org.mockito.Mockito;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.stream.Collectors;
+
+public class FetchTransForDeadlockDetectionSyncActionTest {
+
+    @Test
+    public void testFilterByConnIds() {
+        List<ITransaction> transactions = Arrays.asList(
+            mockTransaction(1L, 101L, "group_0", 11L, "group_1", 12L),
+            mockTransaction(2L, 102L, "group_0", 21L),
+            mockTransaction(3L, 103L, "group_1", 31L));
+        try (MockedStatic<TransactionManager> transactionManager = Mockito.mockStatic(TransactionManager.class)) {
+            transactionManager.when(() -> TransactionManager.getTransactions(Mockito.any()))
+                .thenReturn(transactions);
+
+            // 只返回持有给定 DN 连接的 (事务, 分组, 连接)
+            FetchTransForDeadlockDetectionSyncAction action = new FetchTransForDeadlockDetectionSyncAction(null);
+            action.setConnIds(new HashSet<>(Arrays.asList(12L, 31L, 99L)));
+            List<Row> rows = ((ArrayResultCursor) action.sync()).getRows();
+            Assert.assertEquals(Arrays.asList("1:group_1:12:101", "3:group_1:31:103"), toStrings(rows));
+
+            // 未设置 connIds 的请求 (如旧版本 CN 发出) 返回全部事务
+            action = new FetchTransForDeadlockDetectionSyncAction(null);
+            rows = ((ArrayResultCursor) action.sync()).getRows();
+            Assert.assertEquals(
+                Arrays.asList("1:group_0:11:101", "1:group_1:12:101", "2:group_0:21:102", "3:group_1:31:103"),
+                toStrings(rows));
+        }
+    }
+
+    private static List<String> toStrings(List<Row> rows) {
+        return rows.stream()
+            .map(row -> row.getObject(0) + ":" + row.getObject(1) + ":" + row.getObject(2) + ":" + row.getObject(3))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * @param groupAndConnIds 交替给出分组名与 DN 连接 id
+     */
+    private static ITransaction mockTransaction(long id, long frontendConnId, Object... groupAndConnIds) {
+        ExecutionContext ec = Mockito.mock(ExecutionContext.class);
+        Mockito.when(ec.getConnId()).thenReturn(frontendConnId);
+        Mockito.when(ec.getOriginSql()).thenReturn("select * from t where id = " + id + " for update");
+
+        IConnectionHolder connectionHolder = Mockito.mock(IConnectionHolder.class);
+        Mockito.doAnswer(invocation -> {
+            BiConsumer<String, Long> consumer = invocation.getArgument(0);
+            for (int i = 0; i < groupAndConnIds.length; i += 2) {
+                consumer.accept((String) groupAndConnIds[i], (Long) groupAndConnIds[i + 1]);
+            }
+            return null;
+        }).when(connectionHolder).handleConnIds(Mockito.any());
+
+        ITransaction transaction = Mockito.mock(ITransaction.class);
+        // 事务 id 足够小, 视为已运行超过 1s
+        Mockito.when(transaction.getId()).thenReturn(id);
+        Mockito.when(transaction.isDistributed()).thenReturn(true);
+        Mockito.when(transaction.isAsyncCommit()).thenReturn(false);
+        Mockito.when(transaction.getExecutionContext()).thenReturn(ec);
+        Mockito.when(transaction.getConnectionHolder()).thenReturn(connectionHolder);
+        Mockito.when(transaction.getStartTimeInMs()).thenReturn(0L);
+        return transaction;
+    }
+}
@@ -30,7 +30,9 @@ import com.alibaba.fastjson.JSON;
 import com.alibaba.fastjson.parser.Feature;
 import com.alibaba.fastjson.serializer.SerializerFeature;
 
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 
 public class SyncActionTest {
@@ -46,6 +48,13 @@ public class SyncActionTest {
         System.out.println(obj.toString());
 
         Assert.assertEquals(obj.getSchema(), action.getSchema());
+        Assert.assertNull(obj.getConnIds());
+
+        action.setConnIds(new HashSet<>(Arrays.asList(1L, 100L)));
+        data = JSON.toJSONString(action, SerializerFeature.WriteClassName);
+        obj = (FetchTransForDeadlockDetectionSyncAction) JSON.parse(data, Feature.SupportAutoType);
+        Assert.assertEquals(2, obj.getConnIds().size());
+        Assert.assertTrue(obj.getConnIds().contains(100L));
     }
 
     @Test
@@ -0,0 +1,101 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.transaction.tso;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Throughput and latency of {@link ClusterTimestampOracle#nextTimestamp()} against an in-process TSO source
+ * which simulates the metadb round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class ClusterTimestampOracleBenchmark {
+
+    @Param({"1", "4"})
+    private int maxInflight;
+
+    @Param({"200"})
+    private long rttMicros;
+
+    private ClusterTimestampOracle oracle;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        oracle = new ClusterTimestampOracle(new LocalTsoSource(rttMicros), maxInflight);
+        oracle.init();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        oracle.destroy();
+    }
+
+    @Benchmark
+    public long nextTimestamp() {
+        return oracle.nextTimestamp();
+    }
+
+    static class LocalTsoSource implements TsoSource {
+        private final AtomicLong clock = new AtomicLong(System.currentTimeMillis() << 22);
+        private final long rttNanos;
+
+        LocalTsoSource(long rttMicros) {
+            this.rttNanos = TimeUnit.MICROSECONDS.toNanos(rttMicros);
+        }
+
+        @Override
+        public long fetch(int count) {
+            final long base = clock.getAndAdd((long) count << ClusterTimestampOracle.BitReserved);
+            LockSupport.parkNanos(rttNanos);
+            return base;
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        Options options = new OptionsBuilder()
+            .include(ClusterTimestampOracleBenchmark.class.getSimpleName())
+            .build();
+        new Runner(options).run();
+    }
+}
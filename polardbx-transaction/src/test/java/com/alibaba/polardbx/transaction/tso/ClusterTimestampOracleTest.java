@@ -0,0 +1,98 @@
+/*
+ * Copyright [2013-2021], Alibaba Group Holding Limited
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.alibaba.polardbx.transaction.tso;
+
+import com.alibaba.polardbx.common.properties.ConnectionProperties;
+import com.alibaba.polardbx.common.properties.DynamicConfig;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class ClusterTimestampOracleTest {
+
+    private ClusterTimestampOracle oracle;
+
+    @After
+    public void tearDown() {
+        DynamicConfig.getInstance().loadValue(null, ConnectionProperties.TSO_SNAPSHOT_PREFETCH_WINDOW_MS, "0");
+        if (oracle != null) {
+            oracle.destroy();
+        }
+    }
+
+    @Test
+    public void testSnapshotNotOlderThanOwnCommit() {
+        DynamicConfig.getInstance().loadValue(null, ConnectionProperties.TSO_SNAPSHOT_PREFETCH_WINDOW_MS, "60000");
+        AtomicInteger fetches = new AtomicInteger();
+        ClusterTimestampOracleBenchmark.LocalTsoSource source = new ClusterTimestampOracleBenchmark.LocalTsoSource(0);
+        oracle = new ClusterTimestampOracle(count -> {
+            fetches.incrementAndGet();
+            return source.fetch(count);
+        }, 1);
+        oracle.init();
+
+        long beforeFetch = System.nanoTime() - 1;
+        // Fills the prefetched range
+        oracle.nextTimestamp();
+        Assert.assertEquals(1, fetches.get());
+
+        // A session that has not committed since before the fetch is served from the range
+        oracle.nextSnapshotTimestamp(beforeFetch);
+        Assert.assertEquals(1, fetches.get());
+
+        // A commit finished after the range was fetched forces a new TSO
+        long commitTso = oracle.nextTimestamp();
+        long committedNanos = System.nanoTime();
+        Assert.assertEquals(2, fetches.get());
+        long snapshot = oracle.nextSnapshotTimestamp(committedNanos);
+        Assert.assertEquals(3, fetches.get());
+        Assert.assertTrue(snapshot > commitTso);
+    }
+
+    @Test
+    public void testDestroyFailsInflightWaiters() throws Exception {
+        CountDownLatch fetching = new CountDownLatch(1);
+        oracle = new ClusterTimestampOracle(count -> {
+            fetching.countDown();
+            Thread.sleep(Long.MAX_VALUE);
+            return 0;
+        }, 1);
+        oracle.init();
+
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        Thread waiter = new Thread(() -> {
+            try {
+                oracle.nextTimestamp();
+            } catch (Throwable t) {
+                error.set(t);
+            }
+        });
+        waiter.start();
+        Assert.assertTrue(fetching.await(10, TimeUnit.SECONDS));
+
+        // The waiter is in the batch being fetched, it must fail fast instead of waiting until timeout
+        oracle.destroy();
+        waiter.join(5000);
+        Assert.assertFalse(waiter.isAlive());
+        Assert.assertTrue(String.valueOf(error.get()), error.get().getMessage().contains("TSO fetcher stopped"));
+    }
+}